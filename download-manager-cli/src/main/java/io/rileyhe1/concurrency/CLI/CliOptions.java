@@ -0,0 +1,231 @@
+package io.rileyhe1.concurrency.CLI;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.WriteMode;
+
+/**
+ * Command line flags for DownloadManagerCli. Anything that maps onto DownloadConfig goes straight into a builder,
+ * so a bad value is rejected with the same IllegalArgumentException the builder would throw anywhere else.
+ */
+public class CliOptions
+{
+    public static final String USAGE = String.join(System.lineSeparator(),
+        "Usage: download-manager [options] [url ...]",
+        "",
+        "Downloads every url given on the command line and every line of --input, one JSON object per line on stdout.",
+        "Input lines are a url optionally followed by a destination, blank lines and lines starting with # are skipped.",
+        "With no urls and no --input, urls are read from stdin.",
+        "",
+        "Options:",
+        "  -i, --input FILE               read urls from FILE, - for stdin",
+        "  -o, --output-dir DIR           where downloads without a destination are saved (default .)",
+        "      --temp-dir DIR             where chunks are kept until they are assembled",
+        "  -j, --parallel N               downloads running at once (default 4)",
+        "  -t, --threads N                chunk connections across all downloads (default 4)",
+        "      --connections-per-host N   chunk connections to any one host",
+        "      --chunk-size SIZE          bytes per chunk, e.g. 8M",
+        "      --limit RATE               total bandwidth in bytes per second, e.g. 10M",
+        "      --limit-per-host RATE      bandwidth for each host",
+        "      --limit-per-download RATE  bandwidth for each download",
+        "      --retries N                attempts per chunk before the download fails",
+        "      --write-mode MODE          temp_files, streaming or direct",
+        "      --progress-interval MS     how often progress lines are written, 0 for none (default 1000)",
+        "      --metrics-port PORT        serve Prometheus metrics at /metrics on PORT",
+        "      --resume                   resume downloads an earlier run left unfinished",
+        "      --daemon                   keep running once the input ends, until SIGTERM",
+        "  -h, --help                     show this message");
+
+    private static final Set<String> VALUE_FLAGS = Set.of("-i", "--input", "-o", "--output-dir", "--temp-dir",
+        "-j", "--parallel", "-t", "--threads", "--connections-per-host", "--chunk-size", "--limit", "--limit-per-host",
+        "--limit-per-download", "--retries", "--write-mode", "--progress-interval", "--metrics-port");
+
+    private final DownloadConfig.Builder config = DownloadConfig.builder();
+    private final List<String> urls = new ArrayList<>();
+    private String input;
+    private String outputDirectory = ".";
+    private int parallel = 4;
+    private long progressIntervalMS = 1000;
+    private boolean resume = false;
+    private boolean daemon = false;
+    private boolean help = false;
+
+    private CliOptions()
+    {
+    }
+
+    public static CliOptions parse(String... args)
+    {
+        CliOptions options = new CliOptions();
+        for(int i = 0; i < args.length; i++)
+        {
+            String arg = args[i];
+            // --flag=value is the same as --flag value
+            String value = null;
+            int equals = arg.indexOf('=');
+            if(arg.startsWith("--") && equals > 0)
+            {
+                value = arg.substring(equals + 1);
+                arg = arg.substring(0, equals);
+            }
+            switch(arg)
+            {
+                case "-h", "--help" -> options.help = true;
+                case "--resume" -> options.resume = true;
+                case "--daemon" -> options.daemon = true;
+                default ->
+                {
+                    if(arg.equals("-"))
+                    {
+                        options.input = "-";
+                        continue;
+                    }
+                    if(!arg.startsWith("-"))
+                    {
+                        options.urls.add(arg);
+                        continue;
+                    }
+                    if(!VALUE_FLAGS.contains(arg)) throw new IllegalArgumentException("Unknown option: " + arg);
+                    if(value == null)
+                    {
+                        if(i + 1 >= args.length) throw new IllegalArgumentException("Missing value for " + arg);
+                        value = args[++i];
+                    }
+                    options.set(arg, value);
+                }
+            }
+        }
+        return options;
+    }
+
+    private void set(String flag, String value)
+    {
+        switch(flag)
+        {
+            case "-i", "--input" -> input = value;
+            case "-o", "--output-dir" -> outputDirectory = value;
+            case "--temp-dir" -> config.tempDirectory(value);
+            case "-j", "--parallel" ->
+            {
+                parallel = parseInt(flag, value);
+                if(parallel <= 0) throw new IllegalArgumentException("Parallel downloads must be positive");
+            }
+            case "-t", "--threads" -> config.numberOfThreads(parseInt(flag, value));
+            case "--connections-per-host" -> config.maxConnectionsPerHost(parseInt(flag, value));
+            case "--chunk-size" -> config.chunkSize(parseSize(flag, value));
+            case "--limit" -> config.maxBytesPerSecond(parseSize(flag, value));
+            case "--limit-per-host" -> config.maxBytesPerSecondPerHost(parseSize(flag, value));
+            case "--limit-per-download" -> config.maxBytesPerSecondPerDownload(parseSize(flag, value));
+            case "--retries" -> config.maxRetries(parseInt(flag, value));
+            case "--write-mode" ->
+            {
+                try
+                {
+                    config.writeMode(WriteMode.valueOf(value.toUpperCase(Locale.ROOT)));
+                }
+                catch(IllegalArgumentException e)
+                {
+                    throw new IllegalArgumentException("Unknown write mode: " + value);
+                }
+            }
+            case "--progress-interval" ->
+            {
+                progressIntervalMS = parseInt(flag, value);
+                if(progressIntervalMS < 0) throw new IllegalArgumentException("Progress interval cannot be negative");
+            }
+            case "--metrics-port" -> config.metricsPort(parseInt(flag, value));
+            default -> throw new IllegalArgumentException("Unknown option: " + flag);
+        }
+    }
+
+    private static int parseInt(String flag, String value)
+    {
+        try
+        {
+            return Integer.parseInt(value);
+        }
+        catch(NumberFormatException e)
+        {
+            throw new IllegalArgumentException("Expected a number for " + flag + ", was: " + value);
+        }
+    }
+
+    // a byte count with an optional K, M or G suffix (powers of 1024), so 10M is 10485760
+    private static long parseSize(String flag, String value)
+    {
+        String number = value.trim().toUpperCase(Locale.ROOT);
+        long multiplier = 1;
+        if(number.endsWith("B")) number = number.substring(0, number.length() - 1);
+        if(!number.isEmpty())
+        {
+            switch(number.charAt(number.length() - 1))
+            {
+                case 'K' -> multiplier = 1024L;
+                case 'M' -> multiplier = 1024L * 1024;
+                case 'G' -> multiplier = 1024L * 1024 * 1024;
+                default -> multiplier = 1;
+            }
+            if(multiplier > 1) number = number.substring(0, number.length() - 1);
+        }
+        try
+        {
+            return Math.multiplyExact(Long.parseLong(number), multiplier);
+        }
+        catch(NumberFormatException | ArithmeticException e)
+        {
+            throw new IllegalArgumentException("Expected a size like 512K or 10M for " + flag + ", was: " + value);
+        }
+    }
+
+    public DownloadConfig buildConfig()
+    {
+        // the manager's own queue keeps to --parallel, for saved downloads --resume picks up as much as for new urls
+        return config.maxConcurrentDownloads(parallel).build();
+    }
+
+    public List<String> getUrls()
+    {
+        return Collections.unmodifiableList(urls);
+    }
+
+    // null when no --input was given
+    public String getInput()
+    {
+        return input;
+    }
+
+    public String getOutputDirectory()
+    {
+        return outputDirectory;
+    }
+
+    public int getParallel()
+    {
+        return parallel;
+    }
+
+    public long getProgressIntervalMS()
+    {
+        return progressIntervalMS;
+    }
+
+    public boolean isResume()
+    {
+        return resume;
+    }
+
+    public boolean isDaemon()
+    {
+        return daemon;
+    }
+
+    public boolean isHelp()
+    {
+        return help;
+    }
+}
@@ -0,0 +1,341 @@
+package io.rileyhe1.concurrency.CLI;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.rileyhe1.concurrency.DownloadManager;
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.DownloadException;
+import io.rileyhe1.concurrency.Data.DownloadState;
+import io.rileyhe1.concurrency.Data.SavedDownload;
+import io.rileyhe1.concurrency.Util.Download;
+
+/**
+ * Headless entry point: drives a DownloadManager from the command line without touching JavaFX.
+ *
+ * Urls come from the arguments and from a file or stdin, one per line, and run at most --parallel at a time.
+ * Progress and results go to stdout as JSON lines (see JsonLinesReporter). SIGTERM or Ctrl+C runs
+ * DownloadManager.shutdown() from a shutdown hook, which stops and journals whatever is still running so
+ * the next run with --resume carries on from there.
+ * Exits 0 once every download completed, 1 if any failed and 2 for bad arguments.
+ */
+public class DownloadManagerCli
+{
+    // how often the loop checks on downloads and new input, progress lines go out on their own interval
+    private static final long POLL_MS = 100;
+    // a stopped download waits up to a second for its chunks, so this covers a good few of them being saved
+    private static final long SHUTDOWN_WAIT_SECONDS = 30;
+
+    private final CliOptions options;
+    private final DownloadConfig config;
+    private final JsonLinesReporter reporter;
+    // urls waiting for a free slot, each is a url and optionally a destination
+    private final BlockingQueue<String[]> pending = new LinkedBlockingQueue<>();
+    // only touched by the thread in run(), download to when it started
+    private final Map<Download, Long> running = new LinkedHashMap<>();
+    private final Set<Path> destinations = new HashSet<>();
+    private final CountDownLatch stopRequested = new CountDownLatch(1);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile boolean inputDone = false;
+    private DownloadManager manager;
+    private Path outputDirectory;
+    private int completed = 0;
+    private int failed = 0;
+
+    public DownloadManagerCli(CliOptions options, PrintStream out)
+    {
+        this.options = options;
+        this.config = options.buildConfig();
+        this.reporter = new JsonLinesReporter(out);
+    }
+
+    public static void main(String[] args)
+    {
+        DownloadManagerCli cli;
+        try
+        {
+            CliOptions options = CliOptions.parse(args);
+            if(options.isHelp())
+            {
+                System.out.println(CliOptions.USAGE);
+                return;
+            }
+            cli = new DownloadManagerCli(options, System.out);
+        }
+        catch(IllegalArgumentException e)
+        {
+            System.err.println(e.getMessage());
+            System.err.println(CliOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        // SIGTERM and Ctrl+C run shutdown hooks, this one stops the loop and waits for the manager to save everything
+        Runtime.getRuntime().addShutdownHook(new Thread(cli::stop, "download-manager-shutdown"));
+        int status;
+        try
+        {
+            status = cli.run(System.in);
+        }
+        catch(IOException | DownloadException e)
+        {
+            System.err.println("Download manager failed: " + e.getMessage());
+            status = 1;
+        }
+        System.exit(status);
+    }
+
+    // runs until every url has been dealt with (or, with --daemon, until stop()), stdin is only read if asked for
+    public int run(InputStream stdin) throws IOException, DownloadException
+    {
+        try
+        {
+            outputDirectory = Paths.get(options.getOutputDirectory());
+            Files.createDirectories(outputDirectory);
+            for(String url : options.getUrls())
+            {
+                pending.add(new String[] {url});
+            }
+            String input = options.getInput();
+            if(input == null && options.getUrls().isEmpty()) input = "-";
+            if(input == null) inputDone = true;
+            else startReader(input.equals("-") ? stdin : Files.newInputStream(Paths.get(input)));
+
+            manager = new DownloadManager(config);
+            try
+            {
+                loop();
+            }
+            finally
+            {
+                finish();
+            }
+            return failed > 0 ? 1 : 0;
+        }
+        finally
+        {
+            finished.countDown();
+        }
+    }
+
+    // asks run() to stop and waits for it to have shut the manager down, safe to call from a shutdown hook
+    public void stop()
+    {
+        stopRequested.countDown();
+        try
+        {
+            finished.await(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loop()
+    {
+        if(options.isResume()) resumeSaved();
+        long progressIntervalNanos = TimeUnit.MILLISECONDS.toNanos(options.getProgressIntervalMS());
+        long nextProgress = System.nanoTime() + progressIntervalNanos;
+        try
+        {
+            while(stopRequested.getCount() > 0)
+            {
+                startPending();
+                reapFinished();
+                if(progressIntervalNanos > 0 && System.nanoTime() - nextProgress >= 0)
+                {
+                    for(Download download : running.keySet())
+                    {
+                        if(download.getState() == DownloadState.DOWNLOADING) reporter.progress(download);
+                    }
+                    nextProgress = System.nanoTime() + progressIntervalNanos;
+                }
+                // inputDone is read first, once it is set every line the reader queued is already in pending
+                if(!options.isDaemon() && inputDone && pending.isEmpty() && running.isEmpty()) return;
+                stopRequested.await(POLL_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void finish()
+    {
+        reapFinished();
+        // stops and journals anything still going
+        manager.shutdown();
+        int unfinished = 0;
+        for(Download download : running.keySet())
+        {
+            if(report(download)) continue;
+            reporter.ended(download, "stopped");
+            unfinished++;
+        }
+        running.clear();
+        reporter.summary(completed, failed, unfinished + pending.size());
+    }
+
+    // every unfinished download is handed to the manager at once, its queue (maxConcurrentDownloads is --parallel)
+    // starts them a few at a time, and startPending holds new urls back until they're down to fewer than --parallel
+    private void resumeSaved()
+    {
+        for(SavedDownload saved : manager.getSavedDownloads())
+        {
+            // anything that hadn't finished, including downloads cut off by a crash (still DOWNLOADING in the journal)
+            // and ones that were waiting in the queue (PENDING)
+            String state = saved.getState();
+            if(DownloadState.COMPLETED.name().equals(state) || DownloadState.FAILED.name().equals(state)
+                || DownloadState.CANCELLED.name().equals(state)) continue;
+            try
+            {
+                manager.resumeDownload(saved.getId());
+                Download download = manager.getDownload(saved.getId());
+                running.put(download, System.nanoTime());
+                destinations.add(Paths.get(download.getDestination()));
+                reporter.resumed(download);
+            }
+            catch(IllegalArgumentException | IllegalStateException e)
+            {
+                failed++;
+                reporter.rejected(saved.getUrl(), e);
+            }
+        }
+    }
+
+    private void startPending()
+    {
+        String[] entry;
+        while(running.size() < options.getParallel() && (entry = pending.poll()) != null)
+        {
+            String url = entry[0];
+            try
+            {
+                Path destination = entry.length > 1 ? outputDirectory.resolve(entry[1]) : nextDestination(url);
+                destinations.add(destination);
+                // probes the url before returning, so a dead link is rejected here rather than failing later
+                Download download = manager.startDownload(url, destination.toString());
+                running.put(download, System.nanoTime());
+                reporter.started(download);
+            }
+            catch(DownloadException | IllegalArgumentException e)
+            {
+                failed++;
+                reporter.rejected(url, e);
+            }
+        }
+    }
+
+    private void reapFinished()
+    {
+        for(Download download : new ArrayList<>(running.keySet()))
+        {
+            if(!report(download)) continue;
+            running.remove(download);
+            // a daemon would otherwise keep every download it ever finished until it exits
+            manager.removeDownload(download.getId());
+        }
+    }
+
+    // reports a download that has finished one way or another, false if it is still going
+    private boolean report(Download download)
+    {
+        switch(download.getState())
+        {
+            case COMPLETED ->
+            {
+                completed++;
+                reporter.completed(download, Duration.ofNanos(System.nanoTime() - running.get(download)));
+            }
+            case FAILED ->
+            {
+                failed++;
+                reporter.failed(download);
+            }
+            case CANCELLED -> reporter.ended(download, "cancelled");
+            default ->
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the last segment of the url's path in the output directory, with .1, .2 and so on added rather than
+    // overwriting a file that is already there or that an earlier url in this run is going to
+    private Path nextDestination(String url)
+    {
+        String name = fileName(url);
+        Path destination = outputDirectory.resolve(name);
+        for(int n = 1; destinations.contains(destination) || Files.exists(destination); n++)
+        {
+            destination = outputDirectory.resolve(name + "." + n);
+        }
+        return destination;
+    }
+
+    private static String fileName(String url)
+    {
+        String path;
+        try
+        {
+            path = URI.create(url).getPath();
+        }
+        catch(IllegalArgumentException e)
+        {
+            path = null;
+        }
+        if(path != null) path = path.substring(path.lastIndexOf('/') + 1);
+        if(path == null || path.isBlank() || path.equals(".") || path.equals("..")) return "download";
+        return path;
+    }
+
+    // lines are read on their own thread so urls piped in over time start as they arrive
+    private void startReader(InputStream in)
+    {
+        Thread reader = new Thread(() ->
+        {
+            try(BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)))
+            {
+                String line;
+                while((line = lines.readLine()) != null)
+                {
+                    line = line.strip();
+                    if(line.isEmpty() || line.startsWith("#")) continue;
+                    pending.add(line.split("\\s+", 2));
+                }
+            }
+            catch(IOException e)
+            {
+                System.err.println("Failed to read urls: " + e.getMessage());
+            }
+            finally
+            {
+                inputDone = true;
+            }
+        }, "url-reader");
+        // a read from stdin can't be interrupted, it mustn't hold the JVM open
+        reader.setDaemon(true);
+        reader.start();
+    }
+}
@@ -0,0 +1,124 @@
+package io.rileyhe1.concurrency.CLI;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.Instant;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import io.rileyhe1.concurrency.Util.Download;
+
+/**
+ * Writes what the CLI is doing as one JSON object per line, so a supervisor or log shipper can follow it without
+ * scraping human-readable text. Every line has an "event" and a "time", download lines also carry the download's id.
+ */
+public class JsonLinesReporter
+{
+    private final Gson gson = new Gson();
+    private final PrintStream out;
+
+    public JsonLinesReporter(PrintStream out)
+    {
+        this.out = out;
+    }
+
+    public void started(Download download)
+    {
+        JsonObject line = event("started", download);
+        line.addProperty("url", download.getUrl());
+        line.addProperty("destination", download.getDestination());
+        line.addProperty("totalBytes", download.getTotalSize());
+        write(line);
+    }
+
+    public void resumed(Download download)
+    {
+        JsonObject line = event("resumed", download);
+        line.addProperty("url", download.getUrl());
+        line.addProperty("destination", download.getDestination());
+        line.addProperty("downloadedBytes", download.getDownloadedBytes());
+        line.addProperty("totalBytes", download.getTotalSize());
+        write(line);
+    }
+
+    public void progress(Download download)
+    {
+        JsonObject line = event("progress", download);
+        line.addProperty("downloadedBytes", download.getDownloadedBytes());
+        line.addProperty("totalBytes", download.getTotalSize());
+        line.addProperty("bytesPerSecond", Math.round(download.getBytesPerSecond()));
+        Duration eta = download.getEta();
+        if(eta != null) line.addProperty("etaSeconds", eta.toSeconds());
+        line.addProperty("connections", download.getActiveConnections());
+        line.addProperty("retries", download.getRetryCount());
+        write(line);
+    }
+
+    public void completed(Download download, Duration elapsed)
+    {
+        JsonObject line = event("completed", download);
+        line.addProperty("destination", download.getDestination());
+        line.addProperty("bytes", download.getTotalSize());
+        line.addProperty("seconds", elapsed.toMillis() / 1000.0);
+        if(download.getSha256() != null) line.addProperty("sha256", download.getSha256());
+        write(line);
+    }
+
+    public void failed(Download download)
+    {
+        JsonObject line = event("failed", download);
+        line.addProperty("url", download.getUrl());
+        Exception error = download.getError();
+        line.addProperty("error", error == null ? "unknown" : describe(error));
+        write(line);
+    }
+
+    // a download that never got as far as having an id, e.g. the HEAD probe failed
+    public void rejected(String url, Exception error)
+    {
+        JsonObject line = event("failed", null);
+        line.addProperty("url", url);
+        line.addProperty("error", describe(error));
+        write(line);
+    }
+
+    public void ended(Download download, String event)
+    {
+        JsonObject line = event(event, download);
+        line.addProperty("downloadedBytes", download.getDownloadedBytes());
+        line.addProperty("totalBytes", download.getTotalSize());
+        write(line);
+    }
+
+    public void summary(int completed, int failed, int unfinished)
+    {
+        JsonObject line = event("summary", null);
+        line.addProperty("completed", completed);
+        line.addProperty("failed", failed);
+        line.addProperty("unfinished", unfinished);
+        write(line);
+    }
+
+    private static JsonObject event(String event, Download download)
+    {
+        JsonObject line = new JsonObject();
+        line.addProperty("event", event);
+        line.addProperty("time", Instant.now().toString());
+        if(download != null) line.addProperty("id", download.getId());
+        return line;
+    }
+
+    // a failed download's error already carries its cause's message ("Download Failed: ...")
+    private static String describe(Exception error)
+    {
+        return error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage();
+    }
+
+    // lines from the main loop and the shutdown hook must not interleave
+    private synchronized void write(JsonObject line)
+    {
+        out.println(gson.toJson(line));
+        out.flush();
+    }
+}
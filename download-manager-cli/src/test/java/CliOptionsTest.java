@@ -0,0 +1,163 @@
+import io.rileyhe1.concurrency.CLI.CliOptions;
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.WriteMode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for CliOptions class.
+ * Checks flag parsing, size suffixes, and that config values are validated by DownloadConfig.Builder.
+ */
+class CliOptionsTest
+{
+    // ============================================================
+    // DEFAULTS
+    // ============================================================
+
+    @Test
+    void testDefaults()
+    {
+        CliOptions options = CliOptions.parse();
+        assertTrue(options.getUrls().isEmpty());
+        assertNull(options.getInput());
+        assertEquals(".", options.getOutputDirectory());
+        assertEquals(4, options.getParallel());
+        assertEquals(1000, options.getProgressIntervalMS());
+        assertFalse(options.isResume());
+        assertFalse(options.isDaemon());
+        assertFalse(options.isHelp());
+
+        DownloadConfig defaults = DownloadConfig.builder().build();
+        DownloadConfig config = options.buildConfig();
+        assertEquals(defaults.getNumberOfThreads(), config.getNumberOfThreads());
+        assertEquals(defaults.getMaxBytesPerSecond(), config.getMaxBytesPerSecond());
+        assertEquals(-1, config.getMetricsPort());
+    }
+
+    // ============================================================
+    // PARSING
+    // ============================================================
+
+    @Test
+    void testUrlsAndFlags()
+    {
+        CliOptions options = CliOptions.parse("-o", "out", "http://a/1.bin", "--parallel", "2", "http://b/2.bin",
+            "-t", "8", "--resume", "--daemon");
+        assertEquals(List.of("http://a/1.bin", "http://b/2.bin"), options.getUrls());
+        assertEquals("out", options.getOutputDirectory());
+        assertEquals(2, options.getParallel());
+        assertEquals(2, options.buildConfig().getMaxConcurrentDownloads(), "The manager's queue should keep to -j");
+        assertEquals(8, options.buildConfig().getNumberOfThreads());
+        assertTrue(options.isResume());
+        assertTrue(options.isDaemon());
+    }
+
+    @Test
+    void testEqualsForm()
+    {
+        CliOptions options = CliOptions.parse("--input=urls.txt", "--threads=6", "--write-mode=direct");
+        assertEquals("urls.txt", options.getInput());
+        assertEquals(6, options.buildConfig().getNumberOfThreads());
+        assertEquals(WriteMode.DIRECT, options.buildConfig().getWriteMode());
+    }
+
+    @Test
+    void testDashMeansStdin()
+    {
+        assertEquals("-", CliOptions.parse("-").getInput());
+        assertEquals("-", CliOptions.parse("-i", "-").getInput());
+    }
+
+    @Test
+    void testConfigFlags()
+    {
+        DownloadConfig config = CliOptions.parse("--connections-per-host", "3", "--retries", "7", "--temp-dir", "chunks",
+            "--metrics-port", "0", "--write-mode", "Streaming").buildConfig();
+        assertEquals(3, config.getMaxConnectionsPerHost());
+        assertEquals(7, config.getMaxRetries());
+        assertEquals("chunks", config.getTempDirectory());
+        assertEquals(0, config.getMetricsPort());
+        assertEquals(WriteMode.STREAMING, config.getWriteMode());
+    }
+
+    @Test
+    void testHelp()
+    {
+        assertTrue(CliOptions.parse("-h").isHelp());
+        assertTrue(CliOptions.parse("--help").isHelp());
+        assertTrue(CliOptions.USAGE.contains("--parallel"));
+    }
+
+    // ============================================================
+    // SIZES AND RATES
+    // ============================================================
+
+    @Test
+    void testSizeSuffixes()
+    {
+        DownloadConfig config = CliOptions.parse("--limit", "10M", "--limit-per-host", "512k", "--limit-per-download", "2000",
+            "--chunk-size", "1GB").buildConfig();
+        assertEquals(10L * 1024 * 1024, config.getMaxBytesPerSecond());
+        assertEquals(512L * 1024, config.getMaxBytesPerSecondPerHost());
+        assertEquals(2000, config.getMaxBytesPerSecondPerDownload());
+        assertEquals(1024L * 1024 * 1024, config.getChunkSize());
+    }
+
+    @Test
+    void testBadSizesRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--limit", "fast"));
+        assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--limit", "M"));
+        assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--limit", "99999999999G"), "Overflow should be caught");
+        assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--limit", "-1M"), "The builder rejects negative rates");
+    }
+
+    // ============================================================
+    // ERRORS
+    // ============================================================
+
+    @Test
+    void testUnknownOption()
+    {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--fast"));
+        assertTrue(e.getMessage().contains("--fast"));
+        e = assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--fast", "http://a/1.bin"));
+        assertTrue(e.getMessage().startsWith("Unknown option"), "An unknown flag shouldn't swallow the url after it");
+    }
+
+    @Test
+    void testMissingValue()
+    {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("http://a/1.bin", "--threads"));
+        assertTrue(e.getMessage().contains("--threads"));
+    }
+
+    @Test
+    void testBadNumbers()
+    {
+        assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--threads", "many"));
+        assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--threads", "0"), "The builder rejects 0 threads");
+        assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--parallel", "0"));
+        assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--progress-interval", "-5"));
+        assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--metrics-port", "70000"));
+    }
+
+    @Test
+    void testUnknownWriteMode()
+    {
+        assertThrows(IllegalArgumentException.class, () -> CliOptions.parse("--write-mode", "sideways"));
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all CliOptions tests:
+   mvn test -Dtest=CliOptionsTest
+
+============================================================ */
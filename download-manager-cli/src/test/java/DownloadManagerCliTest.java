@@ -0,0 +1,401 @@
+import io.rileyhe1.concurrency.CLI.CliOptions;
+import io.rileyhe1.concurrency.CLI.DownloadManagerCli;
+import io.rileyhe1.concurrency.Data.DownloadSnapshot;
+import io.rileyhe1.concurrency.Data.DownloadState;
+import io.rileyhe1.concurrency.Util.DownloadJournal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for DownloadManagerCli class.
+ * Runs the CLI in-process against the local range server and reads back the JSON lines it writes.
+ */
+class DownloadManagerCliTest
+{
+    private static final InputStream NO_STDIN = new ByteArrayInputStream(new byte[0]);
+
+    private Path tempDir;
+    private Path outputDir;
+    private ByteArrayOutputStream output;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDirectory) throws IOException
+    {
+        tempDir = tempDirectory;
+        outputDir = tempDirectory.resolve("out");
+        output = new ByteArrayOutputStream();
+        Files.deleteIfExists(Paths.get("downloads.journal"));
+        Files.deleteIfExists(Paths.get("downloads.json"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        Files.deleteIfExists(Paths.get("downloads.journal"));
+    }
+
+    private DownloadManagerCli cli(String... args)
+    {
+        List<String> all = new ArrayList<>(List.of("-o", outputDir.toString(), "--temp-dir", tempDir.resolve("chunks").toString(),
+            "--chunk-size", "64K", "--progress-interval", "0"));
+        all.addAll(List.of(args));
+        return new DownloadManagerCli(CliOptions.parse(all.toArray(new String[0])), new PrintStream(output, true, StandardCharsets.UTF_8));
+    }
+
+    private List<JsonObject> lines()
+    {
+        List<JsonObject> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\\R"))
+        {
+            if (!line.isEmpty()) lines.add(JsonParser.parseString(line).getAsJsonObject());
+        }
+        return lines;
+    }
+
+    private List<JsonObject> events(String event)
+    {
+        List<JsonObject> matching = new ArrayList<>();
+        for (JsonObject line : lines())
+        {
+            if (line.get("event").getAsString().equals(event)) matching.add(line);
+        }
+        return matching;
+    }
+
+    private JsonObject first(String event)
+    {
+        List<JsonObject> matching = events(event);
+        assertFalse(matching.isEmpty(), "No " + event + " line in:\n" + output.toString(StandardCharsets.UTF_8));
+        return matching.get(0);
+    }
+
+    private JsonObject summary()
+    {
+        List<JsonObject> summaries = events("summary");
+        assertEquals(1, summaries.size(), "Exactly one summary should be written");
+        return summaries.get(0);
+    }
+
+    private void waitForEvent(String event) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (events(event).isEmpty())
+        {
+            assertTrue(System.nanoTime() < deadline, "Timed out waiting for a " + event + " line");
+            Thread.sleep(20);
+        }
+    }
+
+    // ============================================================
+    // BATCH TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    void testDownloadsUrlsFromArguments() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(200 * 1024).start())
+        {
+            int status = cli(origin.url()).run(NO_STDIN);
+
+            assertEquals(0, status);
+            Path file = outputDir.resolve("file.bin");
+            assertEquals(200 * 1024, Files.size(file));
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(file), 0));
+
+            JsonObject started = first("started");
+            assertEquals(origin.url(), started.get("url").getAsString());
+            assertEquals(200 * 1024, started.get("totalBytes").getAsLong());
+            JsonObject completed = first("completed");
+            assertEquals(started.get("id"), completed.get("id"));
+            assertEquals(file.toString(), completed.get("destination").getAsString());
+            assertEquals(1, summary().get("completed").getAsInt());
+            assertEquals(0, summary().get("unfinished").getAsInt());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testDownloadsUrlsFromInputFile() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(100 * 1024).start())
+        {
+            Path list = tempDir.resolve("urls.txt");
+            Files.writeString(list, String.join("\n",
+                "# nightly mirror",
+                origin.url(),
+                "",
+                "   " + origin.url() + "   renamed.bin"));
+
+            int status = cli("--input", list.toString()).run(NO_STDIN);
+
+            assertEquals(0, status);
+            assertEquals(2, events("started").size(), "Comments and blank lines should be skipped");
+            assertEquals(100 * 1024, Files.size(outputDir.resolve("file.bin")));
+            assertEquals(100 * 1024, Files.size(outputDir.resolve("renamed.bin")));
+            assertEquals(2, summary().get("completed").getAsInt());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testReadsStdinWhenNoUrlsGiven() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(64 * 1024).start())
+        {
+            InputStream stdin = new ByteArrayInputStream((origin.url() + "\n").getBytes(StandardCharsets.UTF_8));
+
+            assertEquals(0, cli().run(stdin));
+            assertEquals(1, summary().get("completed").getAsInt());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testSameNameGetsSuffix() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(64 * 1024).start())
+        {
+            Files.createDirectories(outputDir);
+            Files.writeString(outputDir.resolve("file.bin"), "already here");
+
+            assertEquals(0, cli(origin.url(), origin.url()).run(NO_STDIN));
+
+            assertEquals("already here", Files.readString(outputDir.resolve("file.bin")), "An existing file should not be overwritten");
+            assertEquals(64 * 1024, Files.size(outputDir.resolve("file.bin.1")));
+            assertEquals(64 * 1024, Files.size(outputDir.resolve("file.bin.2")));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testFailedUrlSetsExitStatus() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(64 * 1024).start())
+        {
+            String dead = LocalRangeServer.unreachableUrl();
+
+            int status = cli(dead, origin.url()).run(NO_STDIN);
+
+            assertEquals(1, status);
+            JsonObject failed = first("failed");
+            assertEquals(dead, failed.get("url").getAsString());
+            assertFalse(failed.get("error").getAsString().isEmpty());
+            assertEquals(1, summary().get("completed").getAsInt(), "One dead url shouldn't stop the rest");
+            assertEquals(1, summary().get("failed").getAsInt());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testParallelLimit() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(256 * 1024).bytesPerSecond(512 * 1024).start())
+        {
+            assertEquals(0, cli("-j", "1", origin.url(), origin.url(), origin.url()).run(NO_STDIN));
+
+            List<String> order = new ArrayList<>();
+            for (JsonObject line : lines())
+            {
+                String event = line.get("event").getAsString();
+                if (event.equals("started") || event.equals("completed")) order.add(event);
+            }
+            assertEquals(List.of("started", "completed", "started", "completed", "started", "completed"), order,
+                "With -j 1 each download should finish before the next starts");
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testProgressLines() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(512 * 1024).bytesPerSecond(256 * 1024).start())
+        {
+            assertEquals(0, cli("--progress-interval", "100", origin.url()).run(NO_STDIN));
+
+            List<JsonObject> progress = events("progress");
+            assertFalse(progress.isEmpty(), "A download lasting about a second should report progress");
+            JsonObject last = progress.get(progress.size() - 1);
+            assertEquals(512 * 1024, last.get("totalBytes").getAsLong());
+            assertTrue(last.get("downloadedBytes").getAsLong() > 0);
+            assertTrue(last.has("bytesPerSecond"));
+            assertTrue(last.has("time"));
+        }
+    }
+
+    // ============================================================
+    // DAEMON AND SHUTDOWN TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    void testDaemonKeepsRunningUntilStopped() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(64 * 1024).start())
+        {
+            DownloadManagerCli daemon = cli("--daemon", origin.url());
+            CompletableFuture<Integer> status = CompletableFuture.supplyAsync(() -> run(daemon, NO_STDIN));
+
+            waitForEvent("completed");
+            Thread.sleep(300);
+            assertFalse(status.isDone(), "A daemon should outlive its input");
+
+            daemon.stop();
+            assertEquals(0, status.get(10, TimeUnit.SECONDS));
+            assertEquals(1, summary().get("completed").getAsInt());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testUrlsPipedInOverTimeStartAsTheyArrive() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(64 * 1024).start();
+             PipedOutputStream pipe = new PipedOutputStream();
+             PipedInputStream stdin = new PipedInputStream(pipe))
+        {
+            DownloadManagerCli daemon = cli("--daemon");
+            CompletableFuture<Integer> status = CompletableFuture.supplyAsync(() -> run(daemon, stdin));
+
+            pipe.write((origin.url() + "\n").getBytes(StandardCharsets.UTF_8));
+            pipe.flush();
+            waitForEvent("completed");
+
+            daemon.stop();
+            assertEquals(0, status.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testStopSavesDownloadForResume() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(4 * 1024 * 1024).bytesPerSecond(256 * 1024).start())
+        {
+            DownloadManagerCli first = cli(origin.url());
+            CompletableFuture<Integer> status = CompletableFuture.supplyAsync(() -> run(first, NO_STDIN));
+            waitForEvent("started");
+            Thread.sleep(300);
+
+            // what the shutdown hook does on SIGTERM
+            first.stop();
+            status.get(10, TimeUnit.SECONDS);
+            JsonObject stopped = first("stopped");
+            assertTrue(stopped.get("downloadedBytes").getAsLong() < 4 * 1024 * 1024);
+            assertEquals(1, summary().get("unfinished").getAsInt());
+
+            output.reset();
+            assertEquals(0, cli("--resume").run(NO_STDIN));
+            assertEquals(stopped.get("id"), first("resumed").get("id"), "The stopped download should be picked up again");
+            assertEquals(1, summary().get("completed").getAsInt());
+            Path file = outputDir.resolve("file.bin");
+            assertEquals(4 * 1024 * 1024, Files.size(file));
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(file), 0));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testResumesDownloadsCutOffByACrash() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(256 * 1024).start())
+        {
+            // what the journal and disk hold after a kill -9 mid-download, and for a download still waiting in the queue
+            Map<Integer, Long> noProgress = Map.of(0, 0L, 1, 0L, 2, 0L, 3, 0L);
+            Files.createDirectories(outputDir);
+            Files.createDirectories(tempDir.resolve("chunks").resolve("crashed"));
+            Files.createDirectories(tempDir.resolve("chunks").resolve("queued"));
+            try (DownloadJournal journal = new DownloadJournal(Paths.get("downloads.journal")))
+            {
+                journal.record(new DownloadSnapshot("crashed", origin.url(), outputDir.resolve("crashed.bin").toString(),
+                    256 * 1024, new HashMap<>(noProgress), DownloadState.DOWNLOADING.name()));
+                journal.record(new DownloadSnapshot("queued", origin.url(), outputDir.resolve("queued.bin").toString(),
+                    256 * 1024, new HashMap<>(noProgress), DownloadState.PENDING.name()));
+                journal.sync();
+            }
+
+            assertEquals(0, cli("--resume").run(NO_STDIN));
+            assertEquals(2, events("resumed").size(), "Both unfinished downloads should be picked up");
+            assertEquals(2, summary().get("completed").getAsInt());
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(outputDir.resolve("crashed.bin")), 0));
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(outputDir.resolve("queued.bin")), 0));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testResumeKeepsToParallelLimit() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(256 * 1024).bytesPerSecond(512 * 1024).start())
+        {
+            // three saved downloads of four chunks each, with eight connections they could all run together
+            Files.createDirectories(outputDir);
+            try (DownloadJournal journal = new DownloadJournal(Paths.get("downloads.journal")))
+            {
+                for (String id : List.of("first", "second", "third"))
+                {
+                    Files.createDirectories(tempDir.resolve("chunks").resolve(id));
+                    journal.record(new DownloadSnapshot(id, origin.url(), outputDir.resolve(id + ".bin").toString(),
+                        256 * 1024, new HashMap<>(Map.of(0, 0L, 1, 0L, 2, 0L, 3, 0L)), DownloadState.DOWNLOADING.name()));
+                }
+                journal.sync();
+            }
+
+            assertEquals(0, cli("--resume", "-j", "1", "-t", "8").run(NO_STDIN));
+            assertEquals(3, summary().get("completed").getAsInt());
+            assertTrue(origin.maxConcurrentConnections() <= 4,
+                "With -j 1 only one resumed download's chunks should run at a time, saw " + origin.maxConcurrentConnections());
+        }
+    }
+
+    private static int run(DownloadManagerCli cli, InputStream stdin)
+    {
+        try
+        {
+            return cli.run(stdin);
+        }
+        catch (Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all DownloadManagerCli tests:
+   mvn test -Dtest=DownloadManagerCliTest
+
+Try it by hand:
+   mvn -q -pl download-manager-cli exec:java -Dexec.args="-o downloads https://example.com/file.bin"
+
+============================================================ */
@@ -0,0 +1,111 @@
+package io.rileyhe1.concurrency.benchmarks;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.rileyhe1.concurrency.Data.ChunkResult;
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Util.ChunkDownloader;
+
+/**
+ * Times one ChunkDownloader pulling a 64 MB range from a loopback origin, so the read/write loop is the only
+ * thing between the socket and the disk. Runs at buffer sizes of 8 KB (the default), 64 KB and 256 KB, once
+ * appending to a temp file and once writing at its offset in a preallocated destination (DIRECT).
+ * Standalone chunks fetch over their own URL connection, the loop is the same one shared transports feed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ChunkDownloaderBenchmark
+{
+    private static final int SIZE = 64 * 1024 * 1024;
+
+    @Param({"8192", "65536", "262144"})
+    public int bufferSize;
+
+    private LoopbackOrigin origin;
+    private Path directory;
+    private DownloadConfig config;
+    private RandomAccessFile destination;
+
+    @Setup(Level.Trial)
+    public void startOrigin() throws IOException
+    {
+        origin = new LoopbackOrigin(SIZE);
+        directory = Files.createTempDirectory("chunk-bench");
+        config = DownloadConfig.builder()
+            .bufferSize(bufferSize)
+            .chunkSizeMB(64)
+            .maxRetries(1)
+            .tempDirectory(directory.toString())
+            .build();
+        destination = new RandomAccessFile(directory.resolve("direct.bin").toFile(), "rw");
+        destination.setLength(SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopOrigin() throws IOException
+    {
+        destination.close();
+        origin.close();
+        try(Stream<Path> paths = Files.walk(directory))
+        {
+            for(Path path : paths.sorted(Comparator.reverseOrder()).toList())
+            {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // temp files are appended to, so each invocation needs to start from an empty one
+    @TearDown(Level.Invocation)
+    public void deleteTempFile() throws IOException
+    {
+        Files.deleteIfExists(directory.resolve("chunk0.bin"));
+    }
+
+    @Benchmark
+    public long tempFile()
+    {
+        ChunkDownloader chunk = new ChunkDownloader(directory.toString(), origin.url(), 0, SIZE - 1, 0, 0, config, null);
+        return check(chunk.call());
+    }
+
+    @Benchmark
+    public long direct()
+    {
+        FileChannel channel = destination.getChannel();
+        ChunkDownloader chunk = ChunkDownloader.forChannel(channel, origin.url(), 0, SIZE - 1, 0, 0, config, null);
+        return check(chunk.call());
+    }
+
+    // a failed chunk would otherwise just look fast
+    private static long check(ChunkResult result)
+    {
+        if(!result.isSuccessful()) throw new IllegalStateException("Chunk failed", result.getError());
+        return result.getBytesDownloaded();
+    }
+}
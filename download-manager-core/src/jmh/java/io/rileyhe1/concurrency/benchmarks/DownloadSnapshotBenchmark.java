@@ -0,0 +1,110 @@
+package io.rileyhe1.concurrency.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+
+import io.rileyhe1.concurrency.Data.ChunkRange;
+import io.rileyhe1.concurrency.Data.DownloadSnapshot;
+import io.rileyhe1.concurrency.Util.DownloadJournal;
+
+/**
+ * Round-trips a DownloadSnapshot with 10k chunk entries (progress and ranges, like a long DIRECT download
+ * after work stealing) through Gson, the format downloads.json used and legacy migration still reads,
+ * and replays the same snapshot from the binary journal that replaced it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownloadSnapshotBenchmark
+{
+    @Param({"10000"})
+    public int entries;
+
+    private final Gson gson = new Gson();
+    private DownloadSnapshot snapshot;
+    private String json;
+    private Path journalPath;
+
+    @Setup(Level.Trial)
+    public void createSnapshot() throws IOException
+    {
+        Map<Integer, Long> progress = new HashMap<>();
+        Map<Integer, ChunkRange> ranges = new HashMap<>();
+        long chunkSize = 1024 * 1024;
+        for(int i = 0; i < entries; i++)
+        {
+            progress.put(i, chunkSize / 2 + i);
+            ranges.put(i, new ChunkRange(i * chunkSize, (i + 1) * chunkSize - 1));
+        }
+        snapshot = new DownloadSnapshot("benchmark", "https://example.com/file.bin", "/downloads/file.bin",
+            entries * chunkSize, progress, "PAUSED");
+        snapshot.setWriteMode("DIRECT");
+        snapshot.setChunkRanges(ranges);
+        json = gson.toJson(snapshot);
+
+        journalPath = Files.createTempDirectory("snapshot-bench").resolve("downloads.journal");
+        try(DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(snapshot);
+            journal.sync();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteJournal() throws IOException
+    {
+        Files.deleteIfExists(journalPath);
+        Files.deleteIfExists(journalPath.getParent());
+    }
+
+    @Benchmark
+    public String gsonWrite()
+    {
+        return gson.toJson(snapshot);
+    }
+
+    @Benchmark
+    public DownloadSnapshot gsonRead()
+    {
+        return gson.fromJson(json, DownloadSnapshot.class);
+    }
+
+    @Benchmark
+    public DownloadSnapshot gsonRoundTrip()
+    {
+        return gson.fromJson(gson.toJson(snapshot), DownloadSnapshot.class);
+    }
+
+    // what startup pays per saved download now
+    @Benchmark
+    public DownloadSnapshot journalReplay() throws IOException
+    {
+        try(DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            return journal.getSnapshot("benchmark");
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package io.rileyhe1.concurrency.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.DownloadException;
+import io.rileyhe1.concurrency.Data.TransportType;
+import io.rileyhe1.concurrency.Data.WriteMode;
+import io.rileyhe1.concurrency.Util.Download;
+import io.rileyhe1.concurrency.Util.DownloadContext;
+import io.rileyhe1.concurrency.Util.ProgressTracker;
+
+/**
+ * Downloads a 256 MB file from a loopback origin end to end, HEAD probe to finished destination, in every
+ * write mode over both transports. Loopback takes the network out of it, so this is the engine's own ceiling:
+ * chunk scheduling, the read/write loops, assembly and whatever hashing is switched on.
+ * Divide the size by the time per download for throughput, e.g. 256 MB in 500 ms is 512 MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EndToEndBenchmark
+{
+    private static final int SIZE = 256 * 1024 * 1024;
+
+    @Param({"TEMP_FILES", "STREAMING", "DIRECT"})
+    public WriteMode writeMode;
+
+    @Param({"HTTP_CLIENT", "URL_CONNECTION"})
+    public TransportType transport;
+
+    @Param({"false", "true"})
+    public boolean computeSha256;
+
+    private LoopbackOrigin origin;
+    private Path directory;
+    private DownloadConfig config;
+    // one per trial like one per manager, so connections stay pooled between downloads
+    private DownloadContext context;
+    private String destination;
+
+    @Setup(Level.Trial)
+    public void startOrigin() throws IOException
+    {
+        origin = new LoopbackOrigin(SIZE);
+        directory = Files.createTempDirectory("end-to-end-bench");
+        destination = directory.resolve("download.bin").toString();
+        config = DownloadConfig.builder()
+            .numberOfThreads(8)
+            .chunkSizeMB(8)
+            .bufferSize(64 * 1024)
+            .tempDirectory(directory.toString())
+            .writeMode(writeMode)
+            .transportType(transport)
+            .computeSha256(computeSha256)
+            .build();
+        context = new DownloadContext(config);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopOrigin() throws IOException
+    {
+        context.shutdownNow();
+        origin.close();
+        try(Stream<Path> paths = Files.walk(directory))
+        {
+            for(Path path : paths.sorted(Comparator.reverseOrder()).toList())
+            {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteDestination() throws IOException
+    {
+        Files.deleteIfExists(Path.of(destination));
+    }
+
+    @Benchmark
+    public long download() throws DownloadException, InterruptedException
+    {
+        Download download = new Download(origin.url(), destination, config, new ProgressTracker(config.getNumberOfThreads()), context);
+        download.start();
+        download.awaitCompletion();
+        return download.getDownloadedBytes();
+    }
+}
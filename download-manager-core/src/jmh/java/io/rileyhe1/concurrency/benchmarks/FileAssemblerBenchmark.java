@@ -0,0 +1,140 @@
+package io.rileyhe1.concurrency.benchmarks;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.rileyhe1.concurrency.Data.ChunkResult;
+import io.rileyhe1.concurrency.Util.FileAssembler;
+import io.rileyhe1.concurrency.Util.FileHasher;
+
+/**
+ * Compares FileAssembler's channel transfer against the heap buffer copy it replaced, assembling 5 MB chunks
+ * (the default chunk size) into files of 100 MB, 1 GB and 10 GB. sha256 is the copy computeSha256 switches to.
+ * The chunk files are written once per trial, each invocation only assembles them, so the temp directory
+ * needs room for twice the largest size. Use -p sizeMB=100 to stick to the small case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileAssemblerBenchmark
+{
+    private static final int CHUNK_SIZE = 5 * 1024 * 1024;
+
+    @Param({"100", "1024", "10240"})
+    public int sizeMB;
+
+    private Path directory;
+    private List<ChunkResult> results;
+    private List<String> tempFiles;
+    private String destination;
+
+    @Setup(Level.Trial)
+    public void writeChunks() throws IOException
+    {
+        directory = Files.createTempDirectory("assembler-bench");
+        destination = directory.resolve("output.bin").toString();
+        results = new ArrayList<>();
+        tempFiles = new ArrayList<>();
+
+        byte[] pattern = new byte[CHUNK_SIZE];
+        for(int i = 0; i < pattern.length; i++)
+        {
+            pattern[i] = (byte) (i * 31);
+        }
+        long remaining = (long) sizeMB * 1024 * 1024;
+        for(int index = 0; remaining > 0; index++)
+        {
+            int length = (int) Math.min(CHUNK_SIZE, remaining);
+            Path chunk = directory.resolve("chunk" + index + ".bin");
+            try(FileChannel channel = FileChannel.open(chunk, StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+            {
+                ByteBuffer buffer = ByteBuffer.wrap(pattern, 0, length);
+                while(buffer.hasRemaining()) channel.write(buffer);
+            }
+            results.add(ChunkResult.success(chunk.toString(), length, index));
+            tempFiles.add(chunk.toString());
+            remaining -= length;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteChunks() throws IOException
+    {
+        try(Stream<Path> paths = Files.walk(directory))
+        {
+            for(Path path : paths.sorted(Comparator.reverseOrder()).toList())
+            {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public long transferTo() throws IOException
+    {
+        FileAssembler.assembleChunks(results, destination, (long) sizeMB * 1024 * 1024);
+        return Files.size(Path.of(destination));
+    }
+
+    // what assembly costs when the file is hashed on the way through
+    @Benchmark
+    public byte[] sha256() throws IOException
+    {
+        long size = (long) sizeMB * 1024 * 1024;
+        FileHasher hasher = new FileHasher(Set.of("sha-256"));
+        FileAssembler.assembleChunks(results, destination, size, hasher);
+        hasher.finish(size);
+        return hasher.getDigest("sha-256");
+    }
+
+    // the FileInputStream -> byte[8192] -> FileOutputStream loop FileAssembler used before
+    @Benchmark
+    public long streamCopy() throws IOException
+    {
+        try(FileOutputStream outputStream = new FileOutputStream(destination))
+        {
+            for(String tempFile : tempFiles)
+            {
+                try(FileInputStream inputStream = new FileInputStream(tempFile))
+                {
+                    byte[] buffer = new byte[8192];
+                    int bytesRead;
+                    while((bytesRead = inputStream.read(buffer)) != -1)
+                    {
+                        outputStream.write(buffer, 0, bytesRead);
+                    }
+                }
+            }
+        }
+        return Files.size(Path.of(destination));
+    }
+}
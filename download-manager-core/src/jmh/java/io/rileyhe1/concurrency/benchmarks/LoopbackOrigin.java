@@ -0,0 +1,95 @@
+package io.rileyhe1.concurrency.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Range-capable HTTP origin on the loopback interface for the end-to-end benchmarks.
+ * Unlike the test suite's LocalRangeServer it has no fault injection and serves straight out of one
+ * preallocated array, so the numbers measure the client and not the server generating bytes.
+ */
+final class LoopbackOrigin implements AutoCloseable
+{
+    private static final int WRITE_SIZE = 64 * 1024;
+
+    private final byte[] content;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    LoopbackOrigin(int size) throws IOException
+    {
+        content = new byte[size];
+        for(int i = 0; i < size; i++)
+        {
+            content[i] = (byte) (i * 31);
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool(runnable ->
+        {
+            Thread thread = new Thread(runnable, "loopback-origin");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String url()
+    {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/file.bin";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            if("HEAD".equals(exchange.getRequestMethod()))
+            {
+                exchange.getResponseHeaders().set("Content-Length", Integer.toString(content.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            int start = 0, end = content.length - 1;
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if(range != null)
+            {
+                String[] bounds = range.substring("bytes=".length()).split("-", -1);
+                start = Integer.parseInt(bounds[0]);
+                if(!bounds[1].isEmpty()) end = Math.min(end, Integer.parseInt(bounds[1]));
+                exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+            }
+            exchange.sendResponseHeaders(range != null ? 206 : 200, end - start + 1);
+            try(OutputStream out = exchange.getResponseBody())
+            {
+                for(int offset = start; offset <= end; offset += WRITE_SIZE)
+                {
+                    out.write(content, offset, Math.min(WRITE_SIZE, end - offset + 1));
+                }
+            }
+        }
+        catch(IOException e)
+        {
+            // the client hung up, nothing to clean up
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
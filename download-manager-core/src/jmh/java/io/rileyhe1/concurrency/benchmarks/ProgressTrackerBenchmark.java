@@ -0,0 +1,130 @@
+package io.rileyhe1.concurrency.benchmarks;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.rileyhe1.concurrency.Util.ProgressTracker;
+
+/**
+ * Compares the striped ProgressTracker against the ConcurrentHashMap tracker it replaced, with 16, 64 and 512
+ * threads each standing in for one chunk calling updateProgress after every buffer read.
+ * The striped tracker is capped at ProgressTracker.MAX_STRIPES (256), so at 512 threads two chunks share every
+ * stripe, as they would in a real download that wide. readTotal measures what the GUI pays per row refresh on a
+ * download with 512 chunks, which is a sum over those 256 stripes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgressTrackerBenchmark
+{
+    private static final int BUFFER_SIZE = 8192;
+
+    // the tracker as it was before striping, kept here as the baseline
+    static class MapProgressTracker
+    {
+        private final ConcurrentHashMap<Integer, AtomicLong> chunkProgress = new ConcurrentHashMap<>();
+
+        void updateProgress(Integer chunkIndex, long bytes)
+        {
+            chunkProgress.computeIfAbsent(chunkIndex, (k) -> new AtomicLong(0)).addAndGet(bytes);
+        }
+
+        long getTotalProgress()
+        {
+            return chunkProgress.values().stream().mapToLong(AtomicLong::get).sum();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Trackers
+    {
+        @Param({"striped", "map"})
+        public String tracker;
+
+        // asks for one stripe per chunk of the widest run, which the cap turns into 256
+        ProgressTracker striped;
+        MapProgressTracker map;
+        // resolved once here so the measured methods don't compare strings
+        boolean useStriped;
+        final AtomicInteger nextChunk = new AtomicInteger(0);
+
+        @Setup
+        public void create()
+        {
+            useStriped = tracker.equals("striped");
+            striped = new ProgressTracker(512);
+            map = new MapProgressTracker();
+            nextChunk.set(0);
+            for(int chunk = 0; chunk < 512; chunk++)
+            {
+                striped.updateProgress(chunk, BUFFER_SIZE);
+                map.updateProgress(chunk, BUFFER_SIZE);
+            }
+        }
+    }
+
+    // each benchmark thread is one chunk, with its own index like a real ChunkDownloader
+    @State(Scope.Thread)
+    public static class Chunk
+    {
+        int index;
+
+        @Setup
+        public void assignIndex(Trackers trackers)
+        {
+            index = trackers.nextChunk.getAndIncrement();
+        }
+    }
+
+    private static void update(Trackers trackers, Chunk chunk)
+    {
+        if(trackers.useStriped) trackers.striped.updateProgress(chunk.index, BUFFER_SIZE);
+        else trackers.map.updateProgress(chunk.index, BUFFER_SIZE);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void update16(Trackers trackers, Chunk chunk)
+    {
+        update(trackers, chunk);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void update64(Trackers trackers, Chunk chunk)
+    {
+        update(trackers, chunk);
+    }
+
+    @Benchmark
+    @Threads(512)
+    public void update512(Trackers trackers, Chunk chunk)
+    {
+        update(trackers, chunk);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long readTotal(Trackers trackers)
+    {
+        if(trackers.useStriped) return trackers.striped.getTotalProgress();
+        return trackers.map.getTotalProgress();
+    }
+}
@@ -0,0 +1,47 @@
+package io.rileyhe1.concurrency.Data;
+
+/**
+ * Byte range a chunk is responsible for, saved in snapshots because work stealing can move a chunk's
+ * end (and create chunks that start anywhere) so the ranges can't be recomputed from the chunk size.
+ */
+public class ChunkRange
+{
+    private long startByte;
+    private long endByte;
+
+    // No arg constructor for gson deserialization
+    public ChunkRange()
+    {
+    }
+
+    public ChunkRange(long startByte, long endByte)
+    {
+        this.startByte = startByte;
+        this.endByte = endByte;
+    }
+
+    public long getStartByte()
+    {
+        return startByte;
+    }
+
+    public long getEndByte()
+    {
+        return endByte;
+    }
+
+    public long getLength()
+    {
+        return endByte - startByte + 1;
+    }
+
+    public void setStartByte(long startByte)
+    {
+        this.startByte = startByte;
+    }
+
+    public void setEndByte(long endByte)
+    {
+        this.endByte = endByte;
+    }
+}
@@ -0,0 +1,615 @@
+package io.rileyhe1.concurrency.Data;
+
+public class DownloadConfig
+{
+    private final int numberOfThreads;
+    private final long chunkSize;
+    private final int connectionTimeout;
+    private final int readTimeout;
+    private final int maxRetries;
+    private final int retryDelayMS;
+    private final String tempDirectory;
+    private final int bufferSize;
+    private final long minSizeForChunking;
+    private final ExecutionMode executionMode;
+    private final int maxConnectionsPerHost;
+    private final WriteMode writeMode;
+    private final boolean workStealing;
+    private final long minStealSize;
+    // near the end of a download a chunk this many times slower than its siblings gets a second request
+    private final double hedgeThreshold;
+    private final int maxHedgedRequests;
+    private final boolean adaptiveConnections;
+    private final int initialConnections;
+    private final int maxConnectionsPerDownload;
+    private final TransportType transportType;
+    private final boolean skipHeadRequest;
+    // bandwidth caps in bytes per second, 0 for unlimited
+    private final long maxBytesPerSecond;
+    private final long maxBytesPerSecondPerDownload;
+    private final long maxBytesPerSecondPerHost;
+    private final int journalSyncIntervalMS;
+    private final boolean verifyChunkDigests;
+    private final boolean computeSha256;
+    private final boolean jmxEnabled;
+    // port the manager serves Prometheus metrics on, -1 for none
+    private final int metricsPort;
+    // downloads a manager runs at once, the rest wait PENDING in priority order, 0 for no limit
+    private final int maxConcurrentDownloads;
+
+    public DownloadConfig(Builder builder)
+    {
+        this.numberOfThreads = builder.numberOfThreads;
+        this.chunkSize = builder.chunkSize;
+        this.connectionTimeout = builder.connectionTimeout;
+        this.readTimeout = builder.readTimeout;
+        this.maxRetries = builder.maxRetries;
+        this.retryDelayMS = builder.retryDelayMS;
+        this.tempDirectory = builder.tempDirectory;
+        this.bufferSize = builder.bufferSize;
+        this.minSizeForChunking = builder.minSizeForChunking;
+        this.executionMode = builder.executionMode;
+        this.maxConnectionsPerHost = builder.maxConnectionsPerHost;
+        this.writeMode = builder.writeMode;
+        this.workStealing = builder.workStealing;
+        this.minStealSize = builder.minStealSize;
+        this.hedgeThreshold = builder.hedgeThreshold;
+        this.maxHedgedRequests = builder.maxHedgedRequests;
+        this.adaptiveConnections = builder.adaptiveConnections;
+        this.initialConnections = builder.initialConnections;
+        this.maxConnectionsPerDownload = builder.maxConnectionsPerDownload;
+        this.transportType = builder.transportType;
+        this.skipHeadRequest = builder.skipHeadRequest;
+        this.maxBytesPerSecond = builder.maxBytesPerSecond;
+        this.maxBytesPerSecondPerDownload = builder.maxBytesPerSecondPerDownload;
+        this.maxBytesPerSecondPerHost = builder.maxBytesPerSecondPerHost;
+        this.journalSyncIntervalMS = builder.journalSyncIntervalMS;
+        this.verifyChunkDigests = builder.verifyChunkDigests;
+        this.computeSha256 = builder.computeSha256;
+        this.jmxEnabled = builder.jmxEnabled;
+        this.metricsPort = builder.metricsPort;
+        this.maxConcurrentDownloads = builder.maxConcurrentDownloads;
+    }
+
+    public int getNumberOfThreads()
+    {
+        return numberOfThreads;
+    }
+
+    public long getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    public int getConnectionTimeout()
+    {
+        return connectionTimeout;
+    }
+
+    public int getMaxRetries()
+    {
+        return maxRetries;
+    }
+
+    public String getTempDirectory()
+    {
+        return tempDirectory;
+    }
+
+    public int getReadTimeout()
+    {
+        return readTimeout;
+    }
+
+    public int getRetryDelayMS()
+    {
+        return retryDelayMS;
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    public long getMinSizeForChunking()
+    {
+        return minSizeForChunking;
+    }
+
+    public ExecutionMode getExecutionMode()
+    {
+        return executionMode;
+    }
+
+    // 0 means no per-host limit, only numberOfThreads applies
+    public int getMaxConnectionsPerHost()
+    {
+        return maxConnectionsPerHost;
+    }
+
+    public WriteMode getWriteMode()
+    {
+        return writeMode;
+    }
+
+    public boolean isWorkStealing()
+    {
+        return workStealing;
+    }
+
+    public long getMinStealSize()
+    {
+        return minStealSize;
+    }
+
+    public double getHedgeThreshold()
+    {
+        return hedgeThreshold;
+    }
+
+    public int getMaxHedgedRequests()
+    {
+        return maxHedgedRequests;
+    }
+
+    public boolean isAdaptiveConnections()
+    {
+        return adaptiveConnections;
+    }
+
+    public int getInitialConnections()
+    {
+        return initialConnections;
+    }
+
+    public int getMaxConnectionsPerDownload()
+    {
+        return maxConnectionsPerDownload;
+    }
+
+    public TransportType getTransportType()
+    {
+        return transportType;
+    }
+
+    public boolean isSkipHeadRequest()
+    {
+        return skipHeadRequest;
+    }
+
+    public long getMaxBytesPerSecond()
+    {
+        return maxBytesPerSecond;
+    }
+
+    public long getMaxBytesPerSecondPerDownload()
+    {
+        return maxBytesPerSecondPerDownload;
+    }
+
+    public long getMaxBytesPerSecondPerHost()
+    {
+        return maxBytesPerSecondPerHost;
+    }
+
+    public int getJournalSyncIntervalMS()
+    {
+        return journalSyncIntervalMS;
+    }
+
+    public boolean isVerifyChunkDigests()
+    {
+        return verifyChunkDigests;
+    }
+
+    public boolean isComputeSha256()
+    {
+        return computeSha256;
+    }
+
+    public boolean isJmxEnabled()
+    {
+        return jmxEnabled;
+    }
+
+    public int getMetricsPort()
+    {
+        return metricsPort;
+    }
+
+    public int getMaxConcurrentDownloads()
+    {
+        return maxConcurrentDownloads;
+    }
+
+    /**
+     * Creates a new builder with default values
+     */
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Creates a builder pre-populated with default values
+     */
+    public static Builder defaultConfig()
+    {
+        return new Builder();
+    }
+
+    public static class Builder
+    {
+        private int numberOfThreads = 16;
+        private long chunkSize = 5 * 1024 * 1024; // 5 MB
+        private int connectionTimeout = 30000; // 30 seconds
+        private int readTimeout = 30000; // 30 seconds
+        private int maxRetries = 3;
+        private int retryDelayMS = 2000; // 2 seconds
+        private String tempDirectory = System.getProperty("java.io.tmpdir");
+        private int bufferSize = 8192; // 8 KB
+        private long minSizeForChunking = 1024 * 1024; // 1 MB
+        private ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+        private int maxConnectionsPerHost = 0; // unlimited
+        private WriteMode writeMode = WriteMode.TEMP_FILES;
+        private boolean workStealing = true;
+        private long minStealSize = 1024 * 1024; // 1 MB
+        private double hedgeThreshold = 4.0;
+        private int maxHedgedRequests = 2; // per download
+        private boolean adaptiveConnections = false;
+        private int initialConnections = 4;
+        private int maxConnectionsPerDownload = 32;
+        private TransportType transportType = TransportType.HTTP_CLIENT;
+        private boolean skipHeadRequest = false;
+        private long maxBytesPerSecond = 0;
+        private long maxBytesPerSecondPerDownload = 0;
+        private long maxBytesPerSecondPerHost = 0;
+        private int journalSyncIntervalMS = 1000; // 1 second
+        private boolean verifyChunkDigests = true;
+        private boolean computeSha256 = false;
+        private boolean jmxEnabled = true;
+        private int metricsPort = -1;
+        private int maxConcurrentDownloads = 0; // unlimited
+
+        public Builder numberOfThreads(int numberOfThreads)
+        {
+            if (numberOfThreads < 1)
+            {
+                throw new IllegalArgumentException("Number of threads must be at least 1");
+            }
+            this.numberOfThreads = numberOfThreads;
+            return this;
+        }
+
+        public Builder chunkSize(long chunkSize)
+        {
+            if (chunkSize < 1024)
+            {
+                throw new IllegalArgumentException("Chunk size must be at least 1 KB");
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        public Builder connectionTimeout(int connectionTimeout)
+        {
+            if (connectionTimeout < 0)
+            {
+                throw new IllegalArgumentException("Connection timeout cannot be negative");
+            }
+            this.connectionTimeout = connectionTimeout;
+            return this;
+        }
+
+        public Builder readTimeout(int readTimeout)
+        {
+            if (readTimeout < 0)
+            {
+                throw new IllegalArgumentException("Read timeout cannot be negative");
+            }
+            this.readTimeout = readTimeout;
+            return this;
+        }
+
+        public Builder maxRetries(int maxRetries)
+        {
+            if (maxRetries < 0)
+            {
+                throw new IllegalArgumentException("Max retries cannot be negative");
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public Builder retryDelayMS(int retryDelayMS)
+        {
+            if (retryDelayMS < 0)
+            {
+                throw new IllegalArgumentException("Retry delay cannot be negative");
+            }
+            this.retryDelayMS = retryDelayMS;
+            return this;
+        }
+
+        public Builder tempDirectory(String tempDirectory)
+        {
+            if (tempDirectory == null || tempDirectory.trim().isEmpty())
+            {
+                throw new IllegalArgumentException("Temp directory cannot be null or empty");
+            }
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        public Builder bufferSize(int bufferSize)
+        {
+            if (bufferSize < 1024)
+            {
+                throw new IllegalArgumentException("Buffer size must be at least 1 KB");
+            }
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        public Builder minSizeForChunking(long minSizeForChunking)
+        {
+            if (minSizeForChunking < 0)
+            {
+                throw new IllegalArgumentException("Min size for chunking cannot be negative");
+            }
+            this.minSizeForChunking = minSizeForChunking;
+            return this;
+        }
+
+        public Builder executionMode(ExecutionMode executionMode)
+        {
+            if (executionMode == null)
+            {
+                throw new IllegalArgumentException("Execution mode cannot be null");
+            }
+            this.executionMode = executionMode;
+            return this;
+        }
+
+        /**
+         * Caps concurrent connections to a single host, only enforced in VIRTUAL_THREADS mode
+         */
+        public Builder maxConnectionsPerHost(int maxConnectionsPerHost)
+        {
+            if (maxConnectionsPerHost < 0)
+            {
+                throw new IllegalArgumentException("Max connections per host cannot be negative");
+            }
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        public Builder writeMode(WriteMode writeMode)
+        {
+            if (writeMode == null)
+            {
+                throw new IllegalArgumentException("Write mode cannot be null");
+            }
+            this.writeMode = writeMode;
+            return this;
+        }
+
+        /**
+         * Lets a worker that runs out of chunks split the unread tail of the slowest range still in flight,
+         * only used in DIRECT write mode since split ranges don't map onto numbered temp files
+         */
+        public Builder workStealing(boolean workStealing)
+        {
+            this.workStealing = workStealing;
+            return this;
+        }
+
+        /**
+         * Smallest piece a range is split into, a range with less than twice this left is never split
+         */
+        public Builder minStealSize(long minStealSize)
+        {
+            if (minStealSize < 1)
+            {
+                throw new IllegalArgumentException("Min steal size must be at least 1 byte");
+            }
+            this.minStealSize = minStealSize;
+            return this;
+        }
+
+        /**
+         * How far behind a chunk has to fall before it is hedged: once nothing is left to queue, a chunk reading
+         * more than this many times slower than the median of its siblings gets a second request for the bytes
+         * it has left, and whichever of the two gets to them first writes them
+         */
+        public Builder hedgeThreshold(double hedgeThreshold)
+        {
+            if (!(hedgeThreshold >= 1))
+            {
+                throw new IllegalArgumentException("Hedge threshold must be at least 1");
+            }
+            this.hedgeThreshold = hedgeThreshold;
+            return this;
+        }
+
+        /**
+         * Most hedged requests a single download sends, 0 turns hedging off. Each chunk is hedged at most once
+         */
+        public Builder maxHedgedRequests(int maxHedgedRequests)
+        {
+            if (maxHedgedRequests < 0)
+            {
+                throw new IllegalArgumentException("Max hedged requests cannot be negative");
+            }
+            this.maxHedgedRequests = maxHedgedRequests;
+            return this;
+        }
+
+        /**
+         * Lets each download tune its own connection count from measured throughput (AIMD), starting at
+         * initialConnections and never going above maxConnectionsPerDownload. When off every chunk is queued at once
+         */
+        public Builder adaptiveConnections(boolean adaptiveConnections)
+        {
+            this.adaptiveConnections = adaptiveConnections;
+            return this;
+        }
+
+        public Builder initialConnections(int initialConnections)
+        {
+            if (initialConnections < 1)
+            {
+                throw new IllegalArgumentException("Initial connections must be at least 1");
+            }
+            this.initialConnections = initialConnections;
+            return this;
+        }
+
+        public Builder maxConnectionsPerDownload(int maxConnectionsPerDownload)
+        {
+            if (maxConnectionsPerDownload < 1)
+            {
+                throw new IllegalArgumentException("Max connections per download must be at least 1");
+            }
+            this.maxConnectionsPerDownload = maxConnectionsPerDownload;
+            return this;
+        }
+
+        public Builder transportType(TransportType transportType)
+        {
+            if (transportType == null)
+            {
+                throw new IllegalArgumentException("Transport type cannot be null");
+            }
+            this.transportType = transportType;
+            return this;
+        }
+
+        /**
+         * Finds a download's size with a GET for bytes=0- instead of a HEAD, and lets the first chunk keep reading
+         * that response, so a file that fits in one chunk takes a single request. A server that ignores the range
+         * or doesn't say how long the file is gets a single streaming download instead of chunks
+         */
+        public Builder skipHeadRequest(boolean skipHeadRequest)
+        {
+            this.skipHeadRequest = skipHeadRequest;
+            return this;
+        }
+
+        // caps every download of the manager together, 0 for unlimited
+        public Builder maxBytesPerSecond(long maxBytesPerSecond)
+        {
+            if (maxBytesPerSecond < 0)
+            {
+                throw new IllegalArgumentException("Max bytes per second cannot be negative");
+            }
+            this.maxBytesPerSecond = maxBytesPerSecond;
+            return this;
+        }
+
+        public Builder maxBytesPerSecondPerDownload(long maxBytesPerSecondPerDownload)
+        {
+            if (maxBytesPerSecondPerDownload < 0)
+            {
+                throw new IllegalArgumentException("Max bytes per second per download cannot be negative");
+            }
+            this.maxBytesPerSecondPerDownload = maxBytesPerSecondPerDownload;
+            return this;
+        }
+
+        // applies to each host separately, the same key ChunkScheduler uses for per-host connection limits
+        public Builder maxBytesPerSecondPerHost(long maxBytesPerSecondPerHost)
+        {
+            if (maxBytesPerSecondPerHost < 0)
+            {
+                throw new IllegalArgumentException("Max bytes per second per host cannot be negative");
+            }
+            this.maxBytesPerSecondPerHost = maxBytesPerSecondPerHost;
+            return this;
+        }
+
+        // how often progress is flushed and fsynced to the journal, the most a crash can lose
+        public Builder journalSyncIntervalMS(int journalSyncIntervalMS)
+        {
+            if (journalSyncIntervalMS < 1)
+            {
+                throw new IllegalArgumentException("Journal sync interval must be at least 1 ms");
+            }
+            this.journalSyncIntervalMS = journalSyncIntervalMS;
+            return this;
+        }
+
+        // checks each range response against its Content-Digest or Content-MD5 header, when the server sends one
+        public Builder verifyChunkDigests(boolean verifyChunkDigests)
+        {
+            this.verifyChunkDigests = verifyChunkDigests;
+            return this;
+        }
+
+        // hashes every download with SHA-256 as it is written, even when there is no expected digest to check
+        public Builder computeSha256(boolean computeSha256)
+        {
+            this.computeSha256 = computeSha256;
+            return this;
+        }
+
+        // registers the manager and each of its downloads with the platform MBean server
+        public Builder jmxEnabled(boolean jmxEnabled)
+        {
+            this.jmxEnabled = jmxEnabled;
+            return this;
+        }
+
+        // serves Prometheus metrics at /metrics on this port, 0 for any free port, -1 (the default) for no endpoint
+        public Builder metricsPort(int metricsPort)
+        {
+            if (metricsPort < -1 || metricsPort > 65535)
+            {
+                throw new IllegalArgumentException("Metrics port must be between 0 and 65535, or -1 for none");
+            }
+            this.metricsPort = metricsPort;
+            return this;
+        }
+
+        /**
+         * Caps how many downloads a manager runs at once, later ones wait PENDING until a running one finishes
+         */
+        public Builder maxConcurrentDownloads(int maxConcurrentDownloads)
+        {
+            if (maxConcurrentDownloads < 0)
+            {
+                throw new IllegalArgumentException("Max concurrent downloads cannot be negative");
+            }
+            this.maxConcurrentDownloads = maxConcurrentDownloads;
+            return this;
+        }
+
+        /**
+         * Convenience method to set chunk size in megabytes
+         */
+        public Builder chunkSizeMB(int megabytes)
+        {
+            return chunkSize(megabytes * 1024L * 1024L);
+        }
+
+        /**
+         * Convenience method to set timeouts in seconds
+         */
+        public Builder timeoutsInSeconds(int seconds)
+        {
+            int milliseconds = seconds * 1000;
+            this.connectionTimeout = milliseconds;
+            this.readTimeout = milliseconds;
+            return this;
+        }
+
+        public DownloadConfig build()
+        {
+            if (initialConnections > maxConnectionsPerDownload)
+            {
+                throw new IllegalArgumentException("Initial connections cannot be more than max connections per download");
+            }
+            return new DownloadConfig(this);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package io.rileyhe1.concurrency.Data;
+
+/**
+ * Which downloads a DownloadManager starts first when maxConcurrentDownloads is holding some back.
+ * Waiting downloads start highest class first and in the order they were queued within a class.
+ * Declared from most to least important, so the ordinal is the order the classes are served in.
+ */
+public enum DownloadPriority
+{
+    HIGH,
+    NORMAL,
+    LOW
+}
@@ -0,0 +1,193 @@
+package io.rileyhe1.concurrency.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Transfer Object for persisting Download state.
+ * Contains only serializable data needed to save and restore downloads.
+ */
+public class DownloadSnapshot
+{
+    private String id;
+    private String url;
+    private String destination;
+    private long totalSize;
+    private Map<Integer, Long> chunkProgress;
+    private String state;
+    // null in snapshots saved before write modes existed, which always used temp files
+    private String writeMode;
+    // STREAMING only, how many leading chunks are already in the destination and have no temp file any more
+    private int assembledChunks;
+    // DIRECT only, byte range of every chunk keyed like chunkProgress, null when ranges follow the chunk size
+    private Map<Integer, ChunkRange> chunkRanges;
+    // digest the finished file is checked against, in ContentDigest's toString() form, null if there is none
+    private String expectedDigest;
+    // every url of a mirrored download, the first one is url, null for a download with a single source
+    private List<String> mirrors;
+    // bytes per chunk when the download follows Metalink pieces, 0 when chunks follow the config's chunk size
+    private long chunkSize;
+    // hash of every piece in chunk index order, in ContentDigest's toString() form, null without pieces
+    private List<String> pieceHashes;
+
+    // No arg constructor for gson deserialization
+    public DownloadSnapshot()
+    {
+    }
+
+    // constructor used when creating snapshots from download instances
+    public DownloadSnapshot(String id, String url, String destination, 
+                           long totalSize, Map<Integer, Long> chunkProgress, String state)
+    {
+        this.id = id;
+        this.url = url;
+        this.destination = destination;
+        this.totalSize = totalSize;
+        this.chunkProgress = chunkProgress;
+        this.state = state;
+    }
+
+    // Getters
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public String getDestination()
+    {
+        return destination;
+    }
+
+    public long getTotalSize()
+    {
+        return totalSize;
+    }
+
+    public Map<Integer, Long> getChunkProgress()
+    {
+        return chunkProgress;
+    }
+
+    public String getState()
+    {
+        return state;
+    }
+
+    public String getWriteMode()
+    {
+        return writeMode;
+    }
+
+    // bytes already downloaded across all chunks
+    public long getDownloadedBytes()
+    {
+        if(chunkProgress == null) return 0;
+        long total = 0;
+        for(long bytes : chunkProgress.values())
+        {
+            total += bytes;
+        }
+        return total;
+    }
+
+    public int getAssembledChunks()
+    {
+        return assembledChunks;
+    }
+
+    public Map<Integer, ChunkRange> getChunkRanges()
+    {
+        return chunkRanges;
+    }
+
+    public String getExpectedDigest()
+    {
+        return expectedDigest;
+    }
+
+    public List<String> getMirrors()
+    {
+        return mirrors;
+    }
+
+    public long getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    public List<String> getPieceHashes()
+    {
+        return pieceHashes;
+    }
+
+    // Setters (needed for Gson deserialization)
+    public void setId(String id)
+    {
+        this.id = id;
+    }
+
+    public void setUrl(String url)
+    {
+        this.url = url;
+    }
+
+    public void setDestination(String destination)
+    {
+        this.destination = destination;
+    }
+
+    public void setTotalSize(long totalSize)
+    {
+        this.totalSize = totalSize;
+    }
+
+    public void setChunkProgress(Map<Integer, Long> chunkProgress)
+    {
+        this.chunkProgress = chunkProgress;
+    }
+
+    public void setState(String state)
+    {
+        this.state = state;
+    }
+
+    public void setWriteMode(String writeMode)
+    {
+        this.writeMode = writeMode;
+    }
+
+    public void setAssembledChunks(int assembledChunks)
+    {
+        this.assembledChunks = assembledChunks;
+    }
+
+    public void setChunkRanges(Map<Integer, ChunkRange> chunkRanges)
+    {
+        this.chunkRanges = chunkRanges;
+    }
+
+    public void setExpectedDigest(String expectedDigest)
+    {
+        this.expectedDigest = expectedDigest;
+    }
+
+    public void setMirrors(List<String> mirrors)
+    {
+        this.mirrors = mirrors;
+    }
+
+    public void setChunkSize(long chunkSize)
+    {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setPieceHashes(List<String> pieceHashes)
+    {
+        this.pieceHashes = pieceHashes;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package io.rileyhe1.concurrency.Data;
+
+/**
+ * How a ChunkScheduler runs chunk downloads.
+ * PLATFORM_THREADS uses a fixed pool of numberOfThreads workers, so the pool size is the concurrency limit.
+ * VIRTUAL_THREADS gives every chunk its own virtual thread and enforces numberOfThreads (and the optional
+ * per-host limit) with semaphores instead, so chunks parked in InputStream.read cost no platform thread.
+ */
+public enum ExecutionMode
+{
+    PLATFORM_THREADS,
+    VIRTUAL_THREADS
+}
@@ -0,0 +1,56 @@
+package io.rileyhe1.concurrency.Data;
+
+/**
+ * What a list of saved downloads shows about one of them, read from the journal without copying its
+ * chunk progress or ranges. The full DownloadSnapshot is only copied out when the download is resumed.
+ */
+public class SavedDownload
+{
+    private final String id;
+    private final String url;
+    private final String destination;
+    private final String state;
+    // -1 when the server never said how big the file is
+    private final long totalSize;
+    private final long downloadedBytes;
+
+    public SavedDownload(String id, String url, String destination, String state, long totalSize, long downloadedBytes)
+    {
+        this.id = id;
+        this.url = url;
+        this.destination = destination;
+        this.state = state;
+        this.totalSize = totalSize;
+        this.downloadedBytes = downloadedBytes;
+    }
+
+    public String getId()
+    {
+        return id;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    public String getDestination()
+    {
+        return destination;
+    }
+
+    public String getState()
+    {
+        return state;
+    }
+
+    public long getTotalSize()
+    {
+        return totalSize;
+    }
+
+    public long getDownloadedBytes()
+    {
+        return downloadedBytes;
+    }
+}
@@ -0,0 +1,13 @@
+package io.rileyhe1.concurrency.Data;
+
+/**
+ * Which HTTP stack chunk requests and the size probe go through.
+ * HTTP_CLIENT shares one java.net.http.HttpClient per manager, so connections are kept alive between chunks
+ * and range requests to an HTTP/2 server are multiplexed as streams over a single connection.
+ * URL_CONNECTION opens a new HttpURLConnection for every request and disconnects it afterwards.
+ */
+public enum TransportType
+{
+    HTTP_CLIENT,
+    URL_CONNECTION
+}
@@ -0,0 +1,18 @@
+package io.rileyhe1.concurrency.Data;
+
+/**
+ * Where chunk bytes are written while a download is running.
+ * TEMP_FILES appends each chunk to its own file under the temp directory and assembles them into the
+ * destination once every chunk has finished.
+ * DIRECT sizes the destination to the full download up front and every chunk writes its bytes at its own
+ * offset through one shared FileChannel, so there is no temp copy and no assembly step.
+ * STREAMING uses temp files like TEMP_FILES but appends chunk i to the destination as soon as chunks 0..i
+ * have finished and deletes each temp file once it has been copied, so the download completes without a
+ * final copy pass and only the chunks still in flight take up temp space.
+ */
+public enum WriteMode
+{
+    TEMP_FILES,
+    DIRECT,
+    STREAMING
+}
@@ -0,0 +1,943 @@
+package io.rileyhe1.concurrency;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.management.ObjectName;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.DownloadException;
+import io.rileyhe1.concurrency.Data.DownloadPriority;
+import io.rileyhe1.concurrency.Data.DownloadSnapshot;
+import io.rileyhe1.concurrency.Data.DownloadState;
+import io.rileyhe1.concurrency.Data.SavedDownload;
+import io.rileyhe1.concurrency.Monitoring.DownloadManagerStats;
+import io.rileyhe1.concurrency.Monitoring.DownloadMetrics;
+import io.rileyhe1.concurrency.Monitoring.DownloadStats;
+import io.rileyhe1.concurrency.Monitoring.MBeans;
+import io.rileyhe1.concurrency.Monitoring.MetricsServer;
+import io.rileyhe1.concurrency.Util.ContentDigest;
+import io.rileyhe1.concurrency.Util.Download;
+import io.rileyhe1.concurrency.Util.DownloadContext;
+import io.rileyhe1.concurrency.Util.DownloadJournal;
+import io.rileyhe1.concurrency.Util.MetalinkFile;
+import io.rileyhe1.concurrency.Util.MetalinkParser;
+import io.rileyhe1.concurrency.Util.ProgressTracker;
+
+public class DownloadManager
+{
+    private static final String DOWNLOADS_JOURNAL = "downloads.journal";
+    // where downloads were saved before the journal, read once and migrated
+    private static final String LEGACY_DOWNLOADS_FILE = "downloads.json";
+
+    Map<String, Download> activeDownloads;
+    // downloads from earlier sessions that haven't been touched yet, id to destination. their state stays in the
+    // journal and only becomes a Download when something asks for it, so startup doesn't grow with the backlog
+    private final Map<String, String> savedDownloads;
+    DownloadConfig config;
+    // every download's chunks share these workers and this transport, so numberOfThreads caps connections across
+    // the whole manager and connections to the same host are reused between downloads
+    private final DownloadContext context;
+    private final DownloadJournal journal;
+    private final ScheduledFuture<?> journalSync;
+    // a slow disk can make a sync outlast the interval, the next tick is skipped rather than queued behind it
+    private final AtomicBoolean syncRunning = new AtomicBoolean(false);
+    private final AtomicBoolean shutDown = new AtomicBoolean(false);
+    // name the manager and its downloads are registered under with JMX, null if config.isJmxEnabled() is off
+    private final String jmxName;
+    // null unless config.getMetricsPort() asked for one or startMetricsServer() was called
+    private volatile MetricsServer metricsServer;
+    // downloads allowed to run at once, 0 for no limit. a download holds its slot from start until it finishes,
+    // paused ones included, so resuming never has to wait
+    private volatile int maxConcurrentDownloads;
+    // PENDING downloads waiting for a slot, one FIFO per priority class (guarded by this)
+    private final Map<DownloadPriority, LinkedHashMap<String, Download>> queuedDownloads = new EnumMap<>(DownloadPriority.class);
+    private final Map<String, DownloadPriority> priorities = new ConcurrentHashMap<>();
+    // destinations of downloads that are being probed and aren't in activeDownloads yet (guarded by this)
+    private final Set<String> reservedDestinations = new HashSet<>();
+
+    public DownloadManager(DownloadConfig config) throws IOException, DownloadException
+    {
+        if (config == null)
+        {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        this.activeDownloads = new ConcurrentHashMap<>();
+        this.savedDownloads = new ConcurrentHashMap<>();
+        this.config = config;
+        this.maxConcurrentDownloads = config.getMaxConcurrentDownloads();
+        for(DownloadPriority priority : DownloadPriority.values())
+        {
+            queuedDownloads.put(priority, new LinkedHashMap<>());
+        }
+        this.context = new DownloadContext(config);
+        this.journal = new DownloadJournal(Paths.get(DOWNLOADS_JOURNAL));
+
+        try
+        {
+            migrateLegacyDownloads();
+            loadDownloads();
+        }
+        catch(IOException | DownloadException | RuntimeException e)
+        {
+            journal.close();
+            context.shutdownNow();
+            throw e;
+        }
+        if(config.getMetricsPort() >= 0)
+        {
+            try
+            {
+                this.metricsServer = new MetricsServer(this, new InetSocketAddress(config.getMetricsPort()));
+            }
+            catch(IOException e)
+            {
+                journal.close();
+                context.shutdownNow();
+                throw e;
+            }
+        }
+        this.jmxName = config.isJmxEnabled() ? MBeans.nextManagerName() : null;
+        if(jmxName != null) MBeans.register(new DownloadManagerStats(this), MBeans.managerName(jmxName));
+        // the timer thread only hands the sync off, the fsyncs run on a monitor thread
+        this.journalSync = context.getScheduler().schedulePeriodic(() ->
+        {
+            if(syncRunning.compareAndSet(false, true))
+            {
+                context.getScheduler().submitMonitor(() ->
+                {
+                    try
+                    {
+                        syncJournal();
+                    }
+                    finally
+                    {
+                        syncRunning.set(false);
+                    }
+                });
+            }
+        }, config.getJournalSyncIntervalMS(), TimeUnit.MILLISECONDS);
+    }
+
+    public Download startDownload(String url, String destination) throws DownloadException
+    {
+        return startDownload(url, destination, null, DownloadPriority.NORMAL);
+    }
+
+    public Download startDownload(String url, String destination, DownloadPriority priority) throws DownloadException
+    {
+        return startDownload(url, destination, null, priority);
+    }
+
+    // expectedDigest is checked against the finished file and overrides any digest the server advertises, null for none
+    public Download startDownload(String url, String destination, ContentDigest expectedDigest) throws DownloadException
+    {
+        return startDownload(url, destination, expectedDigest, DownloadPriority.NORMAL);
+    }
+
+    // starts the download straight away if a slot is free, otherwise it waits PENDING behind anything queued
+    // with the same or a higher priority
+    public Download startDownload(String url, String destination, ContentDigest expectedDigest,
+        DownloadPriority priority) throws DownloadException
+    {
+        return startMirroredDownload(Collections.singletonList(url), destination, expectedDigest, priority);
+    }
+
+    // urls are mirrors of one file, ranges are spread across the ones that agree with the first (see MirrorSet)
+    public Download startMirroredDownload(List<String> urls, String destination) throws DownloadException
+    {
+        return startMirroredDownload(urls, destination, null, DownloadPriority.NORMAL);
+    }
+
+    public Download startMirroredDownload(List<String> urls, String destination, ContentDigest expectedDigest,
+        DownloadPriority priority) throws DownloadException
+    {
+        return startMirroredDownload(urls, destination, expectedDigest, priority, null);
+    }
+
+    // every file a Metalink document (.meta4) lists, each saved under directory by the name the document gives it
+    public List<Download> startMetalinkDownloads(String metalinkPath, String directory) throws IOException, DownloadException
+    {
+        return startMetalinkDownloads(metalinkPath, directory, DownloadPriority.NORMAL);
+    }
+
+    // each file is downloaded from its urls in the document's priority order, checked against its hash, and when
+    // the document has piece hashes its chunks follow the pieces and are checked one by one. a file that can't be
+    // started is skipped with a warning, unless none of them could be
+    public List<Download> startMetalinkDownloads(String metalinkPath, String directory, DownloadPriority priority)
+        throws IOException, DownloadException
+    {
+        if(metalinkPath == null || metalinkPath.trim().isEmpty()) throw new IllegalArgumentException("metalink path cannot be empty/null");
+        if(directory == null || directory.trim().isEmpty()) throw new IllegalArgumentException("directory cannot be empty/null");
+        if(priority == null) throw new IllegalArgumentException("priority cannot be null");
+        List<MetalinkFile> files = MetalinkParser.parse(Paths.get(metalinkPath));
+
+        List<Download> started = new ArrayList<>();
+        Exception firstFailure = null;
+        for(MetalinkFile file : files)
+        {
+            // the parser only lets through names that stay inside the directory, they may still have folders of their own
+            Path destination = Paths.get(directory).resolve(file.getName());
+            try
+            {
+                if(destination.getParent() != null) Files.createDirectories(destination.getParent());
+                started.add(startMirroredDownload(file.getUrls(), destination.toString(), file.getHash(), priority, file));
+            }
+            catch(IOException | DownloadException | IllegalArgumentException | IllegalStateException e)
+            {
+                System.err.println("Skipping " + file.getName() + ": " + e.getMessage());
+                if(firstFailure == null) firstFailure = e;
+            }
+        }
+        if(started.isEmpty())
+        {
+            if(firstFailure instanceof IOException e) throw e;
+            if(firstFailure instanceof DownloadException e) throw e;
+            throw (RuntimeException) firstFailure;
+        }
+        return started;
+    }
+
+    // metalink is the file the urls came from, its size and pieces are applied before the download starts, null otherwise
+    private Download startMirroredDownload(List<String> urls, String destination, ContentDigest expectedDigest,
+        DownloadPriority priority, MetalinkFile metalink) throws DownloadException
+    {
+        // input validation
+        if(urls == null || urls.isEmpty()) throw new IllegalArgumentException("url cannot be empty/null");
+        for(String url : urls)
+        {
+            if(url == null || url.trim().isEmpty()) throw new IllegalArgumentException("url cannot be empty/null");
+        }
+        if(destination == null || destination.trim().isEmpty()) throw new IllegalArgumentException("destination cannot be empty/null");
+        if(priority == null) throw new IllegalArgumentException("priority cannot be null");
+        reserveDestination(destination);
+        Download download;
+        try
+        {
+            // the probe goes out to every url, so it runs without the lock that startQueued, setPriority and
+            // setMaxConcurrentDownloads need
+            download = createDownload(urls, destination, expectedDigest, metalink);
+            synchronized(this)
+            {
+                download.setListener(this::onDownloadFinished);
+                activeDownloads.put(download.getId(), download);
+                priorities.put(download.getId(), priority);
+                registerMBean(download);
+
+                // start the download (or queue it) and return its handle
+                startOrQueue(download);
+            }
+        }
+        finally
+        {
+            releaseDestination(destination);
+        }
+        // log it straight away so a crash before the next sync still knows the download exists
+        try
+        {
+            journal.record(download.createSnapshot());
+            journal.sync();
+        }
+        catch(IOException e)
+        {
+            System.err.println("Failed to journal download " + download.getId() + ": " + e.getMessage());
+        }
+        return download;
+    }
+
+    // holds destination for a download that is still being probed, so a second start for the same file fails
+    // straight away instead of after its own probe
+    private synchronized void reserveDestination(String destination)
+    {
+        // check for existing downloads already using the given destination
+        for(Download download : activeDownloads.values())
+        {
+            if(download.getDestination().equals(destination))
+            {
+                throw new IllegalArgumentException("Invalid destination, there is an active download using the given destination");
+            }
+        }
+        if(reservedDestinations.contains(destination))
+        {
+            throw new IllegalArgumentException("Invalid destination, there is an active download using the given destination");
+        }
+        if(savedDownloads.containsValue(destination))
+        {
+            throw new IllegalArgumentException("Invalid destination, there is a saved download using the given destination");
+        }
+        reservedDestinations.add(destination);
+    }
+
+    private synchronized void releaseDestination(String destination)
+    {
+        reservedDestinations.remove(destination);
+    }
+
+    // builds and probes the download, discarding it again if the expected digest or Metalink details don't fit
+    private Download createDownload(List<String> urls, String destination, ContentDigest expectedDigest,
+        MetalinkFile metalink) throws DownloadException
+    {
+        // more input validation is done in the Download constructor
+        // the scheduler never runs more than numberOfThreads chunks at once, so that many stripes means no sharing
+        ProgressTracker progressTracker = new ProgressTracker(config.getNumberOfThreads());
+        Download download = Download.withMirrors(urls, destination, config, progressTracker, context);
+        try
+        {
+            if(expectedDigest != null) download.setExpectedDigest(expectedDigest);
+            if(metalink != null)
+            {
+                // a download whose size the server didn't give can't be checked until it's done
+                if(metalink.getSize() >= 0 && download.getTotalSize() >= 0 && metalink.getSize() != download.getTotalSize())
+                {
+                    throw new DownloadException("Metalink document says " + metalink.getName() + " is " + metalink.getSize()
+                        + " bytes, the server says " + download.getTotalSize(), download.getId(), download.getUrl());
+                }
+                if(metalink.hasPieceHashes()) download.setPieceHashes(metalink.getPieceLength(), metalink.getPieceHashes());
+            }
+        }
+        catch(DownloadException | RuntimeException e)
+        {
+            // turned down before it was ever handed out, so nothing else will close its probe or temp directory
+            download.discard();
+            throw e;
+        }
+        return download;
+    }
+
+    public void pauseDownload(String downloadId)
+    {
+        // input validation
+        if(downloadId == null || downloadId.trim().isEmpty()) throw new IllegalArgumentException("download id cannot be null/empty");
+        Download download = getDownload(downloadId);
+        if(download == null) throw new IllegalArgumentException("Invalid download id, download is not present in active downloads map");
+        download.pause();
+    }
+
+    public void resumeDownload(String downloadId)
+    {
+        // input validation
+        if(downloadId == null || downloadId.trim().isEmpty()) throw new IllegalArgumentException("download id cannot be null/empty");
+        Download download = getDownload(downloadId);
+        if(download == null) throw new IllegalArgumentException("Invalid download id, download is not present in active downloads map");
+        
+        // Check if this is a loaded download that hasn't been started yet
+        if(download.getState() == DownloadState.PENDING)
+        {
+            synchronized(this)
+            {
+                // already waiting for a slot, nothing more to do
+                if(isQueued(downloadId)) return;
+                startOrQueue(download);
+            }
+        }
+        // Use regular resume for paused downloads
+        else if(download.getState() == DownloadState.PAUSED)
+        {
+            download.resume();
+        }
+        else
+        {
+            throw new IllegalStateException("Cannot resume download in state: " + download.getState());
+        }
+    }
+
+    public void cancelDownload(String downloadId)
+    {
+        // input validation
+        if(downloadId == null || downloadId.trim().isEmpty()) throw new IllegalArgumentException("download id cannot be null/empty");
+        Download download = getDownload(downloadId);
+        if(download == null) throw new IllegalArgumentException("Invalid download id, download is not present in active downloads map");
+        // a queued download never started, so there is nothing of it to stop, only its temp directory to clear
+        if(dequeue(downloadId)) download.discard();
+        else download.cancel();
+        activeDownloads.remove(downloadId);
+        priorities.remove(downloadId);
+        unregisterMBean(downloadId);
+        try
+        {
+            journal.remove(downloadId);
+            journal.sync();
+        }
+        catch(IOException e)
+        {
+            System.err.println("Failed to journal cancelled download " + downloadId + ": " + e.getMessage());
+        }
+    }
+
+    // forgets a download that has finished one way or another, leaving whatever it wrote where it is
+    // (a long running process would otherwise hold on to every download it ever finished until shutdown)
+    public void removeDownload(String downloadId)
+    {
+        // input validation
+        if(downloadId == null || downloadId.trim().isEmpty()) throw new IllegalArgumentException("download id cannot be null/empty");
+        Download download = activeDownloads.get(downloadId);
+        if(download == null) throw new IllegalArgumentException("Invalid download id, download is not present in active downloads map");
+        DownloadState state = download.getState();
+        if(state != DownloadState.COMPLETED && state != DownloadState.FAILED && state != DownloadState.CANCELLED)
+        {
+            throw new IllegalStateException("Cannot remove download in state: " + state);
+        }
+        activeDownloads.remove(downloadId);
+        priorities.remove(downloadId);
+        unregisterMBean(downloadId);
+        try
+        {
+            journal.remove(downloadId);
+            journal.sync();
+        }
+        catch(IOException e)
+        {
+            System.err.println("Failed to journal removed download " + downloadId + ": " + e.getMessage());
+        }
+    }
+
+    // moves a download to another priority class. a waiting download goes to the back of its new class, a running
+    // one keeps running and the new priority only matters if it is queued again (a resumed saved download)
+    public synchronized void setPriority(String downloadId, DownloadPriority priority)
+    {
+        // input validation
+        if(downloadId == null || downloadId.trim().isEmpty()) throw new IllegalArgumentException("download id cannot be null/empty");
+        if(priority == null) throw new IllegalArgumentException("priority cannot be null");
+        Download download = getDownload(downloadId);
+        if(download == null) throw new IllegalArgumentException("Invalid download id, download is not present in active downloads map");
+        DownloadPriority previous = priorities.put(downloadId, priority);
+        if(previous != priority && dequeue(downloadId)) queuedDownloads.get(priority).put(downloadId, download);
+    }
+
+    // null for a download that hasn't been started or loaded in this session
+    public DownloadPriority getPriority(String downloadId)
+    {
+        if(downloadId == null) return null;
+        return priorities.get(downloadId);
+    }
+
+    // 0 for no limit. raising the limit starts waiting downloads straight away, lowering it lets running ones finish
+    public synchronized void setMaxConcurrentDownloads(int maxConcurrentDownloads)
+    {
+        if(maxConcurrentDownloads < 0) throw new IllegalArgumentException("Max concurrent downloads cannot be negative");
+        this.maxConcurrentDownloads = maxConcurrentDownloads;
+        startQueued();
+    }
+
+    public int getMaxConcurrentDownloads()
+    {
+        return maxConcurrentDownloads;
+    }
+
+    // downloads waiting for a slot, in the order they will start
+    public synchronized List<Download> getQueuedDownloads()
+    {
+        List<Download> queued = new ArrayList<>();
+        for(LinkedHashMap<String, Download> queue : queuedDownloads.values())
+        {
+            queued.addAll(queue.values());
+        }
+        return queued;
+    }
+
+    public synchronized int getQueuedDownloadCount()
+    {
+        int count = 0;
+        for(LinkedHashMap<String, Download> queue : queuedDownloads.values())
+        {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    // downloads holding a slot, started and not finished yet (paused ones included)
+    public int getRunningDownloadCount()
+    {
+        int running = 0;
+        for(Download download : activeDownloads.values())
+        {
+            DownloadState state = download.getState();
+            if(state == DownloadState.DOWNLOADING || state == DownloadState.PAUSED) running++;
+        }
+        return running;
+    }
+
+    private synchronized void startOrQueue(Download download)
+    {
+        int limit = maxConcurrentDownloads;
+        if(limit > 0 && getRunningDownloadCount() >= limit)
+        {
+            queuedDownloads.get(priorities.getOrDefault(download.getId(), DownloadPriority.NORMAL)).put(download.getId(), download);
+            // there's no telling how long it will wait, so it doesn't keep the probe's connection open meanwhile
+            download.releaseProbe();
+            return;
+        }
+        if(download.hasSavedProgress()) download.startExisting();
+        else download.start();
+    }
+
+    // hands free slots to waiting downloads, most important class first and oldest first within it
+    private synchronized void startQueued()
+    {
+        int limit = maxConcurrentDownloads;
+        while(!shutDown.get() && (limit == 0 || getRunningDownloadCount() < limit))
+        {
+            Download next = pollQueued();
+            if(next == null) return;
+            if(next.hasSavedProgress()) next.startExisting();
+            else next.start();
+        }
+    }
+
+    private Download pollQueued()
+    {
+        for(LinkedHashMap<String, Download> queue : queuedDownloads.values())
+        {
+            Iterator<Download> waiting = queue.values().iterator();
+            if(waiting.hasNext())
+            {
+                Download next = waiting.next();
+                waiting.remove();
+                return next;
+            }
+        }
+        return null;
+    }
+
+    private synchronized boolean isQueued(String downloadId)
+    {
+        for(LinkedHashMap<String, Download> queue : queuedDownloads.values())
+        {
+            if(queue.containsKey(downloadId)) return true;
+        }
+        return false;
+    }
+
+    // false if the download wasn't waiting
+    private synchronized boolean dequeue(String downloadId)
+    {
+        for(LinkedHashMap<String, Download> queue : queuedDownloads.values())
+        {
+            if(queue.remove(downloadId) != null) return true;
+        }
+        return false;
+    }
+
+    // a download that completed, failed, was cancelled or stopped has given its slot back
+    private void onDownloadFinished(Download download)
+    {
+        if(maxConcurrentDownloads > 0) startQueued();
+    }
+
+    // bandwidth limits are in bytes per second, 0 for unlimited, and apply to running downloads straight away
+
+    public void setBandwidthLimit(long bytesPerSecond)
+    {
+        context.getGlobalLimiter().setRate(bytesPerSecond);
+    }
+
+    public long getBandwidthLimit()
+    {
+        return context.getGlobalLimiter().getRate();
+    }
+
+    public void setDownloadBandwidthLimit(String downloadId, long bytesPerSecond)
+    {
+        // input validation
+        if(downloadId == null || downloadId.trim().isEmpty()) throw new IllegalArgumentException("download id cannot be null/empty");
+        Download download = getDownload(downloadId);
+        if(download == null) throw new IllegalArgumentException("Invalid download id, download is not present in active downloads map");
+        download.setBandwidthLimit(bytesPerSecond);
+    }
+
+    // host is the URL's host, plus ":port" when the URL has an explicit port
+    public void setHostBandwidthLimit(String host, long bytesPerSecond)
+    {
+        context.setHostBandwidthLimit(host, bytesPerSecond);
+    }
+
+    public long getHostBandwidthLimit(String host)
+    {
+        if(host == null || host.trim().isEmpty()) throw new IllegalArgumentException("Host cannot be null or empty");
+        return context.getHostLimiter(host).getRate();
+    }
+
+    // logs the progress of every download the manager holds, runs every journalSyncIntervalMS and at shutdown
+    private void syncJournal()
+    {
+        long syncStart = System.nanoTime();
+        try
+        {
+            for(Download download : activeDownloads.values())
+            {
+                DownloadState state = download.getState();
+                if(state == DownloadState.COMPLETED || state == DownloadState.CANCELLED || state == DownloadState.FAILED)
+                {
+                    journal.remove(download.getId());
+                    continue;
+                }
+                // snapshot first, then force: the bytes it counts must be on disk before the journal claims them
+                DownloadSnapshot snapshot = download.createSnapshot();
+                download.flushToDisk();
+                journal.record(snapshot);
+            }
+            journal.sync();
+            context.getMetrics().recordJournalSync(System.nanoTime() - syncStart);
+        }
+        catch(IOException e)
+        {
+            System.err.println("Failed to sync download journal: " + e.getMessage());
+        }
+    }
+
+    // moves downloads saved by older versions into the journal, then deletes the old file
+    private void migrateLegacyDownloads() throws IOException
+    {
+        if(!Files.exists(Paths.get(LEGACY_DOWNLOADS_FILE)))
+        {
+            return;
+        }
+
+        Gson gson = new Gson();
+        Type listType = new TypeToken<List<DownloadSnapshot>>(){}.getType();
+
+        List<DownloadSnapshot> legacySnapshots;
+        try(FileReader reader = new FileReader(LEGACY_DOWNLOADS_FILE))
+        {
+            legacySnapshots = gson.fromJson(reader, listType);
+        }
+        catch(Exception e)
+        {
+            System.err.println("Error loading legacy downloads.json: " + e.getMessage());
+            return;
+        }
+
+        if(legacySnapshots != null)
+        {
+            for(DownloadSnapshot snapshot : legacySnapshots)
+            {
+                if(snapshot.getId() != null && !journal.contains(snapshot.getId())) journal.record(snapshot);
+            }
+        }
+        journal.sync();
+        Files.delete(Paths.get(LEGACY_DOWNLOADS_FILE));
+    }
+
+    // registers the downloads kept in the journal without building them, see rehydrate()
+    public void loadDownloads() throws IOException, DownloadException
+    {
+        // whatever was running when the last session ended comes back PENDING. only the id, destination and state
+        // are looked at here, the rest of a snapshot is copied out when the download is rehydrated
+        for(Map.Entry<String, String> saved : journal.getDestinations().entrySet())
+        {
+            String downloadId = saved.getKey();
+            if(activeDownloads.containsKey(downloadId))
+            {
+                continue;
+            }
+            String state = journal.getState(downloadId);
+            if(DownloadState.COMPLETED.name().equals(state) || DownloadState.CANCELLED.name().equals(state) ||
+               DownloadState.FAILED.name().equals(state))
+            {
+                journal.remove(downloadId);
+                continue;
+            }
+            savedDownloads.put(downloadId, saved.getValue());
+        }
+        journal.sync();
+    }
+
+    // turns a saved download into a PENDING Download, ready for startExisting()
+    private synchronized Download rehydrate(String downloadId)
+    {
+        Download download = activeDownloads.get(downloadId);
+        if(download != null || !savedDownloads.containsKey(downloadId)) return download;
+
+        DownloadSnapshot snapshot = journal.getSnapshot(downloadId);
+        if(snapshot == null)
+        {
+            savedDownloads.remove(downloadId);
+            return null;
+        }
+        // Create ProgressTracker with saved progress
+        ProgressTracker tracker = new ProgressTracker(config.getNumberOfThreads());
+        for(Map.Entry<Integer, Long> entry : snapshot.getChunkProgress().entrySet())
+        {
+            tracker.updateProgress(entry.getKey(), entry.getValue());
+        }
+        try
+        {
+            // Create Download (will be in PENDING state initially)
+            download = new Download(snapshot, config, tracker, context);
+        }
+        catch(DownloadException e)
+        {
+            System.err.println("Failed to restore download " + downloadId + ": " + e.getMessage());
+            return null;
+        }
+        download.setListener(this::onDownloadFinished);
+        activeDownloads.put(downloadId, download);
+        // priorities aren't journaled, a saved download comes back NORMAL
+        priorities.putIfAbsent(downloadId, DownloadPriority.NORMAL);
+        registerMBean(download);
+        savedDownloads.remove(downloadId);
+        return download;
+    }
+
+    // combined smoothed rate of every running download. each one samples on its own timer, so this is the sum of
+    // their averages rather than an average of the sum, close enough at the same window
+    public double getTotalBytesPerSecond()
+    {
+        double total = 0;
+        for(Download download : activeDownloads.values())
+        {
+            total += download.getBytesPerSecond();
+        }
+        return total;
+    }
+
+    // time until every running download is done at the current combined rate, null while there is no rate to go on
+    // or one of them hasn't got a size
+    public Duration getEta()
+    {
+        long remaining = 0;
+        double rate = 0;
+        for(Download download : activeDownloads.values())
+        {
+            if(download.getState() != DownloadState.DOWNLOADING) continue;
+            long left = download.getRemainingBytes();
+            if(left < 0) return null;
+            remaining += left;
+            rate += download.getBytesPerSecond();
+        }
+        if(remaining == 0) return Duration.ZERO;
+        if(rate <= 0) return null;
+        return Duration.ofNanos((long) (remaining / rate * 1e9));
+    }
+
+    // retried chunk attempts across the downloads of this session
+    public int getTotalRetryCount()
+    {
+        int total = 0;
+        for(Download download : activeDownloads.values())
+        {
+            total += download.getRetryCount();
+        }
+        return total;
+    }
+
+    // chunks connected across every download, the shared workers cap this at numberOfThreads
+    public int getActiveConnections()
+    {
+        return context.getScheduler().getActiveChunkCount();
+    }
+
+    // chunks waiting for one of the shared workers
+    public int getQueuedChunkCount()
+    {
+        return context.getScheduler().getQueuedChunkCount();
+    }
+
+    public int getSavedDownloadCount()
+    {
+        return savedDownloads.size();
+    }
+
+    // counters every chunk of every download reports into, what the metrics endpoint serves
+    public DownloadMetrics getMetrics()
+    {
+        return context.getMetrics();
+    }
+
+    // serves this manager's metrics in Prometheus format at /metrics, replacing any endpoint already running
+    public synchronized MetricsServer startMetricsServer(InetSocketAddress address) throws IOException
+    {
+        if(shutDown.get()) throw new IllegalStateException("Manager has been shut down");
+        stopMetricsServer();
+        metricsServer = new MetricsServer(this, address);
+        return metricsServer;
+    }
+
+    public synchronized void stopMetricsServer()
+    {
+        if(metricsServer == null) return;
+        metricsServer.close();
+        metricsServer = null;
+    }
+
+    // null if no endpoint is running
+    public MetricsServer getMetricsServer()
+    {
+        return metricsServer;
+    }
+
+    // what JMX clients find this manager under, null if JMX is switched off
+    public ObjectName getObjectName()
+    {
+        return jmxName == null ? null : MBeans.managerName(jmxName);
+    }
+
+    // null if JMX is switched off
+    public ObjectName getObjectName(String downloadId)
+    {
+        return jmxName == null ? null : MBeans.downloadName(jmxName, downloadId);
+    }
+
+    private void registerMBean(Download download)
+    {
+        if(jmxName != null) MBeans.register(new DownloadStats(download), MBeans.downloadName(jmxName, download.getId()));
+    }
+
+    private void unregisterMBean(String downloadId)
+    {
+        if(jmxName != null) MBeans.unregister(MBeans.downloadName(jmxName, downloadId));
+    }
+
+    // the download with this id, loading it from the journal the first time a saved download is asked for
+    public Download getDownload(String downloadId)
+    {
+        if(downloadId == null) return null;
+        Download download = activeDownloads.get(downloadId);
+        if(download != null) return download;
+        return rehydrate(downloadId);
+    }
+
+    // downloads that have been started or asked for in this session
+    public List<Download> getAllDownloads()
+    {
+        return new ArrayList<>(activeDownloads.values());
+    }
+
+    // what is known about the saved downloads nothing has asked for yet, without loading them or copying their
+    // snapshots (that happens in rehydrate, once one is resumed)
+    public List<SavedDownload> getSavedDownloads()
+    {
+        List<SavedDownload> saved = new ArrayList<>();
+        for(String downloadId : savedDownloads.keySet())
+        {
+            SavedDownload download = journal.getSavedDownload(downloadId);
+            if(download != null) saved.add(download);
+        }
+        return saved;
+    }
+
+    public void shutdown()
+    {
+        if(!shutDown.compareAndSet(false, true)) return;
+
+        // Stop all active and paused downloads
+        for(Download download : activeDownloads.values())
+        {
+            DownloadState downloadState = download.getState();
+            if(downloadState == DownloadState.DOWNLOADING || 
+               downloadState == DownloadState.PAUSED)
+            {
+                try
+                {
+                    // if the download is running, try to pause it to allow any current read/write to finish before stopping it to prevent data loss
+                    if(downloadState != DownloadState.PAUSED)
+                    {
+                        download.pause();
+                        Thread.sleep(10);
+                    }
+                    download.stop();
+                }
+                catch(IllegalStateException e)
+                {
+                    // Download might have completed/failed between check and stop - which we will ignore
+                }
+                catch(InterruptedException e)
+                {
+                    // Manager thread interrupted while waiting for download to pause, we'll just restore interrupted state
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        
+        // Save state to disk, stop() has already forced what the stopped downloads wrote
+        journalSync.cancel(false);
+        // wait out a periodic sync that is already running, holding the flag keeps any later tick from starting one
+        while(!syncRunning.compareAndSet(false, true))
+        {
+            Thread.onSpinWait();
+        }
+        syncJournal();
+        try
+        {
+            journal.compact();
+            journal.close();
+        }
+        catch(IOException e)
+        {
+            // the synced log is still valid, it just gets compacted next time
+            System.err.println("Failed to compact download journal: " + e.getMessage());
+        }
+        
+        // Cancel all leftover downloads for cleanup (Completed or cancelled downloads)
+        for(Download download : activeDownloads.values())
+        {
+            DownloadState state = download.getState();
+            if(state == DownloadState.COMPLETED ||
+               state == DownloadState.CANCELLED)
+            {
+                try
+                {
+                    download.cancel();
+                }
+                catch(IllegalStateException e)
+                {
+                    // Illegal state exception only throws if already completed/cancelled - so we'll just ignore it
+                }
+            }
+        }
+        
+        // Lastly we clear the map and release the shared workers
+        for(String downloadId : activeDownloads.keySet())
+        {
+            unregisterMBean(downloadId);
+        }
+        if(jmxName != null) MBeans.unregister(MBeans.managerName(jmxName));
+        stopMetricsServer();
+        // queued downloads were journaled PENDING and come back as saved downloads next time
+        synchronized(this)
+        {
+            for(LinkedHashMap<String, Download> queue : queuedDownloads.values())
+            {
+                queue.clear();
+            }
+        }
+        activeDownloads.clear();
+        savedDownloads.clear();
+        priorities.clear();
+        context.shutdownNow();
+    }
+    // convinience method for GUI
+    // private void validateURL(String url) throws IllegalArgumentException
+    // {
+    //     try 
+    //     {
+    //         URI.create(url).toURL();
+    //     }
+    //     catch(Exception e)
+    //     {
+    //         throw new IllegalArgumentException("Invalid URL format: " + url, e);
+    //     }
+    // }
+}
\ No newline at end of file
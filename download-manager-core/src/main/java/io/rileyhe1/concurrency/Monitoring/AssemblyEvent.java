@@ -0,0 +1,33 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * FileAssembler copying a TEMP_FILES download's chunks into the destination, the one step that
+ * happens after the last byte arrives and before the download counts as done.
+ */
+@Name("io.rileyhe1.concurrency.Assembly")
+@Label("Chunk Assembly")
+@Category({"Download Manager", "Assembly"})
+@Description("Chunk temp files merged into the destination")
+public class AssemblyEvent extends Event
+{
+    @Label("Destination")
+    public String destination;
+
+    @Label("Chunks")
+    public int chunks;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Hashed")
+    @Description("Whether the file was hashed during the copy")
+    public boolean hashed;
+}
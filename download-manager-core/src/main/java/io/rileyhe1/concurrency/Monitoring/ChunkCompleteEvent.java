@@ -0,0 +1,36 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A chunk's run on a worker that ended with its range done or given up on. Runs that handed the
+ * worker back because the download was paused don't end in one of these, the run after the
+ * resume does.
+ */
+@Name("io.rileyhe1.concurrency.ChunkComplete")
+@Label("Chunk Complete")
+@Category({"Download Manager", "Chunks"})
+@Description("A chunk finished its range or failed for good")
+public class ChunkCompleteEvent extends Event
+{
+    @Label("URL")
+    public String url;
+
+    @Label("Chunk Index")
+    public int chunkIndex;
+
+    @Label("Bytes Downloaded")
+    @DataAmount
+    public long bytesDownloaded;
+
+    @Label("Successful")
+    public boolean successful;
+
+    @Label("Retries")
+    public int retries;
+}
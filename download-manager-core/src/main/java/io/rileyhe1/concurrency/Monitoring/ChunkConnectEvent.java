@@ -0,0 +1,34 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * One range request, from sending it to the response headers coming back. A fresh connection's
+ * handshake is part of it, a pooled one's isn't, so a long tail here with short first-byte gaps
+ * after it points at connection setup rather than the server.
+ */
+@Name("io.rileyhe1.concurrency.ChunkConnect")
+@Label("Chunk Connect")
+@Category({"Download Manager", "Chunks"})
+@Description("Range request sent until its response headers arrived")
+public class ChunkConnectEvent extends Event
+{
+    @Label("URL")
+    public String url;
+
+    @Label("Chunk Index")
+    public int chunkIndex;
+
+    @Label("Range Start")
+    public long rangeStart;
+
+    @Label("Range End")
+    public long rangeEnd;
+
+    @Label("Status Code")
+    public int statusCode;
+}
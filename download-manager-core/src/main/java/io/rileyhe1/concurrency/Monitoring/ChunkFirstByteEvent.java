@@ -0,0 +1,29 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A range request from being sent to the first read of its body returning data, so it covers
+ * everything ChunkConnect does plus the wait for the body itself.
+ */
+@Name("io.rileyhe1.concurrency.ChunkFirstByte")
+@Label("Chunk First Byte")
+@Category({"Download Manager", "Chunks"})
+@Description("Range request sent until the first bytes of its body were read")
+public class ChunkFirstByteEvent extends Event
+{
+    @Label("URL")
+    public String url;
+
+    @Label("Chunk Index")
+    public int chunkIndex;
+
+    @Label("First Read")
+    @DataAmount
+    public long bytesRead;
+}
@@ -0,0 +1,35 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A failed attempt that is about to be retried, committed before the retry delay so the gap
+ * until the next ChunkConnect is the delay.
+ */
+@Name("io.rileyhe1.concurrency.ChunkRetry")
+@Label("Chunk Retry")
+@Category({"Download Manager", "Chunks"})
+@Description("A chunk attempt failed and will be retried")
+public class ChunkRetryEvent extends Event
+{
+    @Label("URL")
+    public String url;
+
+    @Label("Chunk Index")
+    public int chunkIndex;
+
+    @Label("Attempt")
+    @Description("The attempt that failed, counting from 1")
+    public int attempt;
+
+    @Label("Cause")
+    @Description("Class of the exception that failed the attempt")
+    public Class<?> cause;
+
+    @Label("Message")
+    public String message;
+}
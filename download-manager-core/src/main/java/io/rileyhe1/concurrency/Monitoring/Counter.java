@@ -0,0 +1,52 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A monotonic count that chunk workers can bump from their read loops without sharing a cache line.
+ *
+ * Laid out like ProgressTracker: stripes PADDING longs apart in one primitive array, picked by the calling
+ * thread's identity so two workers rarely land on the same one. add() is a single atomic add with no
+ * allocation, and get() only reads, so a scrape never blocks or slows a writer.
+ */
+public class Counter
+{
+    static final int PADDING = 16;
+    static final int STRIPES = 16;
+    private static final VarHandle COUNTERS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] counters = new long[(STRIPES + 1) * PADDING];
+
+    public void increment()
+    {
+        add(1);
+    }
+
+    public void add(long amount)
+    {
+        COUNTERS.getAndAdd(counters, slot(stripe()), amount);
+    }
+
+    public long get()
+    {
+        long total = 0;
+        for(int stripe = 0; stripe < STRIPES; stripe++)
+        {
+            total += (long) COUNTERS.getVolatile(counters, slot(stripe));
+        }
+        return total;
+    }
+
+    // Thread doesn't override hashCode, so this is its identity hash, stable for the thread's life
+    static int stripe()
+    {
+        int hash = Thread.currentThread().hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static int slot(int stripe)
+    {
+        return (stripe + 1) * PADDING;
+    }
+}
@@ -0,0 +1,44 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+/**
+ * What JConsole, JMC or any other JMX client sees for one download, registered as
+ * io.rileyhe1.concurrency:type=Download,manager=...,id=... while its manager holds it.
+ * Unknowns that would be null on Download (ETA, time to first byte) are -1 here.
+ */
+public interface DownloadMXBean
+{
+    String getId();
+
+    String getUrl();
+
+    String getDestination();
+
+    String getState();
+
+    String getWriteMode();
+
+    long getTotalSize();
+
+    long getDownloadedBytes();
+
+    double getProgress();
+
+    double getBytesPerSecond();
+
+    long getEtaSeconds();
+
+    long getTimeToFirstByteMillis();
+
+    int getActiveConnections();
+
+    // -1 unless the download adapts its connection count
+    int getConnectionLimit();
+
+    int getQueuedChunks();
+
+    int getRetryCount();
+
+    long getBandwidthLimit();
+
+    void setBandwidthLimit(long bytesPerSecond);
+}
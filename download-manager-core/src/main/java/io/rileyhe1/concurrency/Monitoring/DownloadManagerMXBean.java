@@ -0,0 +1,41 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+/**
+ * Totals for every download a manager holds, registered as
+ * io.rileyhe1.concurrency:type=DownloadManager,name=... for as long as the manager is up.
+ */
+public interface DownloadManagerMXBean
+{
+    // downloads started or resumed in this session, finished ones included until they're cancelled
+    int getDownloadCount();
+
+    int getActiveDownloadCount();
+
+    // saved downloads from earlier sessions nothing has asked for yet
+    int getSavedDownloadCount();
+
+    long getDownloadedBytes();
+
+    double getBytesPerSecond();
+
+    long getEtaSeconds();
+
+    // chunks connected across every download, capped by numberOfThreads
+    int getActiveConnections();
+
+    // chunks waiting for one of the shared workers
+    int getQueuedChunks();
+
+    int getRetryCount();
+
+    // downloads waiting PENDING for one of MaxConcurrentDownloads slots
+    int getQueuedDownloads();
+
+    int getMaxConcurrentDownloads();
+
+    void setMaxConcurrentDownloads(int maxConcurrentDownloads);
+
+    long getBandwidthLimit();
+
+    void setBandwidthLimit(long bytesPerSecond);
+}
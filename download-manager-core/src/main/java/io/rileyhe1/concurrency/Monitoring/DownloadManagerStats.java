@@ -0,0 +1,114 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import java.time.Duration;
+
+import io.rileyhe1.concurrency.DownloadManager;
+import io.rileyhe1.concurrency.Data.DownloadState;
+import io.rileyhe1.concurrency.Util.Download;
+
+// reads straight through to the manager, nothing is cached between JMX reads
+public class DownloadManagerStats implements DownloadManagerMXBean
+{
+    private final DownloadManager manager;
+
+    public DownloadManagerStats(DownloadManager manager)
+    {
+        if(manager == null) throw new IllegalArgumentException("Manager cannot be null");
+        this.manager = manager;
+    }
+
+    @Override
+    public int getDownloadCount()
+    {
+        return manager.getAllDownloads().size();
+    }
+
+    @Override
+    public int getActiveDownloadCount()
+    {
+        int active = 0;
+        for(Download download : manager.getAllDownloads())
+        {
+            if(download.getState() == DownloadState.DOWNLOADING) active++;
+        }
+        return active;
+    }
+
+    @Override
+    public int getSavedDownloadCount()
+    {
+        return manager.getSavedDownloadCount();
+    }
+
+    @Override
+    public long getDownloadedBytes()
+    {
+        long total = 0;
+        for(Download download : manager.getAllDownloads())
+        {
+            total += download.getDownloadedBytes();
+        }
+        return total;
+    }
+
+    @Override
+    public double getBytesPerSecond()
+    {
+        return manager.getTotalBytesPerSecond();
+    }
+
+    @Override
+    public long getEtaSeconds()
+    {
+        Duration eta = manager.getEta();
+        return eta == null ? -1 : eta.toSeconds();
+    }
+
+    @Override
+    public int getActiveConnections()
+    {
+        return manager.getActiveConnections();
+    }
+
+    @Override
+    public int getQueuedChunks()
+    {
+        return manager.getQueuedChunkCount();
+    }
+
+    @Override
+    public int getRetryCount()
+    {
+        return manager.getTotalRetryCount();
+    }
+
+    @Override
+    public int getQueuedDownloads()
+    {
+        return manager.getQueuedDownloadCount();
+    }
+
+    @Override
+    public int getMaxConcurrentDownloads()
+    {
+        return manager.getMaxConcurrentDownloads();
+    }
+
+    @Override
+    public void setMaxConcurrentDownloads(int maxConcurrentDownloads)
+    {
+        manager.setMaxConcurrentDownloads(maxConcurrentDownloads);
+    }
+
+    @Override
+    public long getBandwidthLimit()
+    {
+        return manager.getBandwidthLimit();
+    }
+
+    @Override
+    public void setBandwidthLimit(long bytesPerSecond)
+    {
+        manager.setBandwidthLimit(bytesPerSecond);
+    }
+}
@@ -0,0 +1,161 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Everything a DownloadManager counts for its metrics endpoint, one per DownloadContext so all of a manager's
+ * downloads feed the same instance.
+ *
+ * The only metric touched on every read is bytesDownloaded, a striped Counter. Latencies, throughput and
+ * retries are recorded once per attempt or per chunk, persistence and assembly once per operation, and host
+ * connection gauges when a request starts and ends. Nothing here allocates once a host has been seen, and
+ * reading it all for a scrape takes no locks.
+ */
+public class DownloadMetrics
+{
+    private static final long MILLISECOND = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Counter bytesDownloaded = new Counter();
+    private final Counter chunksSucceeded = new Counter();
+    private final Counter chunksFailed = new Counter();
+    private final Counter[] retries = new Counter[RetryCause.values().length];
+    private final Counter hedgesWon = new Counter();
+    private final Counter hedgesLost = new Counter();
+    // bytes per second of each finished chunk, 64 KB/s up to 2 GB/s
+    private final Histogram chunkThroughput = Histogram.exponential(64 * 1024, 2, 16);
+    // nanoseconds, 1 ms up to about 33 s
+    private final Histogram connectLatency = Histogram.exponential(MILLISECOND, 2, 16);
+    private final Histogram firstByteLatency = Histogram.exponential(MILLISECOND, 2, 16);
+    // nanoseconds, 10 ms up to about 5.5 min
+    private final Histogram chunkDuration = Histogram.exponential(10 * MILLISECOND, 2, 16);
+    private final Histogram assemblyDuration = Histogram.exponential(MILLISECOND, 2, 18);
+    private final Histogram journalSyncDuration = Histogram.exponential(MILLISECOND / 10, 2, 16);
+    private final Map<String, AtomicInteger> hostConnections = new ConcurrentHashMap<>();
+
+    public DownloadMetrics()
+    {
+        for(int i = 0; i < retries.length; i++)
+        {
+            retries[i] = new Counter();
+        }
+    }
+
+    public void recordBytes(long bytes)
+    {
+        bytesDownloaded.add(bytes);
+    }
+
+    public void recordConnect(long nanos)
+    {
+        connectLatency.observe(nanos);
+    }
+
+    public void recordFirstByte(long nanos)
+    {
+        firstByteLatency.observe(nanos);
+    }
+
+    public void recordRetry(RetryCause cause)
+    {
+        retries[cause.ordinal()].increment();
+    }
+
+    // won when the hedged request finished the range before the chunk's own one did
+    public void recordHedge(boolean won)
+    {
+        (won ? hedgesWon : hedgesLost).increment();
+    }
+
+    // bytes is what this run of the chunk downloaded, not counting anything from before a resume
+    public void recordChunk(boolean successful, long bytes, long nanos)
+    {
+        (successful ? chunksSucceeded : chunksFailed).increment();
+        chunkDuration.observe(nanos);
+        if(successful && nanos > 0 && bytes > 0) chunkThroughput.observe((long) (bytes * 1e9 / nanos));
+    }
+
+    public void recordAssembly(long nanos)
+    {
+        assemblyDuration.observe(nanos);
+    }
+
+    public void recordJournalSync(long nanos)
+    {
+        journalSyncDuration.observe(nanos);
+    }
+
+    // the live connection count for host, keep it rather than looking it up for every request
+    public AtomicInteger hostConnections(String host)
+    {
+        return hostConnections.computeIfAbsent(host == null ? "unknown" : host, (k) -> new AtomicInteger());
+    }
+
+    public long getBytesDownloaded()
+    {
+        return bytesDownloaded.get();
+    }
+
+    public long getChunksSucceeded()
+    {
+        return chunksSucceeded.get();
+    }
+
+    public long getChunksFailed()
+    {
+        return chunksFailed.get();
+    }
+
+    public long getRetries(RetryCause cause)
+    {
+        return retries[cause.ordinal()].get();
+    }
+
+    public long getHedgesWon()
+    {
+        return hedgesWon.get();
+    }
+
+    public long getHedgesLost()
+    {
+        return hedgesLost.get();
+    }
+
+    public Histogram getChunkThroughput()
+    {
+        return chunkThroughput;
+    }
+
+    public Histogram getConnectLatency()
+    {
+        return connectLatency;
+    }
+
+    public Histogram getFirstByteLatency()
+    {
+        return firstByteLatency;
+    }
+
+    public Histogram getChunkDuration()
+    {
+        return chunkDuration;
+    }
+
+    public Histogram getAssemblyDuration()
+    {
+        return assemblyDuration;
+    }
+
+    public Histogram getJournalSyncDuration()
+    {
+        return journalSyncDuration;
+    }
+
+    public Map<String, AtomicInteger> getHostConnections()
+    {
+        return Collections.unmodifiableMap(hostConnections);
+    }
+}
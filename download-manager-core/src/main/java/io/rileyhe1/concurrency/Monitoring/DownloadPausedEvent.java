@@ -0,0 +1,32 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The span a download spent paused, from pause() to the resume, stop or cancel that ended it.
+ */
+@Name("io.rileyhe1.concurrency.DownloadPaused")
+@Label("Download Paused")
+@Category({"Download Manager", "Downloads"})
+@Description("A download was paused for this long")
+public class DownloadPausedEvent extends Event
+{
+    @Label("Download Id")
+    public String downloadId;
+
+    @Label("URL")
+    public String url;
+
+    @Label("Downloaded Bytes")
+    @Description("Progress when the download was paused")
+    @DataAmount
+    public long downloadedBytes;
+
+    @Label("Ended By")
+    public String endedBy;
+}
@@ -0,0 +1,121 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import java.time.Duration;
+
+import io.rileyhe1.concurrency.Util.Download;
+
+// reads straight through to the download, nothing is cached between JMX reads
+public class DownloadStats implements DownloadMXBean
+{
+    private final Download download;
+
+    public DownloadStats(Download download)
+    {
+        if(download == null) throw new IllegalArgumentException("Download cannot be null");
+        this.download = download;
+    }
+
+    @Override
+    public String getId()
+    {
+        return download.getId();
+    }
+
+    @Override
+    public String getUrl()
+    {
+        return download.getUrl();
+    }
+
+    @Override
+    public String getDestination()
+    {
+        return download.getDestination();
+    }
+
+    @Override
+    public String getState()
+    {
+        return download.getState().toString();
+    }
+
+    @Override
+    public String getWriteMode()
+    {
+        return download.getWriteMode().toString();
+    }
+
+    @Override
+    public long getTotalSize()
+    {
+        return download.getTotalSize();
+    }
+
+    @Override
+    public long getDownloadedBytes()
+    {
+        return download.getDownloadedBytes();
+    }
+
+    @Override
+    public double getProgress()
+    {
+        return download.getProgress();
+    }
+
+    @Override
+    public double getBytesPerSecond()
+    {
+        return download.getBytesPerSecond();
+    }
+
+    @Override
+    public long getEtaSeconds()
+    {
+        Duration eta = download.getEta();
+        return eta == null ? -1 : eta.toSeconds();
+    }
+
+    @Override
+    public long getTimeToFirstByteMillis()
+    {
+        Duration timeToFirstByte = download.getTimeToFirstByte();
+        return timeToFirstByte == null ? -1 : timeToFirstByte.toMillis();
+    }
+
+    @Override
+    public int getActiveConnections()
+    {
+        return download.getActiveConnections();
+    }
+
+    @Override
+    public int getConnectionLimit()
+    {
+        return download.getConnectionLimit();
+    }
+
+    @Override
+    public int getQueuedChunks()
+    {
+        return download.getQueuedChunkCount();
+    }
+
+    @Override
+    public int getRetryCount()
+    {
+        return download.getRetryCount();
+    }
+
+    @Override
+    public long getBandwidthLimit()
+    {
+        return download.getBandwidthLimit();
+    }
+
+    @Override
+    public void setBandwidthLimit(long bytesPerSecond)
+    {
+        download.setBandwidthLimit(bytesPerSecond);
+    }
+}
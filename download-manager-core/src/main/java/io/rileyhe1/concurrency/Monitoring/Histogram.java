@@ -0,0 +1,85 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts observations into fixed buckets, Prometheus style: each bucket has an inclusive upper bound and the
+ * last one catches everything above the largest bound.
+ *
+ * Observations come once per chunk attempt or per journal sync rather than per read, so one shared array of
+ * atomic counts is plenty. observe() finds its bucket with a binary search and does two atomic adds, nothing is
+ * allocated. snapshot() reads the buckets one by one without stopping writers, so a scrape can see an
+ * observation in its bucket but not yet in the sum, which Prometheus tolerates.
+ */
+public class Histogram
+{
+    private final long[] bounds;
+    // one slot per bound plus the overflow bucket
+    private final AtomicLongArray buckets;
+    private final Counter sum = new Counter();
+
+    // bounds in the histogram's base unit, strictly increasing
+    public Histogram(long... bounds)
+    {
+        if(bounds == null || bounds.length == 0) throw new IllegalArgumentException("Histogram needs at least one bucket bound");
+        for(int i = 1; i < bounds.length; i++)
+        {
+            if(bounds[i] <= bounds[i - 1]) throw new IllegalArgumentException("Bucket bounds must be strictly increasing");
+        }
+        this.bounds = bounds.clone();
+        this.buckets = new AtomicLongArray(bounds.length + 1);
+    }
+
+    // bounds that each grow by factor from start, e.g. exponential(1000, 2, 4) is 1000, 2000, 4000, 8000
+    public static Histogram exponential(long start, int factor, int count)
+    {
+        if(start < 1 || factor < 2 || count < 1) throw new IllegalArgumentException("Invalid exponential buckets");
+        long[] bounds = new long[count];
+        long bound = start;
+        for(int i = 0; i < count; i++)
+        {
+            bounds[i] = bound;
+            bound = Math.multiplyExact(bound, factor);
+        }
+        return new Histogram(bounds);
+    }
+
+    public void observe(long value)
+    {
+        buckets.getAndIncrement(bucketOf(value));
+        sum.add(value);
+    }
+
+    public long[] getBounds()
+    {
+        return bounds.clone();
+    }
+
+    // per-bucket counts, not cumulative, the last entry is everything above the largest bound
+    public long[] snapshot()
+    {
+        long[] counts = new long[buckets.length()];
+        for(int i = 0; i < counts.length; i++)
+        {
+            counts[i] = buckets.get(i);
+        }
+        return counts;
+    }
+
+    public long getSum()
+    {
+        return sum.get();
+    }
+
+    private int bucketOf(long value)
+    {
+        int low = 0, high = bounds.length;
+        while(low < high)
+        {
+            int mid = (low + high) >>> 1;
+            if(value <= bounds[mid]) high = mid;
+            else low = mid + 1;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,87 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Names and registers the download manager's MBeans on the platform MBean server.
+ *
+ * Every manager gets a name unique within the JVM and its downloads are registered under it, so several
+ * managers can sit side by side and a client can list one manager's downloads with a single pattern.
+ * Registration is best effort: a name that's already taken or a security manager saying no is reported
+ * and then ignored, monitoring is never a reason to fail a download.
+ */
+public final class MBeans
+{
+    public static final String DOMAIN = "io.rileyhe1.concurrency";
+    private static final AtomicInteger MANAGER_COUNT = new AtomicInteger();
+
+    private MBeans()
+    {
+    }
+
+    public static String nextManagerName()
+    {
+        return "manager-" + MANAGER_COUNT.incrementAndGet();
+    }
+
+    public static ObjectName managerName(String manager)
+    {
+        return objectName(DOMAIN + ":type=DownloadManager,name=" + manager);
+    }
+
+    public static ObjectName downloadName(String manager, String downloadId)
+    {
+        return objectName(DOMAIN + ":type=Download,manager=" + manager + ",id=" + ObjectName.quote(downloadId));
+    }
+
+    // false if the bean couldn't be registered
+    public static boolean register(Object bean, ObjectName name)
+    {
+        try
+        {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(bean, name);
+            return true;
+        }
+        catch(JMException | SecurityException e)
+        {
+            System.err.println("Failed to register MBean " + name + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    public static void unregister(ObjectName name)
+    {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try
+        {
+            server.unregisterMBean(name);
+        }
+        catch(InstanceNotFoundException e)
+        {
+            // never registered or already gone
+        }
+        catch(JMException | SecurityException e)
+        {
+            System.err.println("Failed to unregister MBean " + name + ": " + e.getMessage());
+        }
+    }
+
+    private static ObjectName objectName(String name)
+    {
+        try
+        {
+            return new ObjectName(name);
+        }
+        catch(MalformedObjectNameException e)
+        {
+            throw new IllegalArgumentException("Invalid MBean name: " + name, e);
+        }
+    }
+}
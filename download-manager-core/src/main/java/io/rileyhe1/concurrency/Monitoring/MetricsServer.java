@@ -0,0 +1,93 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.rileyhe1.concurrency.DownloadManager;
+
+/**
+ * Serves a manager's metrics at /metrics for Prometheus to scrape, on the JDK's built-in HTTP server so a
+ * headless deployment needs nothing else. Every scrape is formatted from scratch on the server's own thread,
+ * reading the counters the chunks write without stopping them.
+ */
+public class MetricsServer implements AutoCloseable
+{
+    public static final String PATH = "/metrics";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final DownloadManager manager;
+
+    // port 0 picks a free one, getPort() says which
+    public MetricsServer(DownloadManager manager, InetSocketAddress address) throws IOException
+    {
+        if(manager == null) throw new IllegalArgumentException("Manager cannot be null");
+        if(address == null) throw new IllegalArgumentException("Address cannot be null");
+        this.manager = manager;
+        this.server = HttpServer.create(address, 0);
+        // scrapes come every few seconds, one thread is plenty and keeps a slow client from piling up threads
+        this.executor = Executors.newSingleThreadExecutor(runnable ->
+        {
+            Thread thread = new Thread(runnable, "metrics-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public int getPort()
+    {
+        return server.getAddress().getPort();
+    }
+
+    public InetSocketAddress getAddress()
+    {
+        return server.getAddress();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            String method = exchange.getRequestMethod();
+            if(!"GET".equals(method) && !"HEAD".equals(method))
+            {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = PrometheusFormat.write(manager).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", PrometheusFormat.CONTENT_TYPE);
+            if("HEAD".equals(method))
+            {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try(OutputStream out = exchange.getResponseBody())
+            {
+                out.write(body);
+            }
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,139 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.rileyhe1.concurrency.DownloadManager;
+import io.rileyhe1.concurrency.Data.DownloadState;
+import io.rileyhe1.concurrency.Util.Download;
+
+/**
+ * Writes a manager's metrics in the Prometheus text exposition format (version 0.0.4).
+ * Durations are recorded in nanoseconds and written in seconds, as Prometheus expects.
+ */
+public final class PrometheusFormat
+{
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String PREFIX = "downloadmanager_";
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private PrometheusFormat()
+    {
+    }
+
+    public static String write(DownloadManager manager)
+    {
+        StringBuilder out = new StringBuilder(4096);
+        DownloadMetrics metrics = manager.getMetrics();
+
+        counter(out, "downloaded_bytes_total", "Bytes received by every chunk of every download", metrics.getBytesDownloaded());
+
+        header(out, "chunks_total", "counter", "Chunks that finished their range or failed for good");
+        sample(out, "chunks_total", "result", "success", metrics.getChunksSucceeded());
+        sample(out, "chunks_total", "result", "failure", metrics.getChunksFailed());
+
+        header(out, "chunk_retries_total", "counter", "Chunk attempts that failed and were retried, by cause");
+        for(RetryCause cause : RetryCause.values())
+        {
+            sample(out, "chunk_retries_total", "cause", cause.getLabel(), metrics.getRetries(cause));
+        }
+
+        header(out, "chunk_hedges_total", "counter", "Second requests sent for a lagging chunk, by whether they finished its range first");
+        sample(out, "chunk_hedges_total", "result", "won", metrics.getHedgesWon());
+        sample(out, "chunk_hedges_total", "result", "lost", metrics.getHedgesLost());
+
+        histogram(out, "chunk_throughput_bytes_per_second", "Average rate of each chunk that finished its range",
+            metrics.getChunkThroughput(), 1);
+        histogram(out, "chunk_connect_seconds", "Range request sent until its response headers arrived",
+            metrics.getConnectLatency(), NANOS_PER_SECOND);
+        histogram(out, "chunk_first_byte_seconds", "Range request sent until the first bytes of its body were read",
+            metrics.getFirstByteLatency(), NANOS_PER_SECOND);
+        histogram(out, "chunk_duration_seconds", "Last run of a chunk on a worker, the one that finished its range or gave up",
+            metrics.getChunkDuration(), NANOS_PER_SECOND);
+        histogram(out, "assembly_seconds", "Chunk temp files merged into the destination",
+            metrics.getAssemblyDuration(), NANOS_PER_SECOND);
+        histogram(out, "journal_sync_seconds", "Download journal written and forced to disk",
+            metrics.getJournalSyncDuration(), NANOS_PER_SECOND);
+
+        header(out, "host_connections", "gauge", "Range requests in flight per host");
+        for(Map.Entry<String, AtomicInteger> host : metrics.getHostConnections().entrySet())
+        {
+            sample(out, "host_connections", "host", host.getKey(), host.getValue().get());
+        }
+
+        int downloading = 0;
+        for(Download download : manager.getAllDownloads())
+        {
+            if(download.getState() == DownloadState.DOWNLOADING) downloading++;
+        }
+        gauge(out, "active_downloads", "Downloads currently downloading", downloading);
+        gauge(out, "saved_downloads", "Saved downloads from earlier sessions not loaded yet", manager.getSavedDownloadCount());
+        gauge(out, "queued_downloads", "Downloads waiting for a slot under maxConcurrentDownloads", manager.getQueuedDownloadCount());
+        gauge(out, "queued_chunks", "Chunks waiting for a worker", manager.getQueuedChunkCount());
+        gauge(out, "bytes_per_second", "Combined smoothed rate of the running downloads", manager.getTotalBytesPerSecond());
+        return out.toString();
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value)
+    {
+        header(out, name, "counter", help);
+        out.append(PREFIX).append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value)
+    {
+        header(out, name, "gauge", help);
+        out.append(PREFIX).append(name).append(' ').append(number(value)).append('\n');
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help)
+    {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String labelValue, long value)
+    {
+        out.append(PREFIX).append(name).append('{').append(label).append("=\"");
+        escape(out, labelValue);
+        out.append("\"} ").append(value).append('\n');
+    }
+
+    // buckets are written cumulative, from the per-bucket counts read once so count and +Inf always agree
+    private static void histogram(StringBuilder out, String name, String help, Histogram histogram, double scale)
+    {
+        header(out, name, "histogram", help);
+        long[] bounds = histogram.getBounds();
+        long[] counts = histogram.snapshot();
+        long cumulative = 0;
+        for(int i = 0; i < bounds.length; i++)
+        {
+            cumulative += counts[i];
+            out.append(PREFIX).append(name).append("_bucket{le=\"").append(number(bounds[i] / scale)).append("\"} ")
+               .append(cumulative).append('\n');
+        }
+        cumulative += counts[bounds.length];
+        out.append(PREFIX).append(name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+        out.append(PREFIX).append(name).append("_sum ").append(number(histogram.getSum() / scale)).append('\n');
+        out.append(PREFIX).append(name).append("_count ").append(cumulative).append('\n');
+    }
+
+    private static String number(double value)
+    {
+        if(value == Math.rint(value) && Math.abs(value) < 1e15) return Long.toString((long) value);
+        return Double.toString(value);
+    }
+
+    // label values escape backslash, double quote and newline
+    private static void escape(StringBuilder out, String value)
+    {
+        for(int i = 0; i < value.length(); i++)
+        {
+            char c = value.charAt(i);
+            if(c == '\\') out.append("\\\\");
+            else if(c == '"') out.append("\\\"");
+            else if(c == '\n') out.append("\\n");
+            else out.append(c);
+        }
+    }
+}
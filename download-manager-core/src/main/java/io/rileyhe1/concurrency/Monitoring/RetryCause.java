@@ -0,0 +1,38 @@
+package io.rileyhe1.concurrency.Monitoring;
+
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+
+// why a chunk attempt failed and was retried, the label on the retries metric
+public enum RetryCause
+{
+    // 429 or 503
+    THROTTLED("throttled"),
+    // any other status where a 206 was expected
+    HTTP_ERROR("http_error"),
+    DIGEST_MISMATCH("digest_mismatch"),
+    TIMEOUT("timeout"),
+    CONNECTION_RESET("connection_reset"),
+    OTHER("other");
+
+    private final String label;
+
+    RetryCause(String label)
+    {
+        this.label = label;
+    }
+
+    public String getLabel()
+    {
+        return label;
+    }
+
+    // for failures the chunk didn't classify itself when it threw them
+    public static RetryCause of(Exception e)
+    {
+        if(e instanceof SocketTimeoutException || e instanceof HttpTimeoutException) return TIMEOUT;
+        if(e instanceof SocketException) return CONNECTION_RESET;
+        return OTHER;
+    }
+}
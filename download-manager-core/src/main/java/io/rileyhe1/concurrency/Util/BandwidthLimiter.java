@@ -0,0 +1,108 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket that caps the combined read rate of every chunk sharing it.
+ *
+ * Readers take tokens for the bytes they just read with reserve(), which may push the bucket into debt, then
+ * wait until waitNanos() drops to zero. Tokens are added lazily by whichever reader first notices at least
+ * REFILL_INTERVAL_NANOS have passed, so the refill is one CAS per interval rather than work on every buffer.
+ * A rate of 0 means unlimited, in which case both calls return without touching the bucket.
+ */
+public class BandwidthLimiter
+{
+    // refill at most this often, shorter intervals only add contention on lastRefillNanos
+    static final long REFILL_INTERVAL_NANOS = 10_000_000L;
+    // the bucket holds at most this much time worth of tokens, so an idle limiter can't burst for long
+    static final long BURST_NANOS = 100_000_000L;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private volatile long bytesPerSecond;
+    private volatile long capacity;
+    private final AtomicLong tokens = new AtomicLong(0);
+    private final AtomicLong lastRefillNanos = new AtomicLong(System.nanoTime());
+
+    public BandwidthLimiter(long bytesPerSecond)
+    {
+        setRate(bytesPerSecond);
+    }
+
+    // takes effect for every reader straight away, including ones already waiting. final since the constructor calls it
+    public final synchronized void setRate(long bytesPerSecond)
+    {
+        if(bytesPerSecond < 0) throw new IllegalArgumentException("Bandwidth limit cannot be negative");
+        long newCapacity = Math.max(1, bytesPerSecond * BURST_NANOS / NANOS_PER_SECOND);
+        boolean wasUnlimited = this.bytesPerSecond == 0;
+        this.capacity = newCapacity;
+        this.bytesPerSecond = bytesPerSecond;
+        // don't credit time spent at the old rate, and keep any debt so lowering the limit can't be dodged
+        lastRefillNanos.set(System.nanoTime());
+        if(wasUnlimited || bytesPerSecond == 0) tokens.set(newCapacity);
+        else tokens.accumulateAndGet(newCapacity, Math::min);
+    }
+
+    public long getRate()
+    {
+        return bytesPerSecond;
+    }
+
+    public boolean isUnlimited()
+    {
+        return bytesPerSecond == 0;
+    }
+
+    // takes tokens for bytes that were already read
+    public void reserve(long bytes)
+    {
+        if(bytesPerSecond == 0) return;
+        refill();
+        tokens.addAndGet(-bytes);
+    }
+
+    // how long until the bucket is out of debt at the current rate, 0 if readers may continue
+    public long waitNanos()
+    {
+        long rate = bytesPerSecond;
+        if(rate == 0) return 0;
+        refill();
+        long balance = tokens.get();
+        if(balance >= 0) return 0;
+        // round up so a reader never wakes just before the last token arrives
+        return (-balance * NANOS_PER_SECOND + rate - 1) / rate;
+    }
+
+    private void refill()
+    {
+        long rate = bytesPerSecond;
+        long last = lastRefillNanos.get();
+        long now = System.nanoTime();
+        long elapsed = now - last;
+        if(elapsed < REFILL_INTERVAL_NANOS) return;
+
+        long added;
+        long next;
+        if(elapsed >= NANOS_PER_SECOND)
+        {
+            // a long gap (a paused reader, say) still pays off debt at the full rate, and the bucket caps what's left.
+            // whole seconds and the remainder are credited separately so elapsed * rate can't overflow
+            long seconds = elapsed / NANOS_PER_SECOND;
+            long remainder = (elapsed % NANOS_PER_SECOND) * rate / NANOS_PER_SECOND;
+            added = seconds > (Long.MAX_VALUE - remainder) / rate ? Long.MAX_VALUE : seconds * rate + remainder;
+            next = now;
+        }
+        else
+        {
+            added = elapsed * rate / NANOS_PER_SECOND;
+            if(added == 0) return;
+            // only move the clock past the time we paid out, so fractions of a byte carry over to the next refill
+            next = last + added * NANOS_PER_SECOND / rate;
+        }
+        // whoever wins the CAS adds the batch, everyone else carries on with the balance as it is
+        if(lastRefillNanos.compareAndSet(last, next))
+        {
+            long limit = capacity;
+            tokens.accumulateAndGet(added, (current, amount) -> amount >= limit - current ? limit : current + amount);
+        }
+    }
+}
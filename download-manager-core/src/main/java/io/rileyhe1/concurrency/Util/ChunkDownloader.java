@@ -0,0 +1,1011 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.nio.file.Paths;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import io.rileyhe1.concurrency.Data.ChunkRange;
+import io.rileyhe1.concurrency.Data.ChunkResult;
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Monitoring.ChunkCompleteEvent;
+import io.rileyhe1.concurrency.Monitoring.ChunkConnectEvent;
+import io.rileyhe1.concurrency.Monitoring.ChunkFirstByteEvent;
+import io.rileyhe1.concurrency.Monitoring.ChunkRetryEvent;
+import io.rileyhe1.concurrency.Monitoring.DownloadMetrics;
+import io.rileyhe1.concurrency.Monitoring.RetryCause;
+
+public class ChunkDownloader implements Callable<ChunkResult>
+{
+    // end byte of a chunk whose download hasn't said how long it is, the chunk reads until the body ends
+    public static final long UNKNOWN_END = Long.MAX_VALUE - 1;
+
+    // Configuration
+    // a mirrored download points this at whichever mirror the chunk was given for its current run
+    private volatile String url;
+    private final long startByte;
+    // can only shrink, when an idle worker steals the unread tail of this range (see splitRemaining)
+    private volatile long endByte;
+    private final String tempFilePath;
+    // set in DIRECT write mode, bytes go straight to their offset in the destination instead of a temp file
+    private final FileChannel destinationChannel;
+    private final int chunkIndex;
+    private final DownloadConfig config;
+    private final ProgressTracker progressTracker;
+
+    // State
+    private volatile boolean paused = false;
+    private volatile boolean cancelled = false;
+    private final Object pauseLock = new Object();
+    private AtomicLong bytesDownloaded = new AtomicLong(0);
+    // guards endByte against the write position, so a split can never hand out bytes the reader is about to write
+    private final Object rangeLock = new Object();
+    // throughput of the current attempt, used to pick which range to split
+    private volatile long attemptStartNanos = 0;
+    private volatile long attemptStartBytes = 0;
+
+    // when set, a paused chunk returns from call() instead of blocking so a shared worker thread isn't held hostage
+    private volatile boolean yieldOnPause = false;
+    private volatile ChunkListener listener;
+    // Download swaps in its context's shared transport, a standalone chunk opens a connection per request
+    private HttpTransport transport;
+    // download, host and manager-wide limits, every read is paid for in each of them
+    private volatile BandwidthLimiter[] limiters = new BandwidthLimiter[0];
+    // longest a throttled chunk sleeps before checking for pause, cancel or a raised limit
+    private static final long MAX_THROTTLE_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final int PIECE_READ_BUFFER_SIZE = 64 * 1024;
+    private volatile boolean yielded = false;
+    // DIRECT only, hashes the whole destination in order as chunks write into it
+    private volatile FileHasher fileHasher;
+    // null unless the download has mirrors, the set decides when a mirror is dropped
+    private volatile MirrorSet mirrors;
+    private volatile MirrorSet.Mirror source;
+    // what the whole range should hash to when it is a Metalink piece, checked once the last byte is written.
+    // a piece can't be split since the hash covers all of it
+    private volatile ContentDigest pieceDigest;
+    // a second request racing ours for the bytes this range has left, see runHedge. a chunk is hedged at most once,
+    // both flags only go up under the range lock
+    private volatile boolean hedged = false;
+    private volatile boolean hedgeRunning = false;
+    // set once the hedge writes the last byte of the range, so the error from cutting off our response isn't a failure
+    private volatile boolean hedgeFinished = false;
+    private volatile MirrorSet.Mirror hedgeSource;
+    // the response each copy is reading, whichever one finishes the range aborts the other's
+    private volatile TransportResponse currentResponse;
+    private volatile TransportResponse hedgeResponse;
+    // true while the response being read is checked against its own Content-Digest, such a range isn't hedged since
+    // the check needs one response to have written all of it. guarded by rangeLock
+    private boolean rangeChecked = false;
+    // the whole download in one response: a server that ignores ranges may answer with a 200 for all of it, and
+    // the range is never split or hedged since there may be no other way to ask for part of it
+    private volatile boolean singleStream = false;
+    // a response the download already has open for the start of this range (see setFirstResponse), read instead of
+    // sending a request on the first attempt
+    private final AtomicReference<TransportResponse> firstResponse = new AtomicReference<>();
+    private volatile long firstResponseEnd;
+    // smoothed rate for anyone watching, fed by the download's metrics timer rather than the read loop
+    private final ThroughputMeter throughput = new ThroughputMeter();
+    // request sent to response headers for the first attempt that got an answer, -1 until then
+    private volatile long timeToFirstByteNanos = -1;
+    private volatile long firstByteNanos = 0;
+    private volatile int retryCount = 0;
+    // null for a standalone chunk, set before the chunk is submitted like the transport
+    private DownloadMetrics metrics;
+    private AtomicInteger hostConnections;
+    // what went wrong with the current attempt when the chunk can tell better than the exception type can
+    private RetryCause attemptFailure;
+    private long requestNanos;
+    // number of threads currently inside call(), used so cancel/stop can wait for file descriptors to be closed
+    private int activeCalls = 0;
+    private final Object terminationLock = new Object();
+
+    
+
+    public ChunkDownloader(String parentDirectory, String url, long startByte, long endByte, long alreadyDownloaded, int chunkIndex,
+            DownloadConfig config, ProgressTracker progressTracker)
+    {
+        this(tempFilePathFor(parentDirectory, chunkIndex), null, url, startByte, endByte, alreadyDownloaded, chunkIndex, config, progressTracker);
+    }
+
+    // DIRECT write mode: the chunk writes bytes startByte..endByte at the same offsets of the shared destination channel,
+    // successful results have no temp file path since there is nothing to assemble
+    // (a factory rather than a constructor overload so existing new ChunkDownloader(null, ...) calls stay unambiguous)
+    public static ChunkDownloader forChannel(FileChannel destinationChannel, String url, long startByte, long endByte,
+            long alreadyDownloaded, int chunkIndex, DownloadConfig config, ProgressTracker progressTracker)
+    {
+        return new ChunkDownloader(null, requireChannel(destinationChannel), url, startByte, endByte, alreadyDownloaded,
+                                   chunkIndex, config, progressTracker);
+    }
+
+    private ChunkDownloader(String tempFilePath, FileChannel destinationChannel, String url, long startByte, long endByte,
+            long alreadyDownloaded, int chunkIndex, DownloadConfig config, ProgressTracker progressTracker)
+    {
+        // validate parameters:
+        if(url == null || url.trim().isEmpty())
+        {
+            throw new IllegalArgumentException("URL cannot be null or empty");
+        }
+        if(startByte < 0)
+        {
+            throw new IllegalArgumentException("Start byte cannot be negative");
+        }
+        if(endByte < startByte)
+        {
+            throw new IllegalArgumentException("End byte cannot be less than start byte");
+        }
+        if(alreadyDownloaded < 0)
+        {
+            throw new IllegalArgumentException("Already downloaded cannot be negative");
+        }
+        if(alreadyDownloaded > (endByte - startByte) + 1)
+        {
+            throw new IllegalArgumentException("Already downloaded exceeds chunk size: " + alreadyDownloaded);
+        }
+        if(startByte + alreadyDownloaded > endByte)
+        {
+            throw new IllegalArgumentException("Start byte + already downloaded exceeds end byte. Start: " 
+            + startByte + " , Already Downloaded: " + alreadyDownloaded + " End: " + endByte);
+        }
+        if(config == null)
+        {
+            throw new IllegalArgumentException("Config cannot be null");
+        }
+        if(chunkIndex < 0)
+        {
+            throw new IllegalArgumentException("Chunk index cannot be less than zero");
+        }
+
+        // assign fields
+        this.url = url;
+        this.startByte = startByte;
+        this.endByte = endByte;
+        this.chunkIndex = chunkIndex;
+        this.tempFilePath = tempFilePath;
+        this.destinationChannel = destinationChannel;
+        this.config = config;
+        this.progressTracker = progressTracker;
+        this.bytesDownloaded = new AtomicLong(alreadyDownloaded);
+        this.transport = new UrlConnectionTransport(config);
+    }
+
+    private static String tempFilePathFor(String parentDirectory, int chunkIndex)
+    {
+        if(parentDirectory == null || parentDirectory.trim().isEmpty())
+        {
+            throw new IllegalArgumentException("Download id cannot be null or empty");
+        }
+        // Validate parent directory exists
+        Path tempDirPath = Paths.get(parentDirectory);
+        if(!Files.exists(tempDirPath))
+        {
+            throw new IllegalArgumentException("Parent Directory doesn't exist!");
+        }
+        return parentDirectory + "/chunk" + chunkIndex + ".bin";
+    }
+
+    private static FileChannel requireChannel(FileChannel destinationChannel)
+    {
+        if(destinationChannel == null)
+        {
+            throw new IllegalArgumentException("Destination channel cannot be null");
+        }
+        return destinationChannel;
+    }
+
+    @Override
+    public ChunkResult call()
+    {
+        synchronized(terminationLock)
+        {
+            activeCalls++;
+        }
+        ChunkCompleteEvent completeEvent = new ChunkCompleteEvent();
+        completeEvent.begin();
+        long callNanos = System.nanoTime();
+        long callBytes = bytesDownloaded.get();
+        try
+        {
+            ChunkResult result = downloadWithRetries();
+            if(!yielded)
+            {
+                commitComplete(completeEvent, result);
+                if(metrics != null) metrics.recordChunk(result.isSuccessful(), bytesDownloaded.get() - callBytes, System.nanoTime() - callNanos);
+            }
+            return result;
+        }
+        finally
+        {
+            synchronized(terminationLock)
+            {
+                activeCalls--;
+                terminationLock.notifyAll();
+            }
+        }
+    }
+
+    private ChunkResult downloadWithRetries()
+    {
+        yielded = false;
+        // a chunk cancelled while it was still queued should never open a connection or a temp file
+        if(cancelled) return ChunkResult.failure(new InterruptedException("Download Cancelled"), bytesDownloaded.get(), chunkIndex);
+        if(shouldYield()) return yieldWorker();
+
+        Exception lastException = null;
+        for(int attempt = 0; attempt < config.getMaxRetries(); attempt++)
+        {
+            try
+            {
+                if(!downloadChunk()) return yieldWorker();
+                if(source != null) mirrors.recordSuccess(source);
+                return ChunkResult.success(tempFilePath, bytesDownloaded.get(), chunkIndex);
+            }
+            catch(InterruptedException e)
+            {
+                // thread was interrupted, so we want to fail immediately and not do any retries:
+                Thread.currentThread().interrupt();
+                return ChunkResult.failure(e, bytesDownloaded.get(), chunkIndex);
+            }
+            catch(IOException e)
+            {
+                // the hedge finished the range and aborted our response, the next pass just sees the range is done
+                if(hedgeFinished)
+                {
+                    hedgeFinished = false;
+                    attempt--;
+                    continue;
+                }
+                lastException = e;
+                if(e instanceof SocketException && listener != null) listener.onConnectionReset(chunkIndex);
+                // once a mirror has failed too often the chunk gives its worker back to be sent to another mirror,
+                // instead of spending its retries on this one
+                if(source != null && mirrors.recordFailure(source)) return yieldWorker();
+
+                // log the attempt:
+                // System.err.println("Chunk " + this.chunkIndex + " attempt " + (attempt + 1) + " failed: " + e.getMessage());
+
+                // if this was not the last attempt, wait for a retry:
+                if(attempt < config.getMaxRetries() - 1)
+                {
+                    retryCount++;
+                    commitRetry(attempt, e);
+                    if(metrics != null) metrics.recordRetry(attemptFailure != null ? attemptFailure : RetryCause.of(e));
+                    try
+                    {
+                        awaitRetryDelay();
+                    }
+                    catch(InterruptedException ie)
+                    {
+                        if(!cancelled) Thread.currentThread().interrupt();
+                        return ChunkResult.failure(ie, bytesDownloaded.get(), chunkIndex);
+                    }
+                }
+            }
+
+        }
+        return ChunkResult.failure(lastException, bytesDownloaded.get(), chunkIndex);
+    }
+
+    // returns false if the chunk gave up its thread because it was paused, true once the whole range is on disk
+    private boolean downloadChunk() throws IOException, InterruptedException
+    {
+        // resume from wherever the previous attempt got to, the temp file is opened in append mode so
+        // re-requesting bytes we already wrote would duplicate them
+        long resumeByte = startByte + bytesDownloaded.get();
+        if(resumeByte > endByte)
+        {
+            // the previous attempt wrote the whole piece but couldn't read it back to check it
+            if(pieceDigest != null) verifyPiece();
+            return true;
+        }
+        if(cancelled) throw new InterruptedException("Download Cancelled");
+        if(isSourceDropped()) return false;
+
+        attemptStartBytes = bytesDownloaded.get();
+        attemptStartNanos = System.nanoTime();
+
+        // 1. Send the range request, the transport may hand us a pooled connection to the same host
+        TransportResponse first = firstResponse.getAndSet(null);
+        long requestedEnd = first != null ? firstResponseEnd : endByte;
+        attemptFailure = null;
+        requestNanos = System.nanoTime();
+        ChunkConnectEvent connectEvent = new ChunkConnectEvent();
+        ChunkFirstByteEvent firstByteEvent = new ChunkFirstByteEvent();
+        connectEvent.begin();
+        firstByteEvent.begin();
+        if(hostConnections != null) hostConnections.incrementAndGet();
+        try(TransportResponse response = first != null ? first : request(resumeByte, requestedEnd))
+        {
+            currentResponse = response;
+            long headersNanos = System.nanoTime();
+            if(metrics != null) metrics.recordConnect(headersNanos - requestNanos);
+            if(firstByteNanos == 0)
+            {
+                firstByteNanos = headersNanos;
+                timeToFirstByteNanos = firstByteNanos - requestNanos;
+            }
+            int responseCode = response.getStatusCode();
+            if(connectEvent.shouldCommit())
+            {
+                connectEvent.url = url;
+                connectEvent.chunkIndex = chunkIndex;
+                connectEvent.rangeStart = resumeByte;
+                connectEvent.rangeEnd = requestedEnd;
+                connectEvent.statusCode = responseCode;
+                connectEvent.commit();
+            }
+            if(responseCode == 429 || responseCode == 503)
+            {
+                if(listener != null) listener.onThrottled(chunkIndex, responseCode);
+                attemptFailure = RetryCause.THROTTLED;
+                throw new IOException("Server is throttling requests. Response: " + responseCode);
+            }
+            // a single stream takes the whole file when the server ignores the range, skipping what it already has
+            boolean wholeBody = responseCode == 200 && singleStream;
+            if(responseCode != 206 && !wholeBody)
+            {
+                attemptFailure = RetryCause.HTTP_ERROR;
+                throw new IOException("Server does not accept range requests, cannot download in chunks. Response: " + responseCode);
+            }
+            long responseStart = wholeBody ? 0 : resumeByte;
+            // a Content-Digest (or Content-MD5) on a 206 covers just this range, so it can be checked on its own,
+            // unless a hedge is writing part of the range from its own response
+            ContentDigest expectedDigest;
+            synchronized(rangeLock)
+            {
+                expectedDigest = config.isVerifyChunkDigests() && !hedgeRunning && responseStart == resumeByte
+                    ? ContentDigest.forContent(response) : null;
+                rangeChecked = expectedDigest != null;
+            }
+            try
+            {
+                if(!readBody(response, responseStart, requestedEnd, expectedDigest, firstByteEvent)) return false;
+                if(pieceDigest != null && getRemainingBytes() == 0) verifyPiece();
+                return true;
+            }
+            finally
+            {
+                // whatever this response left in the file, checked or not (paused, split or cut off before the end),
+                // still has to go into the file hash. a range that failed its check has already been taken back,
+                // and a piece only goes in once it has passed
+                if(expectedDigest != null && pieceDigest == null) handToFileHasher(resumeByte);
+            }
+        // 4. Close everything
+        }
+        finally
+        {
+            currentResponse = null;
+            if(hostConnections != null) hostConnections.decrementAndGet();
+        }
+    }
+
+    // send a request for resumeByte..requestedEnd, or for everything from resumeByte on when the end isn't known
+    private TransportResponse request(long resumeByte, long requestedEnd) throws IOException
+    {
+        if(requestedEnd == UNKNOWN_END) return transport.getFrom(url, resumeByte);
+        return transport.getRange(url, resumeByte, requestedEnd);
+    }
+
+    // returns false if the chunk yielded its thread, true once the response is read or the range has been split off.
+    // resumeByte is the offset the body starts at, bytes before what the chunk already has are skipped
+    private boolean readBody(TransportResponse response, long resumeByte, long requestedEnd, ContentDigest expectedDigest,
+                             ChunkFirstByteEvent firstByteEvent) throws IOException, InterruptedException
+    {
+        MessageDigest rangeDigest = expectedDigest != null ? expectedDigest.newMessageDigest() : null;
+        //  Open temp file and response body in try with resources block to ensure they're 
+        //  closed when we're done or when we encounter an exception (in DIRECT mode there is no temp file to open,
+        //  the destination channel belongs to the download)
+        try (InputStream inputStream = response.getBody();
+             FileOutputStream outputStream = destinationChannel == null ? new FileOutputStream(tempFilePath, true) : null)
+        {
+            // 3. Download loop with pause/cancel checks implemented later
+            byte[] buffer = new byte[config.getBufferSize()];
+            long streamPosition = resumeByte;
+            int bytesRead;
+            while((bytesRead = inputStream.read(buffer)) != -1)
+            {
+                if(firstByteEvent != null)
+                {
+                    if(metrics != null) metrics.recordFirstByte(System.nanoTime() - requestNanos);
+                    commitFirstByte(firstByteEvent, bytesRead);
+                    firstByteEvent = null;
+                }
+                if(shouldYield() || isSourceDropped()) return false;
+                handlePauseAndCancel();
+                if(rangeDigest != null) rangeDigest.update(buffer, 0, bytesRead);
+                boolean more = writeWithinRange(outputStream, buffer, bytesRead, streamPosition,
+                                                rangeDigest == null && pieceDigest == null, false);
+                streamPosition += bytesRead;
+                // the range may have been split since the request was sent, so only keep what's still ours and
+                // drop the connection once we reach the new end. an unsplit range is read through to the end of
+                // the body instead so the connection goes back to the pool, unless it was hedged: then whichever
+                // copy gets to the end first stops the other
+                if(!more && hedged)
+                {
+                    hedgeFinished = false;
+                    abort(hedgeResponse);
+                    return true;
+                }
+                if(!more && endByte < requestedEnd) return true;
+                throttle(bytesRead);
+            }
+            if(rangeDigest != null) verifyRange(expectedDigest, rangeDigest.digest(), resumeByte, requestedEnd, outputStream);
+        }
+        return true;
+    }
+
+    // the whole response has been read, if it doesn't match its digest the bytes it wrote are taken back and the
+    // attempt fails, so the retry fetches this range again and nothing else
+    private void verifyRange(ContentDigest expected, byte[] actual, long responseStart, long requestedEnd,
+                             FileOutputStream outputStream) throws IOException
+    {
+        synchronized(rangeLock)
+        {
+            long written = startByte + bytesDownloaded.get() - responseStart;
+            // split while we read, the digest covered bytes we dropped so there is nothing to compare it with
+            if(endByte < requestedEnd) return;
+            if(!expected.matches(actual))
+            {
+                bytesDownloaded.addAndGet(-written);
+                if(progressTracker != null) progressTracker.updateProgress(chunkIndex, -written);
+                // temp files are appended to, so cut off the bad bytes, DIRECT ones just get written over
+                if(outputStream != null) outputStream.getChannel().truncate(bytesDownloaded.get());
+                attemptFailure = RetryCause.DIGEST_MISMATCH;
+                throw new IOException("Chunk " + chunkIndex + " bytes " + responseStart + "-" + requestedEnd
+                    + " failed their " + expected.getAlgorithm() + " check");
+            }
+        }
+    }
+
+    // the piece is all on disk, read it back (it was just written, so from the page cache) and check it as a whole,
+    // bytes from earlier attempts or sessions included. a piece that doesn't match is thrown away entirely since
+    // there is no telling which part of it was bad
+    private void verifyPiece() throws IOException
+    {
+        ContentDigest expected = pieceDigest;
+        long length = endByte - startByte + 1;
+        MessageDigest digest = expected.newMessageDigest();
+        try(FileChannel tempFile = destinationChannel == null
+                ? FileChannel.open(Paths.get(tempFilePath), StandardOpenOption.READ, StandardOpenOption.WRITE) : null)
+        {
+            FileChannel channel = destinationChannel != null ? destinationChannel : tempFile;
+            long offset = destinationChannel != null ? startByte : 0;
+            ByteBuffer buffer = ByteBuffer.allocate(PIECE_READ_BUFFER_SIZE);
+            for(long read = 0; read < length; )
+            {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), length - read));
+                int count = channel.read(buffer, offset + read);
+                if(count < 0) throw new IOException("Chunk " + chunkIndex + " file ends before its piece does");
+                digest.update(buffer.array(), 0, count);
+                read += count;
+            }
+            if(!expected.matches(digest.digest()))
+            {
+                synchronized(rangeLock)
+                {
+                    long written = bytesDownloaded.getAndSet(0);
+                    if(progressTracker != null) progressTracker.updateProgress(chunkIndex, -written);
+                }
+                if(tempFile != null) tempFile.truncate(0);
+                attemptFailure = RetryCause.DIGEST_MISMATCH;
+                throw new IOException("Chunk " + chunkIndex + " bytes " + startByte + "-" + endByte + " failed their "
+                    + expected.getAlgorithm() + " piece check");
+            }
+        }
+        FileHasher hasher = fileHasher;
+        if(hasher != null) hasher.markWritten(startByte, length, destinationChannel);
+    }
+
+    private void handToFileHasher(long responseStart) throws IOException
+    {
+        FileHasher hasher = fileHasher;
+        if(hasher == null) return;
+        long written;
+        synchronized(rangeLock)
+        {
+            written = startByte + bytesDownloaded.get() - responseStart;
+        }
+        hasher.markWritten(responseStart, written, destinationChannel);
+    }
+
+    // pays for bytes already read and sleeps until every limiter is out of debt, without holding any lock
+    private void throttle(int bytesRead) throws InterruptedException
+    {
+        BandwidthLimiter[] current = limiters;
+        if(current.length == 0) return;
+        for(BandwidthLimiter limiter : current)
+        {
+            limiter.reserve(bytesRead);
+        }
+        while(true)
+        {
+            long wait = 0;
+            for(BandwidthLimiter limiter : current)
+            {
+                wait = Math.max(wait, limiter.waitNanos());
+            }
+            if(wait <= 0) return;
+            if(cancelled) throw new InterruptedException("Download Cancelled");
+            // the read loop parks or yields on its next iteration, the debt stays on the limiter
+            if(paused) return;
+            TimeUnit.NANOSECONDS.sleep(Math.min(wait, MAX_THROTTLE_SLEEP_NANOS));
+        }
+    }
+
+    // returns false once the range is complete, offerToHasher is false while the bytes still have to pass a
+    // range digest check (they're handed to the file hash once they do). streamPosition is the offset the buffer was
+    // read from: with a hedge running both copies deliver the same bytes, whichever gets to them first writes them
+    // and the other skips what is already there
+    private boolean writeWithinRange(FileOutputStream outputStream, byte[] buffer, int bytesRead, long streamPosition,
+                                     boolean offerToHasher, boolean fromHedge) throws IOException
+    {
+        long position;
+        int offset;
+        int length;
+        boolean more;
+        synchronized(rangeLock)
+        {
+            position = startByte + bytesDownloaded.get();
+            // only when the other copy's bytes were taken back after a failed check, ours don't follow on from them
+            if(streamPosition > position)
+            {
+                throw new IOException("Chunk " + chunkIndex + " lost the bytes from " + position + " its response follows on from");
+            }
+            offset = (int) Math.min(bytesRead, position - streamPosition);
+            long remaining = endByte - position + 1;
+            length = (int) Math.min(bytesRead - offset, remaining);
+            if(length > 0)
+            {
+                writeBuffer(outputStream, buffer, offset, length, position);
+                this.bytesDownloaded.addAndGet(length);
+                if(progressTracker != null) progressTracker.updateProgress(chunkIndex, length);
+                if(metrics != null) metrics.recordBytes(length);
+                MirrorSet.Mirror current = fromHedge ? hedgeSource : source;
+                if(current != null) current.addBytes(length);
+                if(fromHedge && length == remaining) hedgeFinished = true;
+            }
+            more = offset + length == bytesRead && length < remaining;
+        }
+        // outside the range lock, hashing may have to read back other chunks' bytes and shouldn't hold up a split
+        FileHasher hasher = fileHasher;
+        if(hasher != null && offerToHasher && length > 0) hasher.offer(position, buffer, offset, length, destinationChannel);
+        return more;
+    }
+
+    /**
+     * Sends a second request for whatever this range has left and reads it on the calling thread, racing the chunk's
+     * own response: whichever copy gets to a byte first writes it, and the one that writes the last byte aborts the
+     * other (on transports that can, see TransportResponse.abort). The hedge never retries, if it fails the range is
+     * still the chunk's to finish. Returns true if the hedge finished the range, false if it lost, failed, or the
+     * chunk was paused, cancelled, already hedged or is having its range checked against a Content-Digest.
+     * DIRECT chunks write at the range's offsets and temp files are appended to at its end, so both work the same way.
+     */
+    boolean runHedge(String hedgeUrl, MirrorSet.Mirror hedgeSource)
+    {
+        long resumeByte;
+        synchronized(rangeLock)
+        {
+            if(hedged || rangeChecked || singleStream || cancelled || paused || getRemainingBytes() == 0) return false;
+            hedged = true;
+            hedgeRunning = true;
+            this.hedgeSource = hedgeSource;
+            resumeByte = startByte + bytesDownloaded.get();
+        }
+        synchronized(terminationLock)
+        {
+            activeCalls++;
+        }
+        boolean won = false;
+        try
+        {
+            won = readHedge(hedgeUrl, resumeByte);
+            return won;
+        }
+        finally
+        {
+            hedgeRunning = false;
+            if(metrics != null) metrics.recordHedge(won);
+            synchronized(terminationLock)
+            {
+                activeCalls--;
+                terminationLock.notifyAll();
+            }
+        }
+    }
+
+    private boolean readHedge(String hedgeUrl, long resumeByte)
+    {
+        try(TransportResponse response = transport.getRange(hedgeUrl, resumeByte, endByte))
+        {
+            hedgeResponse = response;
+            if(response.getStatusCode() != 206) return false;
+            try(InputStream inputStream = response.getBody();
+                FileOutputStream outputStream = destinationChannel == null ? new FileOutputStream(tempFilePath, true) : null)
+            {
+                byte[] buffer = new byte[config.getBufferSize()];
+                long streamPosition = resumeByte;
+                int bytesRead;
+                while((bytesRead = inputStream.read(buffer)) != -1)
+                {
+                    // a paused hedge isn't parked like the chunk, it just gives up
+                    if(cancelled || paused) return false;
+                    boolean more = writeWithinRange(outputStream, buffer, bytesRead, streamPosition, pieceDigest == null, true);
+                    streamPosition += bytesRead;
+                    if(!more)
+                    {
+                        if(!hedgeFinished) return false;
+                        abort(currentResponse);
+                        // or the chunk may be sitting out a retry delay
+                        synchronized(pauseLock)
+                        {
+                            pauseLock.notifyAll();
+                        }
+                        return true;
+                    }
+                    throttle(bytesRead);
+                }
+            }
+            return false;
+        }
+        catch(IOException e)
+        {
+            return false;
+        }
+        catch(InterruptedException e)
+        {
+            if(!cancelled) Thread.currentThread().interrupt();
+            return false;
+        }
+        finally
+        {
+            hedgeResponse = null;
+        }
+    }
+
+    private static void abort(TransportResponse response)
+    {
+        if(response != null) response.abort();
+    }
+
+    // true once a hedge has been started for this chunk, whatever came of it
+    public boolean isHedged()
+    {
+        return hedged;
+    }
+
+    /**
+     * Gives away the unread second half of this range, for an idle worker to fetch with its own request.
+     * endByte shrinks to the end of the half we keep and the half given away is returned, or null if less
+     * than 2 * minSize bytes are left (not worth a new connection), the chunk is cancelled, it is a Metalink piece,
+     * a single stream or a hedge is running for it.
+     */
+    public ChunkRange splitRemaining(long minSize)
+    {
+        synchronized(rangeLock)
+        {
+            if(cancelled || pieceDigest != null || singleStream || hedgeRunning) return null;
+            long position = startByte + bytesDownloaded.get();
+            long remaining = endByte - position + 1;
+            if(remaining < 2 * minSize) return null;
+            long newEnd = position + (remaining + 1) / 2 - 1;
+            ChunkRange stolen = new ChunkRange(newEnd + 1, endByte);
+            endByte = newEnd;
+            return stolen;
+        }
+    }
+
+    private void writeBuffer(FileOutputStream outputStream, byte[] buffer, int offset, int length, long position) throws IOException
+    {
+        if(destinationChannel == null)
+        {
+            outputStream.write(buffer, offset, length);
+            return;
+        }
+        // positional writes don't touch the channel's own position, so every chunk can share one channel
+        ByteBuffer source = ByteBuffer.wrap(buffer, offset, length);
+        while(source.hasRemaining())
+        {
+            position += destinationChannel.write(source, position);
+        }
+    }
+
+    // the flight recorder events are only filled in when a recording wants them
+
+    private void commitFirstByte(ChunkFirstByteEvent event, int bytesRead)
+    {
+        if(!event.shouldCommit()) return;
+        event.url = url;
+        event.chunkIndex = chunkIndex;
+        event.bytesRead = bytesRead;
+        event.commit();
+    }
+
+    private void commitRetry(int attempt, Exception cause)
+    {
+        ChunkRetryEvent event = new ChunkRetryEvent();
+        if(!event.shouldCommit()) return;
+        event.url = url;
+        event.chunkIndex = chunkIndex;
+        event.attempt = attempt + 1;
+        event.cause = cause.getClass();
+        event.message = cause.getMessage();
+        event.commit();
+    }
+
+    private void commitComplete(ChunkCompleteEvent event, ChunkResult result)
+    {
+        if(!event.shouldCommit()) return;
+        event.url = url;
+        event.chunkIndex = chunkIndex;
+        event.bytesDownloaded = result.getBytesDownloaded();
+        event.successful = result.isSuccessful();
+        event.retries = retryCount;
+        event.commit();
+    }
+
+    // sleeps between attempts, but wakes up early if the chunk is cancelled or a hedge finishes the range in the meantime
+    private void awaitRetryDelay() throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + config.getRetryDelayMS();
+        synchronized(pauseLock)
+        {
+            long remaining;
+            while(!cancelled && !hedgeFinished && (remaining = deadline - System.currentTimeMillis()) > 0)
+            {
+                pauseLock.wait(remaining);
+            }
+        }
+        if(cancelled) throw new InterruptedException("Download Cancelled");
+    }
+
+    private boolean shouldYield()
+    {
+        return yieldOnPause && paused && !cancelled;
+    }
+
+    // the mirror this chunk is reading from was dropped mid-download, so it should let go and be sent elsewhere
+    private boolean isSourceDropped()
+    {
+        MirrorSet.Mirror current = source;
+        return current != null && current.isDropped() && !cancelled;
+    }
+
+    private ChunkResult yieldWorker()
+    {
+        yielded = true;
+        return ChunkResult.failure(new InterruptedException("Chunk Paused"), bytesDownloaded.get(), chunkIndex);
+    }
+
+    private void handlePauseAndCancel() throws InterruptedException
+    {
+        synchronized(pauseLock)
+        {
+            while(paused && !cancelled)
+            {
+                pauseLock.wait();
+            }
+        }
+        if(cancelled) throw new InterruptedException("Download Cancelled");
+    }
+
+    public void pause()
+    {
+        paused = true;
+        // a hedge gives up when paused rather than holding its worker
+        abort(hedgeResponse);
+    }
+
+    public void resume()
+    {
+        paused = false;
+        synchronized(pauseLock)
+        {
+            pauseLock.notifyAll();
+        }
+    }
+
+    public void cancel()
+    {
+        cancelled = true;
+        // wake up a chunk blocked on pause so it can see the cancellation and exit
+        synchronized(pauseLock)
+        {
+            pauseLock.notifyAll();
+        }
+        // a hedge holds no progress worth letting it finish a read for
+        abort(hedgeResponse);
+        // nobody is going to read the response handed over for the first attempt
+        TransportResponse first = firstResponse.getAndSet(null);
+        if(first != null) first.close();
+    }
+
+    // waits until no thread is inside call(), returns false if the timeout elapsed first
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized(terminationLock)
+        {
+            while(activeCalls > 0)
+            {
+                long remaining = deadline - System.nanoTime();
+                if(remaining <= 0) return false;
+                TimeUnit.NANOSECONDS.timedWait(terminationLock, remaining);
+            }
+        }
+        return true;
+    }
+
+    // used by Download when chunks share a bounded scheduler
+    void setYieldOnPause(boolean yieldOnPause)
+    {
+        this.yieldOnPause = yieldOnPause;
+    }
+
+    // used by Download so every chunk of the manager counts into the same metrics, host is a ChunkScheduler.hostKey
+    void setMetrics(DownloadMetrics metrics, String host)
+    {
+        this.metrics = metrics;
+        this.hostConnections = metrics == null ? null : metrics.hostConnections(host);
+    }
+
+    // used by Download so its chunks share one connection pool
+    void setTransport(HttpTransport transport)
+    {
+        if(transport == null) throw new IllegalArgumentException("Transport cannot be null");
+        this.transport = transport;
+    }
+
+    // used by Download, null entries (no host limit) are skipped
+    void setBandwidthLimiters(BandwidthLimiter... limiters)
+    {
+        int count = 0;
+        BandwidthLimiter[] nonNull = new BandwidthLimiter[limiters.length];
+        for(BandwidthLimiter limiter : limiters)
+        {
+            if(limiter != null) nonNull[count++] = limiter;
+        }
+        this.limiters = Arrays.copyOf(nonNull, count);
+    }
+
+    // used by Download in DIRECT mode, the hasher reads back from the destination channel this chunk writes to
+    void setFileHasher(FileHasher fileHasher)
+    {
+        this.fileHasher = fileHasher;
+    }
+
+    // used by Download before the chunk is submitted, when the download follows Metalink pieces
+    void setPieceDigest(ContentDigest pieceDigest)
+    {
+        this.pieceDigest = pieceDigest;
+    }
+
+    // used by Download when the file can't be fetched in ranges or its size isn't known, the chunk is then its only one
+    void setSingleStream()
+    {
+        this.singleStream = true;
+    }
+
+    // used by Download to hand over the response of its size probe, a GET for bytes 0..lastByte (or to the end of the
+    // file for UNKNOWN_END). it has to start where this chunk does and reach at least its end byte
+    void setFirstResponse(TransportResponse response, long lastByte)
+    {
+        this.firstResponseEnd = lastByte;
+        TransportResponse previous = firstResponse.getAndSet(response);
+        if(previous != null) previous.close();
+    }
+
+    // used by a mirrored Download each time the chunk gets a worker, the next request goes to this mirror
+    void setSource(MirrorSet mirrors, MirrorSet.Mirror source)
+    {
+        this.mirrors = mirrors;
+        this.source = source;
+        this.url = source.getUrl();
+    }
+
+    // used by Download to feed its connection controller
+    void setListener(ChunkListener listener)
+    {
+        this.listener = listener;
+    }
+
+    // true if the last call() returned early because the chunk was paused, or its mirror dropped, rather than
+    // because it failed
+    boolean hasYielded()
+    {
+        return yielded;
+    }
+
+    public boolean isPaused()
+    {
+        return paused;
+    }
+
+    public long getBytesDownloaded()
+    {
+        return this.bytesDownloaded.get();
+    }
+
+    public long getStartByte()
+    {
+        return startByte;
+    }
+
+    public long getEndByte()
+    {
+        return endByte;
+    }
+
+    public long getRemainingBytes()
+    {
+        return Math.max(0, endByte - (startByte + bytesDownloaded.get()) + 1);
+    }
+
+    // how long the attempt in progress has been running, 0 if none has started
+    long getAttemptNanos()
+    {
+        long startNanos = attemptStartNanos;
+        return startNanos == 0 ? 0 : System.nanoTime() - startNanos;
+    }
+
+    // throughput of the attempt in progress, 0 if it hasn't started or hasn't been running long enough to tell
+    public double getBytesPerSecond()
+    {
+        long startNanos = attemptStartNanos;
+        if(startNanos == 0) return 0;
+        long elapsed = System.nanoTime() - startNanos;
+        if(elapsed < TimeUnit.MILLISECONDS.toNanos(100)) return 0;
+        return (bytesDownloaded.get() - attemptStartBytes) * 1e9 / elapsed;
+    }
+
+    // smoothed over the last few seconds across attempts, unlike getBytesPerSecond(), 0 until the owner samples it
+    public double getSmoothedBytesPerSecond()
+    {
+        return throughput.getBytesPerSecond();
+    }
+
+    // the download samples every chunk on one timer, so chunk rates line up with the download's own
+    void sampleThroughput(long nowNanos)
+    {
+        throughput.sample(bytesDownloaded.get(), nowNanos);
+    }
+
+    void resetThroughput()
+    {
+        throughput.reset();
+    }
+
+    // -1 until a response has come back
+    public long getTimeToFirstByteNanos()
+    {
+        return timeToFirstByteNanos;
+    }
+
+    // System.nanoTime() when the first response came back, 0 until then
+    public long getFirstByteNanos()
+    {
+        return firstByteNanos;
+    }
+
+    // failed attempts that were retried, attempts that ran out of retries aren't counted
+    public int getRetryCount()
+    {
+        return retryCount;
+    }
+
+    public int getChunkIndex()
+    {
+        return this.chunkIndex;
+    }
+}
@@ -0,0 +1,19 @@
+package io.rileyhe1.concurrency.Util;
+
+/**
+ * Receives signals from a running ChunkDownloader about how the server is treating its connection.
+ * Every method has an empty default so listeners only implement what they care about, and is called on
+ * the chunk's worker thread, so implementations must be quick and thread safe.
+ */
+public interface ChunkListener
+{
+    // the server answered a range request with 429 Too Many Requests or 503 Service Unavailable
+    default void onThrottled(int chunkIndex, int responseCode)
+    {
+    }
+
+    // the connection was reset or refused mid-transfer
+    default void onConnectionReset(int chunkIndex)
+    {
+    }
+}
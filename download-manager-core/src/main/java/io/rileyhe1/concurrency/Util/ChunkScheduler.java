@@ -0,0 +1,250 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.ExecutionMode;
+
+/**
+ * Runs chunk downloads for every Download owned by a DownloadManager on one bounded set of worker threads.
+ * Chunk tasks are queued in submission order and at most numberOfThreads of them are connected at any time,
+ * no matter how many chunks a file is split into. Completion monitors run on a separate pool so a download
+ * waiting on its own chunks can never take a worker away from them.
+ *
+ * In VIRTUAL_THREADS mode every task gets its own virtual thread and the limits are enforced by a
+ * manager-wide semaphore plus one semaphore per host instead of by the pool size.
+ */
+public class ChunkScheduler
+{
+    private final ExecutionMode mode;
+    private final int numberOfThreads;
+    private final int maxConnectionsPerHost;
+    private final ExecutorService chunkExecutor;
+    private final ExecutorService monitorExecutor;
+    // one thread for cheap periodic bookkeeping such as throughput sampling, never for blocking work
+    private final ScheduledExecutorService timer;
+
+    // only used in VIRTUAL_THREADS mode
+    private final Semaphore connectionPermits;
+    private final Map<String, Semaphore> hostPermits;
+    private final AtomicInteger waitingChunks = new AtomicInteger(0);
+    private final AtomicInteger runningChunks = new AtomicInteger(0);
+
+    public ChunkScheduler(int numberOfThreads)
+    {
+        this(numberOfThreads, ExecutionMode.PLATFORM_THREADS, 0);
+    }
+
+    public ChunkScheduler(DownloadConfig config)
+    {
+        this(config.getNumberOfThreads(), config.getExecutionMode(), config.getMaxConnectionsPerHost());
+    }
+
+    public ChunkScheduler(int numberOfThreads, ExecutionMode mode, int maxConnectionsPerHost)
+    {
+        if(numberOfThreads < 1) throw new IllegalArgumentException("Number of threads must be at least 1");
+        if(mode == null) throw new IllegalArgumentException("Execution mode cannot be null");
+        if(maxConnectionsPerHost < 0) throw new IllegalArgumentException("Max connections per host cannot be negative");
+
+        this.mode = mode;
+        this.numberOfThreads = numberOfThreads;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        if(mode == ExecutionMode.VIRTUAL_THREADS)
+        {
+            this.chunkExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chunk-vthread-", 1).factory());
+            this.monitorExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("download-monitor-", 1).factory());
+            // fair so chunks still start in the order they were submitted
+            this.connectionPermits = new Semaphore(numberOfThreads, true);
+            this.hostPermits = new ConcurrentHashMap<>();
+        }
+        else
+        {
+            this.chunkExecutor = new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 0L, TimeUnit.MILLISECONDS,
+                                                        new LinkedBlockingQueue<>(), namedDaemonThreads("chunk-worker"));
+            this.monitorExecutor = Executors.newCachedThreadPool(namedDaemonThreads("download-monitor"));
+            this.connectionPermits = null;
+            this.hostPermits = null;
+        }
+        this.timer = Executors.newSingleThreadScheduledExecutor(namedDaemonThreads("download-timer"));
+    }
+
+    // queues a chunk task, it will run as soon as one of the workers is free
+    public Future<?> submitChunk(Runnable chunkTask)
+    {
+        return submitChunk(null, chunkTask);
+    }
+
+    // host is used for the per-host limit in VIRTUAL_THREADS mode, it may be null
+    public Future<?> submitChunk(String host, Runnable chunkTask)
+    {
+        if(mode == ExecutionMode.PLATFORM_THREADS) return chunkExecutor.submit(chunkTask);
+
+        waitingChunks.incrementAndGet();
+        return chunkExecutor.submit(() -> runWithPermits(host, chunkTask));
+    }
+
+    // runs a task that mostly blocks waiting on chunk results, such as Download.handleChunkCompletion
+    public Future<?> submitMonitor(Runnable monitorTask)
+    {
+        return monitorExecutor.submit(monitorTask);
+    }
+
+    // runs task every period until the returned future is cancelled or the scheduler shuts down
+    public ScheduledFuture<?> schedulePeriodic(Runnable task, long period, TimeUnit unit)
+    {
+        return timer.scheduleAtFixedRate(() ->
+        {
+            // an exception would silently cancel every later run, so keep one bad tick from killing the task
+            try
+            {
+                task.run();
+            }
+            catch(RuntimeException e)
+            {
+                System.err.println("Periodic task failed: " + e.getMessage());
+            }
+        }, period, period, unit);
+    }
+
+    private void runWithPermits(String host, Runnable chunkTask)
+    {
+        // take the host permit first so a chunk stuck behind a busy host doesn't sit on one of the manager-wide slots
+        Semaphore hostLimit = hostLimit(host);
+        boolean counted = true;
+        try
+        {
+            if(hostLimit != null) hostLimit.acquire();
+            try
+            {
+                connectionPermits.acquire();
+                try
+                {
+                    waitingChunks.decrementAndGet();
+                    runningChunks.incrementAndGet();
+                    counted = false;
+                    chunkTask.run();
+                }
+                finally
+                {
+                    runningChunks.decrementAndGet();
+                    connectionPermits.release();
+                }
+            }
+            finally
+            {
+                if(hostLimit != null) hostLimit.release();
+            }
+        }
+        catch(InterruptedException e)
+        {
+            // scheduler is shutting down
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            if(counted) waitingChunks.decrementAndGet();
+        }
+    }
+
+    private Semaphore hostLimit(String host)
+    {
+        if(host == null || maxConnectionsPerHost == 0) return null;
+        return hostPermits.computeIfAbsent(host, (k) -> new Semaphore(maxConnectionsPerHost, true));
+    }
+
+    // drops cancelled tasks from the queue so a cancelled download doesn't leave thousands of dead entries behind
+    public void purge()
+    {
+        if(chunkExecutor instanceof ThreadPoolExecutor pool) pool.purge();
+    }
+
+    public ExecutionMode getExecutionMode()
+    {
+        return mode;
+    }
+
+    public int getWorkerCount()
+    {
+        return numberOfThreads;
+    }
+
+    public int getActiveChunkCount()
+    {
+        if(chunkExecutor instanceof ThreadPoolExecutor pool) return pool.getActiveCount();
+        return runningChunks.get();
+    }
+
+    public int getQueuedChunkCount()
+    {
+        if(chunkExecutor instanceof ThreadPoolExecutor pool) return pool.getQueue().size();
+        return waitingChunks.get();
+    }
+
+    // stops accepting new work but lets anything already running finish
+    public void shutdown()
+    {
+        chunkExecutor.shutdown();
+        monitorExecutor.shutdown();
+        timer.shutdown();
+    }
+
+    // interrupts all workers and waits briefly for them to exit so their file descriptors are closed
+    public void shutdownNow()
+    {
+        chunkExecutor.shutdownNow();
+        monitorExecutor.shutdownNow();
+        timer.shutdownNow();
+        try
+        {
+            if(!chunkExecutor.awaitTermination(1, TimeUnit.SECONDS)) System.err.println("Chunk scheduler did not terminate in time");
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isShutdown()
+    {
+        return chunkExecutor.isShutdown();
+    }
+
+    // key used for per-host limits, host and port so two servers on one machine are limited separately
+    public static String hostKey(String url)
+    {
+        try
+        {
+            URI uri = URI.create(url);
+            return uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        }
+        catch(IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+    private static ThreadFactory namedDaemonThreads(String prefix)
+    {
+        AtomicInteger counter = new AtomicInteger(0);
+        return runnable ->
+        {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            // daemon threads so a manager that is never shut down can't keep the JVM alive
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package io.rileyhe1.concurrency.Util;
+
+/**
+ * Decides how many chunks a single download may have connected at once, using additive increase and
+ * multiplicative decrease on the download's measured throughput.
+ *
+ * sample() is called once per measurement window with the download's total byte count. While chunks are
+ * waiting on the limit and the last extra connection raised throughput by at least GROWTH_THRESHOLD, the limit
+ * grows by one each window. If it didn't, the extra connection is given back and the limit holds for HOLD_WINDOWS before
+ * probing again. A throttling response (429/503) or a reset connection halves the limit straight away.
+ */
+public class ConnectionController implements ChunkListener
+{
+    // throughput has to improve by at least this much for another connection to count as worth it
+    static final double GROWTH_THRESHOLD = 0.05;
+    // windows to wait after backing off before trying another connection
+    static final int HOLD_WINDOWS = 5;
+
+    private final int maxConnections;
+    private volatile int limit;
+
+    private long lastBytes = -1;
+    private long lastNanos;
+    private double lastThroughput = 0;
+    private boolean probing = false;
+    private int holdWindows = 0;
+    private boolean backedOffThisWindow = false;
+
+    public ConnectionController(int initialConnections, int maxConnections)
+    {
+        if(initialConnections < 1) throw new IllegalArgumentException("Initial connections must be at least 1");
+        if(maxConnections < initialConnections) throw new IllegalArgumentException("Max connections cannot be less than initial connections");
+        this.limit = initialConnections;
+        this.maxConnections = maxConnections;
+    }
+
+    public int getLimit()
+    {
+        return limit;
+    }
+
+    public int getMaxConnections()
+    {
+        return maxConnections;
+    }
+
+    // totalBytes is everything the download has received so far, chunksWaiting whether any chunk is queued behind the limit
+    public synchronized void sample(long totalBytes, long nowNanos, boolean chunksWaiting)
+    {
+        if(lastBytes < 0 || nowNanos <= lastNanos)
+        {
+            lastBytes = totalBytes;
+            lastNanos = nowNanos;
+            return;
+        }
+        double throughput = (totalBytes - lastBytes) * 1e9 / (nowNanos - lastNanos);
+        lastBytes = totalBytes;
+        lastNanos = nowNanos;
+        backedOffThisWindow = false;
+
+        boolean probeFailed = false;
+        if(probing)
+        {
+            probing = false;
+            if(throughput < lastThroughput * (1 + GROWTH_THRESHOLD))
+            {
+                // plateaued, the last connection we added isn't buying anything
+                limit = Math.max(1, limit - 1);
+                holdWindows = HOLD_WINDOWS;
+                probeFailed = true;
+            }
+        }
+        else if(holdWindows > 0)
+        {
+            holdWindows--;
+        }
+        // only probe when the limit is actually what's holding us back, with no chunks waiting another connection
+        // would have nothing to download
+        if(!probeFailed && holdWindows == 0 && chunksWaiting && limit < maxConnections)
+        {
+            limit++;
+            probing = true;
+        }
+        lastThroughput = throughput;
+    }
+
+    // starts a fresh measurement window, used after a pause so the idle time isn't read as a throughput drop
+    public synchronized void resetWindow()
+    {
+        lastBytes = -1;
+        probing = false;
+    }
+
+    @Override
+    public void onThrottled(int chunkIndex, int responseCode)
+    {
+        backOff();
+    }
+
+    @Override
+    public void onConnectionReset(int chunkIndex)
+    {
+        backOff();
+    }
+
+    private synchronized void backOff()
+    {
+        // one bad response from each of several connections shouldn't cut the limit to 1, so only halve once per window
+        if(backedOffThisWindow) return;
+        backedOffThisWindow = true;
+        limit = Math.max(1, limit / 2);
+        probing = false;
+        holdWindows = HOLD_WINDOWS;
+    }
+}
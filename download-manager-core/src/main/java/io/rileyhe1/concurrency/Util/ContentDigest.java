@@ -0,0 +1,236 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * A digest some bytes are expected to have, and the algorithm that produces it.
+ *
+ * Comes from the caller (usually a published SHA-256) or from the server: Repr-Digest (RFC 9530) and the older
+ * Digest header (RFC 3230) describe the whole file, Content-Digest describes the body of the response it is on,
+ * which for a range request is just that range. Content-MD5 is also the digest of the body it arrives with.
+ * toString() gives the RFC 9530 form, "sha-256=:base64:", which is also how snapshots persist it.
+ *
+ * SHA-1 is only accepted where it is named explicitly, Metalink documents still use it for their piece hashes,
+ * a server's digest headers never pick it.
+ */
+public final class ContentDigest
+{
+    // strongest first, a header listing several is checked against the first one we support
+    private static final String[] PREFERRED = {"sha-256", "sha-512", "md5"};
+
+    private final String algorithm;
+    private final byte[] value;
+
+    // algorithm is the RFC 9530 name, sha-256, sha-512 or md5, or sha-1
+    public ContentDigest(String algorithm, byte[] value)
+    {
+        if(algorithm == null) throw new IllegalArgumentException("Algorithm cannot be null");
+        if(value == null) throw new IllegalArgumentException("Digest value cannot be null");
+        this.algorithm = algorithm.toLowerCase(Locale.ROOT);
+        int length = digestLength(this.algorithm);
+        if(length < 0) throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm);
+        if(value.length != length)
+        {
+            throw new IllegalArgumentException(algorithm + " digest must be " + length + " bytes, was " + value.length);
+        }
+        this.value = value.clone();
+    }
+
+    // a SHA-256 written out in hex, as sha256sum prints it
+    public static ContentDigest sha256(String hex)
+    {
+        return fromHex("sha-256", hex);
+    }
+
+    // a digest written out in hex, like the ones in a Metalink document
+    public static ContentDigest fromHex(String algorithm, String hex)
+    {
+        if(hex == null) throw new IllegalArgumentException("Digest cannot be null");
+        byte[] value;
+        try
+        {
+            value = HexFormat.of().parseHex(hex.trim());
+        }
+        catch(IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Not a hex " + algorithm + " digest: " + hex, e);
+        }
+        return new ContentDigest(algorithm, value);
+    }
+
+    // the reverse of toString(), for any algorithm this class supports, null if it isn't one of ours
+    public static ContentDigest parse(String value)
+    {
+        if(value == null) return null;
+        int equals = value.indexOf('=');
+        if(equals <= 0 || !value.startsWith(":", equals + 1) || !value.endsWith(":") || value.length() < equals + 3) return null;
+        String algorithm = value.substring(0, equals).toLowerCase(Locale.ROOT);
+        byte[] decoded = decode(value.substring(equals + 2, value.length() - 1));
+        if(decoded == null || decoded.length != digestLength(algorithm)) return null;
+        return new ContentDigest(algorithm, decoded);
+    }
+
+    // parses the value of a Repr-Digest or Content-Digest header, null if it has nothing we can check
+    public static ContentDigest fromStructuredHeader(String header)
+    {
+        return fromHeader(header, true);
+    }
+
+    // parses the value of an RFC 3230 Digest header, null if it has nothing we can check
+    public static ContentDigest fromDigestHeader(String header)
+    {
+        return fromHeader(header, false);
+    }
+
+    // parses a Content-MD5 header, null if it isn't a valid one
+    public static ContentDigest fromContentMd5(String header)
+    {
+        if(header == null) return null;
+        byte[] value = decode(header.trim());
+        if(value == null || value.length != 16) return null;
+        return new ContentDigest("md5", value);
+    }
+
+    // what the whole file should hash to according to a HEAD (or full GET) response, null if it doesn't say
+    public static ContentDigest forRepresentation(TransportResponse response)
+    {
+        ContentDigest digest = fromStructuredHeader(response.getHeader("Repr-Digest"));
+        if(digest == null) digest = fromDigestHeader(response.getHeader("Digest"));
+        if(digest == null) digest = fromContentMd5(response.getHeader("Content-MD5"));
+        return digest;
+    }
+
+    // what the body of this response should hash to, for a 206 that is only the requested range
+    public static ContentDigest forContent(TransportResponse response)
+    {
+        ContentDigest digest = fromStructuredHeader(response.getHeader("Content-Digest"));
+        if(digest == null) digest = fromContentMd5(response.getHeader("Content-MD5"));
+        return digest;
+    }
+
+    private static ContentDigest fromHeader(String header, boolean structured)
+    {
+        if(header == null) return null;
+        String[] members = header.split(",");
+        for(String preferred : PREFERRED)
+        {
+            for(String member : members)
+            {
+                int equals = member.indexOf('=');
+                if(equals <= 0) continue;
+                String name = member.substring(0, equals).trim().toLowerCase(Locale.ROOT);
+                if(!name.equals(preferred)) continue;
+                String encoded = member.substring(equals + 1).trim();
+                // structured fields wrap byte sequences in colons, RFC 3230 values are bare base64
+                if(structured)
+                {
+                    if(encoded.length() < 2 || encoded.charAt(0) != ':' || encoded.charAt(encoded.length() - 1) != ':') continue;
+                    encoded = encoded.substring(1, encoded.length() - 1);
+                }
+                byte[] value = decode(encoded);
+                if(value != null && value.length == digestLength(name)) return new ContentDigest(name, value);
+            }
+        }
+        return null;
+    }
+
+    private static byte[] decode(String base64)
+    {
+        try
+        {
+            return Base64.getDecoder().decode(base64);
+        }
+        catch(IllegalArgumentException e)
+        {
+            return null;
+        }
+    }
+
+    private static int digestLength(String algorithm)
+    {
+        return switch(algorithm)
+        {
+            case "sha-256" -> 32;
+            case "sha-512" -> 64;
+            case "md5" -> 16;
+            case "sha-1" -> 20;
+            default -> -1;
+        };
+    }
+
+    // the name MessageDigest knows the algorithm by
+    static String javaName(String algorithm)
+    {
+        return switch(algorithm)
+        {
+            case "sha-256" -> "SHA-256";
+            case "sha-512" -> "SHA-512";
+            case "md5" -> "MD5";
+            case "sha-1" -> "SHA-1";
+            default -> throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm);
+        };
+    }
+
+    static MessageDigest newMessageDigest(String algorithm)
+    {
+        try
+        {
+            return MessageDigest.getInstance(javaName(algorithm));
+        }
+        catch(NoSuchAlgorithmException e)
+        {
+            // every JRE has to ship all of them
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public MessageDigest newMessageDigest()
+    {
+        return newMessageDigest(algorithm);
+    }
+
+    public boolean matches(byte[] actual)
+    {
+        return actual != null && MessageDigest.isEqual(value, actual);
+    }
+
+    public String getAlgorithm()
+    {
+        return algorithm;
+    }
+
+    public byte[] getValue()
+    {
+        return value.clone();
+    }
+
+    public String toHex()
+    {
+        return HexFormat.of().formatHex(value);
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if(this == other) return true;
+        if(!(other instanceof ContentDigest digest)) return false;
+        return algorithm.equals(digest.algorithm) && Arrays.equals(value, digest.value);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * algorithm.hashCode() + Arrays.hashCode(value);
+    }
+
+    @Override
+    public String toString()
+    {
+        return algorithm + "=:" + Base64.getEncoder().encodeToString(value) + ":";
+    }
+}
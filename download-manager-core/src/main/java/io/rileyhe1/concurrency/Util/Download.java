@@ -0,0 +1,1683 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.rileyhe1.concurrency.Data.ChunkRange;
+import io.rileyhe1.concurrency.Data.ChunkResult;
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.DownloadException;
+import io.rileyhe1.concurrency.Data.DownloadSnapshot;
+import io.rileyhe1.concurrency.Data.DownloadState;
+import io.rileyhe1.concurrency.Data.WriteMode;
+import io.rileyhe1.concurrency.Monitoring.DownloadPausedEvent;
+
+public class Download
+{
+    private String id;
+    private String tempDirectory;
+    private String url;
+    private String destination;
+    private final DownloadConfig config;
+    // -1 while the server hasn't said, filled in with what the single stream got once it completes
+    private volatile long totalSize;
+    // downloaded in one response from start to finish, since the server ignores ranges or never said how big the file is
+    private boolean singleStream = false;
+    // the GET that found the size when config.isSkipHeadRequest(), handed to the first chunk on start()
+    private TransportResponse probeResponse;
+    private long probeResponseEnd;
+    private volatile DownloadState state;
+    private List<ChunkDownloader> chunks;
+    private List<CompletableFuture<ChunkResult>> futureResults;
+    private List<ChunkResult> results;
+    private int numChunks = 0;
+    // config.getChunkSize() unless the download follows Metalink pieces, then it is the piece length
+    private long chunkSize;
+    // one per chunk index when the download follows Metalink pieces, null otherwise
+    private List<ContentDigest> pieceHashes;
+    private CountDownLatch completionLatch;
+    private volatile boolean completionLatchPulled = false;
+    // told once the download stops running, set by whoever owns it (the manager, to hand its slot to the next one)
+    private volatile DownloadListener listener;
+    private final DownloadContext context;
+    private final ChunkScheduler scheduler;
+    private String hostKey;
+    // null for a download with a single source, otherwise every chunk picks a mirror each time it gets a worker
+    private MirrorSet mirrors;
+    // a download created without a manager gets its own scheduler and transport, which it has to shut down itself
+    private final boolean ownsContext;
+    // chunks that gave their worker back while paused, resubmitted on resume
+    private final Map<ChunkDownloader, CompletableFuture<ChunkResult>> parkedChunks;
+    // chunks waiting for the connection controller to allow another connection, in submission order
+    private final Map<ChunkDownloader, CompletableFuture<ChunkResult>> pendingChunks = new LinkedHashMap<>();
+    // chunks handed to the scheduler that haven't finished yet (parked ones included, they get their slot back on resume)
+    private int connectedChunks = 0;
+    // null unless config.isAdaptiveConnections(), without it every chunk is handed to the scheduler at once
+    private final ConnectionController connectionController;
+    private ScheduledFuture<?> samplingTask;
+    // samples the rates below twice a second while the download runs, whether or not it is adaptive
+    private static final long METRICS_INTERVAL_MS = 500;
+    private ScheduledFuture<?> metricsTask;
+    private final ThroughputMeter throughput = new ThroughputMeter();
+    // System.nanoTime() when start() or startExisting() ran, time to first byte is measured from here
+    private volatile long startNanos;
+    // open from pause() until whatever ends the pause, null otherwise
+    private DownloadPausedEvent pausedEvent;
+    // caps this download on its own, the host and manager-wide limits come from the context
+    private final BandwidthLimiter bandwidthLimiter;
+    private final ProgressTracker progressTracker;
+    private final WriteMode writeMode;
+    // open only while a DIRECT download is running, every chunk writes through it at its own offsets
+    private FileChannel destinationChannel;
+    // open only while a STREAMING download is running, appends chunks to the destination as they finish in order
+    private StreamingAssembler streamingAssembler;
+    private int savedAssembledChunks = 0;
+    // what the finished file should hash to, from the caller or the response that found the size, null if nobody said
+    private ContentDigest expectedDigest;
+    // hashes the file in order while it is written, null unless there is a digest to check or computeSha256 is set
+    private FileHasher fileHasher;
+    // DIRECT resumes only, hands the bytes written before the stop to the hasher
+    private Future<?> resumedHashing;
+    private volatile String sha256;
+
+    private Map<Integer, Long> savedChunkProgress;
+    // byte range of every chunk index, ranges stop following the chunk size once work stealing splits one
+    private final Map<Integer, ChunkRange> chunkRanges = new HashMap<>();
+    private Map<Integer, ChunkRange> savedChunkRanges;
+    // index handed to the next range split off by work stealing
+    private int nextChunkIndex;
+    // average rate of every chunk run that finished its range, what a running chunk is held up against for hedging
+    private final List<Double> finishedChunkRates = new ArrayList<>();
+    private int hedgedRequests = 0;
+    // a chunk's smoothed rate isn't worth going on until the metrics timer has sampled it a few times
+    private static final long HEDGE_MIN_ATTEMPT_NANOS = TimeUnit.MILLISECONDS.toNanos(4 * METRICS_INTERVAL_MS);
+
+    private Exception error;
+    public Download(String url, String destination, DownloadConfig config, ProgressTracker progressTracker) throws DownloadException
+    {
+        this(url, destination, config, progressTracker, null);
+    }
+
+    // context holds the manager-wide scheduler and transport, if null the download creates its own from config
+    public Download(String url, String destination, DownloadConfig config, ProgressTracker progressTracker,
+                    DownloadContext context) throws DownloadException
+    {
+        this(Collections.singletonList(url), destination, config, progressTracker, context);
+    }
+
+    // urls are mirrors of the same file, the first is probed like a single url and the rest are only used if they
+    // report the same size (and ETag, when both send one). context may be null as above
+    // (a factory rather than a constructor overload so existing new Download(null, ...) calls stay unambiguous)
+    public static Download withMirrors(List<String> urls, String destination, DownloadConfig config,
+                                       ProgressTracker progressTracker, DownloadContext context) throws DownloadException
+    {
+        return new Download(urls, destination, config, progressTracker, context);
+    }
+
+    private Download(List<String> urls, String destination, DownloadConfig config, ProgressTracker progressTracker,
+                     DownloadContext context) throws DownloadException
+    {
+        // validate arguments
+        if(urls == null || urls.isEmpty()) throw new IllegalArgumentException("URL cannot be null or empty!");
+        for(String mirrorUrl : urls)
+        {
+            if(mirrorUrl == null || mirrorUrl.trim().isEmpty()) throw new IllegalArgumentException("URL cannot be null or empty!");
+        }
+        String url = urls.get(0);
+        if(destination == null || destination.trim().isEmpty()) throw new IllegalArgumentException("Destination cannot be null or empty!");
+        if(config == null) throw new IllegalArgumentException("Config cannot be null!");
+        if(progressTracker == null) throw new IllegalArgumentException("Progress Tracker cannot be null!");
+        // assign unique id for the download
+        this.id = UUID.randomUUID().toString();
+        // store arguments
+        this.url = url;
+        this.hostKey = ChunkScheduler.hostKey(url);
+        this.destination = destination;
+        this.config = config;
+        this.progressTracker = progressTracker;
+        this.writeMode = config.getWriteMode();
+        this.state = DownloadState.PENDING;
+
+        // Create download-specific temp directory (DIRECT downloads write straight into the destination and never use it)
+        this.tempDirectory = config.getTempDirectory() + "/" + id;
+        Path tempDirPath = Paths.get(tempDirectory);
+        
+        try
+        {
+            if(writeMode != WriteMode.DIRECT && !Files.exists(tempDirPath))
+            {
+                Files.createDirectories(tempDirPath);
+            }
+        }
+        catch(IOException e)
+        {
+            throw new IllegalArgumentException("Failed to create temp directory: " + tempDirectory, e);
+        }
+
+        // initialize other instance fields:
+        this.chunks = new ArrayList<>();
+        this.futureResults = new ArrayList<>();
+        this.results = new ArrayList<>();
+        this.completionLatch = new CountDownLatch(1);
+        this.parkedChunks = new LinkedHashMap<>();
+        this.ownsContext = context == null;
+        this.context = ownsContext ? new DownloadContext(config) : context;
+        this.scheduler = this.context.getScheduler();
+        this.bandwidthLimiter = new BandwidthLimiter(config.getMaxBytesPerSecondPerDownload());
+        this.connectionController = createConnectionController(config);
+
+        // the first url that answers the probe becomes the primary, the ones before it are left out
+        String etag = null;
+        int primary = -1;
+        IOException probeFailure = null;
+        for(int i = 0; i < urls.size() && primary < 0; i++)
+        {
+            String candidate = urls.get(i);
+            this.totalSize = 0;
+            this.singleStream = false;
+            this.expectedDigest = null;
+            try
+            {
+                etag = config.isSkipHeadRequest() ? probeWithGet(candidate) : probeWithHead(candidate);
+                primary = i;
+                this.url = candidate;
+                this.hostKey = ChunkScheduler.hostKey(candidate);
+            }
+            catch(IOException e)
+            {
+                probeFailure = e;
+                if(urls.size() > 1) System.err.println("Skipping mirror " + candidate + ": " + e);
+            }
+        }
+        if(primary < 0)
+        {
+            if(ownsContext) this.context.shutdownNow();
+            throw new DownloadException("Failed to retrieve file metadata from " + url, probeFailure, id, url);
+        }
+
+        // now that we've determined the file size, we'll compute the number of chunks
+        this.chunkSize = config.getChunkSize();
+        if(singleStream || totalSize < config.getMinSizeForChunking()) this.numChunks = 1;
+        else
+        {
+            // we want to round up on our division here to make sure we get the final chunk whose length < chunkSize (if it exists)
+            this.numChunks = (int) Math.ceil((double) totalSize / chunkSize);
+        }
+
+        // mirrors that don't agree with the primary are left out rather than failing the download, and a single
+        // stream has no ranges to share out between them
+        List<String> agreeing = new ArrayList<>();
+        agreeing.add(this.url);
+        for(String mirrorUrl : singleStream ? List.<String>of() : urls.subList(primary + 1, urls.size()))
+        {
+            if(!agreeing.contains(mirrorUrl) && agreesWithPrimary(mirrorUrl, etag)) agreeing.add(mirrorUrl);
+        }
+        if(agreeing.size() > 1) this.mirrors = new MirrorSet(agreeing);
+    }
+
+    // finds the size and digest with a HEAD request and checks the server takes range requests unless the file
+    // fits in one chunk, returns the ETag
+    private String probeWithHead(String url) throws IOException
+    {
+        try(TransportResponse response = this.context.getTransport().head(url))
+        {
+            int responseCode = response.getStatusCode();
+            if(responseCode == 200)
+            {
+                String contentLengthHeader = response.getHeader("Content-Length");
+                if(contentLengthHeader != null)
+                {
+                    this.totalSize = Long.parseLong(contentLengthHeader);
+                    if(this.totalSize <= 0)
+                    {
+                        throw new IOException("Invalid Content-Length: " + this.totalSize);
+                    }
+                }
+                else throw new IOException("Could not find size of download");
+            }
+            else throw new IOException("HTTP HEAD request failed with response code: " + responseCode);
+
+            String acceptRanges = response.getHeader("Accept-Ranges");
+            boolean supportsRanges = acceptRanges != null && acceptRanges.equalsIgnoreCase("bytes");
+            // Repr-Digest, Digest or Content-MD5, whichever the server sends
+            this.expectedDigest = ContentDigest.forRepresentation(response);
+
+            if(!supportsRanges && this.totalSize >= config.getMinSizeForChunking())
+            {
+                throw new IOException("Server does not support range requests, cannot download in chunks.");
+            }
+            // small enough for one chunk anyway, which can then take the whole file if the server ignores its range
+            this.singleStream = !supportsRanges;
+            return response.getHeader("ETag");
+        }
+    }
+
+    // finds the size with a GET for bytes=0- and keeps the response open for the first chunk, returns the ETag.
+    // a 206 says how big the file is in its Content-Range, a 200 means the server ignored the range and the file is
+    // streamed in one go, as it is when the size comes back unknown (a Content-Range ending in /* or a 200 without
+    // a Content-Length)
+    private String probeWithGet(String url) throws IOException
+    {
+        TransportResponse response = this.context.getTransport().getFrom(url, 0);
+        try
+        {
+            int responseCode = response.getStatusCode();
+            if(responseCode == 206)
+            {
+                String contentRange = response.getHeader("Content-Range");
+                if(contentRange == null) throw new IOException("Partial response without a Content-Range");
+                // bytes first-last/size
+                String[] parts = contentRange.trim().split("[ /-]");
+                if(parts.length != 4 || !parts[0].equalsIgnoreCase("bytes") || !parts[1].equals("0"))
+                {
+                    throw new IOException("Unexpected Content-Range: " + contentRange);
+                }
+                this.probeResponseEnd = Long.parseLong(parts[2]);
+                this.totalSize = parts[3].equals("*") ? -1 : Long.parseLong(parts[3]);
+                this.singleStream = totalSize < 0;
+                if(totalSize < 0) probeResponseEnd = ChunkDownloader.UNKNOWN_END;
+            }
+            else if(responseCode == 200)
+            {
+                String contentLength = response.getHeader("Content-Length");
+                this.totalSize = contentLength == null ? -1 : Long.parseLong(contentLength);
+                this.singleStream = true;
+                this.probeResponseEnd = totalSize < 0 ? ChunkDownloader.UNKNOWN_END : totalSize - 1;
+            }
+            else throw new IOException("HTTP GET request failed with response code: " + responseCode);
+            if(totalSize == 0) throw new IOException("Invalid size: 0");
+
+            // Repr-Digest and Digest describe the whole file whatever part of it the body is, Content-MD5 only the body
+            this.expectedDigest = ContentDigest.fromStructuredHeader(response.getHeader("Repr-Digest"));
+            if(expectedDigest == null) expectedDigest = ContentDigest.fromDigestHeader(response.getHeader("Digest"));
+            if(expectedDigest == null && probeResponseEnd == totalSize - 1)
+            {
+                expectedDigest = ContentDigest.fromContentMd5(response.getHeader("Content-MD5"));
+            }
+            this.probeResponse = response;
+            return response.getHeader("ETag");
+        }
+        catch(IOException | RuntimeException e)
+        {
+            response.close();
+            if(e instanceof NumberFormatException) throw new IOException("Could not find size of download: " + e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    // HEADs a mirror and checks it serves what the primary url does, every chunk sent to it asks for a range
+    private boolean agreesWithPrimary(String mirrorUrl, String etag)
+    {
+        try(TransportResponse response = context.getTransport().head(mirrorUrl))
+        {
+            String reason = null;
+            String contentLength = response.getHeader("Content-Length");
+            String acceptRanges = response.getHeader("Accept-Ranges");
+            String mirrorEtag = response.getHeader("ETag");
+            if(response.getStatusCode() != 200) reason = "HEAD request failed with response code " + response.getStatusCode();
+            else if(contentLength == null || Long.parseLong(contentLength) != totalSize) reason = "size " + contentLength + " differs from " + totalSize;
+            else if(acceptRanges == null || !acceptRanges.equalsIgnoreCase("bytes")) reason = "range requests are not supported";
+            else if(etag != null && mirrorEtag != null && !etag.equals(mirrorEtag)) reason = "ETag " + mirrorEtag + " differs from " + etag;
+            if(reason == null) return true;
+            System.err.println("Skipping mirror " + mirrorUrl + ": " + reason);
+            return false;
+        }
+        catch(IOException | NumberFormatException e)
+        {
+            System.err.println("Skipping mirror " + mirrorUrl + ": " + e);
+            return false;
+        }
+    }
+    // constructor for loading from snapshot
+    public Download(DownloadSnapshot snapshot, DownloadConfig config, 
+                ProgressTracker progressTracker) throws DownloadException
+    {
+        this(snapshot, config, progressTracker, null);
+    }
+
+    public Download(DownloadSnapshot snapshot, DownloadConfig config, 
+                ProgressTracker progressTracker, DownloadContext context) throws DownloadException
+    {
+        // Basic validation
+        if(snapshot == null) 
+            throw new IllegalArgumentException("Snapshot cannot be null!");
+        if(config == null) 
+            throw new IllegalArgumentException("Config cannot be null!");
+        if(progressTracker == null) 
+            throw new IllegalArgumentException("Progress Tracker cannot be null!");
+        
+        // Restore from snapshot
+        this.id = snapshot.getId(); 
+        this.url = snapshot.getUrl();
+        this.hostKey = ChunkScheduler.hostKey(url);
+        this.destination = snapshot.getDestination();
+        this.totalSize = snapshot.getTotalSize();
+        // a size that was never found means the download was a single stream, anything else got its ranges
+        this.singleStream = totalSize < 0;
+        this.savedChunkProgress = snapshot.getChunkProgress();
+        this.numChunks = savedChunkProgress.size();
+        this.config = config;
+        this.progressTracker = progressTracker;
+        // a snapshot keeps the mode it was started with, its partial data is either in temp files or in the destination
+        this.writeMode = snapshot.getWriteMode() == null ? WriteMode.TEMP_FILES : WriteMode.valueOf(snapshot.getWriteMode());
+        this.savedAssembledChunks = snapshot.getAssembledChunks();
+        this.savedChunkRanges = snapshot.getChunkRanges();
+        // snapshots saved before pieces existed have no chunk size, their chunks always followed the config's
+        this.chunkSize = snapshot.getChunkSize() > 0 ? snapshot.getChunkSize() : config.getChunkSize();
+        if(snapshot.getPieceHashes() != null)
+        {
+            this.pieceHashes = new ArrayList<>();
+            for(String pieceHash : snapshot.getPieceHashes())
+            {
+                pieceHashes.add(ContentDigest.parse(pieceHash));
+            }
+        }
+        if(snapshot.getMirrors() != null && snapshot.getMirrors().size() > 1) this.mirrors = new MirrorSet(snapshot.getMirrors());
+        this.expectedDigest = snapshot.getExpectedDigest() == null ? null : ContentDigest.parse(snapshot.getExpectedDigest());
+        this.ownsContext = context == null;
+        this.context = ownsContext ? new DownloadContext(config) : context;
+        this.scheduler = this.context.getScheduler();
+        this.bandwidthLimiter = new BandwidthLimiter(config.getMaxBytesPerSecondPerDownload());
+        this.connectionController = createConnectionController(config);
+        this.state = DownloadState.PENDING;
+        this.tempDirectory = config.getTempDirectory() + "/" + id;
+
+        // Initialize other instance fields:
+        this.chunks = new ArrayList<>();
+        this.futureResults = new ArrayList<>();
+        this.results = new ArrayList<>();
+        this.completionLatch = new CountDownLatch(1);
+        this.parkedChunks = new LinkedHashMap<>();
+}
+    // starts downloading a new download
+    public synchronized void start()
+    {
+        if(state != DownloadState.PENDING) throw new IllegalStateException("Cannot start download: Expected Pending, Was: " + state);
+        
+        this.state = DownloadState.DOWNLOADING;
+        this.startNanos = System.nanoTime();
+        this.fileHasher = createFileHasher();
+
+        if(writeMode == WriteMode.DIRECT)
+        {
+            try
+            {
+                openDestinationChannel(true);
+            }
+            catch(IOException e)
+            {
+                failBeforeStart(e);
+                return;
+            }
+        }
+        else if(writeMode == WriteMode.STREAMING)
+        {
+            try
+            {
+                streamingAssembler = new StreamingAssembler(destination, 0, 0, fileHasher);
+            }
+            catch(IOException e)
+            {
+                failBeforeStart(e);
+                return;
+            }
+        }
+
+        long startByte = 0, endByte;
+        for(int i = 0; i < numChunks; i++)
+        {   
+            endByte = (i == numChunks - 1) ? lastByte() : startByte + chunkSize - 1;
+
+            chunkRanges.put(i, new ChunkRange(startByte, endByte));
+            ChunkDownloader curChunk = createChunk(startByte, endByte, 0, i);
+            // the first chunk carries on reading the size probe's response when it covers the chunk's range
+            if(i == 0 && probeResponse != null && probeResponseEnd >= endByte)
+            {
+                curChunk.setFirstResponse(probeResponse, probeResponseEnd);
+                probeResponse = null;
+            }
+            chunks.add(curChunk);
+            futureResults.add(submitChunk(curChunk));
+
+            startByte += chunkSize;
+        }
+        closeProbeResponse();
+        nextChunkIndex = numChunks;
+        startSampling();
+        scheduler.submitMonitor(this::handleChunkCompletion);
+    }
+    // continues downloading a previously stopped and saved download from where it left off
+    public synchronized void startExisting()
+    {
+        if(state != DownloadState.PENDING) 
+            throw new IllegalStateException("Cannot start download: Expected Pending, Was: " + state);
+        
+        if(savedChunkProgress == null)
+        {
+            throw new IllegalStateException("Cannot call startExisting on a new download. Use start() instead.");
+        }
+        
+        this.state = DownloadState.DOWNLOADING;
+        this.startNanos = System.nanoTime();
+        this.fileHasher = createFileHasher();
+
+        // if the partially written destination has gone missing, the saved progress no longer points at any data
+        boolean progressUsable = true;
+        if(writeMode == WriteMode.DIRECT)
+        {
+            try
+            {
+                progressUsable = Files.exists(Paths.get(destination));
+                openDestinationChannel(false);
+            }
+            catch(IOException e)
+            {
+                failBeforeStart(e);
+                return;
+            }
+        }
+        else if(writeMode == WriteMode.STREAMING)
+        {
+            try
+            {
+                long assembledBytes = totalSize < 0 ? 0 : Math.min((long) savedAssembledChunks * chunkSize, totalSize);
+                streamingAssembler = new StreamingAssembler(destination, savedAssembledChunks, assembledBytes, fileHasher);
+            }
+            catch(IOException e)
+            {
+                failBeforeStart(e);
+                return;
+            }
+        }
+        if(writeMode != WriteMode.DIRECT)
+        {
+            try
+            {
+                reconcileTempFiles();
+            }
+            catch(IOException e)
+            {
+                failBeforeStart(e);
+                return;
+            }
+        }
+
+        // DIRECT bytes from before the stop are already in the destination, the hasher reads them back when it gets there
+        Map<Long, Long> resumedRanges = new HashMap<>();
+        long startByte = 0, endByte;
+        for(int i = 0; i < numChunks; i++)
+        {   
+            endByte = (i == numChunks - 1) ? lastByte() : startByte + chunkSize - 1;
+            // ranges saved by a DIRECT download may have been split, so they win over the chunk size
+            ChunkRange savedRange = savedChunkRanges != null ? savedChunkRanges.get(i) : null;
+            if(savedRange != null)
+            {
+                startByte = savedRange.getStartByte();
+                endByte = savedRange.getEndByte();
+            }
+            chunkRanges.put(i, new ChunkRange(startByte, endByte));
+
+            // Get saved progress for this chunk (default to 0 if not found)
+            long alreadyDownloaded = progressUsable ? savedChunkProgress.getOrDefault(i, 0L) : 0L;
+            long expectedChunkSize = (endByte - startByte) + 1;
+            // chunks already appended have no temp file left, their bytes are in the destination
+            if(writeMode == WriteMode.STREAMING && i < savedAssembledChunks) alreadyDownloaded = expectedChunkSize;
+            // a piece only goes into the file hash once all of it has passed its check
+            boolean unchecked = pieceHashes != null && alreadyDownloaded < expectedChunkSize;
+            if(writeMode == WriteMode.DIRECT && alreadyDownloaded > 0 && !unchecked) resumedRanges.put(startByte, alreadyDownloaded);
+            // skip chunks that have already completed
+            if(alreadyDownloaded >= expectedChunkSize)
+            {
+                // create a completed result for the chunk
+                boolean inDestination = writeMode == WriteMode.DIRECT || (writeMode == WriteMode.STREAMING && i < savedAssembledChunks);
+                String chunkPath = inDestination ? null : tempDirectory + "/chunk" + i + ".bin";
+                ChunkResult completedResult = ChunkResult.success(chunkPath, alreadyDownloaded, i);
+                // results.add(completedResult);
+                // create a dummy completable future
+                futureResults.add(CompletableFuture.completedFuture(completedResult));
+            }
+            else
+            {
+                ChunkDownloader curChunk = createChunk(startByte, endByte, alreadyDownloaded, i);
+                chunks.add(curChunk);
+                futureResults.add(submitChunk(curChunk));
+            }
+
+            startByte = endByte + 1;
+        }
+        nextChunkIndex = numChunks;
+        if(fileHasher != null && !resumedRanges.isEmpty()) hashResumedRanges(resumedRanges);
+        startSampling();
+        scheduler.submitMonitor(this::handleChunkCompletion);
+    }
+
+    // null if there is nothing to hash for
+    private FileHasher createFileHasher()
+    {
+        Set<String> algorithms = new LinkedHashSet<>();
+        if(config.isComputeSha256()) algorithms.add("sha-256");
+        if(expectedDigest != null) algorithms.add(expectedDigest.getAlgorithm());
+        return algorithms.isEmpty() ? null : new FileHasher(algorithms);
+    }
+
+    // on a monitor thread, it can mean reading back most of the file and chunks are already writing
+    private void hashResumedRanges(Map<Long, Long> resumedRanges)
+    {
+        FileHasher hasher = fileHasher;
+        FileChannel channel = destinationChannel;
+        resumedHashing = scheduler.submitMonitor(() ->
+        {
+            try
+            {
+                for(Map.Entry<Long, Long> range : resumedRanges.entrySet())
+                {
+                    hasher.markWritten(range.getKey(), range.getValue(), channel);
+                }
+            }
+            catch(IOException e)
+            {
+                // stopped again before it finished, or the file is unreadable and the hash comes up short at the end
+            }
+        });
+    }
+
+    // compares the finished file's hash with what the caller or the server said it should be
+    private void verifyFileDigest() throws IOException
+    {
+        if(fileHasher == null) return;
+        byte[] fileSha256 = fileHasher.getDigest("sha-256");
+        if(fileSha256 != null) sha256 = HexFormat.of().formatHex(fileSha256);
+        if(expectedDigest == null) return;
+        byte[] actual = fileHasher.getDigest(expectedDigest.getAlgorithm());
+        if(!expectedDigest.matches(actual))
+        {
+            throw new IOException("Downloaded file does not match its " + expectedDigest.getAlgorithm() + " digest, expected "
+                + expectedDigest.toHex() + ", got " + HexFormat.of().formatHex(actual));
+        }
+    }
+
+    // temp files aren't fsynced, so after a crash one can be shorter than the progress saved for it, or longer if it
+    // kept growing after the last save. chunks append to their temp file, so both have to agree before they resume
+    private void reconcileTempFiles() throws IOException
+    {
+        Map<Integer, Long> reconciled = new HashMap<>(savedChunkProgress);
+        int firstChunk = writeMode == WriteMode.STREAMING ? savedAssembledChunks : 0;
+        for(int i = firstChunk; i < numChunks; i++)
+        {
+            Path tempFile = Paths.get(tempDirectory, "chunk" + i + ".bin");
+            long saved = reconciled.getOrDefault(i, 0L);
+            long size = Files.exists(tempFile) ? Files.size(tempFile) : 0;
+            if(size > saved)
+            {
+                try(FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE))
+                {
+                    channel.truncate(saved);
+                }
+            }
+            else if(size < saved)
+            {
+                reconciled.put(i, size);
+                // the tracker was seeded with the saved progress, take back what the file doesn't have
+                progressTracker.updateProgress(i, size - saved);
+            }
+        }
+        savedChunkProgress = reconciled;
+    }
+
+    private ChunkDownloader createChunk(long startByte, long endByte, long alreadyDownloaded, int chunkIndex)
+    {
+        ChunkDownloader chunk;
+        if(writeMode == WriteMode.DIRECT)
+        {
+            chunk = ChunkDownloader.forChannel(destinationChannel, url, startByte, endByte, alreadyDownloaded, chunkIndex, config, progressTracker);
+        }
+        else chunk = new ChunkDownloader(tempDirectory, url, startByte, endByte, alreadyDownloaded, chunkIndex, config, progressTracker);
+        // every chunk of every download shares the context's transport so connections to a host get reused
+        chunk.setTransport(context.getTransport());
+        chunk.setMetrics(context.getMetrics(), hostKey);
+        chunk.setBandwidthLimiters(bandwidthLimiter, context.getHostLimiter(hostKey), context.getGlobalLimiter());
+        if(writeMode == WriteMode.DIRECT) chunk.setFileHasher(fileHasher);
+        if(pieceHashes != null) chunk.setPieceDigest(pieceHashes.get(chunkIndex));
+        if(singleStream) chunk.setSingleStream();
+        return chunk;
+    }
+
+    // end byte of the last chunk, a chunk for a file of unknown size reads until the response ends
+    private long lastByte()
+    {
+        return totalSize < 0 ? ChunkDownloader.UNKNOWN_END : totalSize - 1;
+    }
+
+    // a download left waiting for a slot shouldn't hold a connection open the whole time, its first chunk asks for
+    // the range again once it starts
+    public synchronized void releaseProbe()
+    {
+        closeProbeResponse();
+    }
+
+    // the probe's response when start() had no chunk to hand it to, or the download failed before it could
+    private void closeProbeResponse()
+    {
+        if(probeResponse == null) return;
+        probeResponse.close();
+        probeResponse = null;
+    }
+
+    // sizes the destination to the whole download so every chunk can write at its own offset, truncate is false
+    // when resuming since the bytes already written are the ones the saved progress refers to. a file of unknown size
+    // just grows as its single chunk writes
+    private void openDestinationChannel(boolean truncate) throws IOException
+    {
+        Path destinationPath = Paths.get(destination);
+        if(destinationPath.getParent() != null) Files.createDirectories(destinationPath.getParent());
+        RandomAccessFile file = new RandomAccessFile(destination, "rw");
+        try
+        {
+            if(truncate) file.setLength(0);
+            if(totalSize >= 0 && file.length() != totalSize) file.setLength(totalSize);
+        }
+        catch(IOException e)
+        {
+            file.close();
+            throw e;
+        }
+        // closing the channel also closes the file
+        this.destinationChannel = file.getChannel();
+    }
+
+    private void closeDestinationChannel()
+    {
+        if(destinationChannel == null) return;
+        try
+        {
+            // a stopped download's progress gets journaled, so its bytes have to be on disk first
+            if(destinationChannel.isOpen()) destinationChannel.force(false);
+        }
+        catch(IOException e)
+        {
+            // Best effort
+        }
+        try
+        {
+            destinationChannel.close();
+        }
+        catch(IOException e)
+        {
+            // Best effort
+        }
+    }
+
+    private void closeStreamingAssembler()
+    {
+        if(streamingAssembler == null) return;
+        try
+        {
+            streamingAssembler.close();
+        }
+        catch(IOException e)
+        {
+            // Best effort
+        }
+    }
+
+    // used when a download can't even get as far as queueing its chunks
+    private void failBeforeStart(Exception e)
+    {
+        closeProbeResponse();
+        state = DownloadState.FAILED;
+        error = new DownloadException("Download Failed: " + e.getMessage(), e, id, url);
+        if(ownsContext) context.shutdown();
+        completionLatchPulled = true;
+        completionLatch.countDown();
+        notifyFinished();
+    }
+
+    private void notifyFinished()
+    {
+        DownloadListener current = listener;
+        if(current != null) current.onFinished(this);
+    }
+
+    private static ConnectionController createConnectionController(DownloadConfig config)
+    {
+        if(!config.isAdaptiveConnections()) return null;
+        return new ConnectionController(config.getInitialConnections(), config.getMaxConnectionsPerDownload());
+    }
+
+    private void startSampling()
+    {
+        metricsTask = scheduler.schedulePeriodic(this::sampleMetrics, METRICS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if(connectionController == null) return;
+        samplingTask = scheduler.schedulePeriodic(this::sampleThroughput, 1, TimeUnit.SECONDS);
+    }
+
+    private synchronized void stopSampling()
+    {
+        if(metricsTask != null) metricsTask.cancel(false);
+        if(samplingTask != null) samplingTask.cancel(false);
+        resetMetrics();
+    }
+
+    // runs on the scheduler's timer while the download is running. every meter is sampled with the same
+    // timestamp, so chunk rates add up to the download's
+    private void sampleMetrics()
+    {
+        synchronized(this)
+        {
+            if(state != DownloadState.DOWNLOADING) return;
+            long now = System.nanoTime();
+            throughput.sample(progressTracker.getTotalProgress(), now);
+            for(ChunkDownloader chunk : chunks)
+            {
+                chunk.sampleThroughput(now);
+            }
+            if(mirrors != null) mirrors.sample(now);
+            hedgeStraggler();
+        }
+    }
+
+    // near the end of the download, once nothing is left waiting for a worker, a chunk reading far slower than its
+    // siblings gets a second request for what it has left (see ChunkDownloader.runHedge). unlike stealWork this
+    // also helps a range too short to split or a Metalink piece, and a read that has stalled outright, which the
+    // read timeout would otherwise only retry once it runs out
+    private synchronized void hedgeStraggler()
+    {
+        if(hedgedRequests >= config.getMaxHedgedRequests()) return;
+        if(state != DownloadState.DOWNLOADING || !pendingChunks.isEmpty() || scheduler.getQueuedChunkCount() > 0) return;
+
+        Map<ChunkDownloader, Double> running = new LinkedHashMap<>();
+        for(ChunkDownloader chunk : chunks)
+        {
+            if(chunk.getRemainingBytes() > 0 && chunk.getAttemptNanos() >= HEDGE_MIN_ATTEMPT_NANOS)
+            {
+                running.put(chunk, chunk.getSmoothedBytesPerSecond());
+            }
+        }
+        ChunkDownloader straggler = null;
+        double stragglerSecondsLeft = 0;
+        for(Map.Entry<ChunkDownloader, Double> candidate : running.entrySet())
+        {
+            ChunkDownloader chunk = candidate.getKey();
+            if(chunk.isHedged()) continue;
+            List<Double> siblings = new ArrayList<>(finishedChunkRates);
+            for(Map.Entry<ChunkDownloader, Double> other : running.entrySet())
+            {
+                if(other.getKey() != chunk) siblings.add(other.getValue());
+            }
+            if(siblings.isEmpty() || candidate.getValue() * config.getHedgeThreshold() >= median(siblings)) continue;
+            double secondsLeft = chunk.getRemainingBytes() / Math.max(candidate.getValue(), 1.0);
+            if(straggler == null || secondsLeft > stragglerSecondsLeft)
+            {
+                straggler = chunk;
+                stragglerSecondsLeft = secondsLeft;
+            }
+        }
+        if(straggler == null) return;
+
+        hedgedRequests++;
+        ChunkDownloader chunk = straggler;
+        scheduler.submitChunk(hostKey, () -> runHedge(chunk));
+    }
+
+    private static double median(List<Double> values)
+    {
+        Collections.sort(values);
+        int middle = values.size() / 2;
+        return values.size() % 2 == 1 ? values.get(middle) : (values.get(middle - 1) + values.get(middle)) / 2;
+    }
+
+    // a hedge has no future of its own, the chunk's completes once either copy has finished the range.
+    // a mirrored download sends it to whichever mirror looks best right now, usually not the one lagging
+    private void runHedge(ChunkDownloader chunk)
+    {
+        MirrorSet.Mirror source = mirrors == null ? null : mirrors.pick();
+        try
+        {
+            chunk.runHedge(source == null ? url : source.getUrl(), source);
+        }
+        finally
+        {
+            if(source != null) source.release();
+        }
+    }
+
+    // commits the flight recorder span for a pause, if there is one open
+    private synchronized void endPause(String endedBy)
+    {
+        if(pausedEvent == null) return;
+        if(pausedEvent.shouldCommit())
+        {
+            pausedEvent.downloadId = id;
+            pausedEvent.url = url;
+            pausedEvent.downloadedBytes = getDownloadedBytes();
+            pausedEvent.endedBy = endedBy;
+            pausedEvent.commit();
+        }
+        pausedEvent = null;
+    }
+
+    // rates drop to 0 while nothing is moving and start over from the next sample
+    private synchronized void resetMetrics()
+    {
+        throughput.reset();
+        for(ChunkDownloader chunk : chunks)
+        {
+            chunk.resetThroughput();
+        }
+    }
+
+    // runs on the scheduler's timer once a second while the download is running
+    private void sampleThroughput()
+    {
+        synchronized(this)
+        {
+            if(state != DownloadState.DOWNLOADING) return;
+            connectionController.sample(progressTracker.getTotalProgress(), System.nanoTime(), !pendingChunks.isEmpty());
+            // the limit may have gone up
+            dispatchChunks();
+        }
+    }
+
+    // queues a chunk on the scheduler, the returned future completes when the chunk finishes its range (or fails),
+    // which isn't necessarily the first time its task returns since a paused chunk hands its worker back
+    private synchronized CompletableFuture<ChunkResult> submitChunk(ChunkDownloader chunk)
+    {
+        CompletableFuture<ChunkResult> result = new CompletableFuture<>();
+        chunk.setYieldOnPause(true);
+        if(connectionController != null) chunk.setListener(connectionController);
+        pendingChunks.put(chunk, result);
+        dispatchChunks();
+        return result;
+    }
+
+    // hands pending chunks to the scheduler until this download has as many connected as the controller allows
+    private synchronized void dispatchChunks()
+    {
+        if(state != DownloadState.DOWNLOADING) return;
+        int limit = connectionController == null ? Integer.MAX_VALUE : connectionController.getLimit();
+        Iterator<Map.Entry<ChunkDownloader, CompletableFuture<ChunkResult>>> pending = pendingChunks.entrySet().iterator();
+        while(connectedChunks < limit && pending.hasNext())
+        {
+            Map.Entry<ChunkDownloader, CompletableFuture<ChunkResult>> next = pending.next();
+            pending.remove();
+            connectedChunks++;
+            ChunkDownloader chunk = next.getKey();
+            CompletableFuture<ChunkResult> result = next.getValue();
+            scheduler.submitChunk(hostKey, () -> runChunk(chunk, result));
+        }
+    }
+
+    private void runChunk(ChunkDownloader chunk, CompletableFuture<ChunkResult> result)
+    {
+        ChunkResult chunkResult;
+        MirrorSet.Mirror source = mirrors == null ? null : mirrors.pick();
+        long callNanos = System.nanoTime();
+        long callBytes = chunk.getBytesDownloaded();
+        try
+        {
+            if(source != null) routeChunk(chunk, source);
+            chunkResult = chunk.call();
+        }
+        finally
+        {
+            if(source != null) source.release();
+        }
+        long elapsed = System.nanoTime() - callNanos;
+        if(chunkResult.isSuccessful() && elapsed > 0 && chunk.getBytesDownloaded() > callBytes)
+        {
+            synchronized(this)
+            {
+                finishedChunkRates.add((chunk.getBytesDownloaded() - callBytes) * 1e9 / elapsed);
+            }
+        }
+        if(chunk.hasYielded())
+        {
+            synchronized(this)
+            {
+                // park the chunk until resume() so it isn't holding one of the shared workers while it waits
+                if(state == DownloadState.PAUSED)
+                {
+                    parkedChunks.put(chunk, result);
+                    return;
+                }
+                // we were resumed between the chunk yielding and getting here (or its mirror was dropped), so just put it
+                // back in the queue, a mirrored chunk picks its source again when it gets a worker
+                if(state == DownloadState.DOWNLOADING)
+                {
+                    scheduler.submitChunk(hostKey, () -> runChunk(chunk, result));
+                    return;
+                }
+            }
+        }
+        // steal before completing our own future, so the completion monitor always sees the new range's future
+        // before it could run out of futures to wait on
+        // pieces are hashed whole, so they are never split
+        if(chunkResult.isSuccessful() && writeMode == WriteMode.DIRECT && config.isWorkStealing() && pieceHashes == null) stealWork();
+        synchronized(this)
+        {
+            connectedChunks--;
+            dispatchChunks();
+        }
+        result.complete(chunkResult);
+    }
+
+    // points the chunk's requests, host metrics and host bandwidth limit at the mirror it was given
+    private void routeChunk(ChunkDownloader chunk, MirrorSet.Mirror source)
+    {
+        chunk.setSource(mirrors, source);
+        chunk.setMetrics(context.getMetrics(), source.getHostKey());
+        chunk.setBandwidthLimiters(bandwidthLimiter, context.getHostLimiter(source.getHostKey()), context.getGlobalLimiter());
+    }
+
+    // called when one of our chunks finishes, if nothing is waiting for a worker the worker that just freed up
+    // would sit idle, so split the range expected to finish last and queue its unread tail as a new chunk
+    private synchronized void stealWork()
+    {
+        if(state != DownloadState.DOWNLOADING || !pendingChunks.isEmpty() || scheduler.getQueuedChunkCount() > 0) return;
+
+        ChunkDownloader slowest = null;
+        double slowestSecondsLeft = 0;
+        for(ChunkDownloader chunk : chunks)
+        {
+            long remaining = chunk.getRemainingBytes();
+            if(remaining < 2 * config.getMinStealSize()) continue;
+            // a range that hasn't had a byte yet (still queued, or waiting on a host slot) isn't slow, just not started
+            double rate = chunk.getBytesPerSecond();
+            if(chunk.getFirstByteNanos() == 0 || rate <= 0) continue;
+            double secondsLeft = remaining / rate;
+            if(slowest == null || secondsLeft > slowestSecondsLeft)
+            {
+                slowest = chunk;
+                slowestSecondsLeft = secondsLeft;
+            }
+        }
+        if(slowest == null) return;
+
+        ChunkRange stolen = slowest.splitRemaining(config.getMinStealSize());
+        if(stolen == null) return;
+        int index = nextChunkIndex++;
+        chunkRanges.put(slowest.getChunkIndex(), new ChunkRange(slowest.getStartByte(), slowest.getEndByte()));
+        chunkRanges.put(index, stolen);
+        ChunkDownloader thief = createChunk(stolen.getStartByte(), stolen.getEndByte(), 0, index);
+        chunks.add(thief);
+        futureResults.add(submitChunk(thief));
+    }
+
+    // helper method to ensure start() is non-blocking
+    private void handleChunkCompletion()
+    {
+        try
+        {
+            // collect all the results, by index since work stealing can add futures while we wait
+            for(int i = 0; ; i++)
+            {
+                Future<ChunkResult> futureResult;
+                synchronized(this)
+                {
+                    if(i >= futureResults.size()) break;
+                    futureResult = futureResults.get(i);
+                }
+                try
+                {
+                    ChunkResult result = futureResult.get();
+
+                    // Check if cancelled during collection
+                    if(state == DownloadState.CANCELLED)
+                    {
+                        return;
+                    }
+
+                    // verify results were successful and handle failures
+                    if(!result.isSuccessful())
+                    {
+                        throw new IOException("Chunk " + result.getChunkIndex() + " failed: " 
+                        + result.getErrorMessage());
+                    }
+                    results.add(result);
+                    // everything before this chunk has been collected already, so it can go straight into the destination
+                    if(streamingAssembler != null) streamingAssembler.append(result);
+                }
+                catch(CancellationException e)
+                {
+                    // This will trigger when the future calls cancel, which is expected when we try to cancel a download
+                    // in this case we just want to return to hit the finally block
+                    return;
+                }
+                catch(InterruptedException e)
+                {
+                    // This triggers if the thread is interrupted, so we want to restore interrupt status and return to hit the finally block
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            // one final check for cancellation before assembling the final file:
+            if(state == DownloadState.CANCELLED)
+            {
+                return; // Exit to finally block
+            }
+            // a single stream of unknown size is as big as whatever it got before the response ended
+            if(totalSize < 0) totalSize = results.get(0).getBytesDownloaded();
+
+            // assemble the final file, every chunk future has completed at this point so no worker still has a temp file open
+            // (DIRECT chunks already wrote their bytes in place, so there is nothing to assemble)
+            if(writeMode == WriteMode.DIRECT)
+            {
+                // the chunk at the front hashed as it went, this reads back whatever it hadn't reached yet
+                if(fileHasher != null)
+                {
+                    if(resumedHashing != null) resumedHashing.get();
+                    fileHasher.complete(destinationChannel, totalSize);
+                }
+                destinationChannel.force(false);
+                closeDestinationChannel();
+                // ranges may have been split any number of times, make sure together they still cover the whole file
+                long writtenBytes = 0;
+                for(ChunkResult result : results)
+                {
+                    writtenBytes += result.getBytesDownloaded();
+                }
+                if(writtenBytes != totalSize)
+                {
+                    throw new IOException("Chunks wrote " + writtenBytes + " bytes, expected " + totalSize);
+                }
+                verifyFileDigest();
+            }
+            else if(writeMode == WriteMode.STREAMING)
+            {
+                // every chunk was appended as it came in, all that's left is to check nothing went missing
+                long assembledBytes = streamingAssembler.getAssembledBytes();
+                streamingAssembler.close();
+                if(assembledBytes != totalSize)
+                {
+                    throw new IOException("Assembled " + assembledBytes + " bytes, expected " + totalSize);
+                }
+                if(fileHasher != null) fileHasher.finish(totalSize);
+                verifyFileDigest();
+                cleanupTempFiles();
+            }
+            else
+            {
+                long assemblyStart = System.nanoTime();
+                FileAssembler.assembleChunks(results, destination, totalSize, fileHasher);
+                context.getMetrics().recordAssembly(System.nanoTime() - assemblyStart);
+                if(fileHasher != null) fileHasher.finish(totalSize);
+                verifyFileDigest();
+                cleanupTempFiles();
+            }
+            synchronized(this)
+            {
+                if(state != DownloadState.CANCELLED)
+                {
+                    state = DownloadState.COMPLETED;
+                }
+            }
+        }
+        catch(Exception e)
+        {
+            synchronized(this)
+            {
+                // we only want to set to failed if the download was not cancelled or stopped (stopping closes the assembler under us)
+                if(state != DownloadState.CANCELLED && state != DownloadState.STOPPED)
+                {
+                    state = DownloadState.FAILED;
+                    error = new DownloadException("Download Failed: " + e.getMessage(), e, id, url);
+                    // stop the remaining chunks so they don't keep using shared workers for a download that can't complete
+                    for(ChunkDownloader chunk : chunks)
+                    {
+                        chunk.cancel();
+                    }
+                }
+            }
+        }
+        finally
+        {
+            stopSampling();
+            if(ownsContext) context.shutdown();
+            if(state == DownloadState.FAILED)
+            {
+                closeDestinationChannel();
+                closeStreamingAssembler();
+            }
+            synchronized(this)
+            {
+                if(!completionLatchPulled)
+                {
+                    completionLatchPulled = true;
+                    completionLatch.countDown();
+                } 
+            } 
+            notifyFinished();
+        }
+    }
+
+    public synchronized void pause()
+    {
+        if(state == DownloadState.PENDING)
+        {
+            throw new IllegalStateException("Cannot pause: Download has not been started yet");
+        }
+        if(state != DownloadState.DOWNLOADING) throw new IllegalStateException("Cannot pause unless the download is in downloading state, current state: " + state);
+        state = DownloadState.PAUSED;
+
+        for(ChunkDownloader chunk : chunks)
+        {
+            chunk.pause();
+        }
+        resetMetrics();
+        pausedEvent = new DownloadPausedEvent();
+        pausedEvent.begin();
+    }
+
+    public synchronized void resume()
+    {
+        if(state == DownloadState.PENDING)
+        {
+            throw new IllegalStateException("Cannot resume: Download has not been started yet");
+        }
+        if(state != DownloadState.PAUSED) throw new IllegalStateException("Cannot resume when the download is not paused");
+        state = DownloadState.DOWNLOADING;
+        endPause("resume");
+
+        for(ChunkDownloader chunk : chunks)
+        {
+            chunk.resume();
+        }
+        // requeue the chunks that gave up their worker while we were paused
+        for(Map.Entry<ChunkDownloader, CompletableFuture<ChunkResult>> parked : parkedChunks.entrySet())
+        {
+            ChunkDownloader chunk = parked.getKey();
+            CompletableFuture<ChunkResult> result = parked.getValue();
+            scheduler.submitChunk(hostKey, () -> runChunk(chunk, result));
+        }
+        parkedChunks.clear();
+        if(connectionController != null) connectionController.resetWindow();
+        dispatchChunks();
+    }
+
+    public synchronized void cancel()
+    {
+        if(state == DownloadState.PENDING)
+        {
+            throw new IllegalStateException("Cannot cancel: Download has not been started yet");
+        }
+        // if the download is complete or already cancelled, there is nothing to do.
+        if(state == DownloadState.COMPLETED || state == DownloadState.CANCELLED) return;
+        state = DownloadState.CANCELLED;
+        endPause("cancel");
+
+        // cancel all chunks
+        for(ChunkDownloader chunk : chunks)
+        {
+            chunk.cancel();
+        }
+
+        // cancel any pending futures:
+        for(Future<ChunkResult> future : futureResults)
+        {
+            future.cancel(true);
+        }
+        parkedChunks.clear();
+        pendingChunks.clear();
+        stopSampling();
+        // wait for the chunks that were mid-read to actually exit
+        // (if we don't wait here, there's a chance a worker thread still has an open descriptor for its temp file,
+        // leading to a race condition that can result in a runtime exception when we try to delete it)
+        awaitChunkTermination();
+        cleanupTempFiles();
+        if(writeMode == WriteMode.DIRECT || writeMode == WriteMode.STREAMING)
+        {
+            // the destination only ever held a partial download, so it goes the same way as temp files would
+            closeDestinationChannel();
+            closeStreamingAssembler();
+            try
+            {
+                Files.deleteIfExists(Paths.get(destination));
+            }
+            catch(IOException e)
+            {
+                // Best effort
+            }
+        }
+    }
+    // cancel() for a download that never started, such as one taken out of the manager's queue or one that was
+    // turned down after it was built. a download restored from a snapshot loses its saved progress, as it would
+    // by being cancelled once running
+    public synchronized void discard()
+    {
+        if(state != DownloadState.PENDING) throw new IllegalStateException("Cannot discard: Expected Pending, Was: " + state);
+        state = DownloadState.CANCELLED;
+        closeProbeResponse();
+        cleanupTempFiles();
+        if(hasSavedProgress() && (writeMode == WriteMode.DIRECT || writeMode == WriteMode.STREAMING))
+        {
+            try
+            {
+                Files.deleteIfExists(Paths.get(destination));
+            }
+            catch(IOException e)
+            {
+                // Best effort
+            }
+        }
+        if(ownsContext) context.shutdownNow();
+        completionLatchPulled = true;
+        completionLatch.countDown();
+    }
+
+    // stops a download without deleting its temp files so we can pick it up later
+    public synchronized void stop()
+    {
+        if(state == DownloadState.PENDING)
+        {
+            throw new IllegalStateException("Cannot stop: Download has not been started yet");
+        }
+        // if the download is complete, already cancelled, or stopped there is nothing to do.
+        if(state == DownloadState.COMPLETED || state == DownloadState.CANCELLED || state == DownloadState.STOPPED) return;
+        state = DownloadState.STOPPED;
+        endPause("stop");
+
+        // cancel all chunks
+        for(ChunkDownloader chunk : chunks)
+        {
+            chunk.cancel();
+        }
+
+        // cancel any pending futures:
+        for(Future<ChunkResult> future : futureResults)
+        {
+            future.cancel(true);
+        }
+        parkedChunks.clear();
+        pendingChunks.clear();
+        stopSampling();
+        // wait for the chunks that were mid-read to actually exit so all file descriptors are closed
+        awaitChunkTermination();
+        // a DIRECT download's partial data stays in the destination for startExisting to pick up, as do the chunks
+        // a STREAMING download has already appended (closing waits for an append in progress so the count is final)
+        closeDestinationChannel();
+        closeStreamingAssembler();
+    }
+
+    // the scheduler is shared with other downloads so we can't shut it down, instead we wait for each of our
+    // own chunks to leave call() (they notice the cancellation on their next buffer read)
+    private void awaitChunkTermination()
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        try
+        {
+            for(ChunkDownloader chunk : chunks)
+            {
+                if(!chunk.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+                {
+                    System.err.println("Chunks did not terminate in time for download " + id);
+                    break;
+                }
+            }
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        if(ownsContext) context.shutdownNow();
+        else scheduler.purge();
+    }
+
+    public void awaitCompletion() throws InterruptedException, DownloadException
+    {
+        completionLatch.await();
+        if(state == DownloadState.FAILED && error != null)
+        {
+            throw new DownloadException("Download failed", error, id, url);
+        }
+    }
+
+    private void cleanupTempFiles()
+    {
+        try
+        {
+            Path tempDir = Paths.get(tempDirectory);
+            if(Files.exists(tempDir))
+            {
+                Files.walk(tempDir)
+                    .filter(Files::isRegularFile)
+                    .forEach(path -> 
+                    {
+                        try
+                        {
+                            Files.deleteIfExists(path);
+                        }
+                        catch(IOException e)
+                        {
+                            // Best effort
+                        }
+                    });
+                
+                // Delete the directory itself
+                Files.deleteIfExists(tempDir);
+            }
+        }
+        catch(IOException e)
+        {
+            // System.err.println("Failed to clean up temp directory: " + tempDirectory);
+        }
+    }
+
+    public synchronized DownloadSnapshot createSnapshot()
+    {
+        Map<Integer, Long> progress = new HashMap<>();
+        // include saved progress from previously completed chunks
+        if(savedChunkProgress != null)
+        {
+            progress.putAll(savedChunkProgress);
+        }
+        // a download still waiting to start saves every chunk at 0, so it comes back resumable
+        else if(chunks.isEmpty())
+        {
+            for(int i = 0; i < numChunks; i++)
+            {
+                progress.put(i, 0L);
+            }
+        }
+        // update progress with current progress from active chunks
+        for(ChunkDownloader chunk : chunks)
+        {
+            progress.put(chunk.getChunkIndex(), chunk.getBytesDownloaded());
+        }
+        
+        DownloadSnapshot snapshot = new DownloadSnapshot(
+            id,
+            url,
+            destination,
+            totalSize,
+            progress,
+            state.toString()
+        );
+        snapshot.setWriteMode(writeMode.name());
+        if(expectedDigest != null) snapshot.setExpectedDigest(expectedDigest.toString());
+        if(mirrors != null) snapshot.setMirrors(mirrors.getUrls());
+        if(pieceHashes != null)
+        {
+            snapshot.setChunkSize(chunkSize);
+            List<String> pieces = new ArrayList<>();
+            for(ContentDigest pieceHash : pieceHashes)
+            {
+                pieces.add(pieceHash.toString());
+            }
+            snapshot.setPieceHashes(pieces);
+        }
+        if(writeMode == WriteMode.DIRECT)
+        {
+            Map<Integer, ChunkRange> ranges = new HashMap<>(savedChunkRanges != null ? savedChunkRanges : Map.of());
+            ranges.putAll(chunkRanges);
+            for(ChunkDownloader chunk : chunks)
+            {
+                ranges.put(chunk.getChunkIndex(), new ChunkRange(chunk.getStartByte(), chunk.getEndByte()));
+            }
+            snapshot.setChunkRanges(ranges);
+        }
+        snapshot.setAssembledChunks(streamingAssembler != null ? streamingAssembler.getAssembledChunks() : savedAssembledChunks);
+        return snapshot;
+    }
+
+    // makes the bytes counted by an earlier createSnapshot() durable, the journal calls this before logging them.
+    // TEMP_FILES chunks own their streams, their progress is checked against the temp file sizes on resume instead
+    public void flushToDisk() throws IOException
+    {
+        FileChannel channel;
+        StreamingAssembler assembler;
+        synchronized(this)
+        {
+            channel = destinationChannel;
+            assembler = streamingAssembler;
+        }
+        try
+        {
+            if(channel != null && channel.isOpen()) channel.force(false);
+            if(assembler != null) assembler.force();
+        }
+        catch(ClosedChannelException e)
+        {
+            // finished or stopped in the meantime, both force the destination before closing it
+        }
+    }
+
+    public void setListener(DownloadListener listener)
+    {
+        this.listener = listener;
+    }
+
+    // true for a download rebuilt from a snapshot, which has to be started with startExisting() rather than start()
+    public boolean hasSavedProgress()
+    {
+        return savedChunkProgress != null;
+    }
+
+    // only before the download starts, a caller-supplied digest replaces whatever the server advertised
+    public synchronized void setExpectedDigest(ContentDigest expectedDigest)
+    {
+        if(state != DownloadState.PENDING) throw new IllegalStateException("Expected digest can only be set before the download starts");
+        this.expectedDigest = expectedDigest;
+    }
+
+    public ContentDigest getExpectedDigest()
+    {
+        return expectedDigest;
+    }
+
+    // only before the download starts, chunks then follow the pieces instead of config.getChunkSize() and each one
+    // is checked against its hash once it is all on disk, a piece that fails is downloaded again from scratch.
+    // the hashes have to cover the whole file, pieceLength bytes each with the last one taking what is left
+    public synchronized void setPieceHashes(long pieceLength, List<ContentDigest> pieceHashes)
+    {
+        if(state != DownloadState.PENDING || savedChunkProgress != null)
+        {
+            throw new IllegalStateException("Piece hashes can only be set before a new download starts");
+        }
+        if(pieceLength <= 0) throw new IllegalArgumentException("Piece length must be positive");
+        if(pieceHashes == null) throw new IllegalArgumentException("Piece hashes cannot be null");
+        if(singleStream) throw new IllegalStateException("Pieces need range requests, " + url + " is downloaded as a single stream");
+        for(ContentDigest pieceHash : pieceHashes)
+        {
+            if(pieceHash == null) throw new IllegalArgumentException("Piece hashes cannot be null");
+        }
+        long pieces = (totalSize + pieceLength - 1) / pieceLength;
+        if(pieceHashes.size() != pieces)
+        {
+            throw new IllegalArgumentException(pieceHashes.size() + " pieces of " + pieceLength + " bytes don't cover the "
+                + totalSize + " bytes of " + url);
+        }
+        this.chunkSize = pieceLength;
+        this.numChunks = (int) pieces;
+        this.pieceHashes = new ArrayList<>(pieceHashes);
+    }
+
+    // the hashes the download's chunks are checked against, empty unless setPieceHashes() was called
+    public List<ContentDigest> getPieceHashes()
+    {
+        return pieceHashes == null ? List.of() : Collections.unmodifiableList(pieceHashes);
+    }
+
+    // hex SHA-256 of the finished file, null until it completes or if it wasn't hashed with SHA-256
+    public String getSha256()
+    {
+        return sha256;
+    }
+
+    // 0 while the size isn't known
+    public double getProgress()
+    {
+        if(totalSize <= 0) return 0.0;
+        return progressTracker.getProgressPercentage(totalSize);
+    }
+
+    public DownloadState getState()
+    {
+        return state;
+    }
+
+    public Exception getError()
+    {
+        return this.error;
+    }
+    public String getId()
+    {
+        return this.id;
+    }
+    // -1 until a download of unknown size completes
+    public long getTotalSize()
+    {
+        return this.totalSize;
+    }
+    public String getDestination()
+    {
+        return this.destination;
+    }
+    public String getUrl()
+    {
+        return url;
+    }
+
+    // every mirror the download was given that agreed with the first url, dropped ones included, empty for a
+    // download with a single source
+    public List<MirrorSet.Mirror> getMirrors()
+    {
+        return mirrors == null ? List.of() : mirrors.getMirrors();
+    }
+
+    public WriteMode getWriteMode()
+    {
+        return writeMode;
+    }
+
+    // bytes per second, 0 for unlimited, running chunks pick up the new limit on their next read
+    public void setBandwidthLimit(long bytesPerSecond)
+    {
+        bandwidthLimiter.setRate(bytesPerSecond);
+    }
+
+    public long getBandwidthLimit()
+    {
+        return bandwidthLimiter.getRate();
+    }
+
+    // how many connections this download may currently use, -1 if it isn't adaptive
+    public int getConnectionLimit()
+    {
+        return connectionController == null ? -1 : connectionController.getLimit();
+    }
+
+    // smoothed over the last few seconds, 0 unless the download is running
+    public double getBytesPerSecond()
+    {
+        return state == DownloadState.DOWNLOADING ? throughput.getBytesPerSecond() : 0;
+    }
+
+    // smoothed rate of each chunk still downloading, by chunk index
+    public synchronized Map<Integer, Double> getChunkBytesPerSecond()
+    {
+        Map<Integer, Double> rates = new LinkedHashMap<>();
+        if(state != DownloadState.DOWNLOADING) return rates;
+        for(ChunkDownloader chunk : chunks)
+        {
+            if(chunk.getRemainingBytes() > 0) rates.put(chunk.getChunkIndex(), chunk.getSmoothedBytesPerSecond());
+        }
+        return rates;
+    }
+
+    // time left at the current rate, zero once complete, null while there is no rate to go on
+    public Duration getEta()
+    {
+        if(state == DownloadState.COMPLETED) return Duration.ZERO;
+        if(state != DownloadState.DOWNLOADING || totalSize < 0) return null;
+        long nanos = throughput.estimateNanos(getRemainingBytes());
+        return nanos < 0 ? null : Duration.ofNanos(nanos);
+    }
+
+    // from start() (or startExisting()) to the first response from any chunk, null until one has come back
+    public synchronized Duration getTimeToFirstByte()
+    {
+        Duration first = null;
+        for(ChunkDownloader chunk : chunks)
+        {
+            long chunkFirst = chunk.getFirstByteNanos();
+            if(chunkFirst == 0) continue;
+            Duration elapsed = Duration.ofNanos(chunkFirst - startNanos);
+            if(first == null || elapsed.compareTo(first) < 0) first = elapsed;
+        }
+        return first;
+    }
+
+    // chunks handed to the scheduler and not parked by a pause, whether they have a worker yet or not
+    public synchronized int getActiveConnections()
+    {
+        // chunks parked when the download ended are never given their slot back
+        if(state != DownloadState.DOWNLOADING && state != DownloadState.PAUSED) return 0;
+        return connectedChunks - parkedChunks.size();
+    }
+
+    // chunks held back by the connection controller until it allows another connection
+    public synchronized int getQueuedChunkCount()
+    {
+        return pendingChunks.size();
+    }
+
+    // second requests sent for lagging chunks since the download was started, whether they won or not
+    public synchronized int getHedgedRequestCount()
+    {
+        return hedgedRequests;
+    }
+
+    // attempts retried across every chunk since the download was started
+    public synchronized int getRetryCount()
+    {
+        int retries = 0;
+        for(ChunkDownloader chunk : chunks)
+        {
+            retries += chunk.getRetryCount();
+        }
+        return retries;
+    }
+
+    public long getDownloadedBytes()
+    {
+        if(totalSize < 0) return progressTracker.getTotalProgress();
+        return (long) (totalSize * (getProgress() / 100.0));
+    }
+
+    // -1 while the size isn't known
+    public long getRemainingBytes()
+    {
+        if(totalSize < 0) return -1;
+        return totalSize - getDownloadedBytes();
+    }
+
+    public String getFileName()
+    {
+        return Paths.get(destination).getFileName().toString();
+    }
+}
@@ -0,0 +1,91 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Monitoring.DownloadMetrics;
+
+/**
+ * The resources a DownloadManager shares between all of its downloads: the chunk scheduler that bounds how
+ * many chunks run at once, the HTTP transport whose connections they reuse, the manager-wide and per-host
+ * bandwidth limiters and the metrics every chunk reports into.
+ */
+public class DownloadContext
+{
+    private final ChunkScheduler scheduler;
+    private final HttpTransport transport;
+    private final BandwidthLimiter globalLimiter;
+    private final Map<String, BandwidthLimiter> hostLimiters = new ConcurrentHashMap<>();
+    // rate for hosts without a limit of their own, applied when their limiter is first created
+    private volatile long defaultHostRate;
+    private final DownloadMetrics metrics = new DownloadMetrics();
+
+    public DownloadContext(DownloadConfig config)
+    {
+        this(new ChunkScheduler(config), HttpTransport.create(config));
+        globalLimiter.setRate(config.getMaxBytesPerSecond());
+        this.defaultHostRate = config.getMaxBytesPerSecondPerHost();
+    }
+
+    // no bandwidth limits until they're set
+    public DownloadContext(ChunkScheduler scheduler, HttpTransport transport)
+    {
+        if(scheduler == null) throw new IllegalArgumentException("Scheduler cannot be null");
+        if(transport == null) throw new IllegalArgumentException("Transport cannot be null");
+        this.scheduler = scheduler;
+        this.transport = transport;
+        this.globalLimiter = new BandwidthLimiter(0);
+        this.defaultHostRate = 0;
+    }
+
+    public ChunkScheduler getScheduler()
+    {
+        return scheduler;
+    }
+
+    public HttpTransport getTransport()
+    {
+        return transport;
+    }
+
+    public DownloadMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    public BandwidthLimiter getGlobalLimiter()
+    {
+        return globalLimiter;
+    }
+
+    // host is a ChunkScheduler.hostKey, null (an unparseable URL) gets no host limit
+    public BandwidthLimiter getHostLimiter(String host)
+    {
+        if(host == null) return null;
+        return hostLimiters.computeIfAbsent(host, (k) -> new BandwidthLimiter(defaultHostRate));
+    }
+
+    public void setHostBandwidthLimit(String host, long bytesPerSecond)
+    {
+        if(host == null || host.trim().isEmpty()) throw new IllegalArgumentException("Host cannot be null or empty");
+        // validate before creating the limiter so a bad rate doesn't leave one behind
+        if(bytesPerSecond < 0) throw new IllegalArgumentException("Bandwidth limit cannot be negative");
+        getHostLimiter(host).setRate(bytesPerSecond);
+    }
+
+    // for a download that is done with its chunks: the scheduler stops taking new work and lets anything already
+    // queued run out, and the transport lets go of its connections (a cancelled chunk still reading just fails)
+    public void shutdown()
+    {
+        scheduler.shutdown();
+        transport.close();
+    }
+
+    // interrupts running chunks and closes every pooled connection
+    public void shutdownNow()
+    {
+        scheduler.shutdownNow();
+        transport.close();
+    }
+}
@@ -0,0 +1,544 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import io.rileyhe1.concurrency.Data.ChunkRange;
+import io.rileyhe1.concurrency.Data.DownloadSnapshot;
+import io.rileyhe1.concurrency.Data.SavedDownload;
+
+/**
+ * Append-only binary log of every download a manager is keeping, so a crash loses at most the progress made
+ * since the last sync() instead of everything since the manager started.
+ *
+ * record() compares a download's snapshot with the last one it logged and appends only the difference: the
+ * chunks whose progress or range moved (as deltas) and the state if it changed. Records are buffered in memory
+ * until sync() writes and fsyncs them. Once the log has grown by COMPACT_GROWTH_BYTES since the last
+ * checkpoint, sync() rewrites it as one full snapshot per download and swaps it in atomically.
+ *
+ * Every record is framed as [length][payload][crc32 of payload]. Opening the journal replays it front to back
+ * and stops at the first torn or corrupt record (what a crash mid-write leaves behind), cutting the file there.
+ */
+public class DownloadJournal implements AutoCloseable
+{
+    static final int MAGIC = 0x444D4A31;
+    static final int VERSION = 1;
+    // log growth since the last checkpoint that triggers compaction
+    static final long COMPACT_GROWTH_BYTES = 1024 * 1024;
+
+    private static final byte PUT = 1;
+    private static final byte UPDATE = 2;
+    private static final byte REMOVE = 3;
+    private static final int HEADER_SIZE = 8;
+
+    private final Path path;
+    private FileChannel channel;
+    // latest state of every download in the log, in the order they were first logged
+    private final Map<String, DownloadSnapshot> snapshots = new LinkedHashMap<>();
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private long checkpointSize;
+    private boolean closed = false;
+
+    public DownloadJournal(Path path) throws IOException
+    {
+        if(path == null) throw new IllegalArgumentException("Journal path cannot be null");
+        this.path = path;
+        if(path.getParent() != null) Files.createDirectories(path.getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            long validLength = replay();
+            // drop a torn record at the end so new records don't follow garbage
+            channel.truncate(validLength);
+            channel.position(validLength);
+            checkpointSize = validLength;
+        }
+        catch(IOException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // copies of the recovered state of every download still in the journal
+    public synchronized List<DownloadSnapshot> getSnapshots()
+    {
+        List<DownloadSnapshot> copies = new ArrayList<>();
+        for(DownloadSnapshot snapshot : snapshots.values())
+        {
+            copies.add(copy(snapshot));
+        }
+        return copies;
+    }
+
+    // a copy of one download's recovered state, null if the journal doesn't have it
+    public synchronized DownloadSnapshot getSnapshot(String id)
+    {
+        DownloadSnapshot snapshot = snapshots.get(id);
+        return snapshot == null ? null : copy(snapshot);
+    }
+
+    public synchronized boolean contains(String id)
+    {
+        return snapshots.containsKey(id);
+    }
+
+    // where every download in the journal is saved to, in the order they were first logged. unlike getSnapshots()
+    // nothing is copied but the map itself, so listing a large backlog doesn't copy every chunk's progress
+    public synchronized Map<String, String> getDestinations()
+    {
+        Map<String, String> destinations = new LinkedHashMap<>();
+        for(DownloadSnapshot snapshot : snapshots.values())
+        {
+            destinations.put(snapshot.getId(), snapshot.getDestination());
+        }
+        return destinations;
+    }
+
+    // the id, urls, state and sizes of one download for listing it, null if the journal doesn't have it
+    public synchronized SavedDownload getSavedDownload(String id)
+    {
+        DownloadSnapshot snapshot = snapshots.get(id);
+        if(snapshot == null) return null;
+        return new SavedDownload(snapshot.getId(), snapshot.getUrl(), snapshot.getDestination(), snapshot.getState(),
+            snapshot.getTotalSize(), snapshot.getDownloadedBytes());
+    }
+
+    // the state a download was last logged in, null if the journal doesn't have it
+    public synchronized String getState(String id)
+    {
+        DownloadSnapshot snapshot = snapshots.get(id);
+        return snapshot == null ? null : snapshot.getState();
+    }
+
+    // logs whatever changed since this download was last recorded, nothing if it didn't change
+    public synchronized void record(DownloadSnapshot snapshot) throws IOException
+    {
+        if(snapshot == null || snapshot.getId() == null) throw new IllegalArgumentException("Snapshot must have an id");
+        DownloadSnapshot previous = snapshots.get(snapshot.getId());
+        if(previous == null)
+        {
+            DownloadSnapshot copy = copy(snapshot);
+            snapshots.put(copy.getId(), copy);
+            append(encodePut(copy));
+            return;
+        }
+
+        byte[] update = encodeUpdate(previous, snapshot);
+        if(update != null)
+        {
+            append(update);
+            // apply the record we just wrote, so the state we compact from is exactly what a replay would rebuild
+            applyUpdate(new DataInputStream(new ByteArrayInputStream(update, 1, update.length - 1)));
+        }
+    }
+
+    // forgets a download that completed, failed or was cancelled
+    public synchronized void remove(String id) throws IOException
+    {
+        if(snapshots.remove(id) == null) return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(REMOVE);
+        writeString(out, id);
+        append(bytes.toByteArray());
+    }
+
+    // writes buffered records and waits for them to reach the disk
+    public synchronized void sync() throws IOException
+    {
+        ensureOpen();
+        if(pending.size() > 0)
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(pending.toByteArray());
+            while(buffer.hasRemaining()) channel.write(buffer);
+            pending.reset();
+            channel.force(false);
+        }
+        if(channel.size() - checkpointSize >= COMPACT_GROWTH_BYTES) compact();
+    }
+
+    // rewrites the journal as one full record per download, replacing the old file atomically
+    public synchronized void compact() throws IOException
+    {
+        ensureOpen();
+        pending.reset();
+        Path checkpoint = path.resolveSibling(path.getFileName() + ".tmp");
+        try(FileChannel out = FileChannel.open(checkpoint, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                               StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            while(header.hasRemaining()) out.write(header);
+            for(DownloadSnapshot snapshot : snapshots.values())
+            {
+                ByteBuffer record = ByteBuffer.wrap(frame(encodePut(snapshot)));
+                while(record.hasRemaining()) out.write(record);
+            }
+            out.force(false);
+        }
+        // readers see either the old log or the whole checkpoint, never a mix
+        Files.move(checkpoint, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the rename lives in the directory, without this a power cut can bring the old log back
+        syncDirectory();
+        channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        checkpointSize = channel.size();
+    }
+
+    // unsynced records are lost, callers sync() first if they need them
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if(closed) return;
+        closed = true;
+        channel.close();
+    }
+
+    public Path getPath()
+    {
+        return path;
+    }
+
+    private void syncDirectory() throws IOException
+    {
+        Path directory = path.toAbsolutePath().getParent();
+        FileChannel dir;
+        try
+        {
+            dir = FileChannel.open(directory, StandardOpenOption.READ);
+        }
+        catch(IOException e)
+        {
+            // Windows can't open a directory as a channel, Java has no other way to flush one there
+            return;
+        }
+        try(dir)
+        {
+            dir.force(true);
+        }
+    }
+
+    private void ensureOpen() throws IOException
+    {
+        if(closed) throw new IOException("Journal has been closed");
+    }
+
+    private void append(byte[] payload) throws IOException
+    {
+        ensureOpen();
+        pending.write(frame(payload));
+    }
+
+    private static byte[] frame(byte[] payload)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(payload.length + 8)
+            .putInt(payload.length)
+            .put(payload)
+            .putInt((int) crc.getValue())
+            .array();
+    }
+
+    // reads every intact record, returns the length of the valid prefix of the file
+    private long replay() throws IOException
+    {
+        long size = channel.size();
+        if(size < HEADER_SIZE)
+        {
+            // new (or torn before the header was written), start over with a fresh header
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            while(header.hasRemaining()) channel.write(header, header.position());
+            channel.force(false);
+            return HEADER_SIZE;
+        }
+
+        ByteBuffer data = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+        while(data.hasRemaining())
+        {
+            if(channel.read(data, data.position()) < 0) break;
+        }
+        data.flip();
+        if(data.getInt() != MAGIC) throw new IOException("Not a download journal: " + path);
+        int version = data.getInt();
+        if(version != VERSION) throw new IOException("Unsupported journal version " + version + " in " + path);
+
+        long valid = HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while(data.remaining() >= 4)
+        {
+            int length = data.getInt();
+            if(length <= 0 || length > data.remaining() - 4) break;
+            byte[] payload = new byte[length];
+            data.get(payload);
+            crc.reset();
+            crc.update(payload);
+            if(data.getInt() != (int) crc.getValue()) break;
+            try
+            {
+                apply(payload);
+            }
+            catch(IOException | RuntimeException e)
+            {
+                // a record that passed its checksum but can't be decoded, treat it like a torn one
+                break;
+            }
+            valid = data.position();
+        }
+        return valid;
+    }
+
+    private void apply(byte[] payload) throws IOException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 1, payload.length - 1));
+        switch(payload[0])
+        {
+            case PUT ->
+            {
+                DownloadSnapshot snapshot = decodePut(in);
+                snapshots.put(snapshot.getId(), snapshot);
+            }
+            case UPDATE -> applyUpdate(in);
+            case REMOVE -> snapshots.remove(readString(in));
+            default -> throw new IOException("Unknown record type " + payload[0]);
+        }
+    }
+
+    private static byte[] encodePut(DownloadSnapshot snapshot) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(PUT);
+        writeString(out, snapshot.getId());
+        writeString(out, snapshot.getUrl());
+        writeString(out, snapshot.getDestination());
+        out.writeLong(snapshot.getTotalSize());
+        writeString(out, snapshot.getState());
+        writeString(out, snapshot.getWriteMode());
+        out.writeInt(snapshot.getAssembledChunks());
+
+        Map<Integer, Long> progress = snapshot.getChunkProgress() != null ? snapshot.getChunkProgress() : Map.of();
+        out.writeInt(progress.size());
+        for(Map.Entry<Integer, Long> entry : progress.entrySet())
+        {
+            out.writeInt(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        Map<Integer, ChunkRange> ranges = snapshot.getChunkRanges();
+        out.writeInt(ranges == null ? -1 : ranges.size());
+        if(ranges != null)
+        {
+            for(Map.Entry<Integer, ChunkRange> entry : ranges.entrySet())
+            {
+                out.writeInt(entry.getKey());
+                out.writeLong(entry.getValue().getStartByte());
+                out.writeLong(entry.getValue().getEndByte());
+            }
+        }
+        writeString(out, snapshot.getExpectedDigest());
+        List<String> mirrors = snapshot.getMirrors() != null ? snapshot.getMirrors() : List.of();
+        out.writeInt(mirrors.size());
+        for(String mirror : mirrors)
+        {
+            writeString(out, mirror);
+        }
+        out.writeLong(snapshot.getChunkSize());
+        List<String> pieceHashes = snapshot.getPieceHashes();
+        out.writeInt(pieceHashes == null ? -1 : pieceHashes.size());
+        if(pieceHashes != null)
+        {
+            for(String pieceHash : pieceHashes)
+            {
+                writeString(out, pieceHash);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static DownloadSnapshot decodePut(DataInputStream in) throws IOException
+    {
+        DownloadSnapshot snapshot = new DownloadSnapshot();
+        snapshot.setId(readString(in));
+        snapshot.setUrl(readString(in));
+        snapshot.setDestination(readString(in));
+        snapshot.setTotalSize(in.readLong());
+        snapshot.setState(readString(in));
+        snapshot.setWriteMode(readString(in));
+        snapshot.setAssembledChunks(in.readInt());
+
+        int progressCount = in.readInt();
+        Map<Integer, Long> progress = new HashMap<>();
+        for(int i = 0; i < progressCount; i++)
+        {
+            progress.put(in.readInt(), in.readLong());
+        }
+        snapshot.setChunkProgress(progress);
+        int rangeCount = in.readInt();
+        if(rangeCount >= 0)
+        {
+            Map<Integer, ChunkRange> ranges = new HashMap<>();
+            for(int i = 0; i < rangeCount; i++)
+            {
+                ranges.put(in.readInt(), new ChunkRange(in.readLong(), in.readLong()));
+            }
+            snapshot.setChunkRanges(ranges);
+        }
+        snapshot.setExpectedDigest(readString(in));
+        int mirrorCount = in.readInt();
+        if(mirrorCount > 0)
+        {
+            List<String> mirrors = new ArrayList<>();
+            for(int i = 0; i < mirrorCount; i++)
+            {
+                mirrors.add(readString(in));
+            }
+            snapshot.setMirrors(mirrors);
+        }
+        snapshot.setChunkSize(in.readLong());
+        int pieceCount = in.readInt();
+        if(pieceCount >= 0)
+        {
+            List<String> pieceHashes = new ArrayList<>();
+            for(int i = 0; i < pieceCount; i++)
+            {
+                pieceHashes.add(readString(in));
+            }
+            snapshot.setPieceHashes(pieceHashes);
+        }
+        // every field is always written, a record that ends early or runs on was cut or corrupted
+        if(in.available() > 0) throw new IOException("PUT record for " + snapshot.getId() + " has trailing bytes");
+        return snapshot;
+    }
+
+    // UPDATE: id, state (null if unchanged), assembled chunks, then one entry per chunk that moved:
+    // index, progress delta, start and end (-1, -1 when the download doesn't track ranges)
+    private static byte[] encodeUpdate(DownloadSnapshot previous, DownloadSnapshot current) throws IOException
+    {
+        Map<Integer, Long> oldProgress = previous.getChunkProgress();
+        Map<Integer, Long> newProgress = current.getChunkProgress() != null ? current.getChunkProgress() : Map.of();
+        Map<Integer, ChunkRange> oldRanges = previous.getChunkRanges();
+        Map<Integer, ChunkRange> newRanges = current.getChunkRanges();
+
+        ByteArrayOutputStream entries = new ByteArrayOutputStream();
+        DataOutputStream entryOut = new DataOutputStream(entries);
+        int entryCount = 0;
+        for(Map.Entry<Integer, Long> entry : newProgress.entrySet())
+        {
+            int index = entry.getKey();
+            long delta = entry.getValue() - oldProgress.getOrDefault(index, 0L);
+            ChunkRange range = newRanges != null ? newRanges.get(index) : null;
+            ChunkRange oldRange = oldRanges != null ? oldRanges.get(index) : null;
+            boolean rangeMoved = range != null && (oldRange == null || oldRange.getStartByte() != range.getStartByte()
+                                                   || oldRange.getEndByte() != range.getEndByte());
+            if(delta == 0 && !rangeMoved) continue;
+            entryOut.writeInt(index);
+            entryOut.writeLong(delta);
+            entryOut.writeLong(range != null ? range.getStartByte() : -1);
+            entryOut.writeLong(range != null ? range.getEndByte() : -1);
+            entryCount++;
+        }
+        boolean stateChanged = !Objects.equals(previous.getState(), current.getState());
+        boolean assembledChanged = previous.getAssembledChunks() != current.getAssembledChunks();
+        if(entryCount == 0 && !stateChanged && !assembledChanged) return null;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(UPDATE);
+        writeString(out, current.getId());
+        writeString(out, stateChanged ? current.getState() : null);
+        out.writeInt(current.getAssembledChunks());
+        out.writeInt(entryCount);
+        entries.writeTo(out);
+        return bytes.toByteArray();
+    }
+
+    private void applyUpdate(DataInputStream in) throws IOException
+    {
+        String id = readString(in);
+        DownloadSnapshot snapshot = snapshots.get(id);
+        if(snapshot == null) throw new IOException("Update for unknown download " + id);
+        String state = readString(in);
+        if(state != null) snapshot.setState(state);
+        snapshot.setAssembledChunks(in.readInt());
+        int entryCount = in.readInt();
+        for(int i = 0; i < entryCount; i++)
+        {
+            int index = in.readInt();
+            long delta = in.readLong();
+            long start = in.readLong();
+            long end = in.readLong();
+            snapshot.getChunkProgress().merge(index, delta, Long::sum);
+            if(start >= 0)
+            {
+                if(snapshot.getChunkRanges() == null) snapshot.setChunkRanges(new HashMap<>());
+                snapshot.getChunkRanges().put(index, new ChunkRange(start, end));
+            }
+        }
+    }
+
+    // -1 length for null
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        if(value == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if(length < 0) return null;
+        if(length > in.available()) throw new EOFException("String runs past the end of its record");
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static DownloadSnapshot copy(DownloadSnapshot snapshot)
+    {
+        DownloadSnapshot copy = new DownloadSnapshot(snapshot.getId(), snapshot.getUrl(), snapshot.getDestination(),
+            snapshot.getTotalSize(), new HashMap<>(snapshot.getChunkProgress() != null ? snapshot.getChunkProgress() : Map.of()),
+            snapshot.getState());
+        copy.setWriteMode(snapshot.getWriteMode());
+        copy.setAssembledChunks(snapshot.getAssembledChunks());
+        copy.setExpectedDigest(snapshot.getExpectedDigest());
+        if(snapshot.getMirrors() != null) copy.setMirrors(new ArrayList<>(snapshot.getMirrors()));
+        copy.setChunkSize(snapshot.getChunkSize());
+        if(snapshot.getPieceHashes() != null) copy.setPieceHashes(new ArrayList<>(snapshot.getPieceHashes()));
+        if(snapshot.getChunkRanges() != null)
+        {
+            Map<Integer, ChunkRange> ranges = new HashMap<>();
+            for(Map.Entry<Integer, ChunkRange> entry : snapshot.getChunkRanges().entrySet())
+            {
+                ranges.put(entry.getKey(), new ChunkRange(entry.getValue().getStartByte(), entry.getValue().getEndByte()));
+            }
+            copy.setChunkRanges(ranges);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,11 @@
+package io.rileyhe1.concurrency.Util;
+
+/**
+ * Told when a Download stops running for good: completed, failed, cancelled or stopped.
+ * Called once per start, on the thread that finished the download (a monitor thread, or the caller of
+ * start() if it failed before queueing any chunks), so implementations must be quick and thread safe.
+ */
+public interface DownloadListener
+{
+    void onFinished(Download download);
+}
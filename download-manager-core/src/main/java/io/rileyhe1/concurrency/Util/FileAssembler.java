@@ -0,0 +1,183 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.rileyhe1.concurrency.Data.ChunkResult;
+import io.rileyhe1.concurrency.Monitoring.AssemblyEvent;
+
+// @SuppressWarnings("unused")
+public class FileAssembler
+{
+    // copy buffer when the chunks are hashed on their way into the destination
+    private static final int HASHING_BUFFER_SIZE = 256 * 1024;
+
+    public static void assembleChunks(List<ChunkResult> results, String destination) throws IOException
+    {
+        assembleChunks(results, destination, -1);
+    }
+
+    // expectedTotalSize is the size the destination must end up with, -1 skips that check
+    public static void assembleChunks(List<ChunkResult> results, String destination, long expectedTotalSize) throws IOException
+    {
+        assembleChunks(results, destination, expectedTotalSize, null);
+    }
+
+    // hasher, if not null, is fed the chunks in order as they are copied, so the file never has to be read back
+    public static void assembleChunks(List<ChunkResult> results, String destination, long expectedTotalSize,
+                                      FileHasher hasher) throws IOException
+    {
+        // validate all chunks were successful and that we have all chunks compiled
+        validateChunks(results);
+        // sort by chunk index for easier assembly
+        results = sortChunks(results);
+        // generate list of each chunk's associated tempFile location
+        List<String> tempFiles = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++)
+        {
+            tempFiles.add(i, results.get(i).getTempFilePath());
+        }
+        // check sizes before the destination is opened so a bad chunk can't truncate a file that's already there
+        long totalBytes = validateSizes(results, expectedTotalSize);
+        // merge chunks to destination file
+        AssemblyEvent event = new AssemblyEvent();
+        event.begin();
+        mergeFiles(tempFiles, destination, hasher);
+        if(event.shouldCommit())
+        {
+            event.destination = destination;
+            event.chunks = results.size();
+            event.bytes = totalBytes;
+            event.hashed = hasher != null;
+            event.commit();
+        }
+        // clean up and delete chunk temp directories now handled in download
+        // cleanupTempFiles(tempFiles);
+    }
+
+    private static void validateChunks(List<ChunkResult> results) throws IOException
+    {
+        if (results == null || results.isEmpty()) throw new IOException("Results list is null/contains no chunks");
+        int largestIndex = 0;
+        Set<Integer> seenIndices = new HashSet<>();
+        for(ChunkResult result : results)
+        {
+            largestIndex = largestIndex > result.getChunkIndex() ? largestIndex : result.getChunkIndex();
+            seenIndices.add(result.getChunkIndex());
+        }
+        for (int i = 0; i <= largestIndex; i++)
+        {
+            if (!seenIndices.contains(i))
+            {
+                throw new IOException("Cannot assemble chunks, chunk " + i + " is missing");
+            }
+            ChunkResult current = results.get(i);
+            if (!current.isSuccessful())
+                throw new IOException("Not all chunks succeeded: Chunk " + current.getChunkIndex() + " failed.");
+        }
+    }
+
+    // a temp file that doesn't hold exactly the bytes its chunk reported would silently shift every byte after it
+    // returns the chunks' combined size
+    private static long validateSizes(List<ChunkResult> results, long expectedTotalSize) throws IOException
+    {
+        long totalSize = 0;
+        for(ChunkResult result : results)
+        {
+            long fileSize = Files.size(Paths.get(result.getTempFilePath()));
+            if(fileSize != result.getBytesDownloaded())
+            {
+                throw new IOException("Chunk " + result.getChunkIndex() + " temp file has " + fileSize
+                    + " bytes, expected " + result.getBytesDownloaded());
+            }
+            totalSize += fileSize;
+        }
+        if(expectedTotalSize >= 0 && totalSize != expectedTotalSize)
+        {
+            throw new IOException("Chunks add up to " + totalSize + " bytes, expected " + expectedTotalSize);
+        }
+        return totalSize;
+    }
+
+    private static List<ChunkResult> sortChunks(List<ChunkResult> results)
+    {
+        List<ChunkResult> sorted = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++)
+        {
+            sorted.add(null);
+        }
+        for(ChunkResult result : results)
+        {
+            sorted.set(result.getChunkIndex(), result);
+        }
+        return sorted;
+    }
+
+    private static void mergeFiles(List<String> tempFiles, String output, FileHasher hasher) throws IOException
+    {
+        // open destination file, if it already exists its contents will be overwritten
+        try (FileChannel outputChannel = FileChannel.open(Paths.get(output), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+        {
+            // process each chunk in order
+            for(String tempFile : tempFiles)
+            {
+                // open current chunk for reading
+                try(FileChannel inputChannel = FileChannel.open(Paths.get(tempFile), StandardOpenOption.READ))
+                {
+                    if(hasher == null) transferFully(inputChannel, outputChannel);
+                    else transferHashing(inputChannel, outputChannel, hasher);
+                }
+                // current chunk closes here because we opened via try with resources block
+            }
+        }
+        // output file closes here because we opened via try with resources block
+    }
+
+    // channel to channel copy, the kernel can move the bytes itself (copy_file_range/sendfile) instead of
+    // pulling every one of them through a buffer on the java heap
+    static void transferFully(FileChannel source, FileChannel target) throws IOException
+    {
+        long size = source.size();
+        long position = 0;
+        // transferTo may copy less than asked for, so keep going until the whole file is across
+        while(position < size)
+        {
+            long transferred = source.transferTo(position, size - position, target);
+            if(transferred <= 0 && source.size() <= position)
+            {
+                throw new IOException("Chunk file shrank while it was being assembled");
+            }
+            position += transferred;
+        }
+    }
+
+    // the bytes have to come through the heap to be hashed, but they're read once either way
+    static void transferHashing(FileChannel source, FileChannel target, FileHasher hasher) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(HASHING_BUFFER_SIZE);
+        while(source.read(buffer) >= 0 || buffer.position() > 0)
+        {
+            buffer.flip();
+            hasher.update(buffer.array(), 0, buffer.limit());
+            while(buffer.hasRemaining()) target.write(buffer);
+            buffer.clear();
+        }
+    }
+
+    // public static void cleanupTempFiles(List<String> tempFiles) throws IOException
+    // {
+    //     for(String tempFile : tempFiles)
+    //     {
+    //         Files.deleteIfExists(Paths.get(tempFile));
+    //     }
+    // }
+}
@@ -0,0 +1,221 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Hashes a file front to back while it is being downloaded, so nothing has to read it again afterwards.
+ *
+ * Digests like SHA-256 only work in order, so the hasher keeps a position: bytes that arrive exactly there are
+ * hashed straight from the buffer they were read into. Bytes written further ahead are only remembered as a range
+ * that is already on disk, and once the position catches up to one of those ranges, whichever thread moved it
+ * there reads the range back (from the page cache, it was just written) and hashes it. With chunks downloading
+ * in parallel that means the chunk at the front hashes inline and the others are hashed as it reaches them.
+ *
+ * Assemblers that copy the file in order anyway just call update().
+ */
+public class FileHasher
+{
+    private static final int CATCH_UP_BUFFER_SIZE = 64 * 1024;
+
+    // keyed by RFC 9530 algorithm name
+    private final Map<String, MessageDigest> digests = new LinkedHashMap<>();
+    private final Map<String, byte[]> results = new LinkedHashMap<>();
+    private long position = 0;
+    // ranges on disk past the position that haven't been hashed yet, start to end (exclusive), never overlapping
+    private final TreeMap<Long, Long> written = new TreeMap<>();
+    // only one thread reads ranges back at a time, everyone else just records what they wrote
+    private boolean catchingUp = false;
+
+    public FileHasher(Set<String> algorithms)
+    {
+        if(algorithms == null || algorithms.isEmpty()) throw new IllegalArgumentException("At least one algorithm is needed");
+        for(String algorithm : algorithms)
+        {
+            digests.put(algorithm, ContentDigest.newMessageDigest(algorithm));
+        }
+    }
+
+    // the next length bytes of the file, for callers that produce it in order
+    public synchronized void update(byte[] buffer, int offset, int length)
+    {
+        if(!written.isEmpty()) throw new IllegalStateException("update() can't be mixed with out of order writes");
+        hash(buffer, offset, length);
+    }
+
+    // bytes just written at start, hashed now if they're next, otherwise when the position reaches them
+    public void offer(long start, byte[] buffer, int offset, int length, FileChannel source) throws IOException
+    {
+        synchronized(this)
+        {
+            if(!catchingUp && start == position) hash(buffer, offset, length);
+            else addWritten(start, start + length);
+            if(!claimCatchUp()) return;
+        }
+        drain(source);
+    }
+
+    // bytes that are on disk but weren't offered, like a resumed download's earlier progress
+    public void markWritten(long start, long length, FileChannel source) throws IOException
+    {
+        if(length <= 0) return;
+        synchronized(this)
+        {
+            addWritten(start, start + length);
+            if(!claimCatchUp()) return;
+        }
+        drain(source);
+    }
+
+    // reads back whatever is on disk from the position onwards, unless another thread already is
+    public void catchUp(FileChannel source) throws IOException
+    {
+        synchronized(this)
+        {
+            if(!claimCatchUp()) return;
+        }
+        drain(source);
+    }
+
+    // hashes what is left and checks the whole file went through, after this the digests can be read
+    public void complete(FileChannel source, long expectedLength) throws IOException
+    {
+        synchronized(this)
+        {
+            // a catch up started by a chunk may still be running
+            while(catchingUp)
+            {
+                try
+                {
+                    wait();
+                }
+                catch(InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted waiting for hashing to catch up", e);
+                }
+            }
+        }
+        if(source != null) catchUp(source);
+        finish(expectedLength);
+    }
+
+    // for callers that fed everything through update()
+    public synchronized void finish(long expectedLength) throws IOException
+    {
+        if(position != expectedLength)
+        {
+            throw new IOException("Hashed " + position + " bytes, expected " + expectedLength);
+        }
+        if(!results.isEmpty()) return;
+        for(Map.Entry<String, MessageDigest> entry : digests.entrySet())
+        {
+            results.put(entry.getKey(), entry.getValue().digest());
+        }
+    }
+
+    // null until complete() or finish(), or if the algorithm wasn't asked for
+    public synchronized byte[] getDigest(String algorithm)
+    {
+        byte[] result = results.get(algorithm);
+        return result == null ? null : result.clone();
+    }
+
+    public synchronized long getPosition()
+    {
+        return position;
+    }
+
+    private void hash(byte[] buffer, int offset, int length)
+    {
+        for(MessageDigest digest : digests.values())
+        {
+            digest.update(buffer, offset, length);
+        }
+        position += length;
+    }
+
+    private void addWritten(long start, long end)
+    {
+        // merge with neighbours so the map stays small however many buffers were written out of order
+        Map.Entry<Long, Long> before = written.floorEntry(start);
+        if(before != null && before.getValue() >= start)
+        {
+            start = before.getKey();
+            end = Math.max(end, before.getValue());
+            written.remove(before.getKey());
+        }
+        Long afterEnd = written.remove(end);
+        if(afterEnd != null) end = afterEnd;
+        written.put(start, end);
+    }
+
+    // called holding the lock, true if the caller should drain
+    private boolean claimCatchUp()
+    {
+        if(catchingUp || written.isEmpty() || written.firstKey() != position) return false;
+        catchingUp = true;
+        return true;
+    }
+
+    private void drain(FileChannel source) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(CATCH_UP_BUFFER_SIZE);
+        boolean finished = false;
+        try
+        {
+            while(true)
+            {
+                long start, end;
+                synchronized(this)
+                {
+                    Map.Entry<Long, Long> first = written.firstEntry();
+                    if(first == null || first.getKey() != position)
+                    {
+                        // checked and released under the same lock, so no write can slip in between
+                        catchingUp = false;
+                        finished = true;
+                        notifyAll();
+                        return;
+                    }
+                    start = position;
+                    end = Math.min(first.getValue(), start + buffer.capacity());
+                }
+                // read outside the lock so writers ahead of us only ever wait for a hash update, not a disk read
+                buffer.clear().limit((int) (end - start));
+                while(buffer.hasRemaining())
+                {
+                    if(source.read(buffer, start + buffer.position()) < 0)
+                    {
+                        throw new EOFException("File ends before the bytes recorded as written");
+                    }
+                }
+                synchronized(this)
+                {
+                    hash(buffer.array(), 0, (int) (end - start));
+                    // ranges ahead may have grown onto this one while we were reading
+                    Long rangeEnd = written.remove(start);
+                    if(rangeEnd != null && rangeEnd > end) written.put(end, rangeEnd);
+                }
+            }
+        }
+        finally
+        {
+            if(!finished)
+            {
+                synchronized(this)
+                {
+                    catchingUp = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+}
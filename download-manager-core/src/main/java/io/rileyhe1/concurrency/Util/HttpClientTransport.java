@@ -0,0 +1,250 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+
+/**
+ * HttpTransport on one shared java.net.http.HttpClient. The client pools connections, so a chunk that
+ * finishes leaves its connection open for the next chunk to the same host (no new TCP/TLS handshake),
+ * and against an HTTP/2 server every range request becomes a stream on the same connection.
+ *
+ * HttpClient has no per-read timeout, so config.getReadTimeout() bounds how long we wait for the response
+ * headers, and a watchdog thread closes any GET body whose read has been waiting that long for its next bytes.
+ * The blocked read then fails with a SocketTimeoutException, as it would on an HttpURLConnection.
+ */
+public class HttpClientTransport implements HttpTransport
+{
+    private final HttpClient client;
+    private final DownloadConfig config;
+    private final ScheduledThreadPoolExecutor watchdog;
+
+    public HttpClientTransport(DownloadConfig config)
+    {
+        if(config == null) throw new IllegalArgumentException("Config cannot be null");
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofMillis(config.getConnectionTimeout()))
+            .build();
+        this.watchdog = new ScheduledThreadPoolExecutor(1, runnable ->
+        {
+            Thread thread = new Thread(runnable, "transport-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // every response cancels its check when it closes, don't keep thousands of them queued until they'd run
+        watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    public TransportResponse head(String url) throws IOException
+    {
+        HttpRequest request = newRequest(url).method("HEAD", HttpRequest.BodyPublishers.noBody()).build();
+        return new HttpClientResponse(send(request));
+    }
+
+    @Override
+    public TransportResponse getRange(String url, long startByte, long endByte) throws IOException
+    {
+        HttpRequest request = newRequest(url).header("Range", "bytes=" + startByte + "-" + endByte).GET().build();
+        return watched(send(request));
+    }
+
+    @Override
+    public TransportResponse getFrom(String url, long startByte) throws IOException
+    {
+        HttpRequest request = newRequest(url).header("Range", "bytes=" + startByte + "-").GET().build();
+        return watched(send(request));
+    }
+
+    private HttpRequest.Builder newRequest(String url)
+    {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).header("User-Agent", "Mozilla/5.0");
+        // a read timeout of 0 waits forever, as it does for HttpURLConnection
+        if(config.getReadTimeout() > 0) builder.timeout(Duration.ofMillis(config.getReadTimeout()));
+        return builder;
+    }
+
+    // puts the body under the watchdog, which checks it a few times per read timeout
+    private TransportResponse watched(HttpResponse<InputStream> response)
+    {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getReadTimeout());
+        if(timeoutNanos == 0) return new HttpClientResponse(response, response.body(), null);
+        WatchedBody body = new WatchedBody(response.body(), timeoutNanos);
+        long period = Math.max(1, timeoutNanos / 4);
+        ScheduledFuture<?> check = watchdog.scheduleWithFixedDelay(body::check, period, period, TimeUnit.NANOSECONDS);
+        return new HttpClientResponse(response, body, check);
+    }
+
+    private HttpResponse<InputStream> send(HttpRequest request) throws IOException
+    {
+        try
+        {
+            return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + request.uri());
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        watchdog.shutdownNow();
+        client.close();
+    }
+
+    private static class HttpClientResponse implements TransportResponse
+    {
+        private final HttpResponse<InputStream> response;
+        private final InputStream body;
+        // the watchdog's check on the body, null when nothing is watching it
+        private final ScheduledFuture<?> check;
+
+        HttpClientResponse(HttpResponse<InputStream> response)
+        {
+            this(response, response.body(), null);
+        }
+
+        HttpClientResponse(HttpResponse<InputStream> response, InputStream body, ScheduledFuture<?> check)
+        {
+            this.response = response;
+            this.body = body;
+            this.check = check;
+        }
+
+        @Override
+        public int getStatusCode()
+        {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getHeader(String name)
+        {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        @Override
+        public InputStream getBody()
+        {
+            return body;
+        }
+
+        @Override
+        public void close()
+        {
+            if(check != null) check.cancel(false);
+            try
+            {
+                // a fully read body returns the connection to the pool, a partly read one is aborted
+                body.close();
+            }
+            catch(IOException e)
+            {
+                // Best effort
+            }
+        }
+
+        // closing the body from another thread fails a read blocked on it
+        @Override
+        public void abort()
+        {
+            close();
+        }
+    }
+
+    // a body that remembers when the read in progress started, so the watchdog can tell a stalled read from a
+    // reader that just hasn't asked for more yet (paused, or waiting on the bandwidth limiter)
+    private static class WatchedBody extends FilterInputStream
+    {
+        private final long timeoutNanos;
+        // System.nanoTime() when the waiting read started, 0 while no read is waiting
+        private volatile long readingSince;
+        private volatile boolean timedOut;
+
+        WatchedBody(InputStream in, long timeoutNanos)
+        {
+            super(in);
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            byte[] single = new byte[1];
+            int n = read(single, 0, 1);
+            return n == 1 ? single[0] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException
+        {
+            if(timedOut) throw timeout();
+            readingSince = Math.max(1, System.nanoTime());
+            int n;
+            try
+            {
+                n = in.read(buffer, offset, length);
+            }
+            catch(IOException e)
+            {
+                if(!timedOut) throw e;
+                SocketTimeoutException timeout = timeout();
+                timeout.initCause(e);
+                throw timeout;
+            }
+            finally
+            {
+                readingSince = 0;
+            }
+            // the closed stream may report the end instead of failing, which would pass for a short body
+            if(timedOut) throw timeout();
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            if(timedOut) throw timeout();
+            return super.skip(n);
+        }
+
+        // runs on the watchdog thread, closing the stream fails the read blocked on it
+        void check()
+        {
+            long since = readingSince;
+            if(since == 0 || timedOut || System.nanoTime() - since < timeoutNanos) return;
+            timedOut = true;
+            try
+            {
+                in.close();
+            }
+            catch(IOException e)
+            {
+                // Best effort
+            }
+        }
+
+        private SocketTimeoutException timeout()
+        {
+            return new SocketTimeoutException("Read timed out after " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.io.IOException;
+
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+
+/**
+ * The HTTP requests a download makes, behind one interface so the underlying client can be swapped.
+ * Implementations must be safe to call from many chunk threads at once.
+ */
+public interface HttpTransport extends AutoCloseable
+{
+    // HEAD request, used to find the size of a download and whether it accepts range requests
+    TransportResponse head(String url) throws IOException;
+
+    // GET for bytes startByte..endByte (both inclusive)
+    TransportResponse getRange(String url, long startByte, long endByte) throws IOException;
+
+    // GET for everything from startByte to the end, however long that turns out to be
+    TransportResponse getFrom(String url, long startByte) throws IOException;
+
+    // releases pooled connections, the transport can't be used afterwards
+    @Override
+    default void close()
+    {
+    }
+
+    static HttpTransport create(DownloadConfig config)
+    {
+        return switch(config.getTransportType())
+        {
+            case HTTP_CLIENT -> new HttpClientTransport(config);
+            case URL_CONNECTION -> new UrlConnectionTransport(config);
+        };
+    }
+}
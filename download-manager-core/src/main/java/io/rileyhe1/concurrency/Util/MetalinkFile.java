@@ -0,0 +1,73 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.util.List;
+
+/**
+ * One file described by a Metalink document, see MetalinkParser.
+ *
+ * urls only holds the http and https ones, most preferred first. pieceHashes is empty unless the document lists
+ * them, otherwise piece i covers bytes i * pieceLength up to the next piece (the last one may be shorter).
+ */
+public class MetalinkFile
+{
+    private final String name;
+    private final long size;
+    private final List<String> urls;
+    private final ContentDigest hash;
+    private final long pieceLength;
+    private final List<ContentDigest> pieceHashes;
+
+    public MetalinkFile(String name, long size, List<String> urls, ContentDigest hash, long pieceLength,
+                        List<ContentDigest> pieceHashes)
+    {
+        if(name == null || name.trim().isEmpty()) throw new IllegalArgumentException("Name cannot be null or empty");
+        if(urls == null || urls.isEmpty()) throw new IllegalArgumentException("A Metalink file needs at least one url");
+        if(pieceHashes == null) throw new IllegalArgumentException("Piece hashes cannot be null, use an empty list");
+        if(!pieceHashes.isEmpty() && pieceLength <= 0) throw new IllegalArgumentException("Piece length must be positive");
+        this.name = name;
+        this.size = size;
+        this.urls = List.copyOf(urls);
+        this.hash = hash;
+        this.pieceLength = pieceLength;
+        this.pieceHashes = List.copyOf(pieceHashes);
+    }
+
+    // relative path from the document, may contain directories but never leaves the directory it is resolved against
+    public String getName()
+    {
+        return name;
+    }
+
+    // -1 if the document doesn't say
+    public long getSize()
+    {
+        return size;
+    }
+
+    public List<String> getUrls()
+    {
+        return urls;
+    }
+
+    // the strongest whole-file hash listed, null if there is none we support
+    public ContentDigest getHash()
+    {
+        return hash;
+    }
+
+    // 0 when there are no piece hashes
+    public long getPieceLength()
+    {
+        return pieceLength;
+    }
+
+    public List<ContentDigest> getPieceHashes()
+    {
+        return pieceHashes;
+    }
+
+    public boolean hasPieceHashes()
+    {
+        return !pieceHashes.isEmpty();
+    }
+}
@@ -0,0 +1,236 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads a Metalink 4 document (RFC 5854, usually a .meta4 file) into the files it describes.
+ *
+ * Every file keeps its http and https urls, most preferred first: lower priority values come first, urls without
+ * one go last, ties stay in document order. Of the hashes listed the strongest one we support is kept, and the
+ * same goes for piece hashes when the document has several sets of them. Anything else in the document (metaurls
+ * for torrents, signatures, descriptions) is ignored, and a file without a single http or https url is skipped.
+ *
+ * Documents come from the network as often as not, so DTDs are refused outright (no external entities, no entity
+ * expansion) and file names that are absolute or climb out of the download directory are rejected.
+ */
+public class MetalinkParser
+{
+    public static final String NAMESPACE = "urn:ietf:params:xml:ns:metalink";
+    // strongest first, RFC 5854 uses the IANA hash names which match ours
+    private static final String[] PREFERRED = {"sha-256", "sha-512", "sha-1", "md5"};
+    // urls without a priority go after every url that has one
+    private static final int NO_PRIORITY = Integer.MAX_VALUE;
+
+    public static List<MetalinkFile> parse(Path path) throws IOException
+    {
+        try(InputStream in = Files.newInputStream(path))
+        {
+            return parse(in);
+        }
+    }
+
+    // throws if the document isn't Metalink 4 or lists nothing we can download
+    public static List<MetalinkFile> parse(InputStream in) throws IOException
+    {
+        Document document;
+        try
+        {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setXIncludeAware(false);
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            // the default handler prints parse errors to stderr on top of throwing them
+            builder.setErrorHandler(new DefaultHandler());
+            document = builder.parse(in);
+        }
+        catch(ParserConfigurationException | SAXException e)
+        {
+            throw new IOException("Not a valid Metalink document: " + e.getMessage(), e);
+        }
+
+        Element root = document.getDocumentElement();
+        if(!NAMESPACE.equals(root.getNamespaceURI()) || !"metalink".equals(root.getLocalName()))
+        {
+            throw new IOException("Not a Metalink 4 document, root element is " + root.getNodeName());
+        }
+        List<MetalinkFile> files = new ArrayList<>();
+        for(Element file : children(root, "file"))
+        {
+            MetalinkFile parsed = parseFile(file);
+            if(parsed != null) files.add(parsed);
+        }
+        if(files.isEmpty()) throw new IOException("Metalink document lists no files that can be downloaded");
+        return files;
+    }
+
+    // null if the file has no url we can fetch
+    private static MetalinkFile parseFile(Element file) throws IOException
+    {
+        String name = file.getAttribute("name");
+        checkName(name);
+
+        long size = -1;
+        List<Element> sizes = children(file, "size");
+        if(!sizes.isEmpty())
+        {
+            size = parseLong(text(sizes.get(0)), "size of " + name);
+            if(size < 0) throw new IOException("Negative size for " + name);
+        }
+
+        List<String> urls = parseUrls(file);
+        if(urls.isEmpty())
+        {
+            System.err.println("Skipping " + name + ": no http or https urls");
+            return null;
+        }
+
+        ContentDigest hash = null;
+        for(String algorithm : PREFERRED)
+        {
+            for(Element element : children(file, "hash"))
+            {
+                if(hash == null && algorithm.equals(type(element))) hash = parseHash(algorithm, text(element), name);
+            }
+        }
+
+        long pieceLength = 0;
+        List<ContentDigest> pieceHashes = new ArrayList<>();
+        Element pieces = preferredPieces(file);
+        if(pieces != null)
+        {
+            String algorithm = type(pieces);
+            pieceLength = parseLong(pieces.getAttribute("length"), "piece length of " + name);
+            if(pieceLength <= 0) throw new IOException("Piece length of " + name + " must be positive");
+            for(Element element : children(pieces, "hash"))
+            {
+                pieceHashes.add(parseHash(algorithm, text(element), name));
+            }
+            if(pieceHashes.isEmpty()) throw new IOException("Pieces of " + name + " have no hashes");
+            // without a size the download checks the piece count against the size the server reports
+            if(size >= 0 && pieceHashes.size() != (size + pieceLength - 1) / pieceLength)
+            {
+                throw new IOException(pieceHashes.size() + " pieces of " + pieceLength + " bytes don't cover the "
+                    + size + " bytes of " + name);
+            }
+        }
+        return new MetalinkFile(name, size, urls, hash, pieceLength, pieceHashes);
+    }
+
+    private static List<String> parseUrls(Element file) throws IOException
+    {
+        List<Map.Entry<Integer, String>> prioritized = new ArrayList<>();
+        for(Element element : children(file, "url"))
+        {
+            String url = text(element);
+            String lower = url.toLowerCase(Locale.ROOT);
+            if(!lower.startsWith("http://") && !lower.startsWith("https://")) continue;
+            String priority = element.getAttribute("priority");
+            prioritized.add(Map.entry(priority.isEmpty() ? NO_PRIORITY : (int) parseLong(priority, "url priority"), url));
+        }
+        // List.sort is stable, so urls with the same priority keep their document order
+        prioritized.sort(Map.Entry.comparingByKey());
+        List<String> urls = new ArrayList<>();
+        for(Map.Entry<Integer, String> entry : prioritized)
+        {
+            if(!urls.contains(entry.getValue())) urls.add(entry.getValue());
+        }
+        return urls;
+    }
+
+    // the pieces element with the strongest hash type we support, null if there is none
+    private static Element preferredPieces(Element file)
+    {
+        for(String algorithm : PREFERRED)
+        {
+            for(Element pieces : children(file, "pieces"))
+            {
+                if(algorithm.equals(type(pieces))) return pieces;
+            }
+        }
+        return null;
+    }
+
+    // names become paths under the download directory, so they have to stay under it
+    private static void checkName(String name) throws IOException
+    {
+        if(name.trim().isEmpty()) throw new IOException("File element without a name");
+        if(name.startsWith("/") || name.startsWith("\\") || name.indexOf(':') >= 0 || name.indexOf('\0') >= 0)
+        {
+            throw new IOException("Unsafe file name in Metalink document: " + name);
+        }
+        for(String segment : name.split("[/\\\\]"))
+        {
+            if(segment.equals("..")) throw new IOException("Unsafe file name in Metalink document: " + name);
+        }
+    }
+
+    private static ContentDigest parseHash(String algorithm, String hex, String name) throws IOException
+    {
+        try
+        {
+            return ContentDigest.fromHex(algorithm, hex);
+        }
+        catch(IllegalArgumentException e)
+        {
+            throw new IOException("Bad " + algorithm + " hash for " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static long parseLong(String value, String what) throws IOException
+    {
+        try
+        {
+            return Long.parseLong(value.trim());
+        }
+        catch(NumberFormatException e)
+        {
+            throw new IOException("Bad " + what + ": " + value, e);
+        }
+    }
+
+    private static String type(Element element)
+    {
+        return element.getAttribute("type").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String text(Element element)
+    {
+        return element.getTextContent().trim();
+    }
+
+    // direct children in the Metalink namespace with the given name
+    private static List<Element> children(Element parent, String localName)
+    {
+        List<Element> children = new ArrayList<>();
+        for(Node node = parent.getFirstChild(); node != null; node = node.getNextSibling())
+        {
+            if(node instanceof Element element && NAMESPACE.equals(element.getNamespaceURI())
+                && localName.equals(element.getLocalName()))
+            {
+                children.add(element);
+            }
+        }
+        return children;
+    }
+}
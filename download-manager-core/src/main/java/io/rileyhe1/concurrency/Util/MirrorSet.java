@@ -0,0 +1,228 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The sources a multi-mirror Download fetches its ranges from, every one of them serving the same bytes.
+ *
+ * A chunk asks pick() for a source each time it gets a worker and gives it back with release() when it lets go of
+ * the worker, so a burst of chunks starting together spreads out instead of piling onto one mirror. A mirror
+ * nobody has measured yet is tried first, after that the next connection goes to the live mirror with the best
+ * throughput per connection divided by the connections it would have with this one, so mirrors end up holding
+ * connections in proportion to how fast each of their connections has been. Faster mirrors also finish their
+ * ranges sooner and come back for more, and work stealing splits the ranges stuck on slow ones.
+ *
+ * sample() is called on the download's metrics timer. A mirror is dropped after FAILURE_LIMIT failed attempts in
+ * a row, or once it has delivered less than SLOW_RATIO of the best mirror's throughput per connection for
+ * SLOW_SAMPLES samples running. Samples only count once the mirror's meter has a baseline and its first bytes
+ * have arrived, so a mirror that is slow to connect isn't taken for a slow one. Chunks reading from a dropped
+ * mirror give their connection up and are sent to another one. The last live mirror is never dropped, so a
+ * download that loses the rest carries on from it alone.
+ */
+public class MirrorSet
+{
+    // failed attempts in a row, across all chunks, that take a mirror out of the download
+    static final int FAILURE_LIMIT = 3;
+    // a mirror this much slower per connection than the best one isn't worth its connections
+    static final double SLOW_RATIO = 0.1;
+    // consecutive slow samples before it is dropped, 3 seconds at the download's metrics interval
+    static final int SLOW_SAMPLES = 6;
+
+    private final List<Mirror> mirrors;
+
+    public MirrorSet(List<String> urls)
+    {
+        if(urls == null || urls.isEmpty()) throw new IllegalArgumentException("A mirror set needs at least one url");
+        List<Mirror> created = new ArrayList<>();
+        for(String url : urls)
+        {
+            if(url == null || url.trim().isEmpty()) throw new IllegalArgumentException("Mirror url cannot be null or empty");
+            created.add(new Mirror(url));
+        }
+        this.mirrors = Collections.unmodifiableList(created);
+    }
+
+    // the source for a chunk about to connect, counted as one of its connections until release() is called.
+    // never null since the last live mirror is never dropped
+    public synchronized Mirror pick()
+    {
+        Mirror best = null;
+        double bestScore = 0;
+        for(Mirror mirror : mirrors)
+        {
+            if(mirror.dropped) continue;
+            // an unmeasured mirror scores above any measured one, ties go to whichever has fewer connections
+            double rate = mirror.perConnection > 0 ? mirror.perConnection : Double.MAX_VALUE;
+            double score = rate / (mirror.connections.get() + 1);
+            if(best == null || score > bestScore)
+            {
+                best = mirror;
+                bestScore = score;
+            }
+        }
+        best.connections.incrementAndGet();
+        return best;
+    }
+
+    // runs on the download's metrics timer, updates every mirror's rate and drops the ones falling far behind
+    public synchronized void sample(long nowNanos)
+    {
+        double bestPerConnection = 0;
+        double[] current = new double[mirrors.size()];
+        boolean[] measured = new boolean[mirrors.size()];
+        for(int i = 0; i < mirrors.size(); i++)
+        {
+            Mirror mirror = mirrors.get(i);
+            int connections = mirror.connections.get();
+            // an idle mirror keeps the rate it had while it was busy and starts measuring afresh when it is picked again
+            if(connections == 0)
+            {
+                mirror.throughput.reset();
+                mirror.baselineBytes = -1;
+                continue;
+            }
+            long bytes = mirror.bytes.get();
+            // the first sample after a reset only sets the meter's baseline, and until bytes arrive past it the
+            // mirror is still connecting rather than slow
+            measured[i] = mirror.baselineBytes >= 0 && bytes > mirror.baselineBytes;
+            if(mirror.baselineBytes < 0) mirror.baselineBytes = bytes;
+            mirror.throughput.sample(bytes, nowNanos);
+            current[i] = mirror.throughput.getBytesPerSecond() / connections;
+            if(current[i] > 0) mirror.perConnection = current[i];
+            if(!mirror.dropped) bestPerConnection = Math.max(bestPerConnection, mirror.perConnection);
+        }
+        if(bestPerConnection <= 0) return;
+        for(int i = 0; i < mirrors.size(); i++)
+        {
+            Mirror mirror = mirrors.get(i);
+            if(mirror.dropped || mirror.connections.get() == 0 || !measured[i]) continue;
+            // a connected mirror that has stopped delivering counts as slow too
+            if(current[i] < bestPerConnection * SLOW_RATIO) mirror.slowSamples++;
+            else mirror.slowSamples = 0;
+            if(mirror.slowSamples >= SLOW_SAMPLES) drop(mirror);
+        }
+    }
+
+    // called after an attempt against the mirror failed, returns true if the mirror has now been dropped
+    public synchronized boolean recordFailure(Mirror mirror)
+    {
+        if(mirror.dropped) return true;
+        mirror.failures++;
+        if(mirror.failures >= FAILURE_LIMIT) drop(mirror);
+        return mirror.dropped;
+    }
+
+    public synchronized void recordSuccess(Mirror mirror)
+    {
+        mirror.failures = 0;
+    }
+
+    private void drop(Mirror mirror)
+    {
+        if(getLiveCount() <= 1) return;
+        mirror.dropped = true;
+    }
+
+    public synchronized int getLiveCount()
+    {
+        int live = 0;
+        for(Mirror mirror : mirrors)
+        {
+            if(!mirror.dropped) live++;
+        }
+        return live;
+    }
+
+    // every mirror the set was created with, dropped ones included, in the order they were given
+    public List<Mirror> getMirrors()
+    {
+        return mirrors;
+    }
+
+    public List<String> getUrls()
+    {
+        List<String> urls = new ArrayList<>();
+        for(Mirror mirror : mirrors)
+        {
+            urls.add(mirror.getUrl());
+        }
+        return urls;
+    }
+
+    public static class Mirror
+    {
+        private final String url;
+        private final String hostKey;
+        // bytes written from this mirror's responses, chunks add to it as they read
+        private final AtomicLong bytes = new AtomicLong(0);
+        // chunks holding a worker with this mirror as their source
+        private final AtomicInteger connections = new AtomicInteger(0);
+        private final ThroughputMeter throughput = new ThroughputMeter();
+        // the rest are guarded by the owning MirrorSet. throughput per open connection while it was last busy,
+        // 0 until it has been measured
+        private volatile double perConnection = 0;
+        private volatile boolean dropped = false;
+        private int failures = 0;
+        private int slowSamples = 0;
+        // bytes when the meter last started measuring, -1 until the first sample after a reset
+        private long baselineBytes = -1;
+
+        private Mirror(String url)
+        {
+            this.url = url;
+            this.hostKey = ChunkScheduler.hostKey(url);
+        }
+
+        // the chunk that picked this mirror is done with it
+        public void release()
+        {
+            connections.decrementAndGet();
+        }
+
+        // bytes a chunk wrote from this mirror's response
+        public void addBytes(long count)
+        {
+            bytes.addAndGet(count);
+        }
+
+        public String getUrl()
+        {
+            return url;
+        }
+
+        public String getHostKey()
+        {
+            return hostKey;
+        }
+
+        public boolean isDropped()
+        {
+            return dropped;
+        }
+
+        public long getBytesDownloaded()
+        {
+            return bytes.get();
+        }
+
+        public int getConnections()
+        {
+            return connections.get();
+        }
+
+        // smoothed throughput across all of this mirror's connections, 0 while it has none
+        public double getBytesPerSecond()
+        {
+            return throughput.getBytesPerSecond();
+        }
+
+        public double getBytesPerSecondPerConnection()
+        {
+            return perConnection;
+        }
+    }
+}
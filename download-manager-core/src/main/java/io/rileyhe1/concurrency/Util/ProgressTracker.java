@@ -0,0 +1,70 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Counts the bytes a download has received, striped so chunks writing at the same time don't share a counter.
+ *
+ * Every chunk adds to the stripe chunkIndex maps to, and stripes sit PADDING longs apart in one primitive array
+ * so no two of them share a cache line. Updates are a single atomic add with no boxing or allocation, and
+ * getTotalProgress() sums a fixed number of stripes however many chunks the download has.
+ */
+public class ProgressTracker
+{
+    // 128 bytes between counters, two cache lines since the adjacent-line prefetcher pulls them in pairs
+    static final int PADDING = 16;
+    // more stripes than this costs memory without removing any contention, chunks never run this wide
+    static final int MAX_STRIPES = 256;
+    private static final VarHandle COUNTERS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] counters;
+    private final int mask;
+
+    public ProgressTracker()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // stripes is rounded up to a power of two, give it the number of chunks that can write at once
+    public ProgressTracker(int stripes)
+    {
+        if(stripes < 1) throw new IllegalArgumentException("Stripes must be at least 1");
+        int size = 1;
+        while(size < stripes && size < MAX_STRIPES) size <<= 1;
+        this.mask = size - 1;
+        // one slot of padding before the first counter too, so it doesn't share a line with the array header
+        this.counters = new long[(size + 1) * PADDING];
+    }
+
+    public void updateProgress(int chunkIndex, long bytes)
+    {
+        // consecutive chunk indexes, which is what runs together, land on different stripes
+        COUNTERS.getAndAdd(counters, slot(chunkIndex & mask), bytes);
+    }
+
+    public long getTotalProgress()
+    {
+        long total = 0;
+        for(int stripe = 0; stripe <= mask; stripe++)
+        {
+            total += (long) COUNTERS.getVolatile(counters, slot(stripe));
+        }
+        return total;
+    }
+
+    public double getProgressPercentage(long totalSize)
+    {
+        return (double) getTotalProgress() / totalSize * 100;
+    }
+
+    public int getStripeCount()
+    {
+        return mask + 1;
+    }
+
+    private static int slot(int stripe)
+    {
+        return (stripe + 1) * PADDING;
+    }
+}
@@ -0,0 +1,164 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.rileyhe1.concurrency.Data.ChunkResult;
+
+/**
+ * Builds the destination file while a STREAMING download is still running. Each finished chunk is handed to
+ * append(), and as soon as chunks 0..i have all arrived chunk i is copied onto the end of the destination and
+ * its temp file is deleted. Chunks that finish early wait (as results, their bytes stay in the temp file)
+ * until the gap before them is filled.
+ */
+public class StreamingAssembler implements AutoCloseable
+{
+    private final FileChannel destinationChannel;
+    // finished chunks that can't be appended yet because an earlier chunk is still downloading
+    private final Map<Integer, ChunkResult> waitingChunks = new HashMap<>();
+    private int nextChunk;
+    private long assembledBytes;
+    private boolean closed = false;
+    // null unless the download is being hashed, appended chunks are fed to it in order
+    private final FileHasher hasher;
+
+    public StreamingAssembler(String destination) throws IOException
+    {
+        this(destination, 0, 0);
+    }
+
+    // assembledChunks and assembledBytes describe the prefix a previous run already wrote, anything past it is
+    // a partial append that never got recorded and is cut off
+    public StreamingAssembler(String destination, int assembledChunks, long assembledBytes) throws IOException
+    {
+        this(destination, assembledChunks, assembledBytes, null);
+    }
+
+    // a resumed download's prefix is read back once to bring the hasher up to where appends continue
+    public StreamingAssembler(String destination, int assembledChunks, long assembledBytes, FileHasher hasher) throws IOException
+    {
+        if(destination == null || destination.trim().isEmpty()) throw new IllegalArgumentException("Destination cannot be null or empty");
+        if(assembledChunks < 0) throw new IllegalArgumentException("Assembled chunks cannot be negative");
+        if(assembledBytes < 0) throw new IllegalArgumentException("Assembled bytes cannot be negative");
+
+        Path destinationPath = Paths.get(destination);
+        if(assembledChunks == 0) Files.deleteIfExists(destinationPath);
+        else if(!Files.exists(destinationPath) || Files.size(destinationPath) < assembledBytes)
+        {
+            throw new IOException("Destination no longer holds the " + assembledChunks + " chunks already assembled");
+        }
+        this.destinationChannel = FileChannel.open(destinationPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                   StandardOpenOption.WRITE);
+        this.destinationChannel.truncate(assembledBytes);
+        this.nextChunk = assembledChunks;
+        this.assembledBytes = assembledBytes;
+        this.hasher = hasher;
+        try
+        {
+            if(hasher != null) hashPrefix();
+        }
+        catch(IOException e)
+        {
+            destinationChannel.close();
+            throw e;
+        }
+        this.destinationChannel.position(assembledBytes);
+    }
+
+    private void hashPrefix() throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(256 * 1024);
+        long position = 0;
+        while(position < assembledBytes)
+        {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), assembledBytes - position));
+            int read = destinationChannel.read(buffer, position);
+            if(read < 0) throw new IOException("Destination is shorter than the chunks already assembled");
+            hasher.update(buffer.array(), 0, read);
+            position += read;
+        }
+    }
+
+    public synchronized void append(ChunkResult result) throws IOException
+    {
+        if(closed) throw new IOException("Assembler has been closed");
+        if(result == null || !result.isSuccessful())
+        {
+            throw new IOException("Cannot assemble a failed chunk");
+        }
+        // already in the destination from an earlier run
+        if(result.getChunkIndex() < nextChunk) return;
+
+        waitingChunks.put(result.getChunkIndex(), result);
+        ChunkResult next;
+        while((next = waitingChunks.remove(nextChunk)) != null)
+        {
+            appendChunk(next);
+            nextChunk++;
+        }
+    }
+
+    private void appendChunk(ChunkResult result) throws IOException
+    {
+        Path tempFile = Paths.get(result.getTempFilePath());
+        long size = Files.size(tempFile);
+        if(size != result.getBytesDownloaded())
+        {
+            throw new IOException("Chunk " + result.getChunkIndex() + " temp file has " + size
+                + " bytes, expected " + result.getBytesDownloaded());
+        }
+        try(FileChannel inputChannel = FileChannel.open(tempFile, StandardOpenOption.READ))
+        {
+            if(hasher == null) FileAssembler.transferFully(inputChannel, destinationChannel);
+            else FileAssembler.transferHashing(inputChannel, destinationChannel, hasher);
+        }
+        assembledBytes += size;
+        // the bytes are in the destination now, so the temp copy is only taking up space
+        Files.deleteIfExists(tempFile);
+    }
+
+    // number of leading chunks that are in the destination, recorded in snapshots so a resume knows where to pick up
+    public synchronized int getAssembledChunks()
+    {
+        return nextChunk;
+    }
+
+    public synchronized long getAssembledBytes()
+    {
+        return assembledBytes;
+    }
+
+    public synchronized int getWaitingChunkCount()
+    {
+        return waitingChunks.size();
+    }
+
+    // flushes everything appended so far to disk
+    public synchronized void force() throws IOException
+    {
+        if(!closed) destinationChannel.force(false);
+    }
+
+    // waits for an append in progress to finish, after this append() fails and the assembled count stays put
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if(closed) return;
+        closed = true;
+        try
+        {
+            destinationChannel.force(false);
+        }
+        finally
+        {
+            destinationChannel.close();
+        }
+    }
+}
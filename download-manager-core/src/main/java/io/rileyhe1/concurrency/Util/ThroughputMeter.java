@@ -0,0 +1,83 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Smooths a byte counter into a rate with an exponentially weighted moving average.
+ *
+ * The counter isn't touched on the data path, whoever owns it calls sample() on a timer with the running total
+ * and the meter works out how much arrived since the last sample. Each interval's rate is weighted by
+ * 1 - e^(-dt / window), so samples that come late or early count for as much time as they actually cover and
+ * a rate that stops changing settles to within 5% of the new value after three windows.
+ * The first interval that sees any bytes after a reset is taken as is rather than averaged with 0, so a fresh
+ * download doesn't spend its first few seconds ramping up from nothing.
+ */
+public class ThroughputMeter
+{
+    // long enough to ride out a stalled read or two, short enough that the ETA follows a real change in speed
+    public static final long DEFAULT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+    private final double windowNanos;
+
+    private long lastBytes = -1;
+    private long lastNanos;
+    private volatile double bytesPerSecond = 0;
+
+    public ThroughputMeter()
+    {
+        this(DEFAULT_WINDOW_NANOS);
+    }
+
+    public ThroughputMeter(long windowNanos)
+    {
+        if(windowNanos <= 0) throw new IllegalArgumentException("Window must be positive");
+        this.windowNanos = windowNanos;
+    }
+
+    // totalBytes is the counter's running total, it can go down when a bad range is taken back
+    public synchronized void sample(long totalBytes, long nowNanos)
+    {
+        if(lastBytes < 0)
+        {
+            lastBytes = totalBytes;
+            lastNanos = nowNanos;
+            return;
+        }
+        long elapsed = nowNanos - lastNanos;
+        if(elapsed <= 0) return;
+        double rate = Math.max(0, totalBytes - lastBytes) * 1e9 / elapsed;
+        // nothing has arrived since the reset (still waiting on the first byte), so there is nothing to average with
+        if(bytesPerSecond == 0)
+        {
+            bytesPerSecond = rate;
+        }
+        else
+        {
+            double weight = 1 - Math.exp(-elapsed / windowNanos);
+            bytesPerSecond += weight * (rate - bytesPerSecond);
+        }
+        lastBytes = totalBytes;
+        lastNanos = nowNanos;
+    }
+
+    // drops the rate to 0 and starts over from the next sample, used when whatever is being measured stops
+    public synchronized void reset()
+    {
+        lastBytes = -1;
+        bytesPerSecond = 0;
+    }
+
+    public double getBytesPerSecond()
+    {
+        return bytesPerSecond;
+    }
+
+    // time to receive remainingBytes at the current rate, -1 if there is no rate to go on yet
+    public long estimateNanos(long remainingBytes)
+    {
+        double rate = bytesPerSecond;
+        if(remainingBytes <= 0) return 0;
+        if(rate <= 0) return -1;
+        return (long) (remainingBytes / rate * 1e9);
+    }
+}
@@ -0,0 +1,27 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Response to a request made through an HttpTransport. The body has to be closed (through close(), which also
+ * closes the stream from getBody()) to hand the connection back, closing before the end of the body aborts it.
+ */
+public interface TransportResponse extends AutoCloseable
+{
+    int getStatusCode();
+
+    // first value of the named header, matched case-insensitively, or null if the response doesn't have it
+    String getHeader(String name);
+
+    InputStream getBody() throws IOException;
+
+    @Override
+    void close();
+
+    // stops a read blocked on the body from another thread. only some transports can, the default does nothing and
+    // the reader stops on its own once its current read returns
+    default void abort()
+    {
+    }
+}
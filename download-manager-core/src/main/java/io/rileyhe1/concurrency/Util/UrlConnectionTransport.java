@@ -0,0 +1,129 @@
+package io.rileyhe1.concurrency.Util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+
+/**
+ * HttpTransport on a fresh HttpURLConnection per request, disconnected when the response is closed.
+ */
+public class UrlConnectionTransport implements HttpTransport
+{
+    private final DownloadConfig config;
+
+    public UrlConnectionTransport(DownloadConfig config)
+    {
+        if(config == null) throw new IllegalArgumentException("Config cannot be null");
+        this.config = config;
+    }
+
+    @Override
+    public TransportResponse head(String url) throws IOException
+    {
+        HttpURLConnection connection = open(url);
+        connection.setRequestMethod("HEAD");
+        return send(connection);
+    }
+
+    @Override
+    public TransportResponse getRange(String url, long startByte, long endByte) throws IOException
+    {
+        HttpURLConnection connection = open(url);
+        connection.setRequestProperty("Range", "bytes=" + startByte + "-" + endByte);
+        return send(connection);
+    }
+
+    @Override
+    public TransportResponse getFrom(String url, long startByte) throws IOException
+    {
+        HttpURLConnection connection = open(url);
+        connection.setRequestProperty("Range", "bytes=" + startByte + "-");
+        return send(connection);
+    }
+
+    private HttpURLConnection open(String url) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+        // set user-agent header in hopes of deterring server request rejection
+        connection.setRequestProperty("User-Agent", "Mozilla/5.0");
+        connection.setConnectTimeout(config.getConnectionTimeout());
+        connection.setReadTimeout(config.getReadTimeout());
+        return connection;
+    }
+
+    private static TransportResponse send(HttpURLConnection connection) throws IOException
+    {
+        try
+        {
+            connection.connect();
+        }
+        catch(SocketTimeoutException e)
+        {
+            // System.out.println("Timeout Expired before connection was established");
+        }
+        catch(IOException e)
+        {
+            // getResponseCode below reports connection failures
+        }
+        try
+        {
+            int statusCode = connection.getResponseCode();
+            return new UrlConnectionResponse(connection, statusCode);
+        }
+        catch(IOException e)
+        {
+            connection.disconnect();
+            throw e;
+        }
+    }
+
+    private static class UrlConnectionResponse implements TransportResponse
+    {
+        private final HttpURLConnection connection;
+        private final int statusCode;
+        private InputStream body;
+
+        UrlConnectionResponse(HttpURLConnection connection, int statusCode)
+        {
+            this.connection = connection;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        @Override
+        public String getHeader(String name)
+        {
+            return connection.getHeaderField(name);
+        }
+
+        @Override
+        public synchronized InputStream getBody() throws IOException
+        {
+            if(body == null) body = connection.getInputStream();
+            return body;
+        }
+
+        @Override
+        public synchronized void close()
+        {
+            try
+            {
+                if(body != null) body.close();
+            }
+            catch(IOException e)
+            {
+                // Best effort
+            }
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+import io.rileyhe1.concurrency.Util.BandwidthLimiter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for BandwidthLimiter class.
+ * Tests that readers sharing a limiter are held to its rate and that the rate can change while they wait.
+ */
+class BandwidthLimiterTest
+{
+    private static final long RATE = 1024 * 1024;
+
+    // reads total bytes in buffer-sized pieces the way ChunkDownloader does
+    private static void read(BandwidthLimiter limiter, long total, int bufferSize) throws InterruptedException
+    {
+        for (long read = 0; read < total; read += bufferSize)
+        {
+            limiter.reserve(bufferSize);
+            long wait;
+            while ((wait = limiter.waitNanos()) > 0)
+            {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+        }
+    }
+
+    @Test
+    void testNegativeRateRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new BandwidthLimiter(-1);
+        }, "Should throw exception for negative rate");
+
+        BandwidthLimiter limiter = new BandwidthLimiter(RATE);
+        assertThrows(IllegalArgumentException.class, () -> limiter.setRate(-1));
+        assertEquals(RATE, limiter.getRate(), "A rejected rate should leave the old one in place");
+    }
+
+    @Test
+    void testZeroRateIsUnlimited()
+    {
+        BandwidthLimiter limiter = new BandwidthLimiter(0);
+        assertTrue(limiter.isUnlimited());
+        limiter.reserve(Long.MAX_VALUE / 2);
+        assertEquals(0, limiter.waitNanos(), "An unlimited limiter should never make readers wait");
+    }
+
+    @Test
+    void testBurstDoesNotWait()
+    {
+        BandwidthLimiter limiter = new BandwidthLimiter(RATE);
+        // a fresh bucket holds BURST_NANOS worth of tokens
+        limiter.reserve(RATE / 20);
+        assertEquals(0, limiter.waitNanos());
+    }
+
+    @Test
+    void testDebtMakesReadersWait()
+    {
+        BandwidthLimiter limiter = new BandwidthLimiter(RATE);
+        limiter.reserve(RATE);
+        long wait = limiter.waitNanos();
+        // a second of bytes minus the burst the bucket started with
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(800) && wait <= TimeUnit.SECONDS.toNanos(1),
+            "Wait should match the debt at the configured rate, was " + wait + "ns");
+    }
+
+    @Test
+    @Timeout(10)
+    void testSingleReaderHeldToRate() throws InterruptedException
+    {
+        BandwidthLimiter limiter = new BandwidthLimiter(RATE);
+        long start = System.nanoTime();
+        read(limiter, 2 * RATE, 8192);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        assertTrue(seconds >= 1.8, "2 MB at 1 MB/s should take close to 2 seconds, took " + seconds);
+        assertTrue(seconds < 3.0, "Limiter should not be much slower than its rate, took " + seconds);
+    }
+
+    @Test
+    @Timeout(10)
+    void testConcurrentReadersShareRate() throws InterruptedException
+    {
+        BandwidthLimiter limiter = new BandwidthLimiter(RATE);
+        int readers = 8;
+        CountDownLatch finished = new CountDownLatch(readers);
+        long start = System.nanoTime();
+        for (int i = 0; i < readers; i++)
+        {
+            new Thread(() -> {
+                try
+                {
+                    read(limiter, RATE / 4, 8192);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+            }).start();
+        }
+
+        assertTrue(finished.await(8, TimeUnit.SECONDS), "All readers should finish");
+        double seconds = (System.nanoTime() - start) / 1e9;
+        // eight readers of 256 KB each is 2 MB in total
+        assertTrue(seconds >= 1.8, "Readers together should be held to 1 MB/s, took " + seconds);
+        assertTrue(seconds < 3.0, "Readers together should still get the full rate, took " + seconds);
+    }
+
+    @Test
+    @Timeout(10)
+    void testRaisingLimitReleasesWaiters() throws InterruptedException
+    {
+        BandwidthLimiter limiter = new BandwidthLimiter(1024);
+        limiter.reserve(RATE);
+        assertTrue(limiter.waitNanos() > TimeUnit.SECONDS.toNanos(60), "1 MB at 1 KB/s should be a long wait");
+
+        limiter.setRate(0);
+        assertEquals(0, limiter.waitNanos(), "Removing the limit should end the wait straight away");
+    }
+
+    @Test
+    void testLoweringLimitKeepsDebt()
+    {
+        BandwidthLimiter limiter = new BandwidthLimiter(RATE);
+        limiter.reserve(RATE);
+        limiter.setRate(RATE / 2);
+        assertTrue(limiter.waitNanos() > TimeUnit.SECONDS.toNanos(1),
+            "Bytes read before the change should be paid for at the new, lower rate");
+    }
+
+    @Test
+    @Timeout(10)
+    void testLongGapPaysOffDebt() throws InterruptedException
+    {
+        BandwidthLimiter limiter = new BandwidthLimiter(10_000);
+        // a full bucket of 1000 bytes, then 15000 bytes of debt
+        limiter.reserve(16_000);
+        // a reader paused this long has earned 11000 bytes back, not just a bucket's worth
+        Thread.sleep(1100);
+        long wait = limiter.waitNanos();
+        assertTrue(wait > 0, "Some of the debt should be left");
+        assertTrue(wait < TimeUnit.SECONDS.toNanos(1), "The gap should count at the full rate, waited " + wait);
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all BandwidthLimiter tests:
+   mvn test -Dtest=BandwidthLimiterTest
+
+Run specific test:
+   mvn test -Dtest=BandwidthLimiterTest#testConcurrentReadersShareRate
+
+============================================================ */
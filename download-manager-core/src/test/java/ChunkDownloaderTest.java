@@ -1,3 +1,4 @@
+import io.rileyhe1.concurrency.Data.ChunkRange;
 import io.rileyhe1.concurrency.Data.ChunkResult;
 import io.rileyhe1.concurrency.Data.DownloadConfig;
 import io.rileyhe1.concurrency.Util.ChunkDownloader;
@@ -10,6 +11,8 @@ import org.junit.jupiter.api.Timeout;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -23,11 +26,13 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class ChunkDownloaderTest
 {
-    // Use a reliable test file - W3C dummy PDF (small, ~13KB)
-    private static final String TEST_URL = "https://www.w3.org/WAI/ER/tests/xhtml/testfiles/resources/pdf/dummy.pdf";
+    // Small file served at full speed (~13KB, the size of the PDF these tests used to fetch)
+    private LocalRangeServer server;
+    private String testUrl;
     
-    // Use a larger file for pause/resume/cancel tests
-    private static final String LARGE_TEST_URL = "https://commondatastorage.googleapis.com/gtv-videos-bucket/sample/BigBuckBunny.mp4";
+    // Larger file capped at 64KB/s per connection, so pause/resume/cancel land mid-download
+    private LocalRangeServer slowServer;
+    private String largeTestUrl;
     
     private DownloadConfig config;
     private String tempDir;
@@ -36,6 +41,11 @@ class ChunkDownloaderTest
     @BeforeEach
     void setUp(@TempDir Path tempDirectory) throws IOException
     {
+        server = LocalRangeServer.builder().size(13264).start();
+        testUrl = server.url();
+        slowServer = LocalRangeServer.builder().size(1024 * 1024).bytesPerSecond(64 * 1024).start();
+        largeTestUrl = slowServer.url();
+
         // Set up temp directory for test files
         tempDir = tempDirectory.toString();
         
@@ -58,6 +68,9 @@ class ChunkDownloaderTest
     @AfterEach
     void tearDown() throws IOException
     {
+        server.close();
+        slowServer.close();
+
         // Clean up any test files
         Files.walk(Paths.get(tempDir))
             .sorted(java.util.Comparator.reverseOrder())
@@ -83,7 +96,7 @@ class ChunkDownloaderTest
         // Download first 1KB of test file (bytes 0-1023 = 1024 bytes)
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            testUrl,
             0,
             1023,
             0, // alreadyDownloaded
@@ -113,7 +126,7 @@ class ChunkDownloaderTest
         // Download first chunk (0-1023)
         ChunkDownloader chunk1 = new ChunkDownloader(
             chunk1Dir,
-            TEST_URL,
+            testUrl,
             0,
             1023,
             0, // alreadyDownloaded
@@ -125,7 +138,7 @@ class ChunkDownloaderTest
         // Download second chunk (1024-2047)
         ChunkDownloader chunk2 = new ChunkDownloader(
             chunk2Dir,
-            TEST_URL,
+            testUrl,
             1024,
             2047,
             0, // alreadyDownloaded
@@ -147,11 +160,103 @@ class ChunkDownloaderTest
     }
 
     @Test
-    void testInvalidURL()
+    void testDirectChunkWritesAtItsOffset() throws IOException
+    {
+        Path destination = Paths.get(tempDir, "direct.bin");
+        try (RandomAccessFile file = new RandomAccessFile(destination.toFile(), "rw"))
+        {
+            file.setLength(2048);
+            FileChannel channel = file.getChannel();
+
+            // only the second half of the file, the first half should be left untouched
+            ChunkDownloader chunk = ChunkDownloader.forChannel(channel, testUrl, 1024, 2047, 0, 1, config, null);
+            ChunkResult result = chunk.call();
+
+            assertTrue(result.isSuccessful(), "Direct chunk should succeed");
+            assertEquals(1024, result.getBytesDownloaded());
+            assertNull(result.getTempFilePath(), "Direct chunks have no temp file to assemble");
+        }
+
+        byte[] written = Files.readAllBytes(destination);
+        assertEquals(2048, written.length, "Positional writes should not grow the file");
+        for (int i = 0; i < 1024; i++)
+        {
+            assertEquals(0, written[i], "Bytes before the chunk's range should not be written");
+        }
+        assertFalse(Files.exists(Paths.get(chunkTempDir, "chunk1.bin")), "Direct chunks should not create temp files");
+    }
+
+    @Test
+    void testDirectChunkRejectsNullChannel()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            ChunkDownloader.forChannel(null, testUrl, 0, 1023, 0, 0, config, null);
+        }, "Should throw exception for null destination channel");
+    }
+
+    @Test
+    void testSplitRemainingGivesAwayUnreadTail() throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(Paths.get(tempDir, "split.bin"),
+                java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.WRITE))
+        {
+            // 2000 of 10000 bytes already downloaded, so 8000 are left to share
+            ChunkDownloader chunk = ChunkDownloader.forChannel(channel, testUrl, 0, 9999, 2000, 0, config, null);
+
+            ChunkRange stolen = chunk.splitRemaining(1000);
+            assertNotNull(stolen, "Range with plenty left should split");
+            assertEquals(5999, chunk.getEndByte(), "Chunk should keep the first half of what's left");
+            assertEquals(6000, stolen.getStartByte());
+            assertEquals(9999, stolen.getEndByte());
+            assertEquals(4000, chunk.getRemainingBytes());
+
+            // 4000 left is less than twice 3000, not worth another connection
+            assertNull(chunk.splitRemaining(3000));
+            assertEquals(5999, chunk.getEndByte(), "A refused split should not change the range");
+
+            chunk.cancel();
+            assertNull(chunk.splitRemaining(1), "Cancelled chunks should not be split");
+        }
+    }
+
+    @Test
+    void testSplitRangesDownloadCorrectly() throws IOException
+    {
+        Path destination = Paths.get(tempDir, "split-download.bin");
+        try (RandomAccessFile file = new RandomAccessFile(destination.toFile(), "rw"))
+        {
+            file.setLength(4096);
+            FileChannel channel = file.getChannel();
+
+            ChunkDownloader first = ChunkDownloader.forChannel(channel, testUrl, 0, 4095, 0, 0, config, null);
+            ChunkRange stolen = first.splitRemaining(1024);
+            ChunkDownloader second = ChunkDownloader.forChannel(channel, testUrl, stolen.getStartByte(), stolen.getEndByte(), 0, 1, config, null);
+
+            ChunkResult result1 = first.call();
+            ChunkResult result2 = second.call();
+            assertTrue(result1.isSuccessful());
+            assertTrue(result2.isSuccessful());
+            assertEquals(4096, result1.getBytesDownloaded() + result2.getBytesDownloaded(),
+                "Both halves together should cover the original range exactly once");
+        }
+
+        // compare against the same bytes fetched as one range
+        Path reference = Paths.get(tempDir, "reference.bin");
+        try (RandomAccessFile file = new RandomAccessFile(reference.toFile(), "rw"))
+        {
+            file.setLength(4096);
+            ChunkDownloader whole = ChunkDownloader.forChannel(file.getChannel(), testUrl, 0, 4095, 0, 0, config, null);
+            assertTrue(whole.call().isSuccessful());
+        }
+        assertArrayEquals(Files.readAllBytes(reference), Files.readAllBytes(destination));
+    }
+
+    @Test
+    void testInvalidURL() throws IOException
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            "https://this-is-not-a-real-url-12345.com/file.bin",
+            LocalRangeServer.unreachableUrl(),
             0,
             1023,
             0, // alreadyDownloaded
@@ -173,7 +278,7 @@ class ChunkDownloaderTest
         // Request bytes beyond file size
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            testUrl,
             999999999,
             999999999 + 1023,
             0, // alreadyDownloaded
@@ -197,17 +302,17 @@ class ChunkDownloaderTest
     {
         // Test null parent directory
         assertThrows(IllegalArgumentException.class, () -> {
-            new ChunkDownloader(null, TEST_URL, 0, 1023, 0, 0, config, null);
+            new ChunkDownloader(null, testUrl, 0, 1023, 0, 0, config, null);
         });
 
         // Test empty parent directory
         assertThrows(IllegalArgumentException.class, () -> {
-            new ChunkDownloader("", TEST_URL, 0, 1023, 0, 0, config, null);
+            new ChunkDownloader("", testUrl, 0, 1023, 0, 0, config, null);
         });
 
         // Test non-existent parent directory
         assertThrows(IllegalArgumentException.class, () -> {
-            new ChunkDownloader("/nonexistent/directory", TEST_URL, 0, 1023, 0, 0, config, null);
+            new ChunkDownloader("/nonexistent/directory", testUrl, 0, 1023, 0, 0, config, null);
         });
 
         // Test null URL
@@ -222,32 +327,32 @@ class ChunkDownloaderTest
 
         // Test negative start byte
         assertThrows(IllegalArgumentException.class, () -> {
-            new ChunkDownloader(chunkTempDir, TEST_URL, -1, 1023, 0, 0, config, null);
+            new ChunkDownloader(chunkTempDir, testUrl, -1, 1023, 0, 0, config, null);
         });
 
         // Test end byte less than start byte
         assertThrows(IllegalArgumentException.class, () -> {
-            new ChunkDownloader(chunkTempDir, TEST_URL, 1000, 500, 0, 0, config, null);
+            new ChunkDownloader(chunkTempDir, testUrl, 1000, 500, 0, 0, config, null);
         });
 
         // Test null config
         assertThrows(IllegalArgumentException.class, () -> {
-            new ChunkDownloader(chunkTempDir, TEST_URL, 0, 1023, 0, 0, null, null);
+            new ChunkDownloader(chunkTempDir, testUrl, 0, 1023, 0, 0, null, null);
         });
 
         // Test negative chunk index
         assertThrows(IllegalArgumentException.class, () -> {
-            new ChunkDownloader(chunkTempDir, TEST_URL, 0, 1023, 0, -1, config, null);
+            new ChunkDownloader(chunkTempDir, testUrl, 0, 1023, 0, -1, config, null);
         });
 
         // Test negative alreadyDownloaded
         assertThrows(IllegalArgumentException.class, () -> {
-            new ChunkDownloader(chunkTempDir, TEST_URL, 0, 1023, -1, 0, config, null);
+            new ChunkDownloader(chunkTempDir, testUrl, 0, 1023, -1, 0, config, null);
         });
 
         // Test alreadyDownloaded exceeds chunk size
         assertThrows(IllegalArgumentException.class, () -> {
-            new ChunkDownloader(chunkTempDir, TEST_URL, 0, 1023, 2000, 0, config, null);
+            new ChunkDownloader(chunkTempDir, testUrl, 0, 1023, 2000, 0, config, null);
         });
     }
 
@@ -256,7 +361,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            testUrl,
             0,
             511,  // 512 bytes
             0, // alreadyDownloaded
@@ -283,7 +388,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            testUrl,
             0,
             1023,
             0, // alreadyDownloaded
@@ -308,7 +413,7 @@ class ChunkDownloaderTest
         // Download just 100 bytes (0-99 = 100 bytes)
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            testUrl,
             0,
             99,
             0, // alreadyDownloaded
@@ -331,7 +436,7 @@ class ChunkDownloaderTest
 
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            testUrl,
             0,
             1023,
             0, // alreadyDownloaded
@@ -349,7 +454,7 @@ class ChunkDownloaderTest
     }
 
     @Test
-    void testRetryOnFailure()
+    void testRetryOnFailure() throws IOException
     {
         // Use an unreliable URL to trigger retries
         DownloadConfig retryConfig = DownloadConfig.builder()
@@ -359,22 +464,27 @@ class ChunkDownloaderTest
             .tempDirectory(tempDir)
             .build();
 
-        ChunkDownloader downloader = new ChunkDownloader(
-            chunkTempDir,
-            "https://httpstat.us/500",  // Returns 500 error
-            0,
-            1023,
-            0, // alreadyDownloaded
-            0, // chunkIndex
-            retryConfig,
-            null
-        );
-
-        ChunkResult result = downloader.call();
-
-        // Should fail after retries
-        assertFalse(result.isSuccessful());
-        assertTrue(result.hasError());
+        try (LocalRangeServer failingServer = LocalRangeServer.builder().failFirst(Integer.MAX_VALUE, 500).start())
+        {
+            ChunkDownloader downloader = new ChunkDownloader(
+                chunkTempDir,
+                failingServer.url(),  // Returns 500 error
+                0,
+                1023,
+                0, // alreadyDownloaded
+                0, // chunkIndex
+                retryConfig,
+                null
+            );
+
+            ChunkResult result = downloader.call();
+
+            // Should fail after retries
+            assertFalse(result.isSuccessful());
+            assertTrue(result.hasError());
+            assertEquals(3, failingServer.getRequestCount(), "Every retry should send a new request");
+            assertEquals(2, downloader.getRetryCount(), "The last failed attempt isn't retried so shouldn't count");
+        }
     }
 
     @Test
@@ -383,7 +493,7 @@ class ChunkDownloaderTest
         // Verify pause/resume/cancel methods exist and don't throw errors
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            testUrl,
             0,
             1023,
             0, // alreadyDownloaded
@@ -487,7 +597,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            LARGE_TEST_URL,
+            largeTestUrl,
             0,
             80000,
             0, // alreadyDownloaded
@@ -520,7 +630,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            LARGE_TEST_URL,
+            largeTestUrl,
             0,
             80000,
             0, // alreadyDownloaded
@@ -552,7 +662,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            LARGE_TEST_URL,
+            largeTestUrl,
             0,
             50000,
             0, // alreadyDownloaded
@@ -583,7 +693,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            LARGE_TEST_URL,
+            largeTestUrl,
             0,
             50000,
             0, // alreadyDownloaded
@@ -616,7 +726,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            testUrl,
             0,
             10000,
             0, // alreadyDownloaded
@@ -646,7 +756,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            testUrl,
             0,
             10000,
             0, // alreadyDownloaded
@@ -671,7 +781,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            largeTestUrl,
             0,
             50000,
             0, // alreadyDownloaded
@@ -699,7 +809,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            LARGE_TEST_URL,
+            largeTestUrl,
             0,
             50000,
             0, // alreadyDownloaded
@@ -728,7 +838,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            testUrl,
             0,
             100,
             0, // alreadyDownloaded
@@ -754,7 +864,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            LARGE_TEST_URL,
+            largeTestUrl,
             0,
             80000,
             0, // alreadyDownloaded
@@ -807,7 +917,7 @@ class ChunkDownloaderTest
     {
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            LARGE_TEST_URL,
+            largeTestUrl,
             0,
             20000,
             0, // alreadyDownloaded
@@ -845,7 +955,7 @@ class ChunkDownloaderTest
         // This simulates resuming a partially completed chunk
         ChunkDownloader downloader = new ChunkDownloader(
             chunkTempDir,
-            TEST_URL,
+            testUrl,
             0,
             2000,
             1000, // Already downloaded 1000 bytes
@@ -877,7 +987,7 @@ class ChunkDownloaderTest
 
         ChunkDownloader downloader1 = new ChunkDownloader(
             dir1,
-            TEST_URL,
+            testUrl,
             0,
             1023,
             0,
@@ -888,7 +998,7 @@ class ChunkDownloaderTest
 
         ChunkDownloader downloader2 = new ChunkDownloader(
             dir2,
-            TEST_URL,
+            testUrl,
             0,
             1023,
             0,
@@ -920,7 +1030,7 @@ class ChunkDownloaderTest
 
         ChunkDownloader downloader = new ChunkDownloader(
             parentDir,
-            TEST_URL,
+            testUrl,
             0,
             1023,
             0,
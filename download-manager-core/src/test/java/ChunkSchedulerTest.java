@@ -0,0 +1,263 @@
+import io.rileyhe1.concurrency.Data.ExecutionMode;
+import io.rileyhe1.concurrency.Util.ChunkScheduler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for ChunkScheduler class.
+ * Tests that chunk work is bounded by the worker count and that monitors never compete with chunks for workers.
+ */
+class ChunkSchedulerTest
+{
+    private static final int WORKERS = 4;
+
+    private ChunkScheduler scheduler;
+
+    @BeforeEach
+    void setUp()
+    {
+        scheduler = new ChunkScheduler(WORKERS);
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void testConstructorRejectsZeroThreads()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ChunkScheduler(0);
+        }, "Should throw exception for less than one worker");
+    }
+
+    @Test
+    void testWorkerCountMatchesConfiguredThreads()
+    {
+        assertEquals(WORKERS, scheduler.getWorkerCount());
+    }
+
+    @Test
+    @Timeout(10)
+    void testConcurrentChunksNeverExceedWorkerCount() throws InterruptedException
+    {
+        int tasks = 100;
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger maxRunning = new AtomicInteger(0);
+        CountDownLatch finished = new CountDownLatch(tasks);
+
+        for (int i = 0; i < tasks; i++)
+        {
+            scheduler.submitChunk(() -> {
+                int now = running.incrementAndGet();
+                maxRunning.accumulateAndGet(now, Math::max);
+                try
+                {
+                    Thread.sleep(5);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                finished.countDown();
+            });
+        }
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS), "All chunk tasks should finish");
+        assertTrue(maxRunning.get() <= WORKERS,
+            "At most " + WORKERS + " chunks should run at once, saw " + maxRunning.get());
+    }
+
+    @Test
+    @Timeout(10)
+    void testExtraChunksAreQueued() throws InterruptedException
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(WORKERS);
+
+        for (int i = 0; i < WORKERS + 3; i++)
+        {
+            scheduler.submitChunk(() -> {
+                started.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS), "Every worker should pick up a chunk");
+        assertEquals(WORKERS, scheduler.getActiveChunkCount());
+        assertEquals(3, scheduler.getQueuedChunkCount(), "Chunks beyond the worker count should wait in the queue");
+
+        release.countDown();
+    }
+
+    @Test
+    @Timeout(10)
+    void testMonitorsRunWhileAllWorkersAreBusy() throws InterruptedException
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(WORKERS);
+
+        for (int i = 0; i < WORKERS; i++)
+        {
+            scheduler.submitChunk(() -> {
+                started.countDown();
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // a monitor waiting on chunks must not need a chunk worker to run
+        CountDownLatch monitorRan = new CountDownLatch(1);
+        scheduler.submitMonitor(monitorRan::countDown);
+
+        assertTrue(monitorRan.await(2, TimeUnit.SECONDS), "Monitor should run even when every chunk worker is busy");
+        release.countDown();
+    }
+
+    // ============================================================
+    // VIRTUAL THREAD MODE TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(10)
+    void testVirtualModeRespectsManagerLimit() throws InterruptedException
+    {
+        ChunkScheduler virtualScheduler = new ChunkScheduler(WORKERS, ExecutionMode.VIRTUAL_THREADS, 0);
+        try
+        {
+            int tasks = 200;
+            AtomicInteger running = new AtomicInteger(0);
+            AtomicInteger maxRunning = new AtomicInteger(0);
+            CountDownLatch finished = new CountDownLatch(tasks);
+
+            for (int i = 0; i < tasks; i++)
+            {
+                virtualScheduler.submitChunk("host-" + (i % 7), () -> {
+                    assertTrue(Thread.currentThread().isVirtual(), "Chunks should run on virtual threads");
+                    int now = running.incrementAndGet();
+                    maxRunning.accumulateAndGet(now, Math::max);
+                    try
+                    {
+                        Thread.sleep(2);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    finished.countDown();
+                });
+            }
+
+            assertTrue(finished.await(5, TimeUnit.SECONDS), "All chunk tasks should finish");
+            assertTrue(maxRunning.get() <= WORKERS,
+                "Semaphore should cap concurrent chunks at " + WORKERS + ", saw " + maxRunning.get());
+        }
+        finally
+        {
+            virtualScheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testVirtualModeRespectsPerHostLimit() throws InterruptedException
+    {
+        ChunkScheduler virtualScheduler = new ChunkScheduler(16, ExecutionMode.VIRTUAL_THREADS, 2);
+        try
+        {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(3);
+
+            // five chunks for one host and one for another, only two of the first host's may run
+            for (int i = 0; i < 5; i++)
+            {
+                virtualScheduler.submitChunk("slow.example.com", () -> {
+                    started.countDown();
+                    try
+                    {
+                        release.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            virtualScheduler.submitChunk("fast.example.com", started::countDown);
+
+            assertTrue(started.await(5, TimeUnit.SECONDS), "Two chunks for the busy host and the other host's chunk should start");
+            Thread.sleep(100);
+            assertEquals(2, virtualScheduler.getActiveChunkCount(), "Only two chunks for the busy host should be connected");
+            assertEquals(3, virtualScheduler.getQueuedChunkCount(), "The rest should wait for a host permit");
+
+            release.countDown();
+        }
+        finally
+        {
+            virtualScheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void testHostKeyIncludesPort()
+    {
+        assertEquals("example.com", ChunkScheduler.hostKey("https://example.com/file.bin"));
+        assertEquals("127.0.0.1:8080", ChunkScheduler.hostKey("http://127.0.0.1:8080/file.bin"));
+    }
+
+    @Test
+    @Timeout(10)
+    void testPeriodicTaskRunsUntilCancelled() throws InterruptedException
+    {
+        CountDownLatch ticks = new CountDownLatch(3);
+        AtomicInteger runs = new AtomicInteger(0);
+        ScheduledFuture<?> task = scheduler.schedulePeriodic(() -> {
+            runs.incrementAndGet();
+            ticks.countDown();
+            // a failing tick must not stop the ones after it
+            throw new IllegalStateException("tick failed");
+        }, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(ticks.await(5, TimeUnit.SECONDS), "Task should keep running after a tick throws");
+        task.cancel(false);
+        Thread.sleep(50);
+        int afterCancel = runs.get();
+        Thread.sleep(100);
+        assertEquals(afterCancel, runs.get(), "Cancelled task should not run again");
+    }
+
+    @Test
+    void testShutdown()
+    {
+        scheduler.shutdown();
+        assertTrue(scheduler.isShutdown());
+    }
+}
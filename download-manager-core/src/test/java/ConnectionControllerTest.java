@@ -0,0 +1,157 @@
+import io.rileyhe1.concurrency.Util.ConnectionController;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for ConnectionController class.
+ * Feeds synthetic throughput samples and checks the additive increase / multiplicative decrease decisions.
+ */
+class ConnectionControllerTest
+{
+    private static final long SECOND = 1_000_000_000L;
+
+    // feeds one window at the given rate and returns the new limit
+    private static int window(ConnectionController controller, long[] bytes, long[] now, long bytesPerSecond, boolean waiting)
+    {
+        bytes[0] += bytesPerSecond;
+        now[0] += SECOND;
+        controller.sample(bytes[0], now[0], waiting);
+        return controller.getLimit();
+    }
+
+    @Test
+    void testConstructorValidation()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionController(0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionController(8, 4));
+    }
+
+    @Test
+    void testStartsAtInitialConnections()
+    {
+        ConnectionController controller = new ConnectionController(3, 10);
+        assertEquals(3, controller.getLimit());
+        assertEquals(10, controller.getMaxConnections());
+    }
+
+    @Test
+    void testGrowsWhileThroughputRises()
+    {
+        ConnectionController controller = new ConnectionController(2, 10);
+        long[] bytes = {0};
+        long[] now = {SECOND};
+        controller.sample(0, now[0], true);
+
+        // throughput scales with the connection count, so every probe pays off
+        int limit = window(controller, bytes, now, 2 * 1000, true);
+        assertEquals(3, limit);
+        for (int i = 0; i < 5; i++)
+        {
+            limit = window(controller, bytes, now, limit * 1000L, true);
+        }
+        assertEquals(8, limit, "Limit should keep growing by one per window while throughput rises");
+    }
+
+    @Test
+    void testNeverExceedsMax()
+    {
+        ConnectionController controller = new ConnectionController(2, 4);
+        long[] bytes = {0};
+        long[] now = {SECOND};
+        controller.sample(0, now[0], true);
+
+        int limit = 2;
+        for (int i = 0; i < 10; i++)
+        {
+            limit = window(controller, bytes, now, limit * 1000L, true);
+        }
+        assertEquals(4, limit);
+    }
+
+    @Test
+    void testPlateauGivesBackLastConnection()
+    {
+        ConnectionController controller = new ConnectionController(4, 10);
+        long[] bytes = {0};
+        long[] now = {SECOND};
+        controller.sample(0, now[0], true);
+
+        assertEquals(5, window(controller, bytes, now, 4000, true), "First full window should probe one more connection");
+        assertEquals(4, window(controller, bytes, now, 4000, true), "No gain from the fifth connection, so it's given back");
+
+        // and it holds for a while before probing again
+        for (int i = 0; i < 4; i++)
+        {
+            assertEquals(4, window(controller, bytes, now, 4000, true));
+        }
+        assertEquals(5, window(controller, bytes, now, 4000, true), "Should probe again once the hold is over");
+    }
+
+    @Test
+    void testDoesNotGrowWithoutWaitingChunks()
+    {
+        ConnectionController controller = new ConnectionController(2, 10);
+        long[] bytes = {0};
+        long[] now = {SECOND};
+        controller.sample(0, now[0], false);
+
+        for (int i = 0; i < 5; i++)
+        {
+            assertEquals(2, window(controller, bytes, now, 2000, false),
+                "Extra connections are pointless when no chunk is waiting for one");
+        }
+    }
+
+    @Test
+    void testThrottlingHalvesLimit()
+    {
+        ConnectionController controller = new ConnectionController(16, 32);
+        controller.onThrottled(0, 429);
+        assertEquals(8, controller.getLimit());
+
+        // more throttled responses in the same window come from connections opened before the cut
+        controller.onThrottled(1, 503);
+        controller.onConnectionReset(2);
+        assertEquals(8, controller.getLimit(), "Limit should only be halved once per window");
+
+        controller.sample(0, SECOND, true);
+        controller.sample(1000, 2 * SECOND, true);
+        controller.onConnectionReset(3);
+        assertEquals(4, controller.getLimit(), "A reset in a later window should halve again");
+    }
+
+    @Test
+    void testLimitNeverDropsBelowOne()
+    {
+        ConnectionController controller = new ConnectionController(1, 4);
+        controller.onThrottled(0, 503);
+        assertEquals(1, controller.getLimit());
+    }
+
+    @Test
+    void testResetWindowIgnoresIdleTime()
+    {
+        ConnectionController controller = new ConnectionController(4, 10);
+        long[] bytes = {0};
+        long[] now = {SECOND};
+        controller.sample(0, now[0], true);
+        assertEquals(5, window(controller, bytes, now, 4000, true));
+
+        // paused for a minute, nothing downloaded
+        controller.resetWindow();
+        now[0] += 60 * SECOND;
+        controller.sample(bytes[0], now[0], true);
+        assertEquals(5, controller.getLimit(), "Time spent paused should not count as a plateau");
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all ConnectionController tests:
+   mvn test -Dtest=ConnectionControllerTest
+
+============================================================ */
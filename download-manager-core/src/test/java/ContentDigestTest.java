@@ -0,0 +1,179 @@
+import io.rileyhe1.concurrency.Util.ContentDigest;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for ContentDigest class.
+ * Tests parsing of the digest headers servers send and of digests callers supply.
+ */
+class ContentDigestTest
+{
+    private static final byte[] CONTENT = "hello world".getBytes(StandardCharsets.UTF_8);
+
+    private static byte[] hash(String algorithm) throws Exception
+    {
+        return MessageDigest.getInstance(algorithm).digest(CONTENT);
+    }
+
+    private static String base64(byte[] value)
+    {
+        return Base64.getEncoder().encodeToString(value);
+    }
+
+    // ============================================================
+    // CALLER SUPPLIED DIGEST TESTS
+    // ============================================================
+
+    @Test
+    void testSha256FromHex() throws Exception
+    {
+        byte[] expected = hash("SHA-256");
+        ContentDigest digest = ContentDigest.sha256(HexFormat.of().formatHex(expected).toUpperCase());
+
+        assertEquals("sha-256", digest.getAlgorithm());
+        assertArrayEquals(expected, digest.getValue());
+        assertTrue(digest.matches(expected));
+        assertEquals(HexFormat.of().formatHex(expected), digest.toHex());
+    }
+
+    @Test
+    void testSha256RejectsBadHex()
+    {
+        assertThrows(IllegalArgumentException.class, () -> ContentDigest.sha256("not hex"));
+        assertThrows(IllegalArgumentException.class, () -> ContentDigest.sha256("abcd"), "A digest of the wrong length should be rejected");
+        assertThrows(IllegalArgumentException.class, () -> ContentDigest.sha256(null));
+    }
+
+    @Test
+    void testSha1OnlyWhenNamed() throws Exception
+    {
+        byte[] expected = hash("SHA-1");
+        ContentDigest digest = ContentDigest.fromHex("SHA-1", HexFormat.of().formatHex(expected));
+
+        assertEquals("sha-1", digest.getAlgorithm());
+        assertTrue(digest.matches(digest.newMessageDigest().digest(CONTENT)));
+        assertNull(ContentDigest.fromStructuredHeader("sha-1=:" + base64(expected) + ":"), "Servers never get to pick SHA-1");
+    }
+
+    @Test
+    void testUnsupportedAlgorithmRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new ContentDigest("crc32c", new byte[4]));
+    }
+
+    @Test
+    void testMatchesRejectsOtherValues() throws Exception
+    {
+        ContentDigest digest = new ContentDigest("sha-256", hash("SHA-256"));
+        byte[] other = hash("SHA-256");
+        other[0] ^= 1;
+
+        assertFalse(digest.matches(other));
+        assertFalse(digest.matches(null));
+    }
+
+    // ============================================================
+    // HEADER PARSING TESTS
+    // ============================================================
+
+    @Test
+    void testStructuredHeader() throws Exception
+    {
+        byte[] expected = hash("SHA-256");
+        ContentDigest digest = ContentDigest.fromStructuredHeader("sha-256=:" + base64(expected) + ":");
+
+        assertNotNull(digest);
+        assertEquals("sha-256", digest.getAlgorithm());
+        assertArrayEquals(expected, digest.getValue());
+    }
+
+    @Test
+    void testStructuredHeaderPrefersStrongestAlgorithm() throws Exception
+    {
+        String header = "md5=:" + base64(hash("MD5")) + ":, sha-512=:" + base64(hash("SHA-512")) + ":";
+        ContentDigest digest = ContentDigest.fromStructuredHeader(header);
+
+        assertEquals("sha-512", digest.getAlgorithm(), "sha-512 should win over md5");
+    }
+
+    @Test
+    void testStructuredHeaderSkipsUnknownAndMalformed() throws Exception
+    {
+        String header = "unixsum=:AAAA:, sha-256=bm90LWNvbG9ucw==, md5=:" + base64(hash("MD5")) + ":";
+        ContentDigest digest = ContentDigest.fromStructuredHeader(header);
+
+        assertEquals("md5", digest.getAlgorithm(), "An sha-256 member without colons is not a byte sequence");
+        assertNull(ContentDigest.fromStructuredHeader("sha-256=:!!!:"));
+        assertNull(ContentDigest.fromStructuredHeader(null));
+    }
+
+    @Test
+    void testLegacyDigestHeader() throws Exception
+    {
+        byte[] expected = hash("SHA-256");
+        ContentDigest digest = ContentDigest.fromDigestHeader("SHA-256=" + base64(expected));
+
+        assertNotNull(digest);
+        assertEquals("sha-256", digest.getAlgorithm(), "Algorithm names are case insensitive");
+        assertArrayEquals(expected, digest.getValue());
+    }
+
+    @Test
+    void testContentMd5Header() throws Exception
+    {
+        byte[] expected = hash("MD5");
+        ContentDigest digest = ContentDigest.fromContentMd5(base64(expected));
+
+        assertEquals("md5", digest.getAlgorithm());
+        assertArrayEquals(expected, digest.getValue());
+        assertNull(ContentDigest.fromContentMd5(base64(new byte[3])), "Wrong length should be ignored");
+    }
+
+    @Test
+    void testToStringRoundTrips() throws Exception
+    {
+        ContentDigest digest = new ContentDigest("sha-512", hash("SHA-512"));
+        ContentDigest parsed = ContentDigest.fromStructuredHeader(digest.toString());
+
+        assertEquals(digest, parsed);
+        assertEquals(digest.hashCode(), parsed.hashCode());
+    }
+
+    @Test
+    void testParseReversesToString() throws Exception
+    {
+        ContentDigest digest = new ContentDigest("sha-1", hash("SHA-1"));
+        assertEquals(digest, ContentDigest.parse(digest.toString()));
+
+        assertNull(ContentDigest.parse(null));
+        assertNull(ContentDigest.parse("sha-1=" + base64(hash("SHA-1"))), "The value has to be wrapped in colons");
+        assertNull(ContentDigest.parse("sha-256=:" + base64(hash("SHA-1")) + ":"), "Wrong length for the algorithm");
+        assertNull(ContentDigest.parse("crc32c=:AAAAAA==:"));
+    }
+
+    @Test
+    void testNewMessageDigestComputesSameAlgorithm() throws Exception
+    {
+        ContentDigest digest = new ContentDigest("md5", hash("MD5"));
+        assertTrue(digest.matches(digest.newMessageDigest().digest(CONTENT)));
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all ContentDigest tests:
+   mvn test -Dtest=ContentDigestTest
+
+Run specific test:
+   mvn test -Dtest=ContentDigestTest#testStructuredHeader
+
+============================================================ */
@@ -0,0 +1,102 @@
+import io.rileyhe1.concurrency.Monitoring.Counter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for Counter class.
+ * Checks that striped adds from many threads are never lost.
+ */
+class CounterTest
+{
+    @Test
+    void testStartsAtZero()
+    {
+        assertEquals(0, new Counter().get());
+    }
+
+    @Test
+    void testAddAndIncrement()
+    {
+        Counter counter = new Counter();
+        counter.increment();
+        counter.add(41);
+        assertEquals(42, counter.get());
+    }
+
+    @Test
+    @Timeout(30)
+    void testConcurrentAddsAreNotLost() throws Exception
+    {
+        Counter counter = new Counter();
+        int threads = 16;
+        int addsPerThread = 100_000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++)
+        {
+            Thread worker = new Thread(() ->
+            {
+                try
+                {
+                    start.await();
+                }
+                catch (InterruptedException e)
+                {
+                    return;
+                }
+                for (int j = 0; j < addsPerThread; j++)
+                {
+                    counter.add(3);
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers)
+        {
+            worker.join();
+        }
+        assertEquals(3L * threads * addsPerThread, counter.get());
+    }
+
+    @Test
+    @Timeout(30)
+    void testReadsDuringWritesNeverGoBackwards() throws Exception
+    {
+        Counter counter = new Counter();
+        Thread writer = new Thread(() ->
+        {
+            for (int i = 0; i < 1_000_000; i++)
+            {
+                counter.increment();
+            }
+        });
+        writer.start();
+        long last = 0;
+        while (writer.isAlive())
+        {
+            long now = counter.get();
+            assertTrue(now >= last, "A scrape should never see the count drop");
+            last = now;
+        }
+        writer.join();
+        assertEquals(1_000_000, counter.get());
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all Counter tests:
+   mvn test -Dtest=CounterTest
+
+============================================================ */
@@ -0,0 +1,233 @@
+import io.rileyhe1.concurrency.Data.ChunkResult;
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.DownloadState;
+import io.rileyhe1.concurrency.Util.ChunkDownloader;
+import io.rileyhe1.concurrency.Util.Download;
+import io.rileyhe1.concurrency.Util.ProgressTracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the flight recorder events in the Monitoring package.
+ * Records real downloads against the local range server and reads the events back out of the dump.
+ */
+class DownloadEventsTest
+{
+    private static final String PREFIX = "io.rileyhe1.concurrency.";
+
+    private Path tempDir;
+    private Recording recording;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDirectory)
+    {
+        tempDir = tempDirectory;
+        recording = new Recording();
+        for (String event : List.of("ChunkConnect", "ChunkFirstByte", "ChunkComplete", "ChunkRetry", "DownloadPaused", "Assembly"))
+        {
+            recording.enable(PREFIX + event).withoutThreshold();
+        }
+        recording.start();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        recording.close();
+    }
+
+    private DownloadConfig config()
+    {
+        return DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSize(128 * 1024)
+            .timeoutsInSeconds(10)
+            .maxRetries(3)
+            .retryDelayMS(100)
+            .tempDirectory(tempDir.toString())
+            .minSizeForChunking(1024)
+            .build();
+    }
+
+    // stops the recording and returns its events of one type
+    private List<RecordedEvent> stopAndRead(String type) throws IOException
+    {
+        recording.stop();
+        Path dump = tempDir.resolve("events.jfr");
+        recording.dump(dump);
+        return events(dump, type);
+    }
+
+    private static List<RecordedEvent> events(Path dump, String type) throws IOException
+    {
+        return RecordingFile.readAllEvents(dump).stream()
+            .filter(event -> event.getEventType().getName().equals(PREFIX + type))
+            .collect(Collectors.toList());
+    }
+
+    // ============================================================
+    // CHUNK EVENT TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    void testChunkLifecycleEvents() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(256 * 1024).start())
+        {
+            Download download = new Download(server.url(), tempDir.resolve("file.bin").toString(), config(), new ProgressTracker());
+            download.start();
+            download.awaitCompletion();
+            assertEquals(DownloadState.COMPLETED, download.getState());
+
+            recording.stop();
+            Path dump = tempDir.resolve("events.jfr");
+            recording.dump(dump);
+
+            List<RecordedEvent> connects = events(dump, "ChunkConnect");
+            assertEquals(2, connects.size(), "One range request per chunk");
+            for (RecordedEvent connect : connects)
+            {
+                assertEquals(206, connect.getInt("statusCode"));
+                assertEquals(server.url(), connect.getString("url"));
+            }
+            assertEquals(2, events(dump, "ChunkFirstByte").size(), "One first byte per range request");
+
+            List<RecordedEvent> completes = events(dump, "ChunkComplete");
+            assertEquals(2, completes.size());
+            long bytes = 0;
+            for (RecordedEvent complete : completes)
+            {
+                assertTrue(complete.getBoolean("successful"));
+                bytes += complete.getLong("bytesDownloaded");
+            }
+            assertEquals(256 * 1024, bytes, "Chunks should account for the whole file");
+
+            List<RecordedEvent> assemblies = events(dump, "Assembly");
+            assertEquals(1, assemblies.size(), "TEMP_FILES downloads assemble once");
+            assertEquals(2, assemblies.get(0).getInt("chunks"));
+            assertEquals(256 * 1024, assemblies.get(0).getLong("bytes"));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testRetryEventsCarryTheCause() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(64 * 1024).failFirst(2, 503).start())
+        {
+            ChunkDownloader chunk = new ChunkDownloader(tempDir.toString(), server.url(), 0, 64 * 1024 - 1, 0, 0, config(), null);
+            ChunkResult result = chunk.call();
+            assertTrue(result.isSuccessful());
+
+            List<RecordedEvent> retries = stopAndRead("ChunkRetry");
+            assertEquals(2, retries.size(), "Each 503 should be retried once");
+            assertEquals(1, retries.get(0).getInt("attempt"));
+            assertEquals(2, retries.get(1).getInt("attempt"));
+            assertEquals(IOException.class.getName(), retries.get(0).getClass("cause").getName());
+            assertTrue(retries.get(0).getString("message").contains("503"));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testFailedChunkCompletes() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().failFirst(Integer.MAX_VALUE, 500).start())
+        {
+            ChunkDownloader chunk = new ChunkDownloader(tempDir.toString(), server.url(), 0, 1023, 0, 0, config(), null);
+            assertFalse(chunk.call().isSuccessful());
+
+            List<RecordedEvent> completes = stopAndRead("ChunkComplete");
+            assertEquals(1, completes.size());
+            assertFalse(completes.get(0).getBoolean("successful"));
+            assertEquals(2, completes.get(0).getInt("retries"));
+        }
+    }
+
+    // ============================================================
+    // DOWNLOAD EVENT TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    void testPauseIsRecordedAsOneSpan() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(1024 * 1024).bytesPerSecond(256 * 1024).start())
+        {
+            Download download = new Download(server.url(), tempDir.resolve("paused.bin").toString(), config(), new ProgressTracker());
+            download.start();
+            Thread.sleep(200);
+            download.pause();
+            Thread.sleep(300);
+            download.resume();
+            download.awaitCompletion();
+
+            List<RecordedEvent> pauses = stopAndRead("DownloadPaused");
+            assertEquals(1, pauses.size());
+            RecordedEvent pause = pauses.get(0);
+            assertEquals(download.getId(), pause.getString("downloadId"));
+            assertEquals("resume", pause.getString("endedBy"));
+            assertTrue(pause.getDuration().toMillis() >= 250, "Span should cover the pause, was " + pause.getDuration());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testCancelEndsPause() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(1024 * 1024).bytesPerSecond(256 * 1024).start())
+        {
+            Download download = new Download(server.url(), tempDir.resolve("cancelled.bin").toString(), config(), new ProgressTracker());
+            download.start();
+            Thread.sleep(200);
+            download.pause();
+            download.cancel();
+
+            List<RecordedEvent> pauses = stopAndRead("DownloadPaused");
+            assertEquals(1, pauses.size());
+            assertEquals("cancel", pauses.get(0).getString("endedBy"));
+        }
+    }
+
+    @Test
+    void testNothingRecordedWithoutPause() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(64 * 1024).start())
+        {
+            Download download = new Download(server.url(), tempDir.resolve("plain.bin").toString(), config(), new ProgressTracker());
+            download.start();
+            download.awaitCompletion();
+
+            assertTrue(stopAndRead("DownloadPaused").isEmpty());
+        }
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all DownloadEvents tests:
+   mvn test -Dtest=DownloadEventsTest
+
+View the events of a real run in JDK Mission Control:
+   java -XX:StartFlightRecording=filename=downloads.jfr ... then open downloads.jfr
+
+============================================================ */
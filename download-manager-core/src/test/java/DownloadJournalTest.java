@@ -0,0 +1,458 @@
+import io.rileyhe1.concurrency.Data.ChunkRange;
+import io.rileyhe1.concurrency.Data.DownloadSnapshot;
+import io.rileyhe1.concurrency.Data.SavedDownload;
+import io.rileyhe1.concurrency.Util.DownloadJournal;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for DownloadJournal class.
+ * Tests that what was synced is what a reopened journal replays, including after a crash mid-write.
+ */
+class DownloadJournalTest
+{
+    private Path journalPath;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDirectory)
+    {
+        journalPath = tempDirectory.resolve("downloads.journal");
+    }
+
+    private static DownloadSnapshot snapshot(String id, long... progress)
+    {
+        Map<Integer, Long> chunkProgress = new HashMap<>();
+        for (int i = 0; i < progress.length; i++)
+        {
+            chunkProgress.put(i, progress[i]);
+        }
+        DownloadSnapshot snapshot = new DownloadSnapshot(id, "https://example.com/" + id, "/downloads/" + id,
+            progress.length * 1000L, chunkProgress, "DOWNLOADING");
+        snapshot.setWriteMode("TEMP_FILES");
+        return snapshot;
+    }
+
+    private DownloadSnapshot reopen(String id) throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            for (DownloadSnapshot snapshot : journal.getSnapshots())
+            {
+                if (snapshot.getId().equals(id)) return snapshot;
+            }
+            return null;
+        }
+    }
+
+    // ============================================================
+    // RECORD AND REPLAY TESTS
+    // ============================================================
+
+    @Test
+    void testNewJournalIsEmpty() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            assertTrue(journal.getSnapshots().isEmpty());
+            assertTrue(Files.exists(journalPath), "Opening a journal should create its file");
+        }
+    }
+
+    @Test
+    void testRecordedSnapshotSurvivesReopen() throws IOException
+    {
+        DownloadSnapshot original = snapshot("a", 100, 200, 0);
+        original.setAssembledChunks(1);
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(original);
+            journal.sync();
+        }
+
+        DownloadSnapshot loaded = reopen("a");
+        assertNotNull(loaded, "Synced snapshot should be replayed");
+        assertEquals(original.getUrl(), loaded.getUrl());
+        assertEquals(original.getDestination(), loaded.getDestination());
+        assertEquals(original.getTotalSize(), loaded.getTotalSize());
+        assertEquals(original.getChunkProgress(), loaded.getChunkProgress());
+        assertEquals("DOWNLOADING", loaded.getState());
+        assertEquals("TEMP_FILES", loaded.getWriteMode());
+        assertEquals(1, loaded.getAssembledChunks());
+    }
+
+    @Test
+    void testUpdatesReplayToLatestState() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(snapshot("a", 100, 200));
+            journal.record(snapshot("a", 150, 200));
+            DownloadSnapshot stopped = snapshot("a", 400, 900);
+            stopped.setState("STOPPED");
+            journal.record(stopped);
+            journal.sync();
+        }
+
+        DownloadSnapshot loaded = reopen("a");
+        assertEquals(Map.of(0, 400L, 1, 900L), loaded.getChunkProgress());
+        assertEquals("STOPPED", loaded.getState());
+    }
+
+    @Test
+    void testUpdatesOnlyLogWhatChanged() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(snapshot("a", 100, 200, 300, 400));
+            journal.sync();
+            long afterPut = Files.size(journalPath);
+
+            journal.record(snapshot("a", 100, 200, 300, 400));
+            journal.sync();
+            assertEquals(afterPut, Files.size(journalPath), "An unchanged snapshot should not be logged");
+
+            journal.record(snapshot("a", 100, 250, 300, 400));
+            journal.sync();
+            long update = Files.size(journalPath) - afterPut;
+            assertTrue(update < afterPut, "A one-chunk change should be smaller than the full snapshot, was " + update);
+        }
+    }
+
+    @Test
+    void testChunkRangesAreKept() throws IOException
+    {
+        DownloadSnapshot split = snapshot("a", 100, 0);
+        split.setWriteMode("DIRECT");
+        Map<Integer, ChunkRange> ranges = new HashMap<>();
+        ranges.put(0, new ChunkRange(0, 499));
+        ranges.put(1, new ChunkRange(500, 1999));
+        split.setChunkRanges(ranges);
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(split);
+            // a steal shortens chunk 0 and hands its tail to a new chunk
+            Map<Integer, ChunkRange> stolen = new HashMap<>(ranges);
+            stolen.put(0, new ChunkRange(0, 299));
+            stolen.put(2, new ChunkRange(300, 499));
+            DownloadSnapshot after = snapshot("a", 250, 0, 0);
+            after.setWriteMode("DIRECT");
+            after.setChunkRanges(stolen);
+            journal.record(after);
+            journal.sync();
+        }
+
+        Map<Integer, ChunkRange> loaded = reopen("a").getChunkRanges();
+        assertEquals(3, loaded.size());
+        assertEquals(299, loaded.get(0).getEndByte());
+        assertEquals(300, loaded.get(2).getStartByte());
+        assertEquals(1999, loaded.get(1).getEndByte());
+    }
+
+    @Test
+    void testMirrorsAreKept() throws IOException
+    {
+        DownloadSnapshot mirrored = snapshot("a", 100, 0);
+        List<String> mirrors = List.of("https://example.com/a", "https://mirror.example.org/a");
+        mirrored.setMirrors(mirrors);
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(mirrored);
+            journal.record(snapshot("a", 400, 50));
+            journal.record(snapshot("b", 100));
+            journal.sync();
+            journal.compact();
+        }
+
+        assertEquals(mirrors, reopen("a").getMirrors(), "Mirrors should survive updates and compaction");
+        assertEquals(400L, reopen("a").getChunkProgress().get(0));
+        assertNull(reopen("b").getMirrors(), "A single source download has no mirrors");
+    }
+
+    @Test
+    void testPiecesAreKept() throws IOException
+    {
+        DownloadSnapshot pieced = snapshot("a", 100, 0);
+        List<String> pieces = List.of("sha-1=:Kq5sNclPz7QV2+lfQIuc6R7oRu0=:", "sha-1=:Kq5sNclPz7QV2+lfQIuc6R7oRu0=:");
+        pieced.setChunkSize(48 * 1024);
+        pieced.setPieceHashes(pieces);
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(pieced);
+            journal.record(snapshot("a", 400, 50));
+            journal.record(snapshot("b", 100));
+            journal.sync();
+            journal.compact();
+        }
+
+        assertEquals(pieces, reopen("a").getPieceHashes(), "Piece hashes should survive updates and compaction");
+        assertEquals(48 * 1024, reopen("a").getChunkSize());
+        assertNull(reopen("b").getPieceHashes(), "A download without pieces has no piece hashes");
+        assertEquals(0, reopen("b").getChunkSize());
+    }
+
+    @Test
+    void testRemovedDownloadIsNotReplayed() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(snapshot("a", 100));
+            journal.record(snapshot("b", 100));
+            journal.remove("a");
+            assertFalse(journal.contains("a"));
+            journal.sync();
+        }
+
+        assertNull(reopen("a"), "Removed download should stay removed");
+        assertNotNull(reopen("b"));
+    }
+
+    @Test
+    void testUnsyncedRecordsAreNotWritten() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(snapshot("a", 100));
+            journal.sync();
+            journal.record(snapshot("a", 500));
+        }
+
+        assertEquals(100L, reopen("a").getChunkProgress().get(0), "Only synced progress should be durable");
+    }
+
+    @Test
+    void testSnapshotsAreCopies() throws IOException
+    {
+        DownloadSnapshot original = snapshot("a", 100);
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(original);
+            original.getChunkProgress().put(0, 999L);
+            journal.getSnapshots().get(0).getChunkProgress().put(0, 777L);
+            assertEquals(100L, journal.getSnapshots().get(0).getChunkProgress().get(0));
+        }
+    }
+
+    @Test
+    void testDestinationsAndStatesAfterReplay() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(snapshot("a", 100));
+            journal.record(snapshot("b", 100));
+            journal.record(snapshot("c", 100));
+            DownloadSnapshot finished = snapshot("b", 1000);
+            finished.setState("COMPLETED");
+            journal.record(finished);
+            journal.remove("c");
+            journal.sync();
+        }
+
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            assertEquals(List.of("a", "b"), List.copyOf(journal.getDestinations().keySet()), "Should keep the order they were logged in");
+            assertEquals("/downloads/a", journal.getDestinations().get("a"));
+            assertEquals("DOWNLOADING", journal.getState("a"));
+            assertEquals("COMPLETED", journal.getState("b"), "The state should be the one the last update left");
+            assertNull(journal.getState("c"));
+        }
+    }
+
+    @Test
+    void testSavedDownloadSummarizesSnapshot() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(snapshot("a", 100, 250, 0));
+            journal.record(snapshot("a", 400, 250, 50));
+
+            SavedDownload saved = journal.getSavedDownload("a");
+            assertEquals("a", saved.getId());
+            assertEquals("https://example.com/a", saved.getUrl());
+            assertEquals("/downloads/a", saved.getDestination());
+            assertEquals("DOWNLOADING", saved.getState());
+            assertEquals(3000, saved.getTotalSize());
+            assertEquals(700, saved.getDownloadedBytes(), "Should add up the latest progress of every chunk");
+            assertNull(journal.getSavedDownload("missing"));
+        }
+    }
+
+    // ============================================================
+    // CRASH RECOVERY TESTS
+    // ============================================================
+
+    @Test
+    void testTornRecordIsDropped() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(snapshot("a", 100));
+            journal.sync();
+            journal.record(snapshot("a", 500));
+            journal.sync();
+        }
+        // cut the last record in half, like a crash in the middle of the write
+        long size = Files.size(journalPath);
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE))
+        {
+            channel.truncate(size - 3);
+        }
+
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            assertEquals(100L, journal.getSnapshots().get(0).getChunkProgress().get(0),
+                "Replay should stop at the last complete record");
+            journal.record(snapshot("a", 300));
+            journal.sync();
+        }
+        assertEquals(300L, reopen("a").getChunkProgress().get(0), "Records after the cut should replay");
+    }
+
+    @Test
+    void testCorruptRecordIsDropped() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(snapshot("a", 100));
+            journal.sync();
+            journal.record(snapshot("a", 500));
+            journal.sync();
+        }
+        // flip a byte inside the last record's payload so its checksum no longer matches
+        byte[] bytes = Files.readAllBytes(journalPath);
+        bytes[bytes.length - 6] ^= 0x5A;
+        Files.write(journalPath, bytes);
+
+        assertEquals(100L, reopen("a").getChunkProgress().get(0));
+    }
+
+    @Test
+    void testGarbageAfterLastRecordIsDropped() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(snapshot("a", 100));
+            journal.sync();
+        }
+        long validSize = Files.size(journalPath);
+        Files.write(journalPath, new byte[] {0, 0, 0, 1, 9}, StandardOpenOption.APPEND);
+
+        assertNotNull(reopen("a"));
+        assertEquals(validSize, Files.size(journalPath), "Opening should cut the file back to its valid records");
+    }
+
+    @Test
+    void testShortPutRecordIsDropped() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            journal.record(snapshot("a", 100));
+            journal.sync();
+        }
+        // reframe the PUT without its chunk size and piece count, checksum and all, so only its layout is wrong
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(journalPath));
+        byte[] header = new byte[8];
+        log.get(header);
+        byte[] payload = new byte[log.getInt() - 12];
+        log.get(payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer shortened = ByteBuffer.allocate(header.length + 4 + payload.length + 4)
+            .put(header).putInt(payload.length).put(payload).putInt((int) crc.getValue());
+        Files.write(journalPath, shortened.array());
+
+        assertNull(reopen("a"), "A PUT missing its fixed fields should be dropped, not read with defaults");
+        assertEquals(header.length, Files.size(journalPath));
+    }
+
+    @Test
+    void testNotAJournalIsRejected() throws IOException
+    {
+        Files.writeString(journalPath, "[{\"id\":\"a\"}]");
+        assertThrows(IOException.class, () -> new DownloadJournal(journalPath),
+            "A file without the journal header should not be replayed or overwritten");
+    }
+
+    // ============================================================
+    // COMPACTION TESTS
+    // ============================================================
+
+    @Test
+    void testCompactionKeepsLatestState() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            for (long progress = 1; progress <= 200; progress++)
+            {
+                journal.record(snapshot("a", progress, progress * 2));
+                journal.sync();
+            }
+            journal.record(snapshot("b", 5));
+            journal.remove("b");
+            journal.sync();
+            long before = Files.size(journalPath);
+
+            journal.compact();
+            assertTrue(Files.size(journalPath) < before, "Compaction should shrink the log");
+
+            journal.record(snapshot("a", 201, 402));
+            journal.sync();
+        }
+
+        List<DownloadSnapshot> loaded;
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            loaded = journal.getSnapshots();
+        }
+        assertEquals(1, loaded.size(), "Removed downloads should not come back from a checkpoint");
+        assertEquals(Map.of(0, 201L, 1, 402L), loaded.get(0).getChunkProgress());
+        assertFalse(Files.exists(journalPath.resolveSibling("downloads.journal.tmp")));
+    }
+
+    @Test
+    void testSyncCompactsOnceLogGrows() throws IOException
+    {
+        try (DownloadJournal journal = new DownloadJournal(journalPath))
+        {
+            long[] progress = new long[64];
+            journal.record(snapshot("a", progress));
+            // every record moves every chunk, enough of them to pass the growth threshold
+            for (int round = 1; round <= 2000; round++)
+            {
+                for (int i = 0; i < progress.length; i++) progress[i] = round;
+                journal.record(snapshot("a", progress));
+            }
+            journal.sync();
+            assertTrue(Files.size(journalPath) < 64 * 1024, "Sync should have compacted the log, size was "
+                + Files.size(journalPath));
+        }
+
+        assertEquals(2000L, reopen("a").getChunkProgress().get(63));
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all DownloadJournal tests:
+   mvn test -Dtest=DownloadJournalTest
+
+Run specific test:
+   mvn test -Dtest=DownloadJournalTest#testTornRecordIsDropped
+
+============================================================ */
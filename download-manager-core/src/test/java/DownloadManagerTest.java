@@ -0,0 +1,1495 @@
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.DownloadException;
+import io.rileyhe1.concurrency.Data.DownloadPriority;
+import io.rileyhe1.concurrency.Data.DownloadSnapshot;
+import io.rileyhe1.concurrency.Data.DownloadState;
+import io.rileyhe1.concurrency.Data.SavedDownload;
+import io.rileyhe1.concurrency.DownloadManager;
+import io.rileyhe1.concurrency.Util.ContentDigest;
+import io.rileyhe1.concurrency.Util.Download;
+import io.rileyhe1.concurrency.Util.DownloadJournal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.api.Tag;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comprehensive test suite for DownloadManager class.
+ * Tests manager initialization, download lifecycle, persistence, and concurrent downloads.
+ */
+class DownloadManagerTest
+{
+    // a small file at full speed and a larger one capped at 1MB/s per connection, so with 16 threads it
+    // takes about two seconds and pause/stop/shutdown land mid-download
+    private LocalRangeServer server;
+    private LocalRangeServer largeServer;
+    private String testUrl;
+    private String largeTestUrl;
+    
+    private DownloadManager manager;
+    private DownloadConfig config;
+    private String tempDir;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDirectory) throws IOException, DownloadException
+    {
+        tempDir = tempDirectory.toString();
+        server = LocalRangeServer.builder().size(13264).start();
+        testUrl = server.url();
+        largeServer = LocalRangeServer.builder().size(32 * 1024 * 1024).bytesPerSecond(1024 * 1024).start();
+        largeTestUrl = largeServer.url();
+        
+        config = DownloadConfig.builder()
+            .numberOfThreads(16)
+            .chunkSizeMB(1)
+            .timeoutsInSeconds(30)
+            .maxRetries(3)
+            .retryDelayMS(1000)
+            .tempDirectory(tempDir)
+            .bufferSize(8192)
+            .minSizeForChunking(1024)
+            .build();
+        
+        // Delete any existing downloads.journal from previous tests
+        Files.deleteIfExists(Paths.get("downloads.journal"));
+        Files.deleteIfExists(Paths.get("downloads.json"));
+        
+        manager = new DownloadManager(config);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        if (manager != null)
+        {
+            manager.shutdown();
+        }
+        server.close();
+        largeServer.close();
+        
+        // Clean up test files
+        Files.walk(Paths.get(tempDir))
+            .filter(Files::isRegularFile)
+            .forEach(path -> {
+                try
+                {
+                    Files.deleteIfExists(path);
+                }
+                catch (IOException e)
+                {
+                    // Ignore cleanup errors
+                }
+            });
+        
+        // Clean up downloads.journal
+        Files.deleteIfExists(Paths.get("downloads.journal"));
+        Files.deleteIfExists(Paths.get("downloads.json"));
+    }
+
+    // ============================================================
+    // CONSTRUCTOR TESTS
+    // ============================================================
+
+    @Test
+    void testConstructorWithValidConfig() throws IOException, DownloadException
+    {
+        DownloadManager testManager = new DownloadManager(config);
+        assertNotNull(testManager, "Manager should be created");
+        testManager.shutdown();
+    }
+
+    @Test
+    void testConstructorWithNullConfig()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new DownloadManager(null);
+        }, "Should throw exception for null config");
+    }
+
+    @Test
+    void testConstructorLoadsExistingDownloads() throws Exception
+    {
+        // Start a download and pause it
+        String destination = Paths.get(tempDir, "test1.pdf").toString();
+        Download download = manager.startDownload(largeTestUrl, destination);
+        Thread.sleep(10);
+        manager.pauseDownload(download.getId());
+        
+        // Shutdown to save state
+        manager.shutdown();
+        
+        // Create new manager - should load the paused download
+        DownloadManager newManager = new DownloadManager(config);
+        
+        Download loaded = newManager.getDownload(download.getId());
+        assertNotNull(loaded, "Should load saved download");
+        assertEquals(download.getId(), loaded.getId(), "Should preserve download ID");
+        assertEquals(DownloadState.PENDING, loaded.getState(), 
+            "Loaded download should be in PENDING state");
+        
+        newManager.shutdown();
+    }
+
+    // ============================================================
+    // START DOWNLOAD TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(45)
+    @Tag("network")
+    void testStartDownloadSuccess() throws Exception
+    {
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+        
+        Download download = manager.startDownload(testUrl, destination);
+        
+        assertNotNull(download, "Should return download instance");
+        assertNotNull(download.getId(), "Download should have ID");
+        assertEquals(DownloadState.DOWNLOADING, download.getState(), 
+            "Should be in DOWNLOADING state");
+        
+        download.awaitCompletion();
+        
+        assertEquals(DownloadState.COMPLETED, download.getState());
+        assertTrue(Files.exists(Paths.get(destination)), "File should be downloaded");
+    }
+
+    @Test
+    @Timeout(30)
+    void testStartMirroredDownload() throws Exception
+    {
+        try (LocalRangeServer mirror = LocalRangeServer.builder().size(13264).start())
+        {
+            String destination = Paths.get(tempDir, "mirrored.bin").toString();
+
+            Download download = manager.startMirroredDownload(List.of(testUrl, mirror.url()), destination);
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+            assertEquals(2, download.getMirrors().size());
+            assertThrows(IllegalArgumentException.class, () -> manager.startMirroredDownload(List.of(), destination + ".2"));
+            assertThrows(IllegalArgumentException.class,
+                () -> manager.startMirroredDownload(List.of(testUrl, ""), destination + ".2"));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testStartMetalinkDownloads() throws Exception
+    {
+        try (LocalRangeServer mirror = LocalRangeServer.builder().size(13264).start();
+             LocalRangeServer noRanges = LocalRangeServer.builder().size(512).acceptRanges(false).start())
+        {
+            String sha256 = HexFormat.of().formatHex(LocalRangeServer.sha256(0, 13264));
+            StringBuilder pieces = new StringBuilder();
+            for (long start = 0; start < 13264; start += 4096)
+            {
+                pieces.append("<hash>").append(HexFormat.of().formatHex(LocalRangeServer.sha256(start, Math.min(4096, 13264 - start))))
+                    .append("</hash>");
+            }
+            Path metalink = Paths.get(tempDir, "files.meta4");
+            Files.writeString(metalink, "<?xml version=\"1.0\"?>"
+                + "<metalink xmlns=\"urn:ietf:params:xml:ns:metalink\">"
+                + "<file name=\"whole.bin\"><size>13264</size><hash type=\"sha-256\">" + sha256 + "</hash>"
+                + "<url priority=\"2\">" + testUrl + "</url><url priority=\"1\">" + mirror.url() + "</url></file>"
+                + "<file name=\"nested/pieces.bin\"><url>" + testUrl + "</url>"
+                + "<pieces length=\"4096\" type=\"sha-256\">" + pieces + "</pieces></file>"
+                + "<file name=\"wrong-size.bin\"><size>99</size><url>" + testUrl + "</url></file>"
+                + "<file name=\"no-ranges.bin\"><url>" + noRanges.url() + "</url>"
+                + "<pieces length=\"256\" type=\"sha-256\"><hash>" + sha256 + "</hash><hash>" + sha256 + "</hash></pieces></file>"
+                + "</metalink>");
+
+            List<Download> downloads = manager.startMetalinkDownloads(metalink.toString(), tempDir);
+            assertEquals(2, downloads.size(),
+                "The file whose size the server disagrees with and the one that can't be split into pieces should be skipped");
+            List<String> startedIds = downloads.stream().map(Download::getId).toList();
+            try (Stream<Path> leftovers = Files.list(Paths.get(tempDir)))
+            {
+                assertTrue(leftovers.filter(Files::isDirectory).filter(path -> !path.endsWith("nested"))
+                        .allMatch(path -> startedIds.contains(path.getFileName().toString())),
+                    "A skipped file shouldn't leave its temp directory behind");
+            }
+            for (Download download : downloads)
+            {
+                download.awaitCompletion();
+                assertEquals(DownloadState.COMPLETED, download.getState());
+                assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(download.getDestination())), 0));
+            }
+
+            Download whole = downloads.get(0);
+            assertEquals(Paths.get(tempDir, "whole.bin").toString(), whole.getDestination());
+            assertEquals(mirror.url(), whole.getUrl(), "The highest priority url should be probed first");
+            assertEquals(2, whole.getMirrors().size());
+            assertEquals(ContentDigest.sha256(sha256), whole.getExpectedDigest());
+            Download pieced = downloads.get(1);
+            assertEquals(Paths.get(tempDir, "nested", "pieces.bin").toString(), pieced.getDestination());
+            assertEquals(4, pieced.getPieceHashes().size());
+
+            assertThrows(IOException.class, () -> manager.startMetalinkDownloads(Paths.get(tempDir, "missing.meta4").toString(), tempDir));
+        }
+    }
+
+    @Test
+    void testStartDownloadWithNullUrl()
+    {
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+        
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.startDownload(null, destination);
+        }, "Should throw exception for null URL");
+    }
+
+    @Test
+    void testStartDownloadWithEmptyUrl()
+    {
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+        
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.startDownload("", destination);
+        }, "Should throw exception for empty URL");
+    }
+
+    @Test
+    void testStartDownloadWithNullDestination()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.startDownload(testUrl, null);
+        }, "Should throw exception for null destination");
+    }
+
+    @Test
+    void testStartDownloadWithEmptyDestination()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.startDownload(testUrl, "");
+        }, "Should throw exception for empty destination");
+    }
+
+    @Test
+    void testStartDownloadWithDuplicateDestination() throws DownloadException
+    {
+        String destination = Paths.get(tempDir, "duplicate.pdf").toString();
+        
+        manager.startDownload(testUrl, destination);
+        
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.startDownload(testUrl, destination);
+        }, "Should throw exception for duplicate destination");
+    }
+
+    @Test
+    void testStartMultipleDownloadsConcurrently() throws Exception
+    {
+        String dest1 = Paths.get(tempDir, "file1.pdf").toString();
+        String dest2 = Paths.get(tempDir, "file2.pdf").toString();
+        String dest3 = Paths.get(tempDir, "file3.pdf").toString();
+        
+        Download download1 = manager.startDownload(testUrl, dest1);
+        Download download2 = manager.startDownload(testUrl, dest2);
+        Download download3 = manager.startDownload(testUrl, dest3);
+        
+        assertNotNull(download1);
+        assertNotNull(download2);
+        assertNotNull(download3);
+        
+        // All should have unique IDs
+        assertNotEquals(download1.getId(), download2.getId());
+        assertNotEquals(download2.getId(), download3.getId());
+        assertNotEquals(download1.getId(), download3.getId());
+    }
+
+    // ============================================================
+    // PAUSE DOWNLOAD TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testPauseDownload() throws Exception
+    {
+        String destination = Paths.get(tempDir, "pause.mp4").toString();
+        Download download = manager.startDownload(largeTestUrl, destination);
+        
+        Thread.sleep(200);
+        
+        manager.pauseDownload(download.getId());
+        
+        assertEquals(DownloadState.PAUSED, download.getState());
+    }
+
+    @Test
+    void testPauseDownloadWithNullId()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.pauseDownload(null);
+        }, "Should throw exception for null ID");
+    }
+
+    @Test
+    void testPauseDownloadWithEmptyId()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.pauseDownload("");
+        }, "Should throw exception for empty ID");
+    }
+
+    @Test
+    void testPauseDownloadWithInvalidId()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.pauseDownload("invalid-id-12345");
+        }, "Should throw exception for invalid ID");
+    }
+
+    @Test
+    void testPauseAlreadyCompletedDownload() throws Exception
+    {
+        String destination = Paths.get(tempDir, "completed.pdf").toString();
+        Download download = manager.startDownload(testUrl, destination);
+        
+        download.awaitCompletion();
+        
+        assertThrows(IllegalStateException.class, () -> {
+            manager.pauseDownload(download.getId());
+        }, "Should not be able to pause completed download");
+    }
+
+    // ============================================================
+    // RESUME DOWNLOAD TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testResumeDownload() throws Exception
+    {
+        String destination = Paths.get(tempDir, "resume.mp4").toString();
+        Download download = manager.startDownload(largeTestUrl, destination);
+        
+        Thread.sleep(200);
+        manager.pauseDownload(download.getId());
+        
+        assertEquals(DownloadState.PAUSED, download.getState());
+        
+        manager.resumeDownload(download.getId());
+        
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+    }
+
+    @Test
+    void testResumeDownloadWithNullId()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.resumeDownload(null);
+        }, "Should throw exception for null ID");
+    }
+
+    @Test
+    void testResumeDownloadWithEmptyId()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.resumeDownload("");
+        }, "Should throw exception for empty ID");
+    }
+
+    @Test
+    void testResumeDownloadWithInvalidId()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.resumeDownload("invalid-id-12345");
+        }, "Should throw exception for invalid ID");
+    }
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testResumeLoadedDownload() throws Exception
+    {
+        // Start and pause a download
+        String destination = Paths.get(tempDir, "loaded.mp4").toString();
+        Download download = manager.startDownload(largeTestUrl, destination);
+        Thread.sleep(50);
+        manager.pauseDownload(download.getId());
+        
+        String downloadId = download.getId();
+        manager.shutdown();
+        
+        // Create new manager and resume
+        DownloadManager newManager = new DownloadManager(config);
+        Download loaded = newManager.getDownload(downloadId);
+        
+        assertNotNull(loaded, "Should load saved download");
+        assertEquals(DownloadState.PENDING, loaded.getState());
+        
+        // Resume should call startExisting()
+        newManager.resumeDownload(downloadId);
+        
+        assertEquals(DownloadState.DOWNLOADING, loaded.getState());
+        
+        newManager.shutdown();
+    }
+
+    // ============================================================
+    // CANCEL DOWNLOAD TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testCancelDownload() throws Exception
+    {
+        String destination = Paths.get(tempDir, "cancel.mp4").toString();
+        Download download = manager.startDownload(largeTestUrl, destination);
+        
+        Thread.sleep(200);
+        
+        manager.cancelDownload(download.getId());
+        
+        assertEquals(DownloadState.CANCELLED, download.getState());
+        assertNull(manager.getDownload(download.getId()), 
+            "Cancelled download should be removed from active downloads");
+    }
+
+    @Test
+    void testCancelDownloadWithNullId()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.cancelDownload(null);
+        }, "Should throw exception for null ID");
+    }
+
+    @Test
+    void testCancelDownloadWithEmptyId()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.cancelDownload("");
+        }, "Should throw exception for empty ID");
+    }
+
+    @Test
+    void testCancelDownloadWithInvalidId()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.cancelDownload("invalid-id-12345");
+        }, "Should throw exception for invalid ID");
+    }
+
+    // ============================================================
+    // REMOVE DOWNLOAD TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testRemoveCompletedDownload() throws Exception
+    {
+        String destination = Paths.get(tempDir, "removed.bin").toString();
+        Download download = manager.startDownload(testUrl, destination);
+        download.awaitCompletion();
+
+        manager.removeDownload(download.getId());
+
+        assertNull(manager.getDownload(download.getId()), "Removed download should be forgotten");
+        assertTrue(manager.getAllDownloads().isEmpty());
+        assertTrue(Files.exists(Paths.get(destination)), "Removing a download should leave its file alone");
+    }
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testRemoveRunningDownloadRejected() throws Exception
+    {
+        Download download = manager.startDownload(largeTestUrl, Paths.get(tempDir, "running.bin").toString());
+
+        assertThrows(IllegalStateException.class, () -> manager.removeDownload(download.getId()),
+            "Only finished downloads can be removed");
+        assertSame(download, manager.getDownload(download.getId()));
+    }
+
+    @Test
+    void testRemoveDownloadWithInvalidId()
+    {
+        assertThrows(IllegalArgumentException.class, () -> manager.removeDownload(null));
+        assertThrows(IllegalArgumentException.class, () -> manager.removeDownload(""));
+        assertThrows(IllegalArgumentException.class, () -> manager.removeDownload("invalid-id-12345"));
+    }
+
+    // ============================================================
+    // GET DOWNLOAD TESTS
+    // ============================================================
+
+    @Test
+    void testGetDownload() throws DownloadException
+    {
+        String destination = Paths.get(tempDir, "get.pdf").toString();
+        Download download = manager.startDownload(testUrl, destination);
+        
+        Download retrieved = manager.getDownload(download.getId());
+        
+        assertNotNull(retrieved, "Should retrieve download");
+        assertEquals(download.getId(), retrieved.getId());
+        assertSame(download, retrieved, "Should return same instance");
+    }
+
+    @Test
+    void testGetDownloadWithInvalidId()
+    {
+        Download retrieved = manager.getDownload("invalid-id-12345");
+        
+        assertNull(retrieved, "Should return null for invalid ID");
+    }
+
+    @Test
+    void testGetDownloadWithNullId()
+    {
+        Download retrieved = manager.getDownload(null);
+        
+        assertNull(retrieved, "Should return null for null ID");
+    }
+
+    // ============================================================
+    // GET ALL DOWNLOADS TESTS
+    // ============================================================
+
+    @Test
+    void testGetAllDownloadsEmpty()
+    {
+        List<Download> downloads = manager.getAllDownloads();
+        
+        assertNotNull(downloads, "Should return list even when empty");
+        assertTrue(downloads.isEmpty(), "Should be empty initially");
+    }
+
+    @Test
+    void testGetAllDownloadsWithActiveDownloads() throws DownloadException
+    {
+        String dest1 = Paths.get(tempDir, "file1.pdf").toString();
+        String dest2 = Paths.get(tempDir, "file2.pdf").toString();
+        
+        Download download1 = manager.startDownload(testUrl, dest1);
+        Download download2 = manager.startDownload(testUrl, dest2);
+        
+        List<Download> downloads = manager.getAllDownloads();
+        
+        assertEquals(2, downloads.size(), "Should return all downloads");
+        assertTrue(downloads.contains(download1));
+        assertTrue(downloads.contains(download2));
+    }
+
+    @Test
+    void testGetAllDownloadsDoesNotIncludeCancelled() throws Exception
+    {
+        String dest1 = Paths.get(tempDir, "file1.mp4").toString();
+        String dest2 = Paths.get(tempDir, "file2.mp4").toString();
+        
+        Download download1 = manager.startDownload(largeTestUrl, dest1);
+        Download download2 = manager.startDownload(largeTestUrl, dest2);
+        
+        Thread.sleep(100);
+        manager.cancelDownload(download1.getId());
+        
+        List<Download> downloads = manager.getAllDownloads();
+        
+        assertEquals(1, downloads.size(), "Should only have non-cancelled download");
+        assertFalse(downloads.contains(download1), "Should not include cancelled");
+        assertTrue(downloads.contains(download2));
+    }
+
+    // ============================================================
+    // PERSISTENCE TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testPersistenceOnShutdown() throws Exception
+    {
+        String destination = Paths.get(tempDir, "persist.mp4").toString();
+        Download download = manager.startDownload(largeTestUrl, destination);
+        
+        Thread.sleep(200);
+        manager.pauseDownload(download.getId());
+        
+        String downloadId = download.getId();
+        manager.shutdown();
+        
+        // Verify downloads.journal was created
+        assertTrue(Files.exists(Paths.get("downloads.journal")), 
+            "downloads.journal should be created");
+        
+        // Create new manager and verify download was loaded
+        DownloadManager newManager = new DownloadManager(config);
+        Download loaded = newManager.getDownload(downloadId);
+        
+        assertNotNull(loaded, "Download should be loaded");
+        assertEquals(downloadId, loaded.getId(), "ID should be preserved");
+        
+        newManager.shutdown();
+    }
+
+    @Test
+    void testPersistenceDoesNotSaveCompleted() throws Exception
+    {
+        String destination = Paths.get(tempDir, "completed.pdf").toString();
+        Download download = manager.startDownload(testUrl, destination);
+        
+        download.awaitCompletion();
+        assertEquals(DownloadState.COMPLETED, download.getState());
+        
+        manager.shutdown();
+        
+        // Completed downloads should not be persisted
+        DownloadManager newManager = new DownloadManager(config);
+        Download loaded = newManager.getDownload(download.getId());
+        
+        assertNull(loaded, "Completed downloads should not be persisted");
+        
+        newManager.shutdown();
+    }
+
+    @Test
+    void testPersistenceDoesNotSaveCancelled() throws Exception
+    {
+        String destination = Paths.get(tempDir, "cancelled.mp4").toString();
+        Download download = manager.startDownload(largeTestUrl, destination);
+        
+        Thread.sleep(100);
+        manager.cancelDownload(download.getId());
+        
+        manager.shutdown();
+        
+        // Cancelled downloads should not be persisted
+        DownloadManager newManager = new DownloadManager(config);
+        Download loaded = newManager.getDownload(download.getId());
+        
+        assertNull(loaded, "Cancelled downloads should not be persisted");
+        
+        newManager.shutdown();
+    }
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testPersistenceSavesStoppedDownloads() throws Exception
+    {
+        String destination = Paths.get(tempDir, "stopped.mp4").toString();
+        Download download = manager.startDownload(largeTestUrl, destination);
+        
+        Thread.sleep(200);
+        
+        String downloadId = download.getId();
+        
+        // Shutdown stops downloads automatically
+        manager.shutdown();
+        
+        // Verify downloads.journal was created
+        assertTrue(Files.exists(Paths.get("downloads.journal")), 
+            "downloads.journal should be created");
+        
+        // Create new manager and verify download was loaded
+        DownloadManager newManager = new DownloadManager(config);
+        Download loaded = newManager.getDownload(downloadId);
+        
+        assertNotNull(loaded, "Stopped download should be loaded");
+        assertEquals(downloadId, loaded.getId());
+        assertEquals(DownloadState.PENDING, loaded.getState(), 
+            "Loaded download should be in PENDING state");
+        
+        newManager.shutdown();
+    }
+
+    @Test
+    @Timeout(60)
+    @Tag("network")
+    @Tag("integration")
+    void testResumePersistedDownloadToCompletion() throws Exception
+    {
+        String destination = Paths.get(tempDir, "persisted.mp4").toString();
+        
+        // ========== PHASE 1: Start and partially download ==========
+        Download download = manager.startDownload(largeTestUrl, destination);
+        String downloadId = download.getId();
+        
+        // Wait for 30-40% progress
+        long targetProgress = (long)(download.getTotalSize() * 0.35);
+        long timeout = System.currentTimeMillis() + 10000; // 10 second timeout
+        
+        while (download.getDownloadedBytes() < targetProgress && 
+            System.currentTimeMillis() < timeout)
+        {
+            Thread.sleep(5);
+        }
+        
+        assertTrue(download.getProgress() > 20, 
+            "Should have made significant progress before pause. Was: " + download.getProgress());
+        long bytesBeforePause = download.getDownloadedBytes();
+        
+        // Pause and save
+        manager.pauseDownload(downloadId);
+        assertEquals(DownloadState.PAUSED, download.getState());
+        manager.shutdown();
+        
+        // Verify persistence file exists
+        assertTrue(Files.exists(Paths.get("downloads.journal")), 
+            "Persistence file should be created");
+        
+        
+        // ========== PHASE 2: Load and resume ==========
+        DownloadManager newManager = new DownloadManager(config);
+        Download loaded = newManager.getDownload(downloadId);
+        
+        assertNotNull(loaded, "Download should be loaded from persistence");
+        assertEquals(downloadId, loaded.getId(), "ID should be preserved");
+        assertEquals(DownloadState.PENDING, loaded.getState(), 
+            "Loaded download should be in PENDING state");
+        
+        // Resume - should call startExisting() internally
+        newManager.resumeDownload(downloadId);
+        assertEquals(DownloadState.DOWNLOADING, loaded.getState());
+        
+        // Progress should start where we left off
+        assertTrue(loaded.getDownloadedBytes() >= bytesBeforePause * 0.9, 
+            "Resumed download should preserve most progress. Before: " + bytesBeforePause + 
+            ", After: " + loaded.getDownloadedBytes());
+        
+        
+        // ========== PHASE 3: Complete download ==========
+        loaded.awaitCompletion();
+        
+        assertEquals(DownloadState.COMPLETED, loaded.getState(), 
+            "Download should complete successfully");
+        assertTrue(Files.exists(Paths.get(destination)), 
+            "Downloaded file should exist");
+        
+        long expectedSize = loaded.getTotalSize();
+        long actualSize = Files.size(Paths.get(destination));
+        assertEquals(expectedSize, actualSize, 
+            "File size should match expected size");
+        
+        assertEquals(100.0, loaded.getProgress(), 0.01, 
+            "Progress should be 100%");
+        
+        assertNull(loaded.getError(), 
+            "Should have no errors");
+        
+        newManager.shutdown();
+    }
+
+    @Test
+    @Tag("network")
+    void testLoadDownloadsWithNoFile() throws IOException, DownloadException
+    {
+        // Ensure no downloads.journal exists
+        Files.deleteIfExists(Paths.get("downloads.journal"));
+        
+        // Should not throw exception
+        DownloadManager newManager = new DownloadManager(config);
+        
+        List<Download> downloads = newManager.getAllDownloads();
+        assertTrue(downloads.isEmpty(), "Should have no downloads");
+        
+        newManager.shutdown();
+    }
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testJournalRecoversDownloadAfterCrash() throws Exception
+    {
+        DownloadConfig fastSync = DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSize(1024 * 1024)
+            .tempDirectory(tempDir)
+            .journalSyncIntervalMS(50)
+            .build();
+        DownloadManager crashing = new DownloadManager(fastSync);
+        String destination = Paths.get(tempDir, "crash.mp4").toString();
+        Download download = crashing.startDownload(largeTestUrl, destination);
+
+        while (download.getDownloadedBytes() < 1024 * 1024)
+        {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+
+        // a second manager reading the journal while the first is still running sees what a crash would leave
+        DownloadManager recovered = new DownloadManager(fastSync);
+        Download loaded = recovered.getDownload(download.getId());
+
+        assertNotNull(loaded, "A download that was running should be recovered from the journal");
+        assertEquals(DownloadState.PENDING, loaded.getState());
+        assertTrue(loaded.getDownloadedBytes() > 0, "Synced progress should be recovered");
+
+        crashing.shutdown();
+        recovered.shutdown();
+    }
+
+    @Test
+    void testMigratesLegacyDownloadsFile() throws Exception
+    {
+        String destination = Paths.get(tempDir, "legacy.bin").toString();
+        DownloadSnapshot snapshot = new DownloadSnapshot("legacy-id", "https://example.com/legacy.bin",
+            destination, 2048, Map.of(0, 512L, 1, 0L), "STOPPED");
+        Files.writeString(Paths.get("downloads.json"), new Gson().toJson(List.of(snapshot)));
+
+        DownloadManager newManager = new DownloadManager(config);
+        Download loaded = newManager.getDownload("legacy-id");
+
+        assertNotNull(loaded, "Downloads saved by the old format should be loaded");
+        assertEquals(512, loaded.getDownloadedBytes());
+        assertFalse(Files.exists(Paths.get("downloads.json")), "The old file should be removed once migrated");
+        newManager.shutdown();
+
+        // and they now live in the journal
+        DownloadManager reopened = new DownloadManager(config);
+        assertNotNull(reopened.getDownload("legacy-id"));
+        reopened.shutdown();
+    }
+
+    // ============================================================
+    // LAZY LOADING TESTS
+    // ============================================================
+
+    // writes saved downloads straight into the journal, the way an earlier session would have left them
+    private void saveDownloads(int count) throws IOException
+    {
+        manager.shutdown();
+        try (DownloadJournal journal = new DownloadJournal(Paths.get("downloads.journal")))
+        {
+            for (int i = 0; i < count; i++)
+            {
+                DownloadSnapshot snapshot = new DownloadSnapshot("saved-" + i, "https://example.com/" + i + ".bin",
+                    Paths.get(tempDir, "saved-" + i + ".bin").toString(), 4096, Map.of(0, 1024L, 1, 0L), "STOPPED");
+                journal.record(snapshot);
+            }
+            journal.sync();
+        }
+    }
+
+    @Test
+    void testSavedDownloadsAreNotLoadedAtStartup() throws Exception
+    {
+        saveDownloads(1000);
+
+        DownloadManager newManager = new DownloadManager(config);
+        assertTrue(newManager.getAllDownloads().isEmpty(), "No Download should be built until one is asked for");
+
+        List<SavedDownload> saved = newManager.getSavedDownloads();
+        assertEquals(1000, saved.size(), "Every saved download should still be listed");
+        assertEquals(1024, saved.get(0).getDownloadedBytes());
+
+        newManager.shutdown();
+    }
+
+    @Test
+    void testGetDownloadLoadsSavedDownload() throws Exception
+    {
+        saveDownloads(3);
+
+        DownloadManager newManager = new DownloadManager(config);
+        Download loaded = newManager.getDownload("saved-1");
+
+        assertNotNull(loaded, "Asking for a saved download should load it");
+        assertEquals(DownloadState.PENDING, loaded.getState());
+        assertEquals(1024, loaded.getDownloadedBytes(), "Loaded download should start from its saved progress");
+        assertSame(loaded, newManager.getDownload("saved-1"), "It should only be loaded once");
+        assertEquals(1, newManager.getAllDownloads().size());
+        assertEquals(2, newManager.getSavedDownloads().size());
+
+        newManager.shutdown();
+    }
+
+    @Test
+    void testUnloadedDownloadsStaySaved() throws Exception
+    {
+        saveDownloads(3);
+
+        DownloadManager newManager = new DownloadManager(config);
+        newManager.getDownload("saved-0");
+        newManager.shutdown();
+
+        DownloadManager reopened = new DownloadManager(config);
+        assertEquals(3, reopened.getSavedDownloads().size(), "Shutdown should keep downloads it never loaded");
+        reopened.shutdown();
+    }
+
+    @Test
+    void testSavedDownloadDestinationIsReserved() throws Exception
+    {
+        saveDownloads(1);
+
+        DownloadManager newManager = new DownloadManager(config);
+        String destination = Paths.get(tempDir, "saved-0.bin").toString();
+        assertThrows(IllegalArgumentException.class, () -> newManager.startDownload(testUrl, destination),
+            "A saved download's destination should not be handed to a new download");
+
+        newManager.shutdown();
+    }
+
+    // ============================================================
+    // BANDWIDTH LIMIT TESTS
+    // ============================================================
+
+    @Test
+    void testBandwidthLimitCanChangeAtRuntime()
+    {
+        assertEquals(0, manager.getBandwidthLimit(), "Manager should start unlimited");
+        manager.setBandwidthLimit(512 * 1024);
+        assertEquals(512 * 1024, manager.getBandwidthLimit());
+        manager.setBandwidthLimit(0);
+        assertEquals(0, manager.getBandwidthLimit());
+    }
+
+    @Test
+    void testHostBandwidthLimit()
+    {
+        manager.setHostBandwidthLimit("example.com", 1024);
+        assertEquals(1024, manager.getHostBandwidthLimit("example.com"));
+        assertEquals(0, manager.getHostBandwidthLimit("example.org"), "Other hosts should keep the default limit");
+    }
+
+    @Test
+    void testNegativeBandwidthLimitRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> manager.setBandwidthLimit(-1));
+        assertThrows(IllegalArgumentException.class, () -> manager.setHostBandwidthLimit("example.com", -1));
+        assertThrows(IllegalArgumentException.class, () -> manager.setHostBandwidthLimit(null, 1024));
+    }
+
+    @Test
+    void testDownloadBandwidthLimitWithInvalidId()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            manager.setDownloadBandwidthLimit("invalid-id-12345", 1024);
+        }, "Should throw exception for invalid download ID");
+    }
+
+    // ============================================================
+    // METRICS TESTS
+    // ============================================================
+
+    @Test
+    void testMetricsWithNoDownloads()
+    {
+        assertEquals(0, manager.getTotalBytesPerSecond());
+        assertEquals(Duration.ZERO, manager.getEta(), "Nothing running means nothing left");
+        assertEquals(0, manager.getTotalRetryCount());
+    }
+
+    @Test
+    @Timeout(30)
+    void testTotalRateCoversRunningDownloads() throws Exception
+    {
+        Download first = manager.startDownload(largeTestUrl, Paths.get(tempDir, "rate1.bin").toString());
+        Download second = manager.startDownload(largeTestUrl, Paths.get(tempDir, "rate2.bin").toString());
+        Thread.sleep(1600);
+
+        double total = manager.getTotalBytesPerSecond();
+        assertTrue(total > 0, "Two running downloads should have a combined rate");
+        assertEquals(first.getBytesPerSecond() + second.getBytesPerSecond(), total, total * 0.5,
+            "Total should be the sum of the downloads' rates");
+        assertNotNull(manager.getEta(), "Running downloads with a rate should have an ETA");
+
+        manager.cancelDownload(first.getId());
+        manager.cancelDownload(second.getId());
+        assertEquals(0, manager.getTotalBytesPerSecond(), "Cancelled downloads have no rate");
+    }
+
+    // ============================================================
+    // QUEUE TESTS
+    // ============================================================
+
+    // polls until the condition holds, a queued download starts on the finishing download's thread just after
+    // its latch is pulled
+    private boolean waitFor(java.util.function.BooleanSupplier condition, long timeoutMs) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline)
+        {
+            if (condition.getAsBoolean())
+            {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return condition.getAsBoolean();
+    }
+
+    @Test
+    void testMaxConcurrentDownloadsValidation()
+    {
+        assertEquals(0, manager.getMaxConcurrentDownloads(), "No limit by default");
+        assertThrows(IllegalArgumentException.class, () -> DownloadConfig.builder().maxConcurrentDownloads(-1));
+        assertThrows(IllegalArgumentException.class, () -> manager.setMaxConcurrentDownloads(-1));
+        assertThrows(IllegalArgumentException.class,
+            () -> manager.startDownload(testUrl, Paths.get(tempDir, "nopriority.bin").toString(), (DownloadPriority) null));
+    }
+
+    @Test
+    @Timeout(30)
+    void testDownloadWaitsForFreeSlot() throws Exception
+    {
+        manager.setMaxConcurrentDownloads(1);
+        Download running = manager.startDownload(largeTestUrl, Paths.get(tempDir, "running.bin").toString());
+        Download waiting = manager.startDownload(testUrl, Paths.get(tempDir, "waiting.bin").toString());
+
+        assertEquals(DownloadState.DOWNLOADING, running.getState());
+        assertEquals(DownloadState.PENDING, waiting.getState(), "Second download should wait for the slot");
+        assertEquals(List.of(waiting), manager.getQueuedDownloads());
+        assertEquals(1, manager.getRunningDownloadCount());
+
+        manager.cancelDownload(running.getId());
+        waiting.awaitCompletion();
+
+        assertEquals(DownloadState.COMPLETED, waiting.getState(), "Freed slot should go to the waiting download");
+        assertTrue(manager.getQueuedDownloads().isEmpty());
+    }
+
+    @Test
+    @Timeout(30)
+    void testPausedDownloadKeepsItsSlot() throws Exception
+    {
+        manager.setMaxConcurrentDownloads(1);
+        Download running = manager.startDownload(largeTestUrl, Paths.get(tempDir, "paused.bin").toString());
+        Download waiting = manager.startDownload(testUrl, Paths.get(tempDir, "waiting.bin").toString());
+
+        manager.pauseDownload(running.getId());
+        Thread.sleep(200);
+
+        assertEquals(DownloadState.PENDING, waiting.getState(), "Pausing should not hand the slot over");
+        assertEquals(1, manager.getQueuedDownloadCount());
+    }
+
+    @Test
+    @Timeout(30)
+    void testQueueOrdersByPriority() throws Exception
+    {
+        manager.setMaxConcurrentDownloads(1);
+        manager.startDownload(largeTestUrl, Paths.get(tempDir, "running.bin").toString());
+        Download low = manager.startDownload(testUrl, Paths.get(tempDir, "low.bin").toString(), DownloadPriority.LOW);
+        Download first = manager.startDownload(testUrl, Paths.get(tempDir, "first.bin").toString());
+        Download high = manager.startDownload(testUrl, Paths.get(tempDir, "high.bin").toString(), DownloadPriority.HIGH);
+        Download second = manager.startDownload(testUrl, Paths.get(tempDir, "second.bin").toString(), DownloadPriority.NORMAL);
+
+        assertEquals(List.of(high, first, second, low), manager.getQueuedDownloads(),
+            "Higher classes should go first and each class should keep its arrival order");
+        assertEquals(DownloadPriority.LOW, manager.getPriority(low.getId()));
+        assertEquals(DownloadPriority.NORMAL, manager.getPriority(first.getId()));
+    }
+
+    @Test
+    @Timeout(30)
+    void testSetPriorityMovesQueuedDownload() throws Exception
+    {
+        manager.setMaxConcurrentDownloads(1);
+        Download running = manager.startDownload(largeTestUrl, Paths.get(tempDir, "running.bin").toString());
+        Download high = manager.startDownload(testUrl, Paths.get(tempDir, "high.bin").toString(), DownloadPriority.HIGH);
+        Download normal = manager.startDownload(testUrl, Paths.get(tempDir, "normal.bin").toString());
+        Download low = manager.startDownload(testUrl, Paths.get(tempDir, "low.bin").toString(), DownloadPriority.LOW);
+
+        manager.setPriority(low.getId(), DownloadPriority.HIGH);
+        assertEquals(List.of(high, low, normal), manager.getQueuedDownloads(), "Promoted download joins the back of its new class");
+
+        manager.setPriority(high.getId(), DownloadPriority.LOW);
+        assertEquals(List.of(low, normal, high), manager.getQueuedDownloads());
+        assertEquals(DownloadPriority.LOW, manager.getPriority(high.getId()));
+
+        // a running download just records its new priority
+        manager.setPriority(running.getId(), DownloadPriority.LOW);
+        assertEquals(DownloadState.DOWNLOADING, running.getState());
+        assertEquals(3, manager.getQueuedDownloadCount());
+
+        assertThrows(IllegalArgumentException.class, () -> manager.setPriority("invalid-id-12345", DownloadPriority.HIGH));
+        assertThrows(IllegalArgumentException.class, () -> manager.setPriority(low.getId(), null));
+    }
+
+    @Test
+    @Timeout(30)
+    void testFreedSlotGoesToHighestPriority() throws Exception
+    {
+        manager.setMaxConcurrentDownloads(1);
+        Download running = manager.startDownload(largeTestUrl, Paths.get(tempDir, "running.bin").toString());
+        Download low = manager.startDownload(testUrl, Paths.get(tempDir, "low.bin").toString(), DownloadPriority.LOW);
+        Download high = manager.startDownload(largeTestUrl, Paths.get(tempDir, "high.bin").toString(), DownloadPriority.HIGH);
+
+        manager.cancelDownload(running.getId());
+
+        assertTrue(waitFor(() -> high.getState() == DownloadState.DOWNLOADING, 5000), "High priority download should start first");
+        assertEquals(DownloadState.PENDING, low.getState());
+        assertEquals(List.of(low), manager.getQueuedDownloads());
+
+        manager.cancelDownload(high.getId());
+        low.awaitCompletion();
+        assertEquals(DownloadState.COMPLETED, low.getState());
+    }
+
+    @Test
+    @Timeout(30)
+    void testCancelQueuedDownload() throws Exception
+    {
+        manager.setMaxConcurrentDownloads(1);
+        manager.startDownload(largeTestUrl, Paths.get(tempDir, "running.bin").toString());
+        String destination = Paths.get(tempDir, "cancelled.bin").toString();
+        Download waiting = manager.startDownload(testUrl, destination);
+
+        manager.cancelDownload(waiting.getId());
+
+        assertTrue(manager.getQueuedDownloads().isEmpty(), "Cancelled download should leave the queue");
+        assertNull(manager.getDownload(waiting.getId()));
+        assertNull(manager.getPriority(waiting.getId()));
+        assertEquals(DownloadState.CANCELLED, waiting.getState());
+        assertFalse(Files.exists(Paths.get(destination)), "A download that never started should write nothing");
+        assertFalse(Files.exists(Paths.get(tempDir, waiting.getId())), "Its temp directory should go with it");
+    }
+
+    @Test
+    @Timeout(30)
+    void testSlowProbeDoesNotHoldUpTheQueue() throws Exception
+    {
+        manager.setMaxConcurrentDownloads(1);
+        Download running = manager.startDownload(largeTestUrl, Paths.get(tempDir, "running.bin").toString());
+        Download waiting = manager.startDownload(testUrl, Paths.get(tempDir, "waiting.bin").toString());
+
+        try (LocalRangeServer slow = LocalRangeServer.builder().size(13264).latencyMillis(3000).start())
+        {
+            String slowDestination = Paths.get(tempDir, "slow.bin").toString();
+            CompletableFuture<Download> probing = CompletableFuture.supplyAsync(() ->
+            {
+                try
+                {
+                    return manager.startDownload(slow.url(), slowDestination);
+                }
+                catch (DownloadException e)
+                {
+                    throw new CompletionException(e);
+                }
+            });
+            assertTrue(waitFor(() -> slow.maxConcurrentConnections() > 0, 2000), "The slow probe should be on its way");
+
+            // none of these should have to wait for the probe
+            long started = System.nanoTime();
+            manager.setPriority(waiting.getId(), DownloadPriority.HIGH);
+            assertEquals(1, manager.getQueuedDownloadCount());
+            assertThrows(IllegalArgumentException.class, () -> manager.startDownload(testUrl, slowDestination),
+                "The destination of a download still being probed is taken");
+            manager.cancelDownload(running.getId());
+            assertTrue(waitFor(() -> waiting.getState() != DownloadState.PENDING, 1000), "The freed slot should be handed on");
+            assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(2), "The queue shouldn't wait on another download's probe");
+
+            Download slowDownload = probing.get(10, TimeUnit.SECONDS);
+            assertEquals(slowDestination, slowDownload.getDestination());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testQueuedDownloadReleasesProbe() throws Exception
+    {
+        manager.shutdown();
+        DownloadConfig probing = DownloadConfig.builder()
+            .numberOfThreads(16)
+            .chunkSizeMB(1)
+            .tempDirectory(tempDir)
+            .minSizeForChunking(1024)
+            .skipHeadRequest(true)
+            .maxConcurrentDownloads(1)
+            .build();
+        manager = new DownloadManager(probing);
+
+        try (LocalRangeServer queuedServer = LocalRangeServer.builder().size(13264).start())
+        {
+            Download running = manager.startDownload(largeTestUrl, Paths.get(tempDir, "running.bin").toString());
+            Download waiting = manager.startDownload(queuedServer.url(), Paths.get(tempDir, "waiting.bin").toString());
+            assertEquals(DownloadState.PENDING, waiting.getState());
+
+            manager.cancelDownload(running.getId());
+            waiting.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, waiting.getState());
+            assertEquals(2, queuedServer.getRequestCount(),
+                "The probe's response should be let go while queued and the only chunk should ask again");
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testRaisingLimitStartsQueuedDownloads() throws Exception
+    {
+        manager.setMaxConcurrentDownloads(1);
+        Download running = manager.startDownload(largeTestUrl, Paths.get(tempDir, "running.bin").toString());
+        Download first = manager.startDownload(testUrl, Paths.get(tempDir, "first.bin").toString());
+        Download second = manager.startDownload(testUrl, Paths.get(tempDir, "second.bin").toString());
+
+        manager.setMaxConcurrentDownloads(0);
+        first.awaitCompletion();
+        second.awaitCompletion();
+
+        assertEquals(DownloadState.COMPLETED, first.getState());
+        assertEquals(DownloadState.COMPLETED, second.getState());
+        assertEquals(DownloadState.DOWNLOADING, running.getState(), "Raising the limit should leave running downloads alone");
+    }
+
+    @Test
+    @Timeout(30)
+    void testQueuedDownloadSurvivesShutdown() throws Exception
+    {
+        manager.shutdown();
+        DownloadConfig limited = DownloadConfig.builder()
+            .numberOfThreads(16)
+            .chunkSizeMB(1)
+            .tempDirectory(tempDir)
+            .minSizeForChunking(1024)
+            .maxConcurrentDownloads(1)
+            .build();
+        manager = new DownloadManager(limited);
+        assertEquals(1, manager.getMaxConcurrentDownloads(), "Limit should come from the config");
+
+        manager.startDownload(largeTestUrl, Paths.get(tempDir, "running.bin").toString());
+        String destination = Paths.get(tempDir, "waiting.bin").toString();
+        Download waiting = manager.startDownload(testUrl, destination);
+        manager.shutdown();
+
+        manager = new DownloadManager(limited);
+        assertTrue(manager.getSavedDownloads().stream().anyMatch(saved -> saved.getId().equals(waiting.getId())),
+            "Queued download should be saved like any other");
+
+        manager.resumeDownload(waiting.getId());
+        Download restored = manager.getDownload(waiting.getId());
+        restored.awaitCompletion();
+        assertEquals(DownloadState.COMPLETED, restored.getState());
+        assertEquals(13264, Files.size(Paths.get(destination)));
+    }
+
+    // ============================================================
+    // SHUTDOWN TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testShutdownStopsActiveDownloads() throws Exception
+    {
+        String destination = Paths.get(tempDir, "shutdown.mp4").toString();
+        Download download = manager.startDownload(largeTestUrl, destination);
+        
+        Thread.sleep(200);
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+        
+        manager.shutdown();
+        
+        // After shutdown, download should be stopped
+        assertEquals(DownloadState.STOPPED, download.getState());
+    }
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testShutdownStopsPausedDownloads() throws Exception
+    {
+        String destination = Paths.get(tempDir, "shutdown-paused.mp4").toString();
+        Download download = manager.startDownload(largeTestUrl, destination);
+        
+        Thread.sleep(200);
+        manager.pauseDownload(download.getId());
+        assertEquals(DownloadState.PAUSED, download.getState());
+        
+        manager.shutdown();
+        
+        // After shutdown, paused download should be stopped
+        assertEquals(DownloadState.STOPPED, download.getState());
+    }
+
+    @Test
+    void testShutdownClearsActiveDownloads() throws Exception
+    {
+        String destination = Paths.get(tempDir, "clear.pdf").toString();
+        manager.startDownload(testUrl, destination);
+        
+        assertFalse(manager.getAllDownloads().isEmpty(), "Should have downloads");
+        
+        manager.shutdown();
+        
+        assertTrue(manager.getAllDownloads().isEmpty(), 
+            "Active downloads should be cleared after shutdown");
+    }
+
+    @Test
+    void testShutdownCanBeCalledMultipleTimes()
+    {
+        assertDoesNotThrow(() -> {
+            manager.shutdown();
+            manager.shutdown();
+            manager.shutdown();
+        }, "Shutdown should be idempotent");
+    }
+
+    @Test
+    @Timeout(30)
+    @Tag("network")
+    void testShutdownPreservesTempFilesForStoppedDownloads() throws Exception
+    {
+        String destination = Paths.get(tempDir, "preserve.mp4").toString();
+        Download download = manager.startDownload(largeTestUrl, destination);
+        
+        Thread.sleep(200);
+        
+        String downloadId = download.getId();
+        String tempDirPath = tempDir + "/" + downloadId;
+        
+        manager.shutdown();
+        
+        // Temp directory should still exist for stopped downloads
+        assertTrue(Files.exists(Paths.get(tempDirPath)), 
+            "Temp directory should be preserved for resume");
+    }
+
+    // ============================================================
+    // INTEGRATION TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(60)
+    @Tag("network")
+    @Tag("integration")
+    void testCompleteDownloadLifecycleWithPersistence() throws Exception
+    {
+        String destination = Paths.get(tempDir, "lifecycle.mp4").toString();
+        
+        // Start download
+        Download download = manager.startDownload(largeTestUrl, destination);
+        String downloadId = download.getId();
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+        
+        // Pause and save
+        Thread.sleep(50);
+        manager.pauseDownload(downloadId);
+        assertEquals(DownloadState.PAUSED, download.getState());
+        manager.shutdown();
+        
+        // Load and resume
+        DownloadManager newManager = new DownloadManager(config);
+        Download loaded = newManager.getDownload(downloadId);
+        assertNotNull(loaded);
+        assertEquals(DownloadState.PENDING, loaded.getState());
+        
+        newManager.resumeDownload(downloadId);
+        assertEquals(DownloadState.DOWNLOADING, loaded.getState());
+        
+        // Pause again
+        Thread.sleep(100);
+        newManager.pauseDownload(downloadId);
+        
+        // Resume to completion
+        newManager.resumeDownload(downloadId);
+        loaded.awaitCompletion();
+        
+        assertEquals(DownloadState.COMPLETED, loaded.getState());
+        assertTrue(Files.exists(Paths.get(destination)));
+        
+        newManager.shutdown();
+    }
+
+    @Test
+    @Timeout(60)
+    @Tag("network")
+    @Tag("integration")
+    void testMultipleConcurrentDownloadsWithMixedStates() throws Exception
+    {
+        String dest1 = Paths.get(tempDir, "concurrent1.pdf").toString();
+        String dest2 = Paths.get(tempDir, "concurrent2.mp4").toString();
+        String dest3 = Paths.get(tempDir, "concurrent3.pdf").toString();
+        
+        // Start three downloads
+        Download download1 = manager.startDownload(testUrl, dest1);
+        Download download2 = manager.startDownload(largeTestUrl, dest2);
+        Download download3 = manager.startDownload(testUrl, dest3);
+        
+        Thread.sleep(300);
+        
+        // Pause one
+        manager.pauseDownload(download2.getId());
+        
+        // Wait for small downloads to complete
+        download1.awaitCompletion();
+        download3.awaitCompletion();
+        
+        // Verify states
+        assertEquals(DownloadState.COMPLETED, download1.getState());
+        assertEquals(DownloadState.PAUSED, download2.getState());
+        assertEquals(DownloadState.COMPLETED, download3.getState());
+        
+        // Resume and complete the paused one
+        manager.resumeDownload(download2.getId());
+        
+        // Cancel it instead
+        Thread.sleep(200);
+        manager.cancelDownload(download2.getId());
+        
+        assertEquals(DownloadState.CANCELLED, download2.getState());
+    }
+
+    // ============================================================
+    // ERROR HANDLING TESTS
+    // ============================================================
+
+    @Test
+    void testStartDownloadWithInvalidUrl()
+    {
+        String destination = Paths.get(tempDir, "invalid.pdf").toString();
+        
+        assertThrows(DownloadException.class, () -> {
+            manager.startDownload(LocalRangeServer.unreachableUrl(), destination);
+        }, "Should throw exception for invalid URL");
+    }
+
+    @Test
+    void testOperationsAfterShutdown() throws Exception
+    {
+        // String destination = 
+        Paths.get(tempDir, "aftershutdown.pdf").toString();
+        
+        manager.shutdown();
+        
+        // Operations after shutdown should fail gracefully
+        // The exact behavior depends on your implementation
+        // Document expected behavior here
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all DownloadManager tests:
+   mvn test -Dtest=DownloadManagerTest
+
+Run only fast tests (no network):
+   mvn test -Dtest=DownloadManagerTest -Dgroups="!network"
+
+Run only integration tests:
+   mvn test -Dtest=DownloadManagerTest -Dgroups="integration"
+
+Run specific test:
+   mvn test -Dtest=DownloadManagerTest#testStartDownloadSuccess
+
+============================================================ */
\ No newline at end of file
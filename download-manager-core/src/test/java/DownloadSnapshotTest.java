@@ -1,3 +1,4 @@
+import io.rileyhe1.concurrency.Data.ChunkRange;
 import io.rileyhe1.concurrency.Data.DownloadSnapshot;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -468,6 +469,46 @@ class DownloadSnapshotTest
         assertEquals(1, restored[0].getChunkProgress().size());
         assertEquals(2, restored[1].getChunkProgress().size());
     }
+
+    // ============================================================
+    // WRITE MODE AND RANGE TESTS
+    // ============================================================
+
+    @Test
+    void testChunkRangesRoundTrip()
+    {
+        Map<Integer, Long> progress = new HashMap<>();
+        progress.put(0, 500L);
+        progress.put(1, 0L);
+        DownloadSnapshot original = new DownloadSnapshot("id", "url", "dest", 1000L, progress, "STOPPED");
+        original.setWriteMode("DIRECT");
+
+        // chunk 0 was split, chunk 1 is the tail that was stolen from it
+        Map<Integer, ChunkRange> ranges = new HashMap<>();
+        ranges.put(0, new ChunkRange(0, 749));
+        ranges.put(1, new ChunkRange(750, 999));
+        original.setChunkRanges(ranges);
+
+        DownloadSnapshot restored = gson.fromJson(gson.toJson(original), DownloadSnapshot.class);
+
+        assertEquals("DIRECT", restored.getWriteMode());
+        assertEquals(2, restored.getChunkRanges().size());
+        assertEquals(749L, restored.getChunkRanges().get(0).getEndByte());
+        assertEquals(750L, restored.getChunkRanges().get(1).getStartByte());
+        assertEquals(250L, restored.getChunkRanges().get(1).getLength());
+    }
+
+    @Test
+    void testOldSnapshotHasNoWriteModeOrRanges()
+    {
+        String json = "{\"id\":\"old\",\"url\":\"url\",\"destination\":\"dest\",\"totalSize\":10,"
+            + "\"chunkProgress\":{\"0\":5},\"state\":\"STOPPED\"}";
+        DownloadSnapshot restored = gson.fromJson(json, DownloadSnapshot.class);
+
+        assertNull(restored.getWriteMode(), "Snapshots saved before write modes should read back as temp file downloads");
+        assertNull(restored.getChunkRanges());
+        assertEquals(0, restored.getAssembledChunks());
+    }
 }
 
 /* ============================================================
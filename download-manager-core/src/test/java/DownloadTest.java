@@ -0,0 +1,2013 @@
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.DownloadException;
+import io.rileyhe1.concurrency.Data.DownloadSnapshot;
+import io.rileyhe1.concurrency.Data.DownloadState;
+import io.rileyhe1.concurrency.Data.TransportType;
+import io.rileyhe1.concurrency.Data.WriteMode;
+import io.rileyhe1.concurrency.Util.ContentDigest;
+import io.rileyhe1.concurrency.Util.Download;
+import io.rileyhe1.concurrency.Util.MirrorSet;
+import io.rileyhe1.concurrency.Util.ProgressTracker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for Download class.
+ * Tests download orchestration, state management, pause/resume/cancel functionality.
+ */
+class DownloadTest
+{
+    // Test servers, a small file at full speed and a larger one capped at 1MB/s per connection so
+    // pause/stop/cancel land mid-download
+    private LocalRangeServer server;
+    private LocalRangeServer largeServer;
+    private String testUrl;
+    private String largeTestUrl;
+    
+    private DownloadConfig config;
+    private String tempDir;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDirectory) throws IOException
+    {
+        tempDir = tempDirectory.toString();
+        server = LocalRangeServer.builder().size(13264).start();
+        testUrl = server.url();
+        largeServer = LocalRangeServer.builder().size(8 * 1024 * 1024).bytesPerSecond(1024 * 1024).start();
+        largeTestUrl = largeServer.url();
+        
+        config = DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSizeMB(1)
+            .timeoutsInSeconds(30)
+            .maxRetries(3)
+            .retryDelayMS(1000)
+            .tempDirectory(tempDir)
+            .bufferSize(8192)
+            .minSizeForChunking(1024) // 1KB threshold
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        server.close();
+        largeServer.close();
+
+        // Clean up test files
+        Files.walk(Paths.get(tempDir))
+            .filter(Files::isRegularFile)
+            .forEach(path -> {
+                try
+                {
+                    Files.deleteIfExists(path);
+                }
+                catch(IOException e)
+                {
+                    // Ignore cleanup errors
+                }
+            });
+    }
+
+    // ============================================================
+    // CONSTRUCTOR TESTS
+    // ============================================================
+
+    @Test
+    void testConstructorWithValidParameters() throws DownloadException
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+
+        assertNotNull(download.getId(), "Download should have an ID");
+        assertEquals(DownloadState.PENDING, download.getState(), "Initial state should be PENDING");
+        assertTrue(download.getTotalSize() > 0, "Should have retrieved file size");
+        assertNull(download.getError(), "Should have no error initially");
+    }
+
+    @Test
+    void testConstructorNullURL()
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Download(null, destination, config, tracker);
+        });
+    }
+
+    @Test
+    void testConstructorEmptyURL()
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Download("", destination, config, tracker);
+        });
+    }
+
+    @Test
+    void testConstructorNullDestination()
+    {
+        ProgressTracker tracker = new ProgressTracker();
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Download(testUrl, null, config, tracker);
+        });
+    }
+
+    @Test
+    void testConstructorNullConfig()
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Download(testUrl, destination, null, tracker);
+        });
+    }
+
+    @Test
+    void testConstructorNullProgressTracker()
+    {
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            new Download(testUrl, destination, config, null);
+        });
+    }
+
+    @Test
+    void testConstructorInvalidURL()
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        assertThrows(DownloadException.class, () -> {
+            new Download(LocalRangeServer.unreachableUrl(), 
+                        destination, config, tracker);
+        });
+    }
+
+    @Test
+    void testConstructorSetsUniqueIds() throws DownloadException
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination1 = Paths.get(tempDir, "test1.pdf").toString();
+        String destination2 = Paths.get(tempDir, "test2.pdf").toString();
+
+        Download download1 = new Download(testUrl, destination1, config, tracker);
+        Download download2 = new Download(testUrl, destination2, config, tracker);
+
+        assertNotEquals(download1.getId(), download2.getId(), 
+            "Each download should have a unique ID");
+    }
+
+    @Test
+    void testConstructorCreatesTempDirectory() throws DownloadException
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+
+        // Temp directory should be created: config.getTempDirectory() + "/" + downloadId
+        String expectedTempDir = tempDir + "/" + download.getId();
+        assertTrue(Files.exists(Paths.get(expectedTempDir)), 
+            "Download-specific temp directory should be created");
+    }
+
+    // ============================================================
+    // START METHOD TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    void testStartAndCompleteDownload() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "dummy.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+        
+        assertEquals(DownloadState.PENDING, download.getState());
+        
+        download.start();
+        
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+        
+        download.awaitCompletion();
+        
+        assertEquals(DownloadState.COMPLETED, download.getState());
+        assertTrue(Files.exists(Paths.get(destination)), "Downloaded file should exist");
+        assertTrue(Files.size(Paths.get(destination)) > 0, "Downloaded file should have content");
+        assertNull(download.getError(), "Should have no error on success");
+        
+        // Verify temp directory was cleaned up
+        String tempDirPath = tempDir + "/" + download.getId();
+        assertFalse(Files.exists(Paths.get(tempDirPath)), 
+            "Temp directory should be cleaned up after completion");
+    }
+
+    @Test
+    void testStartTwiceThrowsException() throws DownloadException
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+        download.start();
+
+        assertThrows(IllegalStateException.class, () -> {
+            download.start();
+        }, "Starting a download twice should throw exception");
+    }
+
+    @Test
+    @Timeout(30)
+    void testProgressTracking() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+        
+        assertEquals(0.0, download.getProgress(), 0.01, "Initial progress should be 0");
+        
+        download.start();
+        
+        // Wait a bit for some progress
+        Thread.sleep(500);
+        
+        double midProgress = download.getProgress();
+        assertTrue(midProgress >= 0.0 && midProgress <= 100.0, 
+            "Progress should be between 0 and 100");
+        
+        download.awaitCompletion();
+        
+        assertEquals(100.0, download.getProgress(), 0.01, 
+            "Progress should be 100% when complete");
+    }
+
+    // ============================================================
+    // PAUSE/RESUME TESTS
+    // ============================================================
+
+    @Test
+    void testPauseBeforeStartThrowsException() throws DownloadException
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+
+        assertThrows(IllegalStateException.class, () -> {
+            download.pause();
+        }, "Cannot pause before starting");
+    }
+
+    @Test
+    void testResumeBeforeStartThrowsException() throws DownloadException
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+
+        assertThrows(IllegalStateException.class, () -> {
+            download.resume();
+        }, "Cannot resume before starting");
+    }
+
+    @Test
+    @Timeout(30)
+    void testPauseAndResume() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+
+        // Wait for download to make progress
+        Thread.sleep(100);
+        
+        download.pause();
+        assertEquals(DownloadState.PAUSED, download.getState());
+        
+        double progressAtPause = download.getProgress();
+        assertTrue(progressAtPause > 0, "Should have some progress when paused. Progress was: " + progressAtPause);
+        
+        // Wait and verify progress doesn't increase while paused
+        Thread.sleep(50);
+        assertEquals(progressAtPause, download.getProgress(), 0.1, 
+            "Progress should not increase while paused");
+        
+        download.resume();
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+        
+        // Wait for more progress
+        Thread.sleep(100);
+        assertTrue(download.getProgress() > progressAtPause, 
+            "Progress should increase after resume");
+        
+        download.cancel(); // Clean up
+    }
+
+    @Test
+    void testResumeWithoutPauseThrowsException() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+        download.start();
+
+        assertThrows(IllegalStateException.class, () -> {
+            download.resume();
+        }, "Cannot resume when not paused");
+        
+        download.cancel(); // Clean up
+    }
+
+    @Test
+    void testPauseWhenAlreadyPausedThrowsException() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+        Thread.sleep(100);
+        
+        download.pause();
+
+        assertThrows(IllegalStateException.class, () -> {
+            download.pause();
+        }, "Cannot pause when already paused");
+        
+        download.cancel(); // Clean up
+    }
+
+    @Test
+    @Timeout(30)
+    void testMultiplePauseResumeCycles() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+
+        // Cycle through pause/resume multiple times
+        for(int i = 0; i < 3; i++)
+        {
+            Thread.sleep(100);
+            download.pause();
+            assertEquals(DownloadState.PAUSED, download.getState());
+            
+            Thread.sleep(100);
+            download.resume();
+            assertEquals(DownloadState.DOWNLOADING, download.getState());
+        }
+
+        download.cancel(); // Clean up
+    }
+
+    // ============================================================
+    // CANCEL TESTS
+    // ============================================================
+
+    @Test
+    void testCancelBeforeStartThrowsException() throws DownloadException
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+
+        assertThrows(IllegalStateException.class, () -> {
+            download.cancel();
+        }, "Cannot cancel before starting");
+    }
+
+    @Test
+    @Timeout(30)
+    void testCancelDuringDownload() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+
+        Thread.sleep(200);
+        
+        download.cancel();
+        
+        assertEquals(DownloadState.CANCELLED, download.getState());
+        
+        // awaitCompletion should not throw for cancelled downloads
+        download.awaitCompletion();
+        
+        assertEquals(DownloadState.CANCELLED, download.getState());
+        
+        // Verify temp directory was cleaned up
+        String tempDirPath = tempDir + "/" + download.getId();
+        assertFalse(Files.exists(Paths.get(tempDirPath)), 
+            "Temp directory should be cleaned up after cancellation");
+    }
+
+    @Test
+    @Timeout(30)
+    void testCancelWhilePaused() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+
+        Thread.sleep(100);
+        download.pause();
+        
+        assertEquals(DownloadState.PAUSED, download.getState());
+        
+        download.cancel();
+        
+        assertEquals(DownloadState.CANCELLED, download.getState());
+        
+        download.awaitCompletion();
+        
+        // Verify cleanup
+        String tempDirPath = tempDir + "/" + download.getId();
+        assertFalse(Files.exists(Paths.get(tempDirPath)), 
+            "Temp directory should be cleaned up");
+    }
+
+    @Test
+    @Timeout(30)
+    void testCancelAfterCompletion() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+        download.start();
+        download.awaitCompletion();
+
+        assertEquals(DownloadState.COMPLETED, download.getState());
+        
+        // Should not throw, just return
+        download.cancel();
+        
+        assertEquals(DownloadState.COMPLETED, download.getState(), 
+            "State should remain COMPLETED");
+    }
+
+    @Test
+    void testMultipleCancelCalls() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+
+        Thread.sleep(100);
+        
+        download.cancel();
+        download.cancel(); // Second cancel should be safe
+        download.cancel(); // Third cancel should be safe
+
+        assertEquals(DownloadState.CANCELLED, download.getState());
+    }
+
+    // ============================================================
+    // STOP TESTS (NEW)
+    // ============================================================
+
+    @Test
+    void testStopBeforeStartThrowsException() throws DownloadException
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+
+        assertThrows(IllegalStateException.class, () -> {
+            download.stop();
+        }, "Cannot stop before starting");
+    }
+
+    @Test
+    @Timeout(30)
+    void testStopDuringDownload() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+
+        Thread.sleep(200);
+        
+        download.stop();
+        
+        assertEquals(DownloadState.STOPPED, download.getState());
+        
+        // Verify temp directory still exists (NOT cleaned up)
+        String tempDirPath = tempDir + "/" + download.getId();
+        assertTrue(Files.exists(Paths.get(tempDirPath)), 
+            "Temp directory should NOT be cleaned up after stop");
+    }
+
+    @Test
+    @Timeout(30)
+    void testStopWhilePaused() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+
+        Thread.sleep(100);
+        download.pause();
+        
+        assertEquals(DownloadState.PAUSED, download.getState());
+        
+        download.stop();
+        
+        assertEquals(DownloadState.STOPPED, download.getState());
+        
+        // Verify temp files preserved
+        String tempDirPath = tempDir + "/" + download.getId();
+        assertTrue(Files.exists(Paths.get(tempDirPath)), 
+            "Temp directory should be preserved for resume");
+    }
+
+    @Test
+    @Timeout(30)
+    void testStopAfterCompletion() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+        download.start();
+        download.awaitCompletion();
+
+        assertEquals(DownloadState.COMPLETED, download.getState());
+        
+        // Should not throw, just return
+        download.stop();
+        
+        assertEquals(DownloadState.COMPLETED, download.getState(), 
+            "State should remain COMPLETED");
+    }
+
+    @Test
+    void testMultipleStopCalls() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+
+        Thread.sleep(100);
+        
+        download.stop();
+        download.stop(); // Second stop should be safe
+        download.stop(); // Third stop should be safe
+
+        assertEquals(DownloadState.STOPPED, download.getState());
+    }
+
+    // ============================================================
+    // HELPER METHOD TESTS (NEW)
+    // ============================================================
+
+    @Test
+    void testGetUrl() throws DownloadException
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+
+        assertEquals(testUrl, download.getUrl());
+    }
+
+    @Test
+    void testGetDestination() throws DownloadException
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+
+        assertEquals(destination, download.getDestination());
+    }
+
+    @Test
+    void testGetFileName() throws DownloadException
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "myfile.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+
+        assertEquals("myfile.pdf", download.getFileName());
+    }
+
+    @Test
+    @Timeout(30)
+    void testGetDownloadedBytes() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+        
+        assertEquals(0, download.getDownloadedBytes(), "Should start at 0");
+        
+        download.start();
+        download.awaitCompletion();
+        
+        assertEquals(download.getTotalSize(), download.getDownloadedBytes(), 
+            "Should equal total size when complete");
+    }
+
+    @Test
+    @Timeout(30)
+    void testGetRemainingBytes() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+        
+        assertEquals(download.getTotalSize(), download.getRemainingBytes(), 
+            "Should equal total size initially");
+        
+        download.start();
+        download.awaitCompletion();
+        
+        assertEquals(0, download.getRemainingBytes(), 
+            "Should be 0 when complete");
+    }
+
+    // ============================================================
+    // STATE MANAGEMENT TESTS
+    // ============================================================
+
+    @Test
+    void testStateTransitionPendingToDownloading() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+        
+        assertEquals(DownloadState.PENDING, download.getState());
+        download.start();
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+        
+        download.cancel();
+    }
+
+    @Test
+    void testStateTransitionDownloadingToCompleted() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+        download.start();
+        
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+        
+        download.awaitCompletion();
+        
+        assertEquals(DownloadState.COMPLETED, download.getState());
+    }
+
+    @Test
+    void testStateTransitionDownloadingToPaused() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+        
+        Thread.sleep(100);
+        
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+        download.pause();
+        assertEquals(DownloadState.PAUSED, download.getState());
+        
+        download.cancel();
+    }
+
+    @Test
+    void testStateTransitionPausedToDownloading() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+        
+        Thread.sleep(100);
+        download.pause();
+        
+        assertEquals(DownloadState.PAUSED, download.getState());
+        download.resume();
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+        
+        download.cancel();
+    }
+
+    @Test
+    void testStateTransitionDownloadingToStopped() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+        
+        Thread.sleep(100);
+        
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+        download.stop();
+        assertEquals(DownloadState.STOPPED, download.getState());
+    }
+
+    // ============================================================
+    // ERROR HANDLING TESTS
+    // ============================================================
+
+    @Test
+    void testGetErrorReturnsNullOnSuccess() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "test.pdf").toString();
+
+        Download download = new Download(testUrl, destination, config, tracker);
+        download.start();
+        download.awaitCompletion();
+
+        assertNull(download.getError(), "Error should be null on success");
+    }
+
+    // ============================================================
+    // CHUNK CALCULATION TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    void testSingleChunkForSmallFile() throws Exception
+    {
+        // Configure for single chunk (file is ~13KB, set threshold to 20KB)
+        DownloadConfig singleChunkConfig = DownloadConfig.builder()
+            .numberOfThreads(1)
+            .chunkSizeMB(1)
+            .timeoutsInSeconds(30)
+            .tempDirectory(tempDir)
+            .minSizeForChunking(20 * 1024) // 20KB
+            .build();
+
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "small.pdf").toString();
+
+        Download download = new Download(testUrl, destination, singleChunkConfig, tracker);
+        download.start();
+        download.awaitCompletion();
+
+        assertEquals(DownloadState.COMPLETED, download.getState());
+        assertTrue(Files.exists(Paths.get(destination)));
+    }
+
+    @Test
+    @Timeout(30)
+    void testMultipleChunksForLargeFile() throws Exception
+    {
+        // Small chunk size to force multiple chunks
+        DownloadConfig multiChunkConfig = DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSize(5000) // 5KB chunks
+            .timeoutsInSeconds(30)
+            .tempDirectory(tempDir)
+            .minSizeForChunking(1024)
+            .build();
+
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "multi.pdf").toString();
+
+        Download download = new Download(testUrl, destination, multiChunkConfig, tracker);
+        download.start();
+        download.awaitCompletion();
+
+        assertEquals(DownloadState.COMPLETED, download.getState());
+        assertTrue(Files.exists(Paths.get(destination)));
+        
+        // Verify file size matches expected
+        long downloadedSize = Files.size(Paths.get(destination));
+        assertEquals(download.getTotalSize(), downloadedSize, 
+            "Downloaded file size should match expected size");
+    }
+
+    // ============================================================
+    // CONCURRENCY TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    void testConcurrentPauseAndResume() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "concurrent.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, config, tracker);
+        download.start();
+
+        // Multiple threads trying to pause/resume
+        ExecutorService testExecutor = Executors.newFixedThreadPool(4);
+        
+        for(int i = 0; i < 10; i++)
+        {
+            testExecutor.submit(() -> {
+                try
+                {
+                    Thread.sleep((long)(Math.random() * 100));
+                    if(Math.random() > 0.5)
+                    {
+                        try
+                        {
+                            download.pause();
+                        }
+                        catch(IllegalStateException e)
+                        {
+                            // Expected - already paused or not downloading
+                        }
+                    }
+                    else
+                    {
+                        try
+                        {
+                            download.resume();
+                        }
+                        catch(IllegalStateException e)
+                        {
+                            // Expected - not paused
+                        }
+                    }
+                }
+                catch(InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        testExecutor.shutdown();
+        testExecutor.awaitTermination(5, TimeUnit.SECONDS);
+
+        // Ensure download is in valid state
+        DownloadState state = download.getState();
+        assertTrue(state == DownloadState.DOWNLOADING || 
+                   state == DownloadState.PAUSED ||
+                   state == DownloadState.COMPLETED,
+                   "Download should be in valid state");
+
+        download.cancel();
+    }
+
+    // ============================================================
+    // INTEGRATION TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(45)
+    void testCompleteDownloadLifecycle() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "lifecycle.pdf").toString();
+
+        // Create
+        Download download = new Download(testUrl, destination, config, tracker);
+        assertEquals(DownloadState.PENDING, download.getState());
+        assertNotNull(download.getId());
+
+        // Start
+        download.start();
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+
+        // Pause
+        Thread.sleep(5);
+        download.pause();
+        assertEquals(DownloadState.PAUSED, download.getState());
+
+        // Resume
+        download.resume();
+        assertEquals(DownloadState.DOWNLOADING, download.getState());
+
+        // Complete
+        download.awaitCompletion();
+        assertEquals(DownloadState.COMPLETED, download.getState());
+
+        // Verify file
+        assertTrue(Files.exists(Paths.get(destination)));
+        assertEquals(download.getTotalSize(), Files.size(Paths.get(destination)));
+        assertEquals(100.0, download.getProgress(), 0.01);
+        assertNull(download.getError());
+        
+        // Verify cleanup
+        String tempDirPath = tempDir + "/" + download.getId();
+        assertFalse(Files.exists(Paths.get(tempDirPath)), 
+            "Temp directory should be cleaned up");
+    }
+
+    private static long watchdogThreads()
+    {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.isAlive() && thread.getName().equals("transport-watchdog"))
+            .count();
+    }
+
+    @Test
+    @Timeout(30)
+    void testStandaloneDownloadClosesItsTransport() throws Exception
+    {
+        long before = watchdogThreads();
+        String destination = Paths.get(tempDir, "standalone.bin").toString();
+
+        // no context passed in, so the download made its own transport and has to close it
+        Download download = new Download(testUrl, destination, config, new ProgressTracker());
+        download.start();
+        download.awaitCompletion();
+        assertEquals(DownloadState.COMPLETED, download.getState());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (watchdogThreads() > before && System.nanoTime() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(before, watchdogThreads(), "The finished download's read watchdog thread should be gone");
+    }
+
+    // ============================================================
+    // DIRECT WRITE MODE TESTS
+    // ============================================================
+
+    private DownloadConfig directConfig()
+    {
+        return DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSizeMB(1)
+            .timeoutsInSeconds(30)
+            .maxRetries(3)
+            .retryDelayMS(1000)
+            .tempDirectory(tempDir)
+            .bufferSize(8192)
+            .minSizeForChunking(1024)
+            .writeMode(WriteMode.DIRECT)
+            .build();
+    }
+
+    @Test
+    @Timeout(30)
+    void testDirectModeCompletesWithoutTempFiles() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "direct.pdf").toString();
+
+        Download download = new Download(testUrl, destination, directConfig(), tracker);
+        assertEquals(WriteMode.DIRECT, download.getWriteMode());
+        assertFalse(Files.exists(Paths.get(tempDir, download.getId())),
+            "DIRECT downloads should not create a temp directory");
+
+        download.start();
+        download.awaitCompletion();
+
+        assertEquals(DownloadState.COMPLETED, download.getState());
+        assertEquals(download.getTotalSize(), Files.size(Paths.get(destination)));
+        assertEquals(100.0, download.getProgress(), 0.01);
+    }
+
+    @Test
+    @Timeout(30)
+    void testStreamingModeCompletesAndCleansUp() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "streaming.pdf").toString();
+        DownloadConfig streamingConfig = DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSize(4096)
+            .timeoutsInSeconds(30)
+            .maxRetries(3)
+            .retryDelayMS(1000)
+            .tempDirectory(tempDir)
+            .bufferSize(8192)
+            .minSizeForChunking(1024)
+            .writeMode(WriteMode.STREAMING)
+            .build();
+
+        Download download = new Download(testUrl, destination, streamingConfig, tracker);
+        download.start();
+        download.awaitCompletion();
+
+        assertEquals(DownloadState.COMPLETED, download.getState());
+        assertEquals(download.getTotalSize(), Files.size(Paths.get(destination)));
+        assertFalse(Files.exists(Paths.get(tempDir, download.getId())),
+            "Temp directory should be cleaned up after completion");
+    }
+
+    @Test
+    @Timeout(30)
+    void testDirectModeStopKeepsPreallocatedDestination() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "direct-large.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, directConfig(), tracker);
+        download.start();
+        Thread.sleep(500);
+        download.stop();
+
+        assertEquals(DownloadState.STOPPED, download.getState());
+        // the destination is sized up front and kept so startExisting can fill in the rest
+        assertEquals(download.getTotalSize(), Files.size(Paths.get(destination)));
+        assertEquals("DIRECT", download.createSnapshot().getWriteMode());
+    }
+
+    @Test
+    @Timeout(30)
+    void testDirectModeCancelDeletesDestination() throws Exception
+    {
+        ProgressTracker tracker = new ProgressTracker();
+        String destination = Paths.get(tempDir, "direct-cancel.mp4").toString();
+
+        Download download = new Download(largeTestUrl, destination, directConfig(), tracker);
+        download.start();
+        Thread.sleep(500);
+        download.cancel();
+
+        assertEquals(DownloadState.CANCELLED, download.getState());
+        assertFalse(Files.exists(Paths.get(destination)), "A cancelled DIRECT download should not leave a partial file behind");
+    }
+
+    // ============================================================
+    // FAULT INJECTION TESTS
+    // ============================================================
+
+    private DownloadConfig faultConfig()
+    {
+        return DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSize(64 * 1024)
+            .timeoutsInSeconds(10)
+            .maxRetries(3)
+            .retryDelayMS(100)
+            .tempDirectory(tempDir)
+            .bufferSize(8192)
+            .minSizeForChunking(1024)
+            .build();
+    }
+
+    @Test
+    @Timeout(30)
+    void testRecoversFromMidStreamResets() throws Exception
+    {
+        try (LocalRangeServer resetting = LocalRangeServer.builder().size(256 * 1024).resetFirst(2, 10000).start())
+        {
+            String destination = Paths.get(tempDir, "reset.bin").toString();
+
+            Download download = new Download(resetting.url(), destination, faultConfig(), new ProgressTracker());
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0),
+                "Retried chunks should resume where the reset cut them off without duplicating bytes");
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testRetriesThrottledResponses() throws Exception
+    {
+        try (LocalRangeServer throttling = LocalRangeServer.builder().size(256 * 1024).failFirst(2, 503).start())
+        {
+            String destination = Paths.get(tempDir, "throttled.bin").toString();
+
+            Download download = new Download(throttling.url(), destination, faultConfig(), new ProgressTracker());
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+            assertEquals(256 * 1024 / (64 * 1024) + 2, throttling.getRequestCount(), "Each 503 should cost one extra request");
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testRecoversFromStalledBody() throws Exception
+    {
+        for (TransportType transportType : TransportType.values())
+        {
+            // the first range stops halfway for 30 seconds, the read timeout should cut it off and retry it long before that
+            try (LocalRangeServer stalling = LocalRangeServer.builder().size(256 * 1024).stallFirst(1).start())
+            {
+                String destination = Paths.get(tempDir, "stalled-" + transportType + ".bin").toString();
+                DownloadConfig config = DownloadConfig.builder()
+                    .numberOfThreads(4)
+                    .chunkSize(64 * 1024)
+                    .connectionTimeout(10000)
+                    .readTimeout(500)
+                    .maxRetries(3)
+                    .retryDelayMS(100)
+                    .tempDirectory(tempDir)
+                    .minSizeForChunking(1024)
+                    .maxHedgedRequests(0)
+                    .transportType(transportType)
+                    .build();
+
+                Download download = new Download(stalling.url(), destination, config, new ProgressTracker());
+                download.start();
+                download.awaitCompletion();
+
+                assertEquals(DownloadState.COMPLETED, download.getState(), transportType + " should recover from the stall");
+                assertEquals(1, download.getRetryCount(), transportType + " should retry the stalled chunk once");
+                assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0),
+                    transportType + " retry should pick up where the stalled body stopped");
+            }
+        }
+    }
+
+    @Test
+    void testMissingAcceptRangesRejected() throws Exception
+    {
+        try (LocalRangeServer noRanges = LocalRangeServer.builder().size(256 * 1024).acceptRanges(false).start())
+        {
+            String destination = Paths.get(tempDir, "no-ranges.bin").toString();
+
+            assertThrows(DownloadException.class, () -> new Download(noRanges.url(), destination, faultConfig(), new ProgressTracker()),
+                "A file big enough to chunk can't be downloaded from a server without range support");
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testOverstatedContentLengthFails() throws Exception
+    {
+        try (LocalRangeServer lying = LocalRangeServer.builder().size(256 * 1024).advertisedLength(256 * 1024 + 4096).start())
+        {
+            String destination = Paths.get(tempDir, "short.bin").toString();
+
+            Download download = new Download(lying.url(), destination, faultConfig(), new ProgressTracker());
+            download.start();
+
+            assertThrows(DownloadException.class, download::awaitCompletion);
+            assertEquals(DownloadState.FAILED, download.getState(), "Bytes past the real end can never arrive");
+        }
+    }
+
+    // ============================================================
+    // MIRROR TESTS
+    // ============================================================
+
+    private DownloadConfig mirrorConfig()
+    {
+        return DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSize(64 * 1024)
+            .timeoutsInSeconds(10)
+            .maxRetries(3)
+            .retryDelayMS(100)
+            .tempDirectory(tempDir)
+            .bufferSize(8192)
+            .minSizeForChunking(1024)
+            .build();
+    }
+
+    @Test
+    @Timeout(30)
+    void testMirroredDownloadUsesEverySource() throws Exception
+    {
+        try (LocalRangeServer first = LocalRangeServer.builder().size(1024 * 1024).bytesPerSecond(512 * 1024).start();
+             LocalRangeServer second = LocalRangeServer.builder().size(1024 * 1024).bytesPerSecond(512 * 1024).start())
+        {
+            String destination = Paths.get(tempDir, "mirrored.bin").toString();
+
+            Download download = Download.withMirrors(List.of(first.url(), second.url()), destination, mirrorConfig(),
+                new ProgressTracker(), null);
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0));
+            List<MirrorSet.Mirror> mirrors = download.getMirrors();
+            assertEquals(2, mirrors.size());
+            assertTrue(mirrors.get(0).getBytesDownloaded() > 0, "First mirror should have served some ranges");
+            assertTrue(mirrors.get(1).getBytesDownloaded() > 0, "Second mirror should have served some ranges");
+            assertEquals(1024 * 1024, mirrors.get(0).getBytesDownloaded() + mirrors.get(1).getBytesDownloaded());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testFasterMirrorCarriesMoreBytes() throws Exception
+    {
+        try (LocalRangeServer fast = LocalRangeServer.builder().size(4 * 1024 * 1024).bytesPerSecond(2 * 1024 * 1024).start();
+             LocalRangeServer slow = LocalRangeServer.builder().size(4 * 1024 * 1024).bytesPerSecond(128 * 1024).start())
+        {
+            String destination = Paths.get(tempDir, "weighted.bin").toString();
+
+            Download download = Download.withMirrors(List.of(slow.url(), fast.url()), destination, mirrorConfig(),
+                new ProgressTracker(), null);
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+            long slowBytes = download.getMirrors().get(0).getBytesDownloaded();
+            long fastBytes = download.getMirrors().get(1).getBytesDownloaded();
+            assertTrue(fastBytes > 4 * slowBytes, "Ranges should follow throughput, fast " + fastBytes + " slow " + slowBytes);
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testFailingMirrorDropped() throws Exception
+    {
+        try (LocalRangeServer healthy = LocalRangeServer.builder().size(512 * 1024).start();
+             LocalRangeServer broken = LocalRangeServer.builder().size(512 * 1024).failFirst(1000, 500).start())
+        {
+            String destination = Paths.get(tempDir, "failover.bin").toString();
+
+            Download download = Download.withMirrors(List.of(broken.url(), healthy.url()), destination, mirrorConfig(),
+                new ProgressTracker(), null);
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState(), "Chunks should move off a failing mirror");
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0));
+            assertTrue(download.getMirrors().get(0).isDropped());
+            assertFalse(download.getMirrors().get(1).isDropped());
+            assertEquals(512 * 1024, download.getMirrors().get(1).getBytesDownloaded());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testDisagreeingMirrorsSkipped() throws Exception
+    {
+        try (LocalRangeServer primary = LocalRangeServer.builder().size(256 * 1024).etag("\"v1\"").start();
+             LocalRangeServer agreeing = LocalRangeServer.builder().size(256 * 1024).etag("\"v1\"").start();
+             LocalRangeServer otherVersion = LocalRangeServer.builder().size(256 * 1024).etag("\"v2\"").start();
+             LocalRangeServer otherSize = LocalRangeServer.builder().size(128 * 1024).start())
+        {
+            String destination = Paths.get(tempDir, "checked.bin").toString();
+            List<String> urls = List.of(primary.url(), otherVersion.url(), otherSize.url(),
+                LocalRangeServer.unreachableUrl(), agreeing.url());
+
+            Download download = Download.withMirrors(urls, destination, mirrorConfig(), new ProgressTracker(), null);
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+            assertEquals(2, download.getMirrors().size(), "Only mirrors serving the same file should be used");
+            assertEquals(primary.url(), download.getMirrors().get(0).getUrl());
+            assertEquals(agreeing.url(), download.getMirrors().get(1).getUrl());
+            assertEquals(0, otherVersion.getRequestCount(), "A mirror that was left out should never be asked for a range");
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testUnreachableFirstMirrorSkipped() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(256 * 1024).start();
+             LocalRangeServer agreeing = LocalRangeServer.builder().size(256 * 1024).start())
+        {
+            String destination = Paths.get(tempDir, "fallback.bin").toString();
+            List<String> urls = List.of(LocalRangeServer.unreachableUrl(), server.url(), agreeing.url());
+
+            Download download = Download.withMirrors(urls, destination, mirrorConfig(), new ProgressTracker(), null);
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+            assertEquals(server.url(), download.getUrl(), "The first url that answers should become the primary");
+            assertEquals(2, download.getMirrors().size());
+            assertEquals(server.url(), download.getMirrors().get(0).getUrl());
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testNoAgreeingMirrorsMeansSingleSource() throws Exception
+    {
+        try (LocalRangeServer otherSize = LocalRangeServer.builder().size(128 * 1024).start())
+        {
+            String destination = Paths.get(tempDir, "single.bin").toString();
+
+            Download download = Download.withMirrors(List.of(testUrl, otherSize.url()), destination, config,
+                new ProgressTracker(), null);
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+            assertTrue(download.getMirrors().isEmpty());
+            assertTrue(new Download(testUrl, destination + ".2", config, new ProgressTracker()).getMirrors().isEmpty());
+        }
+    }
+
+    @Test
+    void testMirrorUrlsValidated()
+    {
+        String destination = Paths.get(tempDir, "invalid.bin").toString();
+        assertThrows(IllegalArgumentException.class,
+            () -> Download.withMirrors(null, destination, config, new ProgressTracker(), null));
+        assertThrows(IllegalArgumentException.class,
+            () -> Download.withMirrors(List.of(), destination, config, new ProgressTracker(), null));
+        assertThrows(IllegalArgumentException.class,
+            () -> Download.withMirrors(List.of(testUrl, " "), destination, config, new ProgressTracker(), null));
+    }
+
+    @Test
+    @Timeout(30)
+    void testMirroredDownloadResumesWithItsMirrors() throws Exception
+    {
+        try (LocalRangeServer first = LocalRangeServer.builder().size(2 * 1024 * 1024).bytesPerSecond(256 * 1024).start();
+             LocalRangeServer second = LocalRangeServer.builder().size(2 * 1024 * 1024).bytesPerSecond(256 * 1024).start())
+        {
+            String destination = Paths.get(tempDir, "resumed-mirrors.bin").toString();
+            List<String> urls = List.of(first.url(), second.url());
+
+            Download download = Download.withMirrors(urls, destination, mirrorConfig(), new ProgressTracker(), null);
+            download.start();
+            Thread.sleep(500);
+            download.stop();
+
+            DownloadSnapshot snapshot = download.createSnapshot();
+            assertEquals(urls, snapshot.getMirrors());
+            Download resumed = new Download(snapshot, mirrorConfig(), new ProgressTracker());
+            assertEquals(2, resumed.getMirrors().size(), "Mirrors should come back with the saved download");
+            resumed.startExisting();
+            resumed.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, resumed.getState());
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0));
+        }
+    }
+
+    // ============================================================
+    // METRICS TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    void testRatesWhileDownloading() throws Exception
+    {
+        String destination = Paths.get(tempDir, "metrics.bin").toString();
+        Download download = new Download(largeTestUrl, destination, config, new ProgressTracker());
+        assertEquals(0, download.getBytesPerSecond(), "A pending download has no rate");
+        assertNull(download.getEta());
+        assertNull(download.getTimeToFirstByte());
+
+        download.start();
+        Thread.sleep(1600);
+
+        // four connections at 1MB/s each
+        double rate = download.getBytesPerSecond();
+        assertTrue(rate > 1024 * 1024 && rate < 8 * 1024 * 1024, "Rate should be near 4MB/s, was " + rate);
+        Map<Integer, Double> chunkRates = download.getChunkBytesPerSecond();
+        assertFalse(chunkRates.isEmpty(), "Running chunks should report their own rates");
+        for (double chunkRate : chunkRates.values())
+        {
+            assertTrue(chunkRate > 0 && chunkRate < 2 * 1024 * 1024, "Each chunk is capped at 1MB/s, was " + chunkRate);
+        }
+
+        Duration eta = download.getEta();
+        assertNotNull(eta, "A running download with a rate should have an ETA");
+        assertTrue(eta.toSeconds() < 30, "8MB at about 4MB/s shouldn't be far off, was " + eta);
+
+        Duration ttfb = download.getTimeToFirstByte();
+        assertNotNull(ttfb, "Chunks have been answered by now");
+        assertTrue(!ttfb.isNegative() && ttfb.toMillis() < 1600, "Was " + ttfb);
+
+        download.cancel();
+    }
+
+    @Test
+    @Timeout(30)
+    void testRatesDropWhilePausedAndAfterCompletion() throws Exception
+    {
+        String destination = Paths.get(tempDir, "metrics-paused.bin").toString();
+        Download download = new Download(largeTestUrl, destination, config, new ProgressTracker());
+        download.start();
+        Thread.sleep(1200);
+        assertTrue(download.getBytesPerSecond() > 0);
+
+        download.pause();
+        assertEquals(0, download.getBytesPerSecond(), "Nothing moves while paused");
+        assertNull(download.getEta(), "A paused download has no ETA");
+        assertTrue(download.getChunkBytesPerSecond().isEmpty());
+
+        download.resume();
+        download.awaitCompletion();
+        assertEquals(DownloadState.COMPLETED, download.getState());
+        assertEquals(0, download.getBytesPerSecond());
+        assertEquals(Duration.ZERO, download.getEta(), "A finished download has nothing left");
+    }
+
+    @Test
+    @Timeout(30)
+    void testRetryCountFollowsFailedAttempts() throws Exception
+    {
+        try (LocalRangeServer throttling = LocalRangeServer.builder().size(256 * 1024).failFirst(2, 503).start())
+        {
+            String destination = Paths.get(tempDir, "metrics-retries.bin").toString();
+
+            Download download = new Download(throttling.url(), destination, faultConfig(), new ProgressTracker());
+            assertEquals(0, download.getRetryCount());
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+            assertEquals(2, download.getRetryCount(), "Each 503 should have cost one retry");
+            assertNotNull(download.getTimeToFirstByte(), "A 503 is still a response");
+        }
+    }
+
+    // ============================================================
+    // DIGEST VERIFICATION TESTS
+    // ============================================================
+
+    private static final int DIGEST_FILE_SIZE = 256 * 1024;
+
+    private static String sha256Hex()
+    {
+        return HexFormat.of().formatHex(LocalRangeServer.sha256(0, DIGEST_FILE_SIZE));
+    }
+
+    // the server's real Repr-Digest with one bit flipped
+    private static String wrongReprDigest()
+    {
+        byte[] wrong = LocalRangeServer.sha256(0, DIGEST_FILE_SIZE);
+        wrong[0] ^= 1;
+        return new ContentDigest("sha-256", wrong).toString();
+    }
+
+    private DownloadConfig digestConfig(WriteMode writeMode, boolean computeSha256)
+    {
+        return DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSize(32 * 1024)
+            .timeoutsInSeconds(10)
+            .maxRetries(3)
+            .retryDelayMS(100)
+            .tempDirectory(tempDir)
+            .bufferSize(8192)
+            .minSizeForChunking(1024)
+            .writeMode(writeMode)
+            .computeSha256(computeSha256)
+            .build();
+    }
+
+    @Test
+    @Timeout(30)
+    void testCorruptRangeIsRefetched() throws Exception
+    {
+        for (WriteMode writeMode : WriteMode.values())
+        {
+            try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).digests(true).corruptFirst(1).start())
+            {
+                String destination = Paths.get(tempDir, "corrupt-" + writeMode + ".bin").toString();
+
+                Download download = new Download(server.url(), destination, digestConfig(writeMode, false), new ProgressTracker());
+                download.start();
+                download.awaitCompletion();
+
+                assertEquals(DownloadState.COMPLETED, download.getState(), writeMode + " should recover from a bad range");
+                assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0), writeMode + " file should be intact");
+                assertEquals(DIGEST_FILE_SIZE / (32 * 1024) + 1, server.getRequestCount(),
+                    writeMode + " should fetch the corrupted range again and nothing else");
+            }
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testComputeSha256InEveryWriteMode() throws Exception
+    {
+        for (WriteMode writeMode : WriteMode.values())
+        {
+            try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).start())
+            {
+                String destination = Paths.get(tempDir, "hashed-" + writeMode + ".bin").toString();
+
+                Download download = new Download(server.url(), destination, digestConfig(writeMode, true), new ProgressTracker());
+                assertNull(download.getSha256(), "No hash before the download finishes");
+                download.start();
+                download.awaitCompletion();
+
+                assertEquals(sha256Hex(), download.getSha256(), writeMode + " hash should match the file");
+            }
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testReprDigestFromServerIsChecked() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).digests(true).start())
+        {
+            String destination = Paths.get(tempDir, "repr.bin").toString();
+
+            Download download = new Download(server.url(), destination, digestConfig(WriteMode.DIRECT, false), new ProgressTracker());
+            assertEquals(ContentDigest.sha256(sha256Hex()), download.getExpectedDigest());
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testWholeFileMismatchFailsDownload() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).reprDigest(wrongReprDigest()).start())
+        {
+            String destination = Paths.get(tempDir, "mismatch.bin").toString();
+
+            Download download = new Download(server.url(), destination, digestConfig(WriteMode.TEMP_FILES, false), new ProgressTracker());
+            download.start();
+
+            assertThrows(DownloadException.class, download::awaitCompletion);
+            assertEquals(DownloadState.FAILED, download.getState());
+            assertTrue(download.getError().getMessage().contains("sha-256"),
+                "The error should name the check that failed: " + download.getError().getMessage());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testCallerDigestOverridesServer() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).reprDigest(wrongReprDigest()).start())
+        {
+            String destination = Paths.get(tempDir, "caller.bin").toString();
+
+            Download download = new Download(server.url(), destination, digestConfig(WriteMode.STREAMING, false), new ProgressTracker());
+            download.setExpectedDigest(ContentDigest.sha256(sha256Hex()));
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState(), "The caller's digest should be the one checked");
+            assertThrows(IllegalStateException.class, () -> download.setExpectedDigest(null),
+                "The digest cannot change once the download has started");
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testDirectResumeHashesBytesFromBeforeStop() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).start())
+        {
+            String destination = Paths.get(tempDir, "resumed.bin").toString();
+            // slow enough to stop part way through
+            DownloadConfig slowConfig = DownloadConfig.builder()
+                .numberOfThreads(4)
+                .chunkSize(32 * 1024)
+                .tempDirectory(tempDir)
+                .bufferSize(4096)
+                .minSizeForChunking(1024)
+                .writeMode(WriteMode.DIRECT)
+                .computeSha256(true)
+                .maxBytesPerSecondPerDownload(128 * 1024)
+                .build();
+
+            Download first = new Download(server.url(), destination, slowConfig, new ProgressTracker());
+            first.start();
+            Thread.sleep(700);
+            first.stop();
+            assertTrue(first.getDownloadedBytes() > 0 && first.getDownloadedBytes() < DIGEST_FILE_SIZE,
+                "Should stop part way, was " + first.getDownloadedBytes());
+
+            Download resumed = new Download(first.createSnapshot(), digestConfig(WriteMode.DIRECT, true), new ProgressTracker());
+            resumed.startExisting();
+            resumed.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, resumed.getState());
+            assertEquals(sha256Hex(), resumed.getSha256(),
+                "Bytes written before the stop should be part of the hash");
+        }
+    }
+
+    // ============================================================
+    // PIECE TESTS
+    // ============================================================
+
+    // deliberately not a multiple of digestConfig's chunk size, so chunks can only line up with pieces by following them
+    private static final int PIECE_LENGTH = 48 * 1024;
+    private static final int PIECE_COUNT = (DIGEST_FILE_SIZE + PIECE_LENGTH - 1) / PIECE_LENGTH;
+
+    private static List<ContentDigest> pieceHashes()
+    {
+        List<ContentDigest> pieces = new ArrayList<>();
+        for (long start = 0; start < DIGEST_FILE_SIZE; start += PIECE_LENGTH)
+        {
+            pieces.add(new ContentDigest("sha-256", LocalRangeServer.sha256(start, Math.min(PIECE_LENGTH, DIGEST_FILE_SIZE - start))));
+        }
+        return pieces;
+    }
+
+    @Test
+    @Timeout(30)
+    void testCorruptPieceIsRefetched() throws Exception
+    {
+        for (WriteMode writeMode : WriteMode.values())
+        {
+            // no Content-Digest, the piece hash is the only thing that can catch the bad bytes
+            try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).corruptFirst(1).start())
+            {
+                String destination = Paths.get(tempDir, "pieces-" + writeMode + ".bin").toString();
+
+                Download download = new Download(server.url(), destination, digestConfig(writeMode, true), new ProgressTracker());
+                download.setPieceHashes(PIECE_LENGTH, pieceHashes());
+                assertEquals(PIECE_COUNT, download.createSnapshot().getChunkProgress().size(), "There should be a chunk per piece");
+                download.start();
+                download.awaitCompletion();
+
+                assertEquals(DownloadState.COMPLETED, download.getState(), writeMode + " should recover from a bad piece");
+                assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0), writeMode + " file should be intact");
+                assertEquals(PIECE_COUNT + 1, server.getRequestCount(), writeMode + " should fetch the bad piece again and nothing else");
+                assertEquals(sha256Hex(), download.getSha256(), writeMode + " file hash should only see the good piece");
+            }
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testWrongPieceHashFailsDownload() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).start())
+        {
+            String destination = Paths.get(tempDir, "bad-piece.bin").toString();
+            List<ContentDigest> pieces = pieceHashes();
+            byte[] wrong = pieces.get(2).getValue();
+            wrong[0] ^= 1;
+            pieces.set(2, new ContentDigest("sha-256", wrong));
+
+            Download download = new Download(server.url(), destination, digestConfig(WriteMode.TEMP_FILES, false), new ProgressTracker());
+            download.setPieceHashes(PIECE_LENGTH, pieces);
+            download.start();
+
+            assertThrows(DownloadException.class, download::awaitCompletion);
+            assertEquals(DownloadState.FAILED, download.getState());
+            assertTrue(download.getError().getMessage().contains("piece check"),
+                "The error should name the check that failed: " + download.getError().getMessage());
+        }
+    }
+
+    @Test
+    void testPieceHashesValidated() throws Exception
+    {
+        String destination = Paths.get(tempDir, "pieces.bin").toString();
+        Download download = new Download(testUrl, destination, config, new ProgressTracker());
+        List<ContentDigest> one = List.of(ContentDigest.sha256(sha256Hex()));
+
+        assertThrows(IllegalArgumentException.class, () -> download.setPieceHashes(0, one));
+        assertThrows(IllegalArgumentException.class, () -> download.setPieceHashes(1024, null));
+        assertThrows(IllegalArgumentException.class, () -> download.setPieceHashes(1024, one),
+            "13 pieces are needed to cover the file, not 1");
+        assertTrue(download.getPieceHashes().isEmpty(), "A rejected call shouldn't change anything");
+
+        download.setPieceHashes(16 * 1024, one);
+        download.start();
+        assertThrows(IllegalStateException.class, () -> download.setPieceHashes(16 * 1024, one),
+            "Pieces cannot change once the download has started");
+        download.cancel();
+    }
+
+    @Test
+    @Timeout(30)
+    void testPiecesResumeWithTheirHashes() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).start())
+        {
+            String destination = Paths.get(tempDir, "resumed-pieces.bin").toString();
+            // slow enough to stop part way through a piece
+            DownloadConfig slowConfig = DownloadConfig.builder()
+                .numberOfThreads(4)
+                .chunkSize(32 * 1024)
+                .tempDirectory(tempDir)
+                .bufferSize(4096)
+                .minSizeForChunking(1024)
+                .writeMode(WriteMode.DIRECT)
+                .computeSha256(true)
+                .maxBytesPerSecondPerDownload(128 * 1024)
+                .build();
+
+            Download first = new Download(server.url(), destination, slowConfig, new ProgressTracker());
+            first.setPieceHashes(PIECE_LENGTH, pieceHashes());
+            first.start();
+            Thread.sleep(700);
+            first.stop();
+
+            DownloadSnapshot snapshot = first.createSnapshot();
+            assertEquals(PIECE_LENGTH, snapshot.getChunkSize());
+            assertEquals(PIECE_COUNT, snapshot.getPieceHashes().size());
+            Download resumed = new Download(snapshot, digestConfig(WriteMode.DIRECT, true), new ProgressTracker());
+            assertEquals(pieceHashes(), resumed.getPieceHashes(), "Pieces should come back with the saved download");
+            resumed.startExisting();
+            resumed.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, resumed.getState());
+            assertEquals(sha256Hex(), resumed.getSha256(), "Half written pieces should be checked and hashed as a whole");
+        }
+    }
+
+    // ============================================================
+    // HEDGING TESTS
+    // ============================================================
+
+    // 8 chunks on 8 threads, so once the others finish nothing is queued and a stalled chunk can be hedged
+    private DownloadConfig hedgeConfig(WriteMode writeMode, int maxHedgedRequests)
+    {
+        return DownloadConfig.builder()
+            .numberOfThreads(8)
+            .chunkSize(32 * 1024)
+            .timeoutsInSeconds(30)
+            .maxRetries(3)
+            .retryDelayMS(100)
+            .tempDirectory(tempDir)
+            .bufferSize(8192)
+            .minSizeForChunking(1024)
+            .writeMode(writeMode)
+            .computeSha256(true)
+            .maxHedgedRequests(maxHedgedRequests)
+            .build();
+    }
+
+    @Test
+    @Timeout(60)
+    void testStalledChunkIsHedged() throws Exception
+    {
+        for (WriteMode writeMode : WriteMode.values())
+        {
+            // the first range stops halfway, the hedge should finish it long before the 30 second read timeout cuts it off
+            try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).stallFirst(1).start())
+            {
+                String destination = Paths.get(tempDir, "hedged-" + writeMode + ".bin").toString();
+
+                ProgressTracker tracker = new ProgressTracker();
+                Download download = new Download(server.url(), destination, hedgeConfig(writeMode, 2), tracker);
+                long started = System.nanoTime();
+                download.start();
+                download.awaitCompletion();
+
+                assertEquals(DownloadState.COMPLETED, download.getState(), writeMode + " should finish through the hedge");
+                assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(15), writeMode + " shouldn't wait out the stall");
+                assertEquals(1, download.getHedgedRequestCount(), writeMode + " should hedge the stalled chunk and nothing else");
+                assertEquals(DIGEST_FILE_SIZE / (32 * 1024) + 1, server.getRequestCount());
+                assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0), writeMode + " file should be intact");
+                assertEquals(DIGEST_FILE_SIZE, tracker.getTotalProgress(), writeMode + " bytes both copies got to shouldn't count twice");
+                assertEquals(sha256Hex(), download.getSha256(), writeMode + " file hash should see every byte once");
+                assertEquals(0, download.getRetryCount(), "Cutting off the stalled response isn't a failed attempt");
+            }
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testStalledPieceIsHedged() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).stallFirst(1).start())
+        {
+            String destination = Paths.get(tempDir, "hedged-piece.bin").toString();
+
+            Download download = new Download(server.url(), destination, hedgeConfig(WriteMode.DIRECT, 2), new ProgressTracker());
+            download.setPieceHashes(PIECE_LENGTH, pieceHashes());
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+            assertEquals(1, download.getHedgedRequestCount(), "A piece can't be split, but it can be hedged");
+            assertEquals(sha256Hex(), download.getSha256(), "The hedged piece should pass its check as a whole");
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testNoHedgingWithoutBudget() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).stallFirst(1).start())
+        {
+            String destination = Paths.get(tempDir, "unhedged.bin").toString();
+
+            Download download = new Download(server.url(), destination, hedgeConfig(WriteMode.DIRECT, 0), new ProgressTracker());
+            download.start();
+            Thread.sleep(3000);
+
+            assertEquals(DownloadState.DOWNLOADING, download.getState(), "The stalled chunk should still be waiting");
+            assertEquals(0, download.getHedgedRequestCount());
+            assertEquals(DIGEST_FILE_SIZE / (32 * 1024), server.getRequestCount(), "No second request should have been sent");
+            download.cancel();
+        }
+    }
+
+    @Test
+    void testHedgeSettingsValidated()
+    {
+        assertThrows(IllegalArgumentException.class, () -> DownloadConfig.builder().hedgeThreshold(0.5));
+        assertThrows(IllegalArgumentException.class, () -> DownloadConfig.builder().hedgeThreshold(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> DownloadConfig.builder().maxHedgedRequests(-1));
+        assertEquals(0, DownloadConfig.builder().maxHedgedRequests(0).build().getMaxHedgedRequests());
+    }
+
+    // ============================================================
+    // SINGLE GET PROBE TESTS
+    // ============================================================
+
+    private DownloadConfig probeConfig(WriteMode writeMode, long minSizeForChunking)
+    {
+        return DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSize(32 * 1024)
+            .tempDirectory(tempDir)
+            .minSizeForChunking(minSizeForChunking)
+            .writeMode(writeMode)
+            .computeSha256(true)
+            .skipHeadRequest(true)
+            .build();
+    }
+
+    @Test
+    @Timeout(30)
+    void testSmallFileTakesOneRequest() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).digests(true).start())
+        {
+            String destination = Paths.get(tempDir, "probed-small.bin").toString();
+
+            Download download = new Download(server.url(), destination, probeConfig(WriteMode.TEMP_FILES, 1024 * 1024), new ProgressTracker());
+            assertEquals(DIGEST_FILE_SIZE, download.getTotalSize(), "The size should come from the Content-Range");
+            assertNotNull(download.getExpectedDigest(), "The Repr-Digest should come with the GET");
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState());
+            assertEquals(0, server.headRequestCount(), "No HEAD should be sent");
+            assertEquals(1, server.getRequestCount(), "The chunk should read the probe's response instead of asking again");
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0));
+            assertEquals(sha256Hex(), download.getSha256());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testFirstChunkReadsProbe() throws Exception
+    {
+        for (WriteMode writeMode : WriteMode.values())
+        {
+            try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).start())
+            {
+                String destination = Paths.get(tempDir, "probed-" + writeMode + ".bin").toString();
+
+                Download download = new Download(server.url(), destination, probeConfig(writeMode, 1024), new ProgressTracker());
+                download.start();
+                download.awaitCompletion();
+
+                assertEquals(DownloadState.COMPLETED, download.getState(), writeMode + " should complete");
+                assertEquals(0, server.headRequestCount());
+                assertEquals(DIGEST_FILE_SIZE / (32 * 1024), server.getRequestCount(), writeMode + " should send one GET per chunk");
+                assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0), writeMode + " file should be intact");
+                assertEquals(sha256Hex(), download.getSha256());
+            }
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testServerIgnoringRangesIsStreamed() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).acceptRanges(false).start())
+        {
+            String destination = Paths.get(tempDir, "probed-whole.bin").toString();
+
+            Download download = new Download(server.url(), destination, probeConfig(WriteMode.DIRECT, 1024), new ProgressTracker());
+            assertEquals(DIGEST_FILE_SIZE, download.getTotalSize(), "The size should come from the Content-Length");
+            assertThrows(IllegalStateException.class, () -> download.setPieceHashes(PIECE_LENGTH, pieceHashes()),
+                "Pieces can't be fetched from a server that ignores ranges");
+            download.start();
+            download.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, download.getState(), "The 200 should be streamed instead of failing the download");
+            assertEquals(1, server.getRequestCount());
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testUnknownLengthIsStreamed() throws Exception
+    {
+        for (WriteMode writeMode : WriteMode.values())
+        {
+            try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).unknownLength(true).start())
+            {
+                String destination = Paths.get(tempDir, "unsized-" + writeMode + ".bin").toString();
+
+                Download download = new Download(server.url(), destination, probeConfig(writeMode, 1024), new ProgressTracker());
+                assertEquals(-1, download.getTotalSize(), writeMode + " size should be unknown");
+                assertEquals(0.0, download.getProgress());
+                download.start();
+                download.awaitCompletion();
+
+                assertEquals(DownloadState.COMPLETED, download.getState(), writeMode + " should complete");
+                assertEquals(DIGEST_FILE_SIZE, download.getTotalSize(), writeMode + " size should be known once the stream ends");
+                assertEquals(100.0, download.getProgress(), 0.001);
+                assertEquals(1, server.getRequestCount(), writeMode + " should stream the file in one request");
+                assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0), writeMode + " file should be intact");
+                assertEquals(sha256Hex(), download.getSha256());
+            }
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testUnknownLengthResumesFromSnapshot() throws Exception
+    {
+        try (LocalRangeServer server = LocalRangeServer.builder().size(DIGEST_FILE_SIZE).unknownLength(true)
+                .bytesPerSecond(256 * 1024).start())
+        {
+            String destination = Paths.get(tempDir, "unsized-resumed.bin").toString();
+            DownloadConfig config = probeConfig(WriteMode.DIRECT, 1024);
+
+            Download download = new Download(server.url(), destination, config, new ProgressTracker());
+            download.start();
+            Thread.sleep(300);
+            download.stop();
+            DownloadSnapshot snapshot = download.createSnapshot();
+            assertEquals(-1, snapshot.getTotalSize());
+            assertTrue(snapshot.getDownloadedBytes() > 0, "Some of the stream should have been written");
+
+            Download resumed = new Download(snapshot, config, new ProgressTracker());
+            resumed.startExisting();
+            resumed.awaitCompletion();
+
+            assertEquals(DownloadState.COMPLETED, resumed.getState());
+            assertEquals(DIGEST_FILE_SIZE, resumed.getTotalSize());
+            assertEquals(2, server.getRequestCount(), "The resumed stream should ask for the rest of the file only");
+            assertTrue(LocalRangeServer.matchesContent(Files.readAllBytes(Paths.get(destination)), 0));
+        }
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all Download tests:
+   mvn test -Dtest=DownloadTest
+
+Run specific test:
+   mvn test -Dtest=DownloadTest#testStartAndCompleteDownload
+
+Run tests by category (using method name patterns):
+   mvn test -Dtest=DownloadTest#test*Pause*
+   mvn test -Dtest=DownloadTest#test*Cancel*
+   mvn test -Dtest=DownloadTest#test*State*
+   mvn test -Dtest=DownloadTest#test*Stop*
+
+============================================================ */
\ No newline at end of file
@@ -324,6 +324,76 @@ class FileAssemblerTest
         assertArrayEquals(binaryData1, java.util.Arrays.copyOfRange(result, 0, 5));
         assertArrayEquals(binaryData2, java.util.Arrays.copyOfRange(result, 5, 10));
     }
+
+    @Test
+    void testChunkSizeMismatchFails() throws IOException
+    {
+        // chunk reports more bytes than its temp file actually holds, e.g. a truncated response
+        Path chunk0 = Paths.get(tempDir, "chunk0.bin");
+        Path chunk1 = Paths.get(tempDir, "chunk1.bin");
+        Files.write(chunk0, "Hello".getBytes());
+        Files.write(chunk1, " Wor".getBytes());
+
+        List<ChunkResult> results = new ArrayList<>();
+        results.add(ChunkResult.success(chunk0.toString(), 5, 0));
+        results.add(ChunkResult.success(chunk1.toString(), 6, 1));
+
+        String destination = Paths.get(tempDir, "output.txt").toString();
+        Files.write(Paths.get(destination), "OldContent".getBytes());
+
+        IOException exception = assertThrows(IOException.class, () -> {
+            FileAssembler.assembleChunks(results, destination);
+        });
+        assertTrue(exception.getMessage().contains("Chunk 1"), "Error should name the bad chunk");
+        assertEquals("OldContent", Files.readString(Paths.get(destination)),
+            "Existing destination should not be touched when validation fails");
+    }
+
+    @Test
+    void testExpectedTotalSize() throws IOException
+    {
+        Path chunk0 = Paths.get(tempDir, "chunk0.bin");
+        Path chunk1 = Paths.get(tempDir, "chunk1.bin");
+        Files.write(chunk0, "Hello".getBytes());
+        Files.write(chunk1, " World".getBytes());
+
+        List<ChunkResult> results = new ArrayList<>();
+        results.add(ChunkResult.success(chunk0.toString(), 5, 0));
+        results.add(ChunkResult.success(chunk1.toString(), 6, 1));
+
+        String destination = Paths.get(tempDir, "output.txt").toString();
+        FileAssembler.assembleChunks(results, destination, 11);
+        assertEquals("Hello World", Files.readString(Paths.get(destination)));
+
+        assertThrows(IOException.class, () -> {
+            FileAssembler.assembleChunks(results, destination, 12);
+        }, "Chunks that don't add up to the download size should fail");
+    }
+
+    @Test
+    void testMultiMegabyteChunksTransferCompletely() throws IOException
+    {
+        // big enough that transferTo is likely to need more than one call per chunk on some platforms
+        byte[] data = new byte[3 * 1024 * 1024 + 17];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) (i * 31);
+        }
+        List<ChunkResult> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+        {
+            Path chunk = Paths.get(tempDir, "chunk" + i + ".bin");
+            Files.write(chunk, data);
+            results.add(ChunkResult.success(chunk.toString(), data.length, i));
+        }
+
+        String destination = Paths.get(tempDir, "output.bin").toString();
+        FileAssembler.assembleChunks(results, destination, 3L * data.length);
+
+        byte[] result = Files.readAllBytes(Paths.get(destination));
+        assertEquals(3 * data.length, result.length);
+        assertArrayEquals(data, java.util.Arrays.copyOfRange(result, 2 * data.length, 3 * data.length));
+    }
 }
 
 /* ============================================================
@@ -0,0 +1,193 @@
+import io.rileyhe1.concurrency.Util.FileHasher;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for FileHasher class.
+ * Tests that the hash comes out the same however the file's bytes arrive.
+ */
+class FileHasherTest
+{
+    private static final int FILE_SIZE = 1024 * 1024;
+
+    private byte[] content;
+    private FileChannel channel;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDirectory) throws IOException
+    {
+        content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(content);
+        channel = FileChannel.open(tempDirectory.resolve("file.bin"), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        channel.close();
+    }
+
+    private byte[] expected(String algorithm) throws Exception
+    {
+        return MessageDigest.getInstance(algorithm).digest(content);
+    }
+
+    // writes the slice to the file at its offset and tells the hasher, like a DIRECT chunk does
+    private void write(FileHasher hasher, int start, int length) throws IOException
+    {
+        channel.write(ByteBuffer.wrap(content, start, length), start);
+        hasher.offer(start, content, start, length, channel);
+    }
+
+    // ============================================================
+    // IN ORDER TESTS
+    // ============================================================
+
+    @Test
+    void testUpdateInOrder() throws Exception
+    {
+        FileHasher hasher = new FileHasher(Set.of("sha-256", "md5"));
+        for (int offset = 0; offset < FILE_SIZE; offset += 8192)
+        {
+            hasher.update(content, offset, 8192);
+        }
+        hasher.finish(FILE_SIZE);
+
+        assertArrayEquals(expected("SHA-256"), hasher.getDigest("sha-256"));
+        assertArrayEquals(expected("MD5"), hasher.getDigest("md5"));
+        assertNull(hasher.getDigest("sha-512"), "Only requested algorithms are computed");
+    }
+
+    @Test
+    void testDigestUnavailableBeforeFinish()
+    {
+        FileHasher hasher = new FileHasher(Set.of("sha-256"));
+        hasher.update(content, 0, 100);
+        assertNull(hasher.getDigest("sha-256"));
+    }
+
+    @Test
+    void testFinishRejectsShortFile()
+    {
+        FileHasher hasher = new FileHasher(Set.of("sha-256"));
+        hasher.update(content, 0, 100);
+        assertThrows(IOException.class, () -> hasher.finish(FILE_SIZE));
+    }
+
+    @Test
+    void testNoAlgorithmsRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new FileHasher(Set.of()));
+    }
+
+    // ============================================================
+    // OUT OF ORDER TESTS
+    // ============================================================
+
+    @Test
+    void testOfferOutOfOrderReadsBack() throws Exception
+    {
+        FileHasher hasher = new FileHasher(Set.of("sha-256"));
+        // second half first, it can only be recorded until the first half is there
+        write(hasher, FILE_SIZE / 2, FILE_SIZE / 2);
+        assertEquals(0, hasher.getPosition());
+
+        write(hasher, 0, FILE_SIZE / 2);
+        assertEquals(FILE_SIZE, hasher.getPosition(), "Reaching the recorded range should hash it from the file");
+
+        hasher.complete(channel, FILE_SIZE);
+        assertArrayEquals(expected("SHA-256"), hasher.getDigest("sha-256"));
+    }
+
+    @Test
+    void testMarkWrittenCoversResumedBytes() throws Exception
+    {
+        FileHasher hasher = new FileHasher(Set.of("sha-256"));
+        // a resumed download already has the first quarter on disk
+        channel.write(ByteBuffer.wrap(content, 0, FILE_SIZE / 4), 0);
+        write(hasher, FILE_SIZE / 4, FILE_SIZE - FILE_SIZE / 4);
+        hasher.markWritten(0, FILE_SIZE / 4, channel);
+
+        hasher.complete(channel, FILE_SIZE);
+        assertArrayEquals(expected("SHA-256"), hasher.getDigest("sha-256"));
+    }
+
+    @Test
+    void testCompleteRejectsGap() throws Exception
+    {
+        FileHasher hasher = new FileHasher(Set.of("sha-256"));
+        write(hasher, 0, 1000);
+        write(hasher, 2000, FILE_SIZE - 2000);
+
+        IOException error = assertThrows(IOException.class, () -> hasher.complete(channel, FILE_SIZE));
+        assertTrue(error.getMessage().contains("1000"), "The message should say how far hashing got: " + error.getMessage());
+    }
+
+    @Test
+    @Timeout(30)
+    void testConcurrentChunks() throws Exception
+    {
+        FileHasher hasher = new FileHasher(Set.of("sha-256"));
+        int chunks = 8;
+        int chunkSize = FILE_SIZE / chunks;
+        ExecutorService executor = Executors.newFixedThreadPool(chunks);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int chunk = 0; chunk < chunks; chunk++)
+            {
+                int chunkStart = chunk * chunkSize;
+                futures.add(executor.submit(() ->
+                {
+                    // each chunk writes its own range front to back in buffer sized pieces
+                    for (int offset = chunkStart; offset < chunkStart + chunkSize; offset += 4096)
+                    {
+                        write(hasher, offset, 4096);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        hasher.complete(channel, FILE_SIZE);
+        assertArrayEquals(expected("SHA-256"), hasher.getDigest("sha-256"));
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all FileHasher tests:
+   mvn test -Dtest=FileHasherTest
+
+Run specific test:
+   mvn test -Dtest=FileHasherTest#testOfferOutOfOrderReadsBack
+
+============================================================ */
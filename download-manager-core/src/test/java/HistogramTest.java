@@ -0,0 +1,79 @@
+import io.rileyhe1.concurrency.Monitoring.Histogram;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for Histogram class.
+ * Checks bucket placement at and around the bounds, the overflow bucket and the sum.
+ */
+class HistogramTest
+{
+    @Test
+    void testConstructorValidation()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new Histogram());
+        assertThrows(IllegalArgumentException.class, () -> new Histogram(10, 10));
+        assertThrows(IllegalArgumentException.class, () -> new Histogram(10, 5));
+        assertThrows(IllegalArgumentException.class, () -> Histogram.exponential(0, 2, 4));
+        assertThrows(IllegalArgumentException.class, () -> Histogram.exponential(1, 1, 4));
+        assertThrows(IllegalArgumentException.class, () -> Histogram.exponential(1, 2, 0));
+    }
+
+    @Test
+    void testExponentialBounds()
+    {
+        assertArrayEquals(new long[] {1000, 2000, 4000, 8000}, Histogram.exponential(1000, 2, 4).getBounds());
+    }
+
+    @Test
+    void testBoundsAreInclusive()
+    {
+        Histogram histogram = new Histogram(10, 20, 30);
+        histogram.observe(10);
+        histogram.observe(11);
+        histogram.observe(20);
+        histogram.observe(30);
+        assertArrayEquals(new long[] {1, 2, 1, 0}, histogram.snapshot());
+    }
+
+    @Test
+    void testOverflowAndUnderflow()
+    {
+        Histogram histogram = new Histogram(10, 20);
+        histogram.observe(-5);
+        histogram.observe(0);
+        histogram.observe(1_000_000);
+        assertArrayEquals(new long[] {2, 0, 1}, histogram.snapshot(), "Small values go in the first bucket, large ones in the overflow");
+    }
+
+    @Test
+    void testSum()
+    {
+        Histogram histogram = new Histogram(10, 20);
+        histogram.observe(5);
+        histogram.observe(15);
+        histogram.observe(25);
+        assertEquals(45, histogram.getSum());
+    }
+
+    @Test
+    void testBoundsCannotBeChangedFromOutside()
+    {
+        long[] bounds = {10, 20};
+        Histogram histogram = new Histogram(bounds);
+        bounds[0] = 15;
+        histogram.getBounds()[1] = 99;
+        assertArrayEquals(new long[] {10, 20}, histogram.getBounds());
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all Histogram tests:
+   mvn test -Dtest=HistogramTest
+
+============================================================ */
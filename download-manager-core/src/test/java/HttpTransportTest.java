@@ -0,0 +1,288 @@
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.TransportType;
+import io.rileyhe1.concurrency.Util.HttpClientTransport;
+import io.rileyhe1.concurrency.Util.HttpTransport;
+import io.rileyhe1.concurrency.Util.TransportResponse;
+import io.rileyhe1.concurrency.Util.UrlConnectionTransport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for the HttpTransport implementations.
+ * Runs against an embedded loopback server so range handling and connection reuse can be checked exactly.
+ */
+class HttpTransportTest
+{
+    private static final int FILE_SIZE = 64 * 1024;
+
+    private HttpServer server;
+    private String url;
+    // client ports seen by the server, one per TCP connection
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private DownloadConfig config;
+
+    @BeforeEach
+    void setUp() throws IOException
+    {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+        url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/file.bin";
+        config = DownloadConfig.builder().build();
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        server.stop(0);
+    }
+
+    private static byte byteAt(long offset)
+    {
+        return (byte) (offset * 31);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        try
+        {
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            if ("HEAD".equals(exchange.getRequestMethod()))
+            {
+                exchange.getResponseHeaders().set("Content-Length", Integer.toString(FILE_SIZE));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            String[] bounds = exchange.getRequestHeaders().getFirst("Range").substring("bytes=".length()).split("-", -1);
+            int start = Integer.parseInt(bounds[0]);
+            int end = bounds[1].isEmpty() ? FILE_SIZE - 1 : Integer.parseInt(bounds[1]);
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + FILE_SIZE);
+            exchange.sendResponseHeaders(206, end - start + 1);
+            byte[] body = new byte[end - start + 1];
+            for (int i = 0; i < body.length; i++)
+            {
+                body[i] = byteAt(start + i);
+            }
+            try (OutputStream out = exchange.getResponseBody())
+            {
+                out.write(body);
+            }
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+
+    private static void assertRange(HttpTransport transport, String url, int start, int end) throws IOException
+    {
+        try (TransportResponse response = transport.getRange(url, start, end))
+        {
+            assertBody(response, start, end);
+        }
+    }
+
+    private static void assertBody(TransportResponse response, int start, int end) throws IOException
+    {
+        assertEquals(206, response.getStatusCode());
+        assertEquals("bytes " + start + "-" + end + "/" + FILE_SIZE, response.getHeader("Content-Range"));
+        try (InputStream body = response.getBody())
+        {
+            byte[] data = body.readAllBytes();
+            assertEquals(end - start + 1, data.length, "Should receive exactly the requested range");
+            for (int i = 0; i < data.length; i++)
+            {
+                assertEquals(byteAt(start + i), data[i], "Byte " + (start + i) + " should match the server's content");
+            }
+        }
+    }
+
+    // ============================================================
+    // CONFIGURATION TESTS
+    // ============================================================
+
+    @Test
+    void testHttpClientIsDefault()
+    {
+        assertEquals(TransportType.HTTP_CLIENT, config.getTransportType());
+        try (HttpTransport transport = HttpTransport.create(config))
+        {
+            assertInstanceOf(HttpClientTransport.class, transport);
+        }
+    }
+
+    @Test
+    void testCreateUrlConnectionTransport()
+    {
+        DownloadConfig legacy = DownloadConfig.builder().transportType(TransportType.URL_CONNECTION).build();
+        try (HttpTransport transport = HttpTransport.create(legacy))
+        {
+            assertInstanceOf(UrlConnectionTransport.class, transport);
+        }
+    }
+
+    @Test
+    void testNullTransportTypeRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            DownloadConfig.builder().transportType(null);
+        }, "Should throw exception for null transport type");
+    }
+
+    @Test
+    void testNullConfigRejected()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new HttpClientTransport(null));
+        assertThrows(IllegalArgumentException.class, () -> new UrlConnectionTransport(null));
+    }
+
+    // ============================================================
+    // REQUEST TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(10)
+    void testHeadReportsLengthAndRanges() throws IOException
+    {
+        try (HttpTransport transport = new HttpClientTransport(config);
+             TransportResponse response = transport.head(url))
+        {
+            assertEquals(200, response.getStatusCode());
+            assertEquals(Integer.toString(FILE_SIZE), response.getHeader("Content-Length"));
+            assertEquals("bytes", response.getHeader("accept-ranges"), "Header lookup should ignore case");
+            assertNull(response.getHeader("X-Not-There"));
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testHttpClientRangeRequest() throws IOException
+    {
+        try (HttpTransport transport = new HttpClientTransport(config))
+        {
+            assertRange(transport, url, 0, 1023);
+            assertRange(transport, url, 1000, FILE_SIZE - 1);
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testUrlConnectionRangeRequest() throws IOException
+    {
+        try (HttpTransport transport = new UrlConnectionTransport(config))
+        {
+            assertRange(transport, url, 0, 1023);
+            assertRange(transport, url, 1000, FILE_SIZE - 1);
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testOpenEndedRangeRequest() throws IOException
+    {
+        for (HttpTransport transport : List.of(new HttpClientTransport(config), new UrlConnectionTransport(config)))
+        {
+            try (transport; TransportResponse response = transport.getFrom(url, 1000))
+            {
+                assertBody(response, 1000, FILE_SIZE - 1);
+            }
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testHttpClientReusesConnection() throws IOException
+    {
+        try (HttpTransport transport = new HttpClientTransport(config))
+        {
+            for (int i = 0; i < 10; i++)
+            {
+                assertRange(transport, url, i * 1024, i * 1024 + 1023);
+            }
+        }
+        assertEquals(1, clientPorts.size(), "Sequential range requests should share one pooled connection");
+    }
+
+    @Test
+    @Timeout(20)
+    void testStalledBodyTimesOut() throws IOException
+    {
+        DownloadConfig shortRead = DownloadConfig.builder().readTimeout(500).build();
+        try (LocalRangeServer stalling = LocalRangeServer.builder().size(FILE_SIZE).stallFirst(2).start())
+        {
+            for (HttpTransport transport : List.of(new HttpClientTransport(shortRead), new UrlConnectionTransport(shortRead)))
+            {
+                try (transport; TransportResponse response = transport.getRange(stalling.url(), 0, FILE_SIZE - 1))
+                {
+                    assertEquals(206, response.getStatusCode());
+                    long started = System.nanoTime();
+                    try (InputStream body = response.getBody())
+                    {
+                        assertThrows(SocketTimeoutException.class, body::readAllBytes,
+                            transport.getClass().getSimpleName() + " should give up on a body that stops sending");
+                    }
+                    assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(5),
+                        transport.getClass().getSimpleName() + " should fail after the read timeout, not the stall");
+                }
+            }
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testHttpClientWatchdogIgnoresIdleReader() throws Exception
+    {
+        DownloadConfig shortRead = DownloadConfig.builder().readTimeout(200).build();
+        try (HttpTransport transport = new HttpClientTransport(shortRead);
+             TransportResponse response = transport.getRange(url, 0, 1023))
+        {
+            // a reader that is paused isn't waiting on the server, the timeout only covers reads in progress
+            Thread.sleep(600);
+            assertBody(response, 0, 1023);
+        }
+    }
+
+    @Test
+    @Timeout(10)
+    void testUnreachableHostThrowsIOException()
+    {
+        try (HttpTransport transport = new HttpClientTransport(config))
+        {
+            assertThrows(IOException.class, () -> transport.head("http://this-is-not-a-real-url-12345.com/file.bin"));
+        }
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all HttpTransport tests:
+   mvn test -Dtest=HttpTransportTest
+
+Run specific test:
+   mvn test -Dtest=HttpTransportTest#testHttpClientReusesConnection
+
+Every test except testUnreachableHostThrowsIOException runs against an embedded loopback server.
+
+============================================================ */
@@ -0,0 +1,468 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Embedded range-capable HTTP origin for tests, bound to the loopback interface so no test needs the internet.
+ * Serves a deterministic byte pattern of a configurable size and can be configured to throttle, delay,
+ * reset connections mid-stream, answer with error statuses, hide Accept-Ranges or lie about Content-Length,
+ * to send digests of what it serves or corrupt a response while keeping its digest, and to tag what it serves
+ * with an ETag.
+ */
+final class LocalRangeServer implements AutoCloseable
+{
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Builder config;
+    private final AtomicInteger getRequests = new AtomicInteger(0);
+    private final AtomicInteger headRequests = new AtomicInteger(0);
+    private final AtomicInteger failuresLeft;
+    private final AtomicInteger resetsLeft;
+    private final AtomicInteger corruptionsLeft;
+    private final AtomicInteger stallsLeft;
+    private final AtomicInteger openConnections = new AtomicInteger(0);
+    private final AtomicInteger maxOpenConnections = new AtomicInteger(0);
+    private final AtomicInteger openGets = new AtomicInteger(0);
+    private final AtomicInteger rejectedRequests = new AtomicInteger(0);
+    // shared by every connection when totalBytesPerSecond is set
+    private final Object sharedRateLock = new Object();
+    private long sharedSent = 0;
+    private long sharedStartNanos = 0;
+
+    private LocalRangeServer(Builder config) throws IOException
+    {
+        this.config = config;
+        this.failuresLeft = new AtomicInteger(config.failures);
+        this.resetsLeft = new AtomicInteger(config.resets);
+        this.corruptionsLeft = new AtomicInteger(config.corruptions);
+        this.stallsLeft = new AtomicInteger(config.stalls);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "local-range-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    static Builder builder()
+    {
+        return new Builder();
+    }
+
+    // the byte the server sends at a given offset, tests use this to verify downloaded files
+    static byte expectedByte(long offset)
+    {
+        return (byte) ((offset * 31) ^ (offset >>> 11));
+    }
+
+    static byte[] expectedContent(long offset, int length)
+    {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++)
+        {
+            content[i] = expectedByte(offset + i);
+        }
+        return content;
+    }
+
+    static boolean matchesContent(byte[] data, long offset)
+    {
+        for (int i = 0; i < data.length; i++)
+        {
+            if (data[i] != expectedByte(offset + i)) return false;
+        }
+        return true;
+    }
+
+    // SHA-256 of the bytes served from offset, what a Content-Digest or Repr-Digest for them carries
+    static byte[] sha256(long offset, long length)
+    {
+        MessageDigest digest = newSha256();
+        byte[] buffer = new byte[8192];
+        for (long done = 0; done < length; )
+        {
+            int n = (int) Math.min(buffer.length, length - done);
+            for (int i = 0; i < n; i++)
+            {
+                buffer[i] = expectedByte(offset + done + i);
+            }
+            digest.update(buffer, 0, n);
+            done += n;
+        }
+        return digest.digest();
+    }
+
+    // a URL on the loopback interface that nothing listens on, so connecting fails straight away
+    static String unreachableUrl() throws IOException
+    {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress()))
+        {
+            port = socket.getLocalPort();
+        }
+        return "http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + port + "/file.bin";
+    }
+
+    String url()
+    {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/file.bin";
+    }
+
+    long size()
+    {
+        return config.size;
+    }
+
+    int getRequestCount()
+    {
+        return getRequests.get();
+    }
+
+    int headRequestCount()
+    {
+        return headRequests.get();
+    }
+
+    int maxConcurrentConnections()
+    {
+        return maxOpenConnections.get();
+    }
+
+    int rejectedRequestCount()
+    {
+        return rejectedRequests.get();
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        int open = openConnections.incrementAndGet();
+        maxOpenConnections.accumulateAndGet(open, Math::max);
+        try
+        {
+            if (config.latencyMillis > 0) sleep(config.latencyMillis);
+
+            if ("HEAD".equals(exchange.getRequestMethod()))
+            {
+                headRequests.incrementAndGet();
+                if (config.acceptRanges) exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+                long advertised = config.advertisedLength >= 0 ? config.advertisedLength : config.size;
+                if (!config.unknownLength) exchange.getResponseHeaders().set("Content-Length", Long.toString(advertised));
+                setReprDigest(exchange);
+                if (config.etag != null) exchange.getResponseHeaders().set("ETag", config.etag);
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            getRequests.incrementAndGet();
+            int gets = openGets.incrementAndGet();
+            try
+            {
+                if (config.maxConnections > 0 && gets > config.maxConnections)
+                {
+                    rejectedRequests.incrementAndGet();
+                    exchange.sendResponseHeaders(config.overloadStatus, -1);
+                    return;
+                }
+                serveGet(exchange);
+            }
+            finally
+            {
+                openGets.decrementAndGet();
+            }
+        }
+        catch (IOException e)
+        {
+            // client went away (pause/cancel/stolen range), nothing to do
+        }
+        finally
+        {
+            openConnections.decrementAndGet();
+            exchange.close();
+        }
+    }
+
+    private void serveGet(HttpExchange exchange) throws IOException
+    {
+        if (failuresLeft.getAndDecrement() > 0)
+        {
+            exchange.getResponseHeaders().set("Retry-After", "0");
+            exchange.sendResponseHeaders(config.failureStatus, -1);
+            return;
+        }
+
+        long start = 0;
+        long end = config.size - 1;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        boolean partial = config.acceptRanges && range != null && range.startsWith("bytes=");
+        if (partial)
+        {
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            start = Long.parseLong(bounds[0]);
+            if (!bounds[1].isEmpty()) end = Math.min(end, Long.parseLong(bounds[1]));
+            if (start > end)
+            {
+                exchange.getResponseHeaders().set("Content-Range", "bytes */" + config.size);
+                exchange.sendResponseHeaders(416, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/"
+                + (config.unknownLength ? "*" : Long.toString(config.size)));
+        }
+        if (config.acceptRanges) exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+        if (config.etag != null) exchange.getResponseHeaders().set("ETag", config.etag);
+        setReprDigest(exchange);
+
+        long length = end - start + 1;
+        if (config.digests) exchange.getResponseHeaders().set("Content-Digest", structuredSha256(sha256(start, length)));
+        // a length of 0 makes the body chunked, so nothing tells the client how long it is
+        exchange.sendResponseHeaders(partial ? 206 : 200, config.unknownLength ? 0 : length);
+        long resetAt = resetsLeft.getAndDecrement() > 0 ? config.resetAfterBytes : Long.MAX_VALUE;
+        // the digest header above still describes the real bytes, so the client can tell this body is wrong
+        long corruptAt = corruptionsLeft.getAndDecrement() > 0 ? length / 2 : -1;
+        long stallAt = stallsLeft.getAndDecrement() > 0 ? length / 2 : Long.MAX_VALUE;
+        writeBody(exchange.getResponseBody(), start, length, resetAt, corruptAt, stallAt);
+    }
+
+    private void writeBody(OutputStream out, long offset, long length, long resetAt, long corruptAt, long stallAt) throws IOException
+    {
+        byte[] buffer = new byte[8192];
+        long sent = 0;
+        long startNanos = System.nanoTime();
+        while (sent < length)
+        {
+            int n = (int) Math.min(buffer.length, length - sent);
+            if (sent + n > resetAt) n = (int) (resetAt - sent);
+            if (sent + n > stallAt) n = (int) (stallAt - sent);
+            for (int i = 0; i < n; i++)
+            {
+                buffer[i] = expectedByte(offset + sent + i);
+            }
+            if (corruptAt >= sent && corruptAt < sent + n) buffer[(int) (corruptAt - sent)] ^= 0x40;
+            out.write(buffer, 0, n);
+            sent += n;
+            if (sent >= resetAt)
+            {
+                // abort the exchange with the body only partially written, the client sees the connection drop
+                throw new IOException("Injected reset");
+            }
+            if (sent >= stallAt)
+            {
+                // keep the connection open without sending another byte, as a stuck flow would
+                out.flush();
+                sleep(STALL_MILLIS);
+                throw new IOException("Injected stall");
+            }
+            if (config.bytesPerSecond > 0)
+            {
+                long due = startNanos + sent * 1_000_000_000L / config.bytesPerSecond;
+                long wait = due - System.nanoTime();
+                if (wait > 0) sleep(wait / 1_000_000L);
+            }
+            if (config.totalBytesPerSecond > 0)
+            {
+                long due;
+                synchronized (sharedRateLock)
+                {
+                    if (sharedStartNanos == 0) sharedStartNanos = System.nanoTime();
+                    sharedSent += n;
+                    due = sharedStartNanos + sharedSent * 1_000_000_000L / config.totalBytesPerSecond;
+                }
+                long wait = due - System.nanoTime();
+                if (wait > 0) sleep(wait / 1_000_000L);
+            }
+        }
+        out.flush();
+    }
+
+    private void setReprDigest(HttpExchange exchange)
+    {
+        String reprDigest = config.reprDigest != null ? config.reprDigest
+            : config.digests ? structuredSha256(sha256(0, config.size)) : null;
+        if (reprDigest != null) exchange.getResponseHeaders().set("Repr-Digest", reprDigest);
+    }
+
+    private static String structuredSha256(byte[] digest)
+    {
+        return "sha-256=:" + Base64.getEncoder().encodeToString(digest) + ":";
+    }
+
+    private static MessageDigest newSha256()
+    {
+        try
+        {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void sleep(long millis)
+    {
+        try
+        {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final long STALL_MILLIS = 30_000;
+
+    static final class Builder
+    {
+        private long size = 64 * 1024;
+        private long bytesPerSecond = 0;
+        private int latencyMillis = 0;
+        private int failures = 0;
+        private int failureStatus = 503;
+        private int resets = 0;
+        private long resetAfterBytes = Long.MAX_VALUE;
+        private boolean acceptRanges = true;
+        private long advertisedLength = -1;
+        private long totalBytesPerSecond = 0;
+        private int maxConnections = 0;
+        private int overloadStatus = 503;
+        private boolean digests = false;
+        private String reprDigest;
+        private int corruptions = 0;
+        private int stalls = 0;
+        private String etag;
+        private boolean unknownLength = false;
+
+        Builder size(long size)
+        {
+            this.size = size;
+            return this;
+        }
+
+        // caps every connection at this rate, 0 for unlimited
+        Builder bytesPerSecond(long bytesPerSecond)
+        {
+            this.bytesPerSecond = bytesPerSecond;
+            return this;
+        }
+
+        // delay before the response headers of every request
+        Builder latencyMillis(int latencyMillis)
+        {
+            this.latencyMillis = latencyMillis;
+            return this;
+        }
+
+        // the first count GET requests are answered with the given status instead of content
+        Builder failFirst(int count, int status)
+        {
+            this.failures = count;
+            this.failureStatus = status;
+            return this;
+        }
+
+        // the first count GET requests are cut off after sending the given number of body bytes
+        Builder resetFirst(int count, long afterBytes)
+        {
+            this.resets = count;
+            this.resetAfterBytes = afterBytes;
+            return this;
+        }
+
+        Builder acceptRanges(boolean acceptRanges)
+        {
+            this.acceptRanges = acceptRanges;
+            return this;
+        }
+
+        // Content-Length reported by HEAD, independent of how many bytes are actually served
+        Builder advertisedLength(long advertisedLength)
+        {
+            this.advertisedLength = advertisedLength;
+            return this;
+        }
+
+        // caps all connections together at this rate, so adding connections past a point stops helping
+        Builder totalBytesPerSecond(long totalBytesPerSecond)
+        {
+            this.totalBytesPerSecond = totalBytesPerSecond;
+            return this;
+        }
+
+        // GET requests beyond this many at once are answered with the given status (429 or 503), 0 for no limit
+        Builder maxConnections(int maxConnections, int overloadStatus)
+        {
+            this.maxConnections = maxConnections;
+            this.overloadStatus = overloadStatus;
+            return this;
+        }
+
+        // every response carries a Repr-Digest of the whole file and every GET a Content-Digest of its body
+        Builder digests(boolean digests)
+        {
+            this.digests = digests;
+            return this;
+        }
+
+        // Repr-Digest sent instead of the real one, to test what happens when it is wrong
+        Builder reprDigest(String reprDigest)
+        {
+            this.reprDigest = reprDigest;
+            return this;
+        }
+
+        // the first count GET bodies get one byte flipped halfway through, their Content-Digest stays right
+        Builder corruptFirst(int count)
+        {
+            this.corruptions = count;
+            return this;
+        }
+
+        // the first count GET bodies stop halfway through and send nothing more for 30 seconds, the connection stays open
+        Builder stallFirst(int count)
+        {
+            this.stalls = count;
+            return this;
+        }
+
+        // ETag sent with every response, none by default
+        Builder etag(String etag)
+        {
+            this.etag = etag;
+            return this;
+        }
+
+        // HEAD sends no Content-Length, GET bodies are chunked and a Content-Range ends in /* instead of the size
+        Builder unknownLength(boolean unknownLength)
+        {
+            this.unknownLength = unknownLength;
+            return this;
+        }
+
+        LocalRangeServer start() throws IOException
+        {
+            return new LocalRangeServer(this);
+        }
+    }
+}
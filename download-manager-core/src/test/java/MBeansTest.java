@@ -0,0 +1,199 @@
+import io.rileyhe1.concurrency.DownloadManager;
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Monitoring.DownloadManagerStats;
+import io.rileyhe1.concurrency.Monitoring.MBeans;
+import io.rileyhe1.concurrency.Util.Download;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for MBeans class and the beans DownloadManager registers through it.
+ * Reads and writes attributes through the platform MBean server the way a JMX client would.
+ */
+class MBeansTest
+{
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    private LocalRangeServer server;
+    private DownloadManager manager;
+    private String tempDir;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDirectory) throws IOException
+    {
+        tempDir = tempDirectory.toString();
+        server = LocalRangeServer.builder().size(8 * 1024 * 1024).bytesPerSecond(1024 * 1024).start();
+        Files.deleteIfExists(Paths.get("downloads.journal"));
+        Files.deleteIfExists(Paths.get("downloads.json"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        if (manager != null) manager.shutdown();
+        server.close();
+        Files.deleteIfExists(Paths.get("downloads.journal"));
+    }
+
+    private DownloadConfig.Builder config()
+    {
+        return DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSizeMB(1)
+            .timeoutsInSeconds(10)
+            .tempDirectory(tempDir)
+            .minSizeForChunking(1024);
+    }
+
+    // ============================================================
+    // NAMING TESTS
+    // ============================================================
+
+    @Test
+    void testManagerNamesAreUnique()
+    {
+        assertNotEquals(MBeans.nextManagerName(), MBeans.nextManagerName());
+    }
+
+    @Test
+    void testDownloadNamesSitUnderTheirManager() throws Exception
+    {
+        ObjectName name = MBeans.downloadName("manager-7", "abc-123");
+        assertEquals(MBeans.DOMAIN, name.getDomain());
+        assertEquals("Download", name.getKeyProperty("type"));
+        assertEquals("manager-7", name.getKeyProperty("manager"));
+        assertEquals("abc-123", ObjectName.unquote(name.getKeyProperty("id")));
+        assertTrue(new ObjectName(MBeans.DOMAIN + ":type=Download,manager=manager-7,*").apply(name));
+    }
+
+    @Test
+    void testRegisteringTwiceIsReportedNotThrown() throws Exception
+    {
+        ObjectName name = MBeans.managerName(MBeans.nextManagerName());
+        manager = new DownloadManager(config().jmxEnabled(false).build());
+        try
+        {
+            assertTrue(MBeans.register(new DownloadManagerStats(manager), name));
+            assertFalse(MBeans.register(new DownloadManagerStats(manager), name),
+                "A taken name should fail quietly");
+        }
+        finally
+        {
+            MBeans.unregister(name);
+        }
+        assertFalse(mbeanServer.isRegistered(name));
+        // unregistering something that isn't there is fine too
+        MBeans.unregister(name);
+    }
+
+    // ============================================================
+    // MANAGER BEAN TESTS
+    // ============================================================
+
+    @Test
+    void testManagerRegisteredUntilShutdown() throws Exception
+    {
+        manager = new DownloadManager(config().build());
+        ObjectName name = manager.getObjectName();
+        assertNotNull(name);
+        assertTrue(mbeanServer.isRegistered(name));
+        assertEquals(0, mbeanServer.getAttribute(name, "DownloadCount"));
+        assertEquals(0L, mbeanServer.getAttribute(name, "BandwidthLimit"));
+
+        mbeanServer.setAttribute(name, new Attribute("BandwidthLimit", 4096L));
+        assertEquals(4096, manager.getBandwidthLimit(), "Writes through JMX should reach the manager");
+        assertEquals(0, mbeanServer.getAttribute(name, "QueuedDownloads"));
+        mbeanServer.setAttribute(name, new Attribute("MaxConcurrentDownloads", 2));
+        assertEquals(2, manager.getMaxConcurrentDownloads());
+
+        manager.shutdown();
+        assertFalse(mbeanServer.isRegistered(name), "Shutdown should unregister the manager");
+    }
+
+    @Test
+    void testJmxCanBeSwitchedOff() throws Exception
+    {
+        manager = new DownloadManager(config().jmxEnabled(false).build());
+        assertNull(manager.getObjectName());
+
+        Download download = manager.startDownload(server.url(), Paths.get(tempDir, "quiet.bin").toString());
+        assertNull(manager.getObjectName(download.getId()));
+        assertTrue(mbeanServer.queryNames(new ObjectName(MBeans.DOMAIN + ":type=Download,id=" + ObjectName.quote(download.getId()) + ",*"), null).isEmpty());
+        manager.cancelDownload(download.getId());
+    }
+
+    // ============================================================
+    // DOWNLOAD BEAN TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    void testRunningDownloadAttributes() throws Exception
+    {
+        manager = new DownloadManager(config().build());
+        Download download = manager.startDownload(server.url(), Paths.get(tempDir, "watched.bin").toString());
+        ObjectName name = manager.getObjectName(download.getId());
+        assertTrue(mbeanServer.isRegistered(name));
+        Thread.sleep(1200);
+
+        assertEquals(download.getId(), mbeanServer.getAttribute(name, "Id"));
+        assertEquals("DOWNLOADING", mbeanServer.getAttribute(name, "State"));
+        assertEquals(8L * 1024 * 1024, mbeanServer.getAttribute(name, "TotalSize"));
+        assertTrue((Double) mbeanServer.getAttribute(name, "BytesPerSecond") > 0);
+        assertTrue((Integer) mbeanServer.getAttribute(name, "ActiveConnections") > 0);
+        assertTrue((Long) mbeanServer.getAttribute(name, "TimeToFirstByteMillis") >= 0);
+        assertEquals(0, mbeanServer.getAttribute(name, "RetryCount"));
+
+        ObjectName managerName = manager.getObjectName();
+        assertEquals(1, mbeanServer.getAttribute(managerName, "ActiveDownloadCount"));
+        assertTrue((Long) mbeanServer.getAttribute(managerName, "DownloadedBytes") > 0);
+
+        mbeanServer.setAttribute(name, new Attribute("BandwidthLimit", 512 * 1024L));
+        assertEquals(512 * 1024, download.getBandwidthLimit());
+
+        manager.cancelDownload(download.getId());
+        assertFalse(mbeanServer.isRegistered(name), "A cancelled download should be unregistered");
+    }
+
+    @Test
+    @Timeout(30)
+    void testPausedDownloadAttributes() throws Exception
+    {
+        manager = new DownloadManager(config().build());
+        Download download = manager.startDownload(server.url(), Paths.get(tempDir, "paused.bin").toString());
+        ObjectName name = manager.getObjectName(download.getId());
+        Thread.sleep(300);
+        manager.pauseDownload(download.getId());
+
+        assertEquals("PAUSED", mbeanServer.getAttribute(name, "State"));
+        assertEquals(0.0, mbeanServer.getAttribute(name, "BytesPerSecond"));
+        assertEquals(-1L, mbeanServer.getAttribute(name, "EtaSeconds"), "No ETA while paused");
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all MBeans tests:
+   mvn test -Dtest=MBeansTest
+
+Browse the beans of a running manager:
+   jconsole, then the MBeans tab under io.rileyhe1.concurrency
+
+============================================================ */
@@ -0,0 +1,199 @@
+import io.rileyhe1.concurrency.Util.ContentDigest;
+import io.rileyhe1.concurrency.Util.MetalinkFile;
+import io.rileyhe1.concurrency.Util.MetalinkParser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for MetalinkParser class.
+ * Parses small Metalink 4 documents and checks urls, hashes and pieces, and that unsafe documents are refused.
+ */
+class MetalinkParserTest
+{
+    private static final String SHA256 = "a948904f2f0f479b8f8197694b30184b0d2ed1c1cd2a1ec0fb85d299a192a447";
+    private static final String SHA1 = "2aae6c35c94fcfb415dbe95f408b9ce91ee846ed";
+    private static final String MD5 = "5eb63bbbe01eeed093cb22bb8f5acdc3";
+
+    private static String document(String files)
+    {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<metalink xmlns=\"urn:ietf:params:xml:ns:metalink\">\n"
+            + "  <published>2024-01-01T00:00:00Z</published>\n"
+            + files
+            + "</metalink>\n";
+    }
+
+    private static List<MetalinkFile> parse(String document) throws IOException
+    {
+        return MetalinkParser.parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String file(String name, String body)
+    {
+        return "  <file name=\"" + name + "\">\n" + body + "  </file>\n";
+    }
+
+    // ============================================================
+    // PARSING TESTS
+    // ============================================================
+
+    @Test
+    void testParsesFile() throws IOException
+    {
+        List<MetalinkFile> files = parse(document(file("example.iso",
+            "    <size>11</size>\n"
+            + "    <hash type=\"md5\">" + MD5 + "</hash>\n"
+            + "    <hash type=\"sha-256\">" + SHA256 + "</hash>\n"
+            + "    <url location=\"de\" priority=\"1\">http://de.example.com/example.iso</url>\n")));
+
+        assertEquals(1, files.size());
+        MetalinkFile file = files.get(0);
+        assertEquals("example.iso", file.getName());
+        assertEquals(11, file.getSize());
+        assertEquals(List.of("http://de.example.com/example.iso"), file.getUrls());
+        assertEquals(ContentDigest.sha256(SHA256), file.getHash(), "The strongest hash should be kept");
+        assertFalse(file.hasPieceHashes());
+        assertEquals(0, file.getPieceLength());
+    }
+
+    @Test
+    void testUrlsFollowPriority() throws IOException
+    {
+        MetalinkFile file = parse(document(file("example.iso",
+            "    <url>http://none.example.com/example.iso</url>\n"
+            + "    <url priority=\"20\">http://late.example.com/example.iso</url>\n"
+            + "    <url priority=\"1\">https://first.example.com/example.iso</url>\n"
+            + "    <url priority=\"20\">http://later.example.com/example.iso</url>\n"
+            + "    <url priority=\"1\">https://first.example.com/example.iso</url>\n"))).get(0);
+
+        assertEquals(List.of("https://first.example.com/example.iso", "http://late.example.com/example.iso",
+            "http://later.example.com/example.iso", "http://none.example.com/example.iso"), file.getUrls(),
+            "Lowest priority first, ties in document order, urls without one last and no duplicates");
+    }
+
+    @Test
+    void testOnlyHttpUrlsKept() throws IOException
+    {
+        List<MetalinkFile> files = parse(document(
+            file("mixed.iso",
+                "    <url priority=\"1\">ftp://ftp.example.com/mixed.iso</url>\n"
+                + "    <metaurl mediatype=\"torrent\">http://example.com/mixed.torrent</metaurl>\n"
+                + "    <url priority=\"2\">http://example.com/mixed.iso</url>\n")
+            + file("ftp-only.iso", "    <url>ftp://ftp.example.com/ftp-only.iso</url>\n")));
+
+        assertEquals(1, files.size(), "A file with nothing we can fetch should be skipped");
+        assertEquals(List.of("http://example.com/mixed.iso"), files.get(0).getUrls());
+        assertEquals(-1, files.get(0).getSize(), "Size is optional");
+        assertNull(files.get(0).getHash());
+    }
+
+    @Test
+    void testNothingDownloadableRejected()
+    {
+        assertThrows(IOException.class, () -> parse(document(file("ftp-only.iso", "    <url>ftp://ftp.example.com/a</url>\n"))));
+        assertThrows(IOException.class, () -> parse(document("")));
+    }
+
+    @Test
+    void testPieces() throws IOException
+    {
+        MetalinkFile file = parse(document(file("pieces.bin",
+            "    <size>25</size>\n"
+            + "    <url>http://example.com/pieces.bin</url>\n"
+            + "    <pieces length=\"10\" type=\"md5\">\n"
+            + "      <hash>" + MD5 + "</hash>\n"
+            + "    </pieces>\n"
+            + "    <pieces length=\"10\" type=\"sha-1\">\n"
+            + "      <hash>" + SHA1 + "</hash>\n"
+            + "      <hash>" + SHA1.toUpperCase() + "</hash>\n"
+            + "      <hash>" + SHA1 + "</hash>\n"
+            + "    </pieces>\n"))).get(0);
+
+        assertTrue(file.hasPieceHashes());
+        assertEquals(10, file.getPieceLength());
+        assertEquals(3, file.getPieceHashes().size(), "The sha-1 pieces should win over md5");
+        assertEquals(ContentDigest.fromHex("sha-1", SHA1), file.getPieceHashes().get(1));
+    }
+
+    @Test
+    void testPiecesMustCoverFile()
+    {
+        String pieces = "    <size>25</size>\n"
+            + "    <url>http://example.com/pieces.bin</url>\n"
+            + "    <pieces length=\"10\" type=\"sha-1\">\n"
+            + "      <hash>" + SHA1 + "</hash>\n"
+            + "    </pieces>\n";
+        assertThrows(IOException.class, () -> parse(document(file("pieces.bin", pieces))));
+    }
+
+    @Test
+    void testParsesFromPath(@TempDir Path tempDir) throws IOException
+    {
+        Path metalink = tempDir.resolve("files.meta4");
+        Files.writeString(metalink, document(file("a.bin", "    <url>http://example.com/a.bin</url>\n")
+            + file("dir/b.bin", "    <url>http://example.com/b.bin</url>\n")));
+
+        List<MetalinkFile> files = MetalinkParser.parse(metalink);
+        assertEquals(2, files.size());
+        assertEquals("dir/b.bin", files.get(1).getName(), "Names may have directories of their own");
+    }
+
+    // ============================================================
+    // REJECTION TESTS
+    // ============================================================
+
+    @Test
+    void testUnsafeNamesRejected()
+    {
+        for (String name : List.of("../escape.bin", "dir/../../escape.bin", "/etc/passwd", "\\\\server\\share.bin", "C:\\escape.bin", ""))
+        {
+            assertThrows(IOException.class, () -> parse(document(file(name, "    <url>http://example.com/a</url>\n"))),
+                "Name should be rejected: " + name);
+        }
+    }
+
+    @Test
+    void testDoctypeRejected()
+    {
+        String xxe = "<?xml version=\"1.0\"?>\n"
+            + "<!DOCTYPE metalink [<!ENTITY secret SYSTEM \"file:///etc/passwd\">]>\n"
+            + "<metalink xmlns=\"urn:ietf:params:xml:ns:metalink\">\n"
+            + file("a.bin", "    <url>http://example.com/&secret;</url>\n")
+            + "</metalink>\n";
+        assertThrows(IOException.class, () -> parse(xxe), "Documents with a DTD should never be expanded");
+    }
+
+    @Test
+    void testOtherDocumentsRejected()
+    {
+        assertThrows(IOException.class, () -> parse("<metalink><file name=\"a\"><url>http://example.com/a</url></file></metalink>"),
+            "Metalink 3 and namespace-less documents aren't Metalink 4");
+        assertThrows(IOException.class, () -> parse("not xml at all"));
+        assertThrows(IOException.class, () -> parse(document(file("a.bin",
+            "    <url>http://example.com/a</url>\n    <hash type=\"sha-256\">nothex</hash>\n"))));
+        assertThrows(IOException.class, () -> parse(document(file("a.bin",
+            "    <url priority=\"first\">http://example.com/a</url>\n"))));
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all MetalinkParser tests:
+   mvn test -Dtest=MetalinkParserTest
+
+Run specific test:
+   mvn test -Dtest=MetalinkParserTest#testUrlsFollowPriority
+
+============================================================ */
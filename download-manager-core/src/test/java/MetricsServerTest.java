@@ -0,0 +1,282 @@
+import io.rileyhe1.concurrency.DownloadManager;
+import io.rileyhe1.concurrency.Data.DownloadConfig;
+import io.rileyhe1.concurrency.Data.DownloadState;
+import io.rileyhe1.concurrency.Monitoring.MetricsServer;
+import io.rileyhe1.concurrency.Monitoring.PrometheusFormat;
+import io.rileyhe1.concurrency.Monitoring.RetryCause;
+import io.rileyhe1.concurrency.Util.Download;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for MetricsServer class and the Prometheus text it serves.
+ * Runs downloads against the local range server, then scrapes the endpoint the way Prometheus would.
+ */
+class MetricsServerTest
+{
+    private final HttpClient client = HttpClient.newHttpClient();
+    private DownloadManager manager;
+    private String tempDir;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDirectory) throws IOException
+    {
+        tempDir = tempDirectory.toString();
+        Files.deleteIfExists(Paths.get("downloads.journal"));
+        Files.deleteIfExists(Paths.get("downloads.json"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException
+    {
+        if (manager != null) manager.shutdown();
+        Files.deleteIfExists(Paths.get("downloads.journal"));
+    }
+
+    private DownloadConfig.Builder config()
+    {
+        return DownloadConfig.builder()
+            .numberOfThreads(4)
+            .chunkSize(64 * 1024)
+            .timeoutsInSeconds(10)
+            .maxRetries(3)
+            .retryDelayMS(100)
+            .tempDirectory(tempDir)
+            .minSizeForChunking(1024)
+            .jmxEnabled(false);
+    }
+
+    private HttpResponse<String> scrape(MetricsServer server, String method) throws Exception
+    {
+        URI uri = URI.create("http://127.0.0.1:" + server.getPort() + MetricsServer.PATH);
+        HttpRequest request = HttpRequest.newBuilder(uri).method(method, HttpRequest.BodyPublishers.noBody()).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    // sample lines by name and labels, e.g. downloadmanager_chunks_total{result="success"}
+    private static Map<String, Double> parse(String body)
+    {
+        Map<String, Double> samples = new HashMap<>();
+        for (String line : body.split("\n"))
+        {
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            int space = line.lastIndexOf(' ');
+            samples.put(line.substring(0, space), Double.parseDouble(line.substring(space + 1)));
+        }
+        return samples;
+    }
+
+    private static double value(Map<String, Double> samples, String sample)
+    {
+        Double value = samples.get(sample);
+        assertNotNull(value, "Missing sample " + sample);
+        return value;
+    }
+
+    // ============================================================
+    // CONFIGURATION TESTS
+    // ============================================================
+
+    @Test
+    void testMetricsPortValidation()
+    {
+        assertThrows(IllegalArgumentException.class, () -> DownloadConfig.builder().metricsPort(-2));
+        assertThrows(IllegalArgumentException.class, () -> DownloadConfig.builder().metricsPort(65536));
+        assertEquals(-1, DownloadConfig.builder().build().getMetricsPort(), "No endpoint unless asked for");
+    }
+
+    @Test
+    void testNoEndpointByDefault() throws Exception
+    {
+        manager = new DownloadManager(config().build());
+        assertNull(manager.getMetricsServer());
+    }
+
+    @Test
+    void testEndpointFromConfig() throws Exception
+    {
+        manager = new DownloadManager(config().metricsPort(0).build());
+        MetricsServer server = manager.getMetricsServer();
+        assertNotNull(server);
+        assertTrue(server.getPort() > 0, "Port 0 should pick a free port");
+        assertEquals(200, scrape(server, "GET").statusCode());
+
+        manager.shutdown();
+        assertNull(manager.getMetricsServer(), "Shutdown should stop the endpoint");
+    }
+
+    // ============================================================
+    // ENDPOINT TESTS
+    // ============================================================
+
+    @Test
+    void testServesPrometheusText() throws Exception
+    {
+        manager = new DownloadManager(config().build());
+        MetricsServer server = manager.startMetricsServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        HttpResponse<String> response = scrape(server, "GET");
+        assertEquals(200, response.statusCode());
+        assertEquals(PrometheusFormat.CONTENT_TYPE, response.headers().firstValue("Content-Type").orElse(null));
+        String body = response.body();
+        assertTrue(body.contains("# TYPE downloadmanager_downloaded_bytes_total counter"));
+        assertTrue(body.contains("# TYPE downloadmanager_chunk_connect_seconds histogram"));
+        assertTrue(body.endsWith("\n"), "The text format ends every line with a newline");
+
+        Map<String, Double> samples = parse(body);
+        assertEquals(0.0, value(samples, "downloadmanager_downloaded_bytes_total"));
+        for (RetryCause cause : RetryCause.values())
+        {
+            assertEquals(0.0, value(samples, "downloadmanager_chunk_retries_total{cause=\"" + cause.getLabel() + "\"}"),
+                "Every cause should be present from the start so rate() works on the first retry");
+        }
+        assertEquals(0.0, value(samples, "downloadmanager_chunk_connect_seconds_bucket{le=\"+Inf\"}"));
+    }
+
+    @Test
+    void testOnlyGetAndHead() throws Exception
+    {
+        manager = new DownloadManager(config().build());
+        MetricsServer server = manager.startMetricsServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+
+        // the JDK client sometimes can't reuse the connection a HEAD was sent on for a POST, so the POST goes first
+        HttpResponse<String> post = scrape(server, "POST");
+        assertEquals(405, post.statusCode());
+        assertEquals("GET, HEAD", post.headers().firstValue("Allow").orElse(null));
+
+        HttpResponse<String> head = scrape(server, "HEAD");
+        assertEquals(200, head.statusCode());
+        assertTrue(head.body().isEmpty());
+    }
+
+    @Test
+    void testRestartReplacesEndpoint() throws Exception
+    {
+        manager = new DownloadManager(config().build());
+        MetricsServer first = manager.startMetricsServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        MetricsServer second = manager.startMetricsServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        assertSame(second, manager.getMetricsServer());
+        assertThrows(IOException.class, () -> scrape(first, "GET"), "The replaced endpoint should be closed");
+        assertEquals(200, scrape(second, "GET").statusCode());
+    }
+
+    // ============================================================
+    // METRIC CONTENT TESTS
+    // ============================================================
+
+    @Test
+    @Timeout(30)
+    void testDownloadIsCounted() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(256 * 1024).start())
+        {
+            manager = new DownloadManager(config().build());
+            MetricsServer server = manager.startMetricsServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            Download download = manager.startDownload(origin.url(), Paths.get(tempDir, "counted.bin").toString());
+            download.awaitCompletion();
+            assertEquals(DownloadState.COMPLETED, download.getState());
+
+            Map<String, Double> samples = parse(scrape(server, "GET").body());
+            assertEquals(256.0 * 1024, value(samples, "downloadmanager_downloaded_bytes_total"));
+            assertEquals(4.0, value(samples, "downloadmanager_chunks_total{result=\"success\"}"));
+            assertEquals(4.0, value(samples, "downloadmanager_chunk_connect_seconds_count"));
+            assertEquals(4.0, value(samples, "downloadmanager_chunk_first_byte_seconds_count"));
+            assertEquals(4.0, value(samples, "downloadmanager_chunk_throughput_bytes_per_second_count"));
+            assertEquals(1.0, value(samples, "downloadmanager_assembly_seconds_count"), "TEMP_FILES downloads assemble once");
+            assertTrue(value(samples, "downloadmanager_chunk_duration_seconds_sum") > 0);
+            assertEquals(0.0, value(samples, "downloadmanager_host_connections{host=\"" + origin.url().split("/")[2] + "\"}"),
+                "Nothing should be in flight once the download is done");
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testRetriesByCause() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(64 * 1024).failFirst(2, 503).start())
+        {
+            manager = new DownloadManager(config().build());
+            Download download = manager.startDownload(origin.url(), Paths.get(tempDir, "retried.bin").toString());
+            download.awaitCompletion();
+
+            Map<String, Double> samples = parse(PrometheusFormat.write(manager));
+            assertEquals(2.0, value(samples, "downloadmanager_chunk_retries_total{cause=\"throttled\"}"));
+            assertEquals(0.0, value(samples, "downloadmanager_chunk_retries_total{cause=\"other\"}"));
+            assertEquals(2, manager.getMetrics().getRetries(RetryCause.THROTTLED));
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testInFlightConnectionsPerHost() throws Exception
+    {
+        try (LocalRangeServer origin = LocalRangeServer.builder().size(2 * 1024 * 1024).bytesPerSecond(256 * 1024).start())
+        {
+            manager = new DownloadManager(config().build());
+            Download download = manager.startDownload(origin.url(), Paths.get(tempDir, "in-flight.bin").toString());
+            Thread.sleep(500);
+
+            Map<String, Double> samples = parse(PrometheusFormat.write(manager));
+            String host = "downloadmanager_host_connections{host=\"" + origin.url().split("/")[2] + "\"}";
+            assertEquals(4.0, value(samples, host), "Every worker should have a request open");
+            manager.cancelDownload(download.getId());
+        }
+    }
+
+    @Test
+    @Timeout(30)
+    void testJournalSyncsAreTimed() throws Exception
+    {
+        manager = new DownloadManager(config().journalSyncIntervalMS(100).build());
+        Thread.sleep(500);
+        Map<String, Double> samples = parse(PrometheusFormat.write(manager));
+        assertTrue(value(samples, "downloadmanager_journal_sync_seconds_count") >= 1, "The periodic sync should be timed");
+    }
+
+    @Test
+    void testHistogramBucketsAreCumulative() throws Exception
+    {
+        manager = new DownloadManager(config().build());
+        manager.getMetrics().recordConnect(500_000);
+        manager.getMetrics().recordConnect(3_000_000);
+        manager.getMetrics().recordConnect(Long.MAX_VALUE / 2);
+
+        Map<String, Double> samples = parse(PrometheusFormat.write(manager));
+        assertEquals(1.0, value(samples, "downloadmanager_chunk_connect_seconds_bucket{le=\"0.001\"}"));
+        assertEquals(1.0, value(samples, "downloadmanager_chunk_connect_seconds_bucket{le=\"0.002\"}"));
+        assertEquals(2.0, value(samples, "downloadmanager_chunk_connect_seconds_bucket{le=\"0.004\"}"));
+        assertEquals(3.0, value(samples, "downloadmanager_chunk_connect_seconds_bucket{le=\"+Inf\"}"));
+        assertEquals(3.0, value(samples, "downloadmanager_chunk_connect_seconds_count"));
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all MetricsServer tests:
+   mvn test -Dtest=MetricsServerTest
+
+Scrape a running manager by hand:
+   curl http://localhost:<metricsPort>/metrics
+
+============================================================ */
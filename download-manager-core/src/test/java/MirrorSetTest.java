@@ -0,0 +1,244 @@
+import io.rileyhe1.concurrency.Util.MirrorSet;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for MirrorSet class.
+ * Picks sources, feeds synthetic byte counts and failures, and checks which mirrors get connections or are dropped.
+ */
+class MirrorSetTest
+{
+    private static final long SECOND = 1_000_000_000L;
+    private static final List<String> URLS = List.of("http://a.example/file.bin", "http://b.example/file.bin", "http://c.example/file.bin");
+
+    // counts which mirror each of count picks went to, by position in the set, without releasing them
+    private static int[] pick(MirrorSet set, int count)
+    {
+        int[] picks = new int[set.getMirrors().size()];
+        for (int i = 0; i < count; i++)
+        {
+            picks[set.getMirrors().indexOf(set.pick())]++;
+        }
+        return picks;
+    }
+
+    // one connection on each of the first two mirrors delivering the given rates for a second
+    private static void measure(MirrorSet set, long firstRate, long secondRate)
+    {
+        MirrorSet.Mirror first = set.getMirrors().get(0);
+        MirrorSet.Mirror second = set.getMirrors().get(1);
+        set.sample(SECOND);
+        first.addBytes(firstRate);
+        second.addBytes(secondRate);
+        set.sample(2 * SECOND);
+    }
+
+    @Test
+    void testConstructorValidation()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new MirrorSet(null));
+        assertThrows(IllegalArgumentException.class, () -> new MirrorSet(List.of()));
+        assertThrows(IllegalArgumentException.class, () -> new MirrorSet(Arrays.asList("http://a.example/file.bin", null)));
+        assertThrows(IllegalArgumentException.class, () -> new MirrorSet(List.of("http://a.example/file.bin", " ")));
+    }
+
+    @Test
+    void testKeepsUrlsInOrder()
+    {
+        MirrorSet set = new MirrorSet(URLS);
+        assertEquals(URLS, set.getUrls());
+        assertEquals(3, set.getLiveCount());
+        assertEquals("b.example", set.getMirrors().get(1).getHostKey());
+    }
+
+    @Test
+    void testUnmeasuredMirrorsShareConnections()
+    {
+        MirrorSet set = new MirrorSet(URLS);
+        assertArrayEquals(new int[] {2, 2, 2}, pick(set, 6), "A burst of chunks should spread over unmeasured mirrors");
+        assertEquals(2, set.getMirrors().get(0).getConnections());
+    }
+
+    @Test
+    void testReleaseGivesConnectionBack()
+    {
+        MirrorSet set = new MirrorSet(URLS);
+        MirrorSet.Mirror first = set.pick();
+        assertEquals(1, first.getConnections());
+        first.release();
+        assertEquals(0, first.getConnections());
+        assertSame(first, set.pick(), "An idle mirror should be picked again");
+    }
+
+    @Test
+    void testFasterMirrorGetsMoreConnections()
+    {
+        MirrorSet set = new MirrorSet(URLS.subList(0, 2));
+        MirrorSet.Mirror fast = set.pick();
+        MirrorSet.Mirror slow = set.pick();
+        measure(set, 8_000_000, 1_000_000);
+        assertEquals(8_000_000, fast.getBytesPerSecondPerConnection(), 1);
+        assertEquals(1_000_000, slow.getBytesPerSecondPerConnection(), 1);
+        fast.release();
+        slow.release();
+
+        int[] picks = pick(set, 18);
+        assertTrue(picks[0] >= 4 * picks[1], "Connections should follow throughput, got " + Arrays.toString(picks));
+        assertTrue(picks[1] > 0, "A slower mirror should still get a share");
+    }
+
+    @Test
+    void testIdleMirrorKeepsItsRate()
+    {
+        MirrorSet set = new MirrorSet(URLS.subList(0, 2));
+        MirrorSet.Mirror fast = set.pick();
+        MirrorSet.Mirror slow = set.pick();
+        measure(set, 8_000_000, 1_000_000);
+        fast.release();
+        slow.release();
+
+        // nothing is connected, so nothing should decay
+        set.sample(10 * SECOND);
+        assertEquals(8_000_000, fast.getBytesPerSecondPerConnection(), 1);
+        assertEquals(0, fast.getBytesPerSecond(), "Rate across connections is 0 while idle");
+        assertSame(fast, set.pick());
+    }
+
+    @Test
+    void testFailingMirrorDropped()
+    {
+        MirrorSet set = new MirrorSet(URLS);
+        MirrorSet.Mirror failing = set.getMirrors().get(0);
+
+        assertFalse(set.recordFailure(failing));
+        assertFalse(set.recordFailure(failing));
+        assertTrue(set.recordFailure(failing), "Three failures in a row should drop the mirror");
+        assertTrue(failing.isDropped());
+        assertEquals(2, set.getLiveCount());
+
+        for (int i = 0; i < 10; i++)
+        {
+            assertNotSame(failing, set.pick(), "A dropped mirror should never be picked");
+        }
+        assertTrue(set.recordFailure(failing), "Dropped mirrors stay dropped");
+    }
+
+    @Test
+    void testSuccessResetsFailures()
+    {
+        MirrorSet set = new MirrorSet(URLS);
+        MirrorSet.Mirror flaky = set.getMirrors().get(0);
+
+        set.recordFailure(flaky);
+        set.recordFailure(flaky);
+        set.recordSuccess(flaky);
+        set.recordFailure(flaky);
+        assertFalse(set.recordFailure(flaky), "Only failures in a row should count");
+        assertFalse(flaky.isDropped());
+    }
+
+    @Test
+    void testLastMirrorNeverDropped()
+    {
+        MirrorSet set = new MirrorSet(URLS.subList(0, 2));
+        MirrorSet.Mirror first = set.getMirrors().get(0);
+        MirrorSet.Mirror second = set.getMirrors().get(1);
+        for (int i = 0; i < 3; i++)
+        {
+            set.recordFailure(first);
+        }
+        for (int i = 0; i < 10; i++)
+        {
+            assertFalse(set.recordFailure(second), "The download has nowhere else to go");
+        }
+        assertEquals(1, set.getLiveCount());
+        assertSame(second, set.pick());
+    }
+
+    @Test
+    void testSlowMirrorDropped()
+    {
+        MirrorSet set = new MirrorSet(URLS.subList(0, 2));
+        MirrorSet.Mirror fast = set.pick();
+        MirrorSet.Mirror slow = set.pick();
+        set.sample(0);
+        for (int i = 1; i <= 10 && !slow.isDropped(); i++)
+        {
+            fast.addBytes(10_000_000);
+            slow.addBytes(100_000);
+            set.sample(i * SECOND);
+        }
+        assertTrue(slow.isDropped(), "A mirror far behind the best one should be dropped");
+        assertFalse(fast.isDropped());
+    }
+
+    @Test
+    void testStalledMirrorDropped()
+    {
+        MirrorSet set = new MirrorSet(URLS.subList(0, 2));
+        MirrorSet.Mirror fast = set.pick();
+        MirrorSet.Mirror stalled = set.pick();
+        set.sample(0);
+        stalled.addBytes(1_000_000);
+        // its smoothed rate has to decay past SLOW_RATIO of the best before the slow samples start
+        for (int i = 1; i <= 30 && !stalled.isDropped(); i++)
+        {
+            fast.addBytes(1_000_000);
+            set.sample(i * SECOND);
+        }
+        assertTrue(stalled.isDropped(), "A connected mirror that stops delivering should be dropped");
+    }
+
+    @Test
+    void testMirrorWaitingForFirstByteKept()
+    {
+        MirrorSet set = new MirrorSet(URLS.subList(0, 2));
+        MirrorSet.Mirror fast = set.pick();
+        MirrorSet.Mirror distant = set.pick();
+        set.sample(0);
+        // a high latency mirror that takes a long time to send its first byte, then keeps up
+        for (int i = 1; i <= 10; i++)
+        {
+            fast.addBytes(1_000_000);
+            set.sample(i * SECOND);
+        }
+        assertFalse(distant.isDropped(), "A mirror still waiting for its first byte isn't slow yet");
+        for (int i = 11; i <= 20; i++)
+        {
+            fast.addBytes(1_000_000);
+            distant.addBytes(1_000_000);
+            set.sample(i * SECOND);
+        }
+        assertFalse(distant.isDropped(), "Once it delivers it should be measured like any other");
+    }
+
+    @Test
+    void testSlightlySlowerMirrorKept()
+    {
+        MirrorSet set = new MirrorSet(URLS.subList(0, 2));
+        MirrorSet.Mirror fast = set.pick();
+        MirrorSet.Mirror slower = set.pick();
+        set.sample(0);
+        for (int i = 1; i <= 20; i++)
+        {
+            fast.addBytes(1_000_000);
+            slower.addBytes(500_000);
+            set.sample(i * SECOND);
+        }
+        assertFalse(slower.isDropped(), "Half the speed is still worth having");
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all MirrorSet tests:
+   mvn test -Dtest=MirrorSetTest
+
+============================================================ */
@@ -335,6 +335,51 @@ class ProgressTrackerTest
         assertEquals(100.0, tracker.getProgressPercentage(5000), 0.01);
     }
 
+    // ============================================================
+    // STRIPING TESTS
+    // ============================================================
+
+    @Test
+    void testStripeCountRoundedToPowerOfTwo()
+    {
+        assertEquals(1, new ProgressTracker(1).getStripeCount());
+        assertEquals(4, new ProgressTracker(3).getStripeCount());
+        assertEquals(16, new ProgressTracker(16).getStripeCount());
+        assertEquals(256, new ProgressTracker(100000).getStripeCount(), "Stripe count should be capped");
+    }
+
+    @Test
+    void testInvalidStripeCount()
+    {
+        assertThrows(IllegalArgumentException.class, () -> {
+            new ProgressTracker(0);
+        }, "Should throw exception for zero stripes");
+    }
+
+    @Test
+    void testMoreChunksThanStripes() throws InterruptedException
+    {
+        ProgressTracker striped = new ProgressTracker(4);
+        int chunks = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch latch = new CountDownLatch(chunks);
+        for (int i = 0; i < chunks; i++)
+        {
+            final int chunkIndex = i;
+            executor.submit(() -> {
+                for (int j = 0; j < 1000; j++)
+                {
+                    striped.updateProgress(chunkIndex, 3);
+                }
+                latch.countDown();
+            });
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(chunks * 1000 * 3, striped.getTotalProgress(), "Chunks sharing a stripe should not lose updates");
+    }
+
     // ============================================================
     // REALISTIC DOWNLOAD SCENARIOS
     // ============================================================
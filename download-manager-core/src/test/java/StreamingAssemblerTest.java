@@ -0,0 +1,160 @@
+import io.rileyhe1.concurrency.Data.ChunkResult;
+import io.rileyhe1.concurrency.Util.StreamingAssembler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for StreamingAssembler class.
+ * Tests in-order appending, temp file cleanup, and resuming from an already assembled prefix.
+ */
+class StreamingAssemblerTest
+{
+    private String tempDir;
+    private String destination;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDirectory)
+    {
+        tempDir = tempDirectory.toString();
+        destination = Paths.get(tempDir, "output.txt").toString();
+    }
+
+    private ChunkResult writeChunk(int index, String content) throws IOException
+    {
+        Path chunk = Paths.get(tempDir, "chunk" + index + ".bin");
+        Files.write(chunk, content.getBytes());
+        return ChunkResult.success(chunk.toString(), content.length(), index);
+    }
+
+    @Test
+    void testAppendsInOrderAndDeletesTempFiles() throws IOException
+    {
+        try (StreamingAssembler assembler = new StreamingAssembler(destination))
+        {
+            ChunkResult chunk0 = writeChunk(0, "Hello");
+            assembler.append(chunk0);
+
+            assertEquals("Hello", Files.readString(Paths.get(destination)), "Chunk 0 should be appended right away");
+            assertFalse(Files.exists(Paths.get(chunk0.getTempFilePath())), "Temp file should be deleted once appended");
+
+            assembler.append(writeChunk(1, " World"));
+            assertEquals(2, assembler.getAssembledChunks());
+            assertEquals(11, assembler.getAssembledBytes());
+        }
+        assertEquals("Hello World", Files.readString(Paths.get(destination)));
+    }
+
+    @Test
+    void testOutOfOrderChunkWaitsForGap() throws IOException
+    {
+        try (StreamingAssembler assembler = new StreamingAssembler(destination))
+        {
+            ChunkResult chunk2 = writeChunk(2, "!");
+            ChunkResult chunk1 = writeChunk(1, " World");
+            assembler.append(chunk2);
+            assembler.append(chunk1);
+
+            assertEquals(0, assembler.getAssembledChunks(), "Nothing can be appended before chunk 0 arrives");
+            assertEquals(2, assembler.getWaitingChunkCount());
+            assertTrue(Files.exists(Paths.get(chunk2.getTempFilePath())), "Waiting chunks keep their temp files");
+
+            assembler.append(writeChunk(0, "Hello"));
+            assertEquals(3, assembler.getAssembledChunks());
+            assertEquals(0, assembler.getWaitingChunkCount());
+        }
+        assertEquals("Hello World!", Files.readString(Paths.get(destination)));
+    }
+
+    @Test
+    void testSizeMismatchFails() throws IOException
+    {
+        Path chunk = Paths.get(tempDir, "chunk0.bin");
+        Files.write(chunk, "Hel".getBytes());
+
+        try (StreamingAssembler assembler = new StreamingAssembler(destination))
+        {
+            assertThrows(IOException.class, () -> {
+                assembler.append(ChunkResult.success(chunk.toString(), 5, 0));
+            }, "A temp file shorter than the chunk reported should not be appended");
+            assertEquals(0, assembler.getAssembledBytes());
+        }
+    }
+
+    @Test
+    void testFailedChunkRejected() throws IOException
+    {
+        try (StreamingAssembler assembler = new StreamingAssembler(destination))
+        {
+            assertThrows(IOException.class, () -> {
+                assembler.append(ChunkResult.failure(new IOException("Network error"), 0));
+            });
+        }
+    }
+
+    @Test
+    void testResumeDiscardsUnrecordedTail() throws IOException
+    {
+        // "Hello" was recorded as assembled, " Wo" is a partial append that happened after the snapshot
+        Files.write(Paths.get(destination), "Hello Wo".getBytes());
+
+        try (StreamingAssembler assembler = new StreamingAssembler(destination, 1, 5))
+        {
+            // chunk 0 is already in the destination and has no temp file anymore
+            assembler.append(ChunkResult.success(null, 5, 0));
+            assembler.append(writeChunk(1, " World"));
+            assertEquals(2, assembler.getAssembledChunks());
+        }
+        assertEquals("Hello World", Files.readString(Paths.get(destination)));
+    }
+
+    @Test
+    void testResumeWithMissingDestinationFails()
+    {
+        assertThrows(IOException.class, () -> {
+            new StreamingAssembler(destination, 2, 10);
+        }, "Resuming should fail if the assembled prefix is gone");
+    }
+
+    @Test
+    void testFreshAssemblerOverwritesExistingDestination() throws IOException
+    {
+        Files.write(Paths.get(destination), "OldContent".getBytes());
+        try (StreamingAssembler assembler = new StreamingAssembler(destination))
+        {
+            assembler.append(writeChunk(0, "New"));
+        }
+        assertEquals("New", Files.readString(Paths.get(destination)));
+    }
+
+    @Test
+    void testAppendAfterCloseFails() throws IOException
+    {
+        StreamingAssembler assembler = new StreamingAssembler(destination);
+        assembler.close();
+        ChunkResult chunk0 = writeChunk(0, "Hello");
+
+        assertThrows(IOException.class, () -> {
+            assembler.append(chunk0);
+        });
+        assertEquals(0, assembler.getAssembledChunks(), "Closing should freeze the assembled count");
+        assertTrue(Files.exists(Paths.get(chunk0.getTempFilePath())), "Temp file should be kept for a later resume");
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all StreamingAssembler tests:
+   mvn test -Dtest=StreamingAssemblerTest
+
+============================================================ */
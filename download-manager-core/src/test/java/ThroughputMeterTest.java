@@ -0,0 +1,154 @@
+import io.rileyhe1.concurrency.Util.ThroughputMeter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test suite for ThroughputMeter class.
+ * Feeds synthetic counter samples and checks the smoothed rate and the estimates built on it.
+ */
+class ThroughputMeterTest
+{
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void testConstructorValidation()
+    {
+        assertThrows(IllegalArgumentException.class, () -> new ThroughputMeter(0));
+        assertThrows(IllegalArgumentException.class, () -> new ThroughputMeter(-SECOND));
+    }
+
+    @Test
+    void testNoRateBeforeSecondSample()
+    {
+        ThroughputMeter meter = new ThroughputMeter();
+        assertEquals(0, meter.getBytesPerSecond());
+        meter.sample(5000, SECOND);
+        assertEquals(0, meter.getBytesPerSecond(), "One sample has nothing to measure against");
+        assertEquals(-1, meter.estimateNanos(1000), "No rate means no estimate");
+    }
+
+    @Test
+    void testFirstIntervalTakenAsIs()
+    {
+        ThroughputMeter meter = new ThroughputMeter();
+        meter.sample(0, SECOND);
+        meter.sample(1000, 2 * SECOND);
+        assertEquals(1000, meter.getBytesPerSecond(), 1e-9, "The first real interval shouldn't be averaged with 0");
+    }
+
+    @Test
+    void testWaitingForFirstByteDoesNotDragRateDown()
+    {
+        ThroughputMeter meter = new ThroughputMeter();
+        meter.sample(0, SECOND);
+        meter.sample(0, 2 * SECOND);
+        meter.sample(4000, 3 * SECOND);
+        assertEquals(4000, meter.getBytesPerSecond(), 1e-9, "Intervals before any bytes arrive shouldn't count");
+    }
+
+    @Test
+    void testSmoothsTowardNewRate()
+    {
+        ThroughputMeter meter = new ThroughputMeter(3 * SECOND);
+        long bytes = 0, now = SECOND;
+        meter.sample(bytes, now);
+        for (int i = 0; i < 5; i++)
+        {
+            bytes += 1000;
+            now += SECOND;
+            meter.sample(bytes, now);
+        }
+        assertEquals(1000, meter.getBytesPerSecond(), 1e-9);
+
+        // the rate doubles, one second in the average should have moved part of the way
+        bytes += 2000;
+        now += SECOND;
+        meter.sample(bytes, now);
+        double expected = 1000 + (1 - Math.exp(-1.0 / 3)) * 1000;
+        assertEquals(expected, meter.getBytesPerSecond(), 1e-6);
+
+        // three windows later it should be within 5% of the new rate
+        for (int i = 0; i < 9; i++)
+        {
+            bytes += 2000;
+            now += SECOND;
+            meter.sample(bytes, now);
+        }
+        assertEquals(2000, meter.getBytesPerSecond(), 100);
+    }
+
+    @Test
+    void testLongerIntervalsWeighMore()
+    {
+        ThroughputMeter shortGap = new ThroughputMeter(3 * SECOND);
+        ThroughputMeter longGap = new ThroughputMeter(3 * SECOND);
+        shortGap.sample(0, 0);
+        shortGap.sample(1000, SECOND);
+        longGap.sample(0, 0);
+        longGap.sample(1000, SECOND);
+
+        // both see 3000 bytes/sec, one for a second and one for three
+        shortGap.sample(4000, 2 * SECOND);
+        longGap.sample(10000, 4 * SECOND);
+        assertTrue(longGap.getBytesPerSecond() > shortGap.getBytesPerSecond(),
+            "An interval covering more time should move the average further");
+    }
+
+    @Test
+    void testCounterGoingBackwardsCountsAsNothing()
+    {
+        ThroughputMeter meter = new ThroughputMeter();
+        meter.sample(0, 0);
+        meter.sample(10000, SECOND);
+        // a range that failed its digest was taken back
+        meter.sample(6000, 2 * SECOND);
+        double rate = meter.getBytesPerSecond();
+        assertTrue(rate >= 0 && rate < 10000, "A negative interval should pull the rate down, not below 0, was " + rate);
+    }
+
+    @Test
+    void testSameTimestampIgnored()
+    {
+        ThroughputMeter meter = new ThroughputMeter();
+        meter.sample(0, SECOND);
+        meter.sample(1000, 2 * SECOND);
+        meter.sample(50000, 2 * SECOND);
+        assertEquals(1000, meter.getBytesPerSecond(), 1e-9);
+    }
+
+    @Test
+    void testResetDropsRate()
+    {
+        ThroughputMeter meter = new ThroughputMeter();
+        meter.sample(0, SECOND);
+        meter.sample(1000, 2 * SECOND);
+        meter.reset();
+        assertEquals(0, meter.getBytesPerSecond());
+
+        // the time spent reset isn't an interval, the next two samples start over
+        meter.sample(1000, 60 * SECOND);
+        meter.sample(6000, 61 * SECOND);
+        assertEquals(5000, meter.getBytesPerSecond(), 1e-9);
+    }
+
+    @Test
+    void testEstimate()
+    {
+        ThroughputMeter meter = new ThroughputMeter();
+        meter.sample(0, 0);
+        meter.sample(1000, SECOND);
+        assertEquals(10 * SECOND, meter.estimateNanos(10000));
+        assertEquals(0, meter.estimateNanos(0), "Nothing left takes no time");
+    }
+}
+
+/* ============================================================
+   RUNNING TESTS
+   ============================================================
+
+Run all ThroughputMeter tests:
+   mvn test -Dtest=ThroughputMeterTest
+
+============================================================ */
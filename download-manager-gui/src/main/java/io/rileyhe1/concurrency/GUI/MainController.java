@@ -2,6 +2,7 @@ package io.rileyhe1.concurrency.GUI;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.Timer;
@@ -10,6 +11,8 @@ import java.util.TimerTask;
 import io.rileyhe1.concurrency.DownloadManager;
 import io.rileyhe1.concurrency.Data.DownloadConfig;
 import io.rileyhe1.concurrency.Data.DownloadException;
+import io.rileyhe1.concurrency.Data.DownloadState;
+import io.rileyhe1.concurrency.Data.SavedDownload;
 import io.rileyhe1.concurrency.Util.Download;
 
 import javafx.application.Platform;
@@ -39,6 +42,7 @@ import javafx.scene.control.TextInputDialog;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
@@ -351,10 +355,11 @@ public class MainController
     {
         try
         {
-            List<Download> downloads = downloadManager.getAllDownloads();
-            for(Download download : downloads)
+            // saved downloads stay in the journal until resumed, the rows only need their id, urls and sizes
+            List<SavedDownload> downloads = downloadManager.getSavedDownloads();
+            for(SavedDownload saved : downloads)
             {
-                DownloadRow row = new DownloadRow(download);
+                DownloadRow row = new DownloadRow(saved);
                 downloadRows.add(row);
             }
 
@@ -394,7 +399,7 @@ public class MainController
     {
         int totalDownloads = downloadRows.size();
         int activeDownloads = 0;
-        long totalSpeed = 0;
+        long totalSpeed = (long) (downloadManager.getTotalBytesPerSecond() / 1024);
 
         for(DownloadRow row : downloadRows)
         {
@@ -403,12 +408,13 @@ public class MainController
         }
 
         activeDownloadsLabel.setText("Active Downloads: " + activeDownloads);
-        // placeholder for actually calculating speed as a later feature
         totalSpeedLabel.setText("Speed: " + totalSpeed + " kb/s");
 
         if(activeDownloads > 0)
         {
-            statusLabel.setText("Downloading " + activeDownloads + " file(s)...");
+            Duration eta = downloadManager.getEta();
+            String remaining = eta == null ? "" : String.format(" (%d:%02d left)", eta.toMinutes(), eta.toSecondsPart());
+            statusLabel.setText("Downloading " + activeDownloads + " file(s)..." + remaining);
         }
         else if(totalDownloads > 0)
         {
@@ -427,7 +433,7 @@ public class MainController
     {
         TextInputDialog urlDialog = new TextInputDialog();
         urlDialog.setTitle("Start a New Download");
-        urlDialog.setHeaderText("Enter download URL");
+        urlDialog.setHeaderText("Enter download URL, or the path of a Metalink (.meta4) file");
         urlDialog.setContentText("URL:");
         // Resize the dialog
         urlDialog.getDialogPane().setPrefWidth(600);  // Set preferred width
@@ -443,6 +449,13 @@ public class MainController
         }
 
         String url = urlResult.get().trim();
+        // a local .meta4 lists its own files, names and mirrors, so all that's left to ask is where they go
+        File metalink = new File(url);
+        if(url.toLowerCase().endsWith(".meta4") && metalink.isFile())
+        {
+            startMetalinkDownloads(metalink);
+            return;
+        }
         String fileExtension = url.substring(url.lastIndexOf("."));
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save Download As");
@@ -473,6 +486,30 @@ public class MainController
         }
     }
 
+    private void startMetalinkDownloads(File metalink)
+    {
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Save Metalink Downloads In");
+        if(metalink.getParentFile() != null) directoryChooser.setInitialDirectory(metalink.getParentFile());
+
+        File directory = directoryChooser.showDialog(root.getScene().getWindow());
+        if(directory == null) return;
+
+        try
+        {
+            List<Download> downloads = downloadManager.startMetalinkDownloads(metalink.getAbsolutePath(), directory.getAbsolutePath());
+            for(Download download : downloads)
+            {
+                downloadRows.add(new DownloadRow(download));
+            }
+            statusLabel.setText("Started " + downloads.size() + " Download(s) from: " + metalink.getName());
+        }
+        catch(Exception e)
+        {
+            showError("Download Error", "Failed to start Metalink downloads: " + e.getMessage());
+        }
+    }
+
     @FXML
     private void handleResumeAll(MouseEvent event)
     {
@@ -485,7 +522,8 @@ public class MainController
                 String status = row.getStatus();
                 if("PAUSED".equals(status) || "PENDING".equals(status))
                 {
-                    downloadManager.resumeDownload(row.getDownload().getId());
+                    downloadManager.resumeDownload(row.getId());
+                    row.attach(downloadManager.getDownload(row.getId()));
                     resumed++;
                 }
             }
@@ -512,7 +550,7 @@ public class MainController
             {
                 if("DOWNLOADING".equals(row.getStatus()))
                 {
-                    downloadManager.pauseDownload(row.getDownload().getId());
+                    downloadManager.pauseDownload(row.getId());
                     paused++;
                 }
             }
@@ -548,7 +586,7 @@ public class MainController
                     String status = row.getStatus();
                     if(!status.equals("CANCELLED") && !status.equals("COMPLETED"))
                     {
-                        downloadManager.cancelDownload(row.getDownload().getId());
+                        downloadManager.cancelDownload(row.getId());
                         cancelled++;   
                     }
                 }
@@ -571,7 +609,7 @@ public class MainController
     {
         try
         {
-            downloadManager.pauseDownload(row.getDownload().getId());
+            downloadManager.pauseDownload(row.getId());
             statusLabel.setText("Paused " + row.getFileName());
         }
         catch(Exception e)
@@ -585,7 +623,8 @@ public class MainController
     {
         try
         {
-            downloadManager.resumeDownload(row.getDownload().getId());
+            downloadManager.resumeDownload(row.getId());
+            row.attach(downloadManager.getDownload(row.getId()));
             statusLabel.setText("Resumed " + row.getFileName());
         }
         catch(Exception e)
@@ -599,7 +638,7 @@ public class MainController
     {
         try
         {
-            downloadManager.cancelDownload(row.getDownload().getId());
+            downloadManager.cancelDownload(row.getId());
             statusLabel.setText("Cancelled " + row.getFileName());
         }
         catch(Exception e)
@@ -796,7 +835,9 @@ public class MainController
     // inner classes //
     public static class DownloadRow
     {
-        private final Download download;
+        private final String id;
+        // null until a saved download is resumed
+        private Download download;
         private final StringProperty fileName;
         private final StringProperty url;
         private final StringProperty status;
@@ -806,6 +847,7 @@ public class MainController
 
         public DownloadRow(Download download)
         {
+            this.id = download.getId();
             this.download = download;
             this.fileName = new SimpleStringProperty(download.getDestination());
             this.url = new SimpleStringProperty(download.getUrl());
@@ -815,11 +857,31 @@ public class MainController
             this.totalBytes = new SimpleLongProperty(download.getTotalSize());
         }
 
+        public DownloadRow(SavedDownload saved)
+        {
+            this.id = saved.getId();
+            this.fileName = new SimpleStringProperty(saved.getDestination());
+            this.url = new SimpleStringProperty(saved.getUrl());
+            this.status = new SimpleStringProperty(DownloadState.PENDING.toString());
+            this.progress = new SimpleDoubleProperty(saved.getTotalSize() <= 0 ? 0.0 :
+                (double) saved.getDownloadedBytes() / saved.getTotalSize() * 100);
+            this.downloadedBytes = new SimpleLongProperty(saved.getDownloadedBytes());
+            this.totalBytes = new SimpleLongProperty(saved.getTotalSize());
+        }
+
+        public void attach(Download download)
+        {
+            if(download != null) this.download = download;
+        }
+
         public void refresh()
         {
+            if(download == null) return;
             status.set(download.getState().toString());
             progress.set(download.getProgress());
             downloadedBytes.set(download.getDownloadedBytes());
+            // a download of unknown size only gets one once it completes
+            totalBytes.set(download.getTotalSize());
         }
         
         public Download getDownload()
@@ -827,6 +889,11 @@ public class MainController
             return download;
         }
 
+        public String getId()
+        {
+            return id;
+        }
+
         public StringProperty getFileNameProperty()
         {
             return fileName;